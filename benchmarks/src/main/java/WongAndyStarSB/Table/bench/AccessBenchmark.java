@@ -0,0 +1,137 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.FrozenTable;
+import WongAndyStarSB.Table.Table;
+import WongAndyStarSB.Table.TableView;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AccessBenchmark extends TableShapeState {
+
+    private Table<Integer> table;
+    private FrozenTable<Integer> frozen;
+    private Integer[] values;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        initShape();
+        table = createFilled(rows, cols);
+        frozen = table.freeze();
+        values = createSeq(cols, 7);
+    }
+
+    @Benchmark
+    public void getAll(Blackhole bh) {
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                bh.consume(table.get(r, c));
+            }
+        }
+    }
+
+    @Benchmark
+    public void setAll() {
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                table.set(r, c, values[c]);
+            }
+        }
+    }
+
+    @Benchmark
+    public void getRowCloneAll(Blackhole bh) {
+        for (int r = 0; r < rows; ++r) {
+            bh.consume(table.getRowClone(r));
+        }
+    }
+
+    @Benchmark
+    public void getColCloneAll(Blackhole bh) {
+        for (int c = 0; c < cols; ++c) {
+            bh.consume(table.getColClone(c));
+        }
+    }
+
+    // reads every cell row by row, through getRowClone and through one row view slid over the rows
+    @Benchmark
+    public long sumRowsByClone() {
+        long sum = 0;
+        for (int r = 0; r < rows; ++r) {
+            Integer[] row = table.getRowClone(r);
+            for (int c = 0; c < cols; ++c) {
+                sum += row[c];
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sumRowsByView() {
+        long sum = 0;
+        TableView<Integer> row = table.getRowView(0);
+        for (int r = 0; r < rows; ++r) {
+            row.moveTo(r, 0);
+            for (int c = 0; c < cols; ++c) {
+                sum += row.get(0, c);
+            }
+        }
+        return sum;
+    }
+
+    // every cell through the checked get vs the frozen table's unchecked accessor
+    @Benchmark
+    public long sumAllByGet() {
+        long sum = 0;
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                sum += table.get(r, c);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sumAllFrozenUnchecked() {
+        long sum = 0;
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                sum += frozen.getUnchecked(r, c);
+            }
+        }
+        return sum;
+    }
+
+    // the same sum through the row-splitting spliterator and the fork-join reduce
+    @Benchmark
+    public long sumAllByStream() {
+        return table.stream().mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long sumAllByParallelStream() {
+        return table.parallelStream().mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long sumAllByReduce() {
+        return table.reduce(0L, (sum, val) -> sum + val, Long::sum);
+    }
+
+    // bulk writes: one pass over the backing rows vs set() per cell
+    @Benchmark
+    public Table<Integer> replaceAllIncrement() {
+        return table.replaceAll(val -> val + 1);
+    }
+
+    @Benchmark
+    public Table<Integer> fillAll() {
+        return table.fill(values[0]);
+    }
+}
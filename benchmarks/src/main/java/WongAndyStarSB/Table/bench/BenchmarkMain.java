@@ -0,0 +1,36 @@
+package WongAndyStarSB.Table.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Entry point of benchmarks.jar: same arguments as the JMH runner, but results are
+// written as JSON to bench-results/ unless a result format/file is given explicitly.
+public class BenchmarkMain {
+
+    static final Path defaultResultDir = Path.of("bench-results");
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if (!jmhArgs.contains("-rf")) {
+            jmhArgs.add("-rf");
+            jmhArgs.add("json");
+        }
+        if (!jmhArgs.contains("-rff")) {
+            jmhArgs.add("-rff");
+            jmhArgs.add(defaultResultFile().toString());
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+    }
+
+    private static Path defaultResultFile() throws IOException {
+        Files.createDirectories(defaultResultDir);
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        return defaultResultDir.resolve("jmh-" + stamp + ".json");
+    }
+}
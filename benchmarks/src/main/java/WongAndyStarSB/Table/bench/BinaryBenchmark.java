@@ -0,0 +1,76 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.MappedTable;
+import WongAndyStarSB.Table.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BinaryBenchmark extends TableShapeState {
+
+    private Table<Integer> table;
+    private Path binaryFile;
+    private Path scratchFile;
+    private MappedTable<Integer> mapped;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        initShape();
+        table = createFilled(rows, cols);
+        binaryFile = Files.createTempFile("table", ".wtbl");
+        scratchFile = Files.createTempFile("table", ".out");
+        table.writeBinary(binaryFile);
+        mapped = MappedTable.open(binaryFile, Integer.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(binaryFile);
+        Files.deleteIfExists(scratchFile);
+    }
+
+    // persisting: binary vs the text repr
+    @Benchmark
+    public void writeBinary() throws IOException {
+        table.writeBinary(scratchFile);
+    }
+
+    @Benchmark
+    public void writeRepr() throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(scratchFile))) {
+            table.writeRepr(out);
+        }
+    }
+
+    // reopening: mapping only vs decoding every cell
+    @Benchmark
+    public MappedTable<Integer> openMapped() throws IOException {
+        return MappedTable.open(binaryFile, Integer.class);
+    }
+
+    @Benchmark
+    public Table<Integer> openMappedToTable() throws IOException {
+        return MappedTable.open(binaryFile, Integer.class).toTable();
+    }
+
+    @Benchmark
+    public long sumAllMapped() {
+        long sum = 0;
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                sum += mapped.get(r, c);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,109 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.ConcurrentTable;
+import WongAndyStarSB.Table.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// throughput of mixed readers/writers on one shared table:
+//  concurrent:   ConcurrentTable (optimistic reads, row-block striped writes)
+//  synchronized: a plain Table behind one monitor
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Group)
+public class ConcurrentBenchmark {
+
+    @Param({"concurrent", "synchronized"})
+    public String impl;
+
+    @Param({"1000"})
+    public int rows;
+
+    @Param({"100"})
+    public int cols;
+
+    private Table<Integer> table;
+    private boolean locked;
+    private Integer[] rowVals;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Table<Integer> filled = TableShapeState.createFilled(rows, cols);
+        locked = impl.equals("synchronized");
+        table = locked ? filled : ConcurrentTable.createCopy(filled);
+        rowVals = TableShapeState.createSeq(cols, 7);
+    }
+
+    // per-thread position, so threads don't all hit the same row
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = (int) (Thread.currentThread().getId() * 7919);
+
+        int nextRow(final int rows) {
+            next = next * 1103515245 + 12345;
+            return (next >>> 8) % rows;
+        }
+    }
+
+    // cells: 3 readers, 1 writer
+
+    @Benchmark
+    @Group("cells")
+    @GroupThreads(3)
+    public Integer cellsGet(Cursor cursor) {
+        final int r = cursor.nextRow(rows);
+        if (locked) {
+            synchronized (table) {
+                return table.get(r, r % cols);
+            }
+        }
+        return table.get(r, r % cols);
+    }
+
+    @Benchmark
+    @Group("cells")
+    @GroupThreads(1)
+    public void cellsSet(Cursor cursor) {
+        final int r = cursor.nextRow(rows);
+        if (locked) {
+            synchronized (table) {
+                table.set(r, r % cols, r);
+            }
+            return;
+        }
+        table.set(r, r % cols, r);
+    }
+
+    // rows: 2 readers, 2 writers
+
+    @Benchmark
+    @Group("rows")
+    @GroupThreads(2)
+    public Integer[] rowsGet(Cursor cursor) {
+        final int r = cursor.nextRow(rows);
+        if (locked) {
+            synchronized (table) {
+                return table.getRowClone(r);
+            }
+        }
+        return table.getRowClone(r);
+    }
+
+    @Benchmark
+    @Group("rows")
+    @GroupThreads(2)
+    public void rowsSet(Cursor cursor) {
+        final int r = cursor.nextRow(rows);
+        if (locked) {
+            synchronized (table) {
+                table.setRow(r, rowVals);
+            }
+            return;
+        }
+        table.setRow(r, rowVals);
+    }
+}
@@ -0,0 +1,60 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.ReadableTable;
+import WongAndyStarSB.Table.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CopyBenchmark extends TableShapeState {
+
+    private Table<Integer> table;
+    private Integer[][] arr2d;
+    private Integer[] rowVals;
+    private int nextRow = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        initShape();
+        table = createFilled(rows, cols);
+        arr2d = createArr(rows, cols);
+        rowVals = createSeq(cols, 7);
+    }
+
+    @Benchmark
+    public Table<Integer> copy() {
+        return table.copy();
+    }
+
+    @Benchmark
+    public Table<Integer> copyAndTrim() {
+        return table.copyAndTrim();
+    }
+
+    @Benchmark
+    public Table<Integer> createFromArr() {
+        return Table.createFromArr(Integer.class, arr2d);
+    }
+
+    // publishing a version and then writing one row: full copy vs copy-on-write snapshot
+    @Benchmark
+    public ReadableTable<Integer> copyThenSetRow() {
+        ReadableTable<Integer> version = table.copy();
+        table.setRow(nextRow, rowVals);
+        nextRow = (nextRow + 1) % rows;
+        return version;
+    }
+
+    @Benchmark
+    public ReadableTable<Integer> snapshotThenSetRow() {
+        ReadableTable<Integer> version = table.snapshot();
+        table.setRow(nextRow, rowVals);
+        nextRow = (nextRow + 1) % rows;
+        return version;
+    }
+}
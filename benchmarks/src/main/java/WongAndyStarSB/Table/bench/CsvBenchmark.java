@@ -0,0 +1,70 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.Table;
+import WongAndyStarSB.Table.TableCsv;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CsvBenchmark extends TableShapeState {
+
+    private Table<Integer> table;
+    private TableCsv csv;
+    private Path csvFile;
+    private Path scratchFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        initShape();
+        table = createFilled(rows, cols);
+        csv = TableCsv.createCsv();
+        csvFile = Files.createTempFile("table", ".csv");
+        scratchFile = Files.createTempFile("table", ".out");
+        csv.write(table, csvFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+        Files.deleteIfExists(scratchFile);
+    }
+
+    // streaming straight into the table vs lines -> Integer[][] -> createFromArr
+    @Benchmark
+    public Table<Integer> readStreaming() throws IOException {
+        return csv.read(csvFile, Integer.class);
+    }
+
+    @Benchmark
+    public Table<Integer> readViaArr() throws IOException {
+        List<Integer[]> rowList = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(csvFile)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",", -1);
+                Integer[] row = new Integer[fields.length];
+                for (int c = 0; c < fields.length; ++c) {
+                    row[c] = fields[c].isEmpty() ? null : Integer.valueOf(fields[c]);
+                }
+                rowList.add(row);
+            }
+        }
+        return Table.createFromArr(Integer.class, rowList.toArray(new Integer[0][]));
+    }
+
+    @Benchmark
+    public void writeStreaming() throws IOException {
+        csv.write(table, scratchFile);
+    }
+}
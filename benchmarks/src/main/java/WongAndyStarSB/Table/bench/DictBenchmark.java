@@ -0,0 +1,77 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.DictTable;
+import WongAndyStarSB.Table.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class DictBenchmark extends TableShapeState {
+
+    // distinct values, like subject codes or room names
+    @Param({"32"})
+    public int vocabulary;
+
+    private Table<String> table;
+    private Table<String> otherTable;
+    private DictTable<String> dict;
+    private DictTable<String> otherDict;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        initShape();
+        table = createVocabularyTable(rows, cols, vocabulary);
+        // equal content in separate String instances, as if loaded twice
+        otherTable = createVocabularyTable(rows, cols, vocabulary);
+        dict = DictTable.createCopy(table);
+        otherDict = DictTable.createCopy(otherTable);
+    }
+
+    static Table<String> createVocabularyTable(final int rows, final int cols, final int vocabulary) {
+        Table<String> result = Table.createWithSize(String.class, rows, cols);
+        Random random = new Random(42);
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                result.set(r, c, new StringBuilder("ROOM-").append(random.nextInt(vocabulary)).toString());
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public boolean equalsDict() {
+        return dict.equals(otherDict);
+    }
+
+    @Benchmark
+    public boolean equalsTable() {
+        return table.equals(otherTable);
+    }
+
+    @Benchmark
+    public int hashCodeDict() {
+        return dict.hashCode();
+    }
+
+    @Benchmark
+    public int hashCodeTable() {
+        return table.hashCode();
+    }
+
+    // a fresh copy renders every cell (no formatter state carried over)
+    @Benchmark
+    public String toStringDict() {
+        return dict.copy().toString();
+    }
+
+    @Benchmark
+    public String toStringTable() {
+        return table.copy().toString();
+    }
+}
@@ -0,0 +1,55 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.Table;
+import WongAndyStarSB.Table.TableFormatter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class FormatBenchmark extends TableShapeState {
+
+    private Table<Integer> table;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        initShape();
+        table = createFilled(rows, cols);
+    }
+
+    // cached column widths, only the rendering itself
+    @Benchmark
+    public String getTableRepr() {
+        return table.getFormatter().getTableRepr();
+    }
+
+    // one cell edit between renders, only that column's width is refreshed
+    @Benchmark
+    public String getTableReprAfterSet() {
+        table.set(rows / 2, cols / 2, rows);
+        return table.getFormatter().getTableRepr();
+    }
+
+    // streamed in chunks, nothing is materialized
+    @Benchmark
+    public void appendTableReprToWriter() throws IOException {
+        table.getFormatter().appendTableRepr(Writer.nullWriter());
+    }
+
+    // fresh formatter, includes the column width scan
+    @Benchmark
+    public String getTableReprCold() {
+        return TableFormatter.createDefaultFrom(table).getTableRepr();
+    }
+
+    @Benchmark
+    public int[] calDataMatColWidths() {
+        return TableFormatter.createDefaultFrom(table).calDataMatColWidths();
+    }
+}
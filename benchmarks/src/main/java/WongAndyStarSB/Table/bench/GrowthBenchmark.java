@@ -0,0 +1,86 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.Table;
+import WongAndyStarSB.Table.TableLayout;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class GrowthBenchmark extends TableShapeState {
+
+    @Param({"ROW_MAJOR", "COL_MAJOR", "CHUNKED"})
+    public TableLayout layout;
+
+    private Integer[] row;
+    private Integer[] col;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        initShape();
+        row = createSeq(cols, 0);
+        col = createSeq(rows, 0);
+    }
+
+    // one addRow per row, starting from an empty table
+    @Benchmark
+    public Table<Integer> addRowSequence() {
+        Table<Integer> table = Table.createWithLayout(Integer.class, 0, 0, layout);
+        table.addCols(cols);
+        for (int r = 0; r < rows; ++r) {
+            table.addRow(row);
+        }
+        return table;
+    }
+
+    // one addCol per column, starting from an empty table
+    @Benchmark
+    public Table<Integer> addColSequence() {
+        Table<Integer> table = Table.createWithLayout(Integer.class, 0, 0, layout);
+        table.addRows(rows);
+        for (int c = 0; c < cols; ++c) {
+            table.addCol(col);
+        }
+        return table;
+    }
+
+    // one insertRow per row, always in the middle of what is there so far
+    @Benchmark
+    public Table<Integer> insertRowMiddleSequence() {
+        Table<Integer> table = Table.createWithLayout(Integer.class, 0, 0, layout);
+        table.addCols(cols);
+        for (int r = 0; r < rows; ++r) {
+            table.insertRow(r / 2, row);
+        }
+        return table;
+    }
+
+    @Benchmark
+    public Table<Integer> insertColMiddleSequence() {
+        Table<Integer> table = Table.createWithLayout(Integer.class, 0, 0, layout);
+        table.addRows(rows);
+        for (int c = 0; c < cols; ++c) {
+            table.insertCol(c / 2, col);
+        }
+        return table;
+    }
+
+    @Benchmark
+    public Table<Integer> addRowsThenColsBulk() {
+        Table<Integer> table = Table.createWithLayout(Integer.class, 0, 0, layout);
+        table.addRows(rows);
+        table.addCols(cols);
+        return table;
+    }
+
+    @Benchmark
+    public Table<Integer> reallocateDouble() {
+        Table<Integer> table = Table.createWithLayout(Integer.class, rows, cols, layout);
+        table.reallocate(table.getRowCapacity() * 2, table.getColCapacity() * 2);
+        return table;
+    }
+}
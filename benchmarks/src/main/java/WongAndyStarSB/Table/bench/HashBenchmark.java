@@ -0,0 +1,80 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.FrozenTable;
+import WongAndyStarSB.Table.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class HashBenchmark extends TableShapeState {
+
+    private Table<Integer> table;
+    private Table<Integer> equalTable;
+    private Table<Integer> lastCellDiffTable;
+    private FrozenTable<Integer> frozen;
+    private FrozenTable<Integer> lastCellDiffFrozen;
+    private Table<Integer> tracked;
+    private Table<Integer> lastCellDiffTracked;
+    private int nextVal = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        initShape();
+        table = createFilled(rows, cols);
+        equalTable = createFilled(rows, cols);
+        lastCellDiffTable = createFilled(rows, cols);
+        lastCellDiffTable.set(rows - 1, cols - 1, -1);
+        frozen = table.freeze();
+        lastCellDiffFrozen = lastCellDiffTable.freeze();
+        tracked = createFilled(rows, cols).setHashTracking(true);
+        lastCellDiffTracked = lastCellDiffTable.copy().setHashTracking(true);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetTracked() {
+        tracked.set(0, 0, 0);
+    }
+
+    @Benchmark
+    public int hashCodeFull() {
+        return table.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsEqual() {
+        return table.equals(equalTable);
+    }
+
+    @Benchmark
+    public boolean equalsLastCellDiffers() {
+        return table.equals(lastCellDiffTable);
+    }
+
+    // frozen tables: the hash is precomputed, a hash mismatch ends equals early
+    @Benchmark
+    public int hashCodeFrozen() {
+        return frozen.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsFrozenLastCellDiffers() {
+        return frozen.equals(lastCellDiffFrozen);
+    }
+
+    // hash-tracking tables: each set adjusts the hash, hashCode() is O(1)
+    @Benchmark
+    public int setThenHashCodeTracked() {
+        tracked.set(rows / 2, cols / 2, nextVal++);
+        return tracked.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsTrackedLastCellDiffers() {
+        return tracked.equals(lastCellDiffTracked);
+    }
+}
@@ -0,0 +1,59 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class IndexBenchmark extends TableShapeState {
+
+    // distinct values per column, like teachers or rooms
+    @Param({"200"})
+    public int vocabulary;
+
+    private Table<Integer> indexed;
+    private Table<Integer> plain;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        initShape();
+        plain = Table.createWithSize(Integer.class, rows, cols);
+        Random init = new Random(42);
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                plain.set(r, c, init.nextInt(vocabulary));
+            }
+        }
+        indexed = plain.copy().addIndex(0);
+        random = new Random(7);
+    }
+
+    // "which rows have teacher X in column 0"
+    @Benchmark
+    public int[] findRowsIndexed() {
+        return indexed.findRows(0, random.nextInt(vocabulary));
+    }
+
+    @Benchmark
+    public int[] findRowsScan() {
+        return plain.findRows(0, random.nextInt(vocabulary));
+    }
+
+    // the cost the index adds to a write on its column
+    @Benchmark
+    public Table<Integer> setIndexed() {
+        return indexed.set(random.nextInt(rows), 0, random.nextInt(vocabulary));
+    }
+
+    @Benchmark
+    public Table<Integer> setPlain() {
+        return plain.set(random.nextInt(rows), 0, random.nextInt(vocabulary));
+    }
+}
@@ -0,0 +1,71 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class JoinBenchmark extends TableShapeState {
+
+    // rows of the lookup table, like teachers or rooms
+    @Param({"200"})
+    public int vocabulary;
+
+    private Table<Integer> schedule;
+    private Table<Integer> lookup;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        initShape();
+        schedule = Table.createWithSize(Integer.class, rows, cols);
+        Random init = new Random(42);
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                schedule.set(r, c, init.nextInt(vocabulary));
+            }
+        }
+        // id, then two attributes
+        lookup = Table.createWithSize(Integer.class, vocabulary, 3);
+        for (int r = 0; r < vocabulary; ++r) {
+            lookup.set(r, 0, r);
+            lookup.set(r, 1, init.nextInt(1000));
+            lookup.set(r, 2, init.nextInt(1000));
+        }
+    }
+
+    @Benchmark
+    public Table<Integer> hashJoin() {
+        return schedule.innerJoin(lookup, 0, 0);
+    }
+
+    @Benchmark
+    public long streamJoin() {
+        return schedule.joinStream(lookup, new int[] { 0 }, new int[] { 0 }, false).count();
+    }
+
+    // what callers did before: for every schedule row, every lookup row
+    @Benchmark
+    public Table<Integer> nestedLoopJoin() {
+        Table<Integer> result = Table.createWithCapacity(Integer.class, 0, cols + 2).addCols(cols + 2);
+        Integer[] row = new Integer[cols + 2];
+        for (int r = 0; r < rows; ++r) {
+            for (int l = 0; l < vocabulary; ++l) {
+                if (schedule.get(r, 0).equals(lookup.get(l, 0))) {
+                    for (int c = 0; c < cols; ++c) {
+                        row[c] = schedule.get(r, c);
+                    }
+                    row[cols] = lookup.get(l, 1);
+                    row[cols + 1] = lookup.get(l, 2);
+                    result.addRow(row);
+                }
+            }
+        }
+        return result;
+    }
+}
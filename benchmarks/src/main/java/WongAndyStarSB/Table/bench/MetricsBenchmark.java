@@ -0,0 +1,60 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.Table;
+import WongAndyStarSB.Table.TableMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class MetricsBenchmark {
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    @Param({"1000"})
+    public int rows;
+
+    @Param({"8"})
+    public int cols;
+
+    private Integer[] row;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TableMetrics.setEnabled(metrics);
+        TableMetrics.resetStats();
+        row = new Integer[cols];
+        for (int c = 0; c < cols; ++c) {
+            row[c] = c;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (metrics) {
+            System.out.printf("%n%s%n", TableMetrics.getSummary());
+        }
+        TableMetrics.setEnabled(false);
+    }
+
+    // one structural edit per row, a few reallocs, a copy and a removal per row: the hooks on the hottest paths
+    @Benchmark
+    public Table<Integer> addRowsCopyRemove() {
+        Table<Integer> table = Table.createWithCapacity(Integer.class, 4, cols);
+        table.addCols(cols);
+        for (int r = 0; r < rows; ++r) {
+            table.addRow(row);
+        }
+        Table<Integer> copy = table.copy();
+        for (int r = rows - 1; r >= 0; r -= 2) {
+            copy.removeRow(r);
+        }
+        return copy;
+    }
+}
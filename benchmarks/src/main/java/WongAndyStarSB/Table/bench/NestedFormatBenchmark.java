@@ -0,0 +1,46 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Table<Table> rendering as in Main, with and without the rendered-cell cache
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class NestedFormatBenchmark {
+
+    @Param({"4", "16", "64"})
+    public int outerSize;
+
+    @Param({"4", "16"})
+    public int innerSize;
+
+    @Param({"true", "false"})
+    public boolean reprCache;
+
+    @SuppressWarnings("rawtypes")
+    private Table<Table> table;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        table = Table.createWithSize(Table.class, outerSize, outerSize);
+        for (int r = 0; r < outerSize; ++r) {
+            for (int c = 0; c < outerSize; ++c) {
+                table.set(r, c, TableShapeState.createFilled(innerSize, innerSize));
+            }
+        }
+        if (!reprCache) {
+            table.getFormatter().setReprCache(null);
+        }
+    }
+
+    @Benchmark
+    public String toStringUnchanged() {
+        return table.toString();
+    }
+}
@@ -0,0 +1,66 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.Table;
+import WongAndyStarSB.Table.TableArrayPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class PoolBenchmark {
+
+    @Param({"false", "true"})
+    public boolean pooled;
+
+    // rows each short-lived table grows to, one at a time
+    @Param({"200"})
+    public int rows;
+
+    @Param({"16"})
+    public int cols;
+
+    private Integer[] row;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TableArrayPool.setEnabled(pooled);
+        TableArrayPool.clear();
+        TableArrayPool.resetStats();
+        row = new Integer[cols];
+        for (int c = 0; c < cols; ++c) {
+            row[c] = c;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pooled) {
+            System.out.printf("%npool hit rate %.3f (hits %d, misses %d, dropped %d)%n",
+                    TableArrayPool.getHitRate(), TableArrayPool.getHits(), TableArrayPool.getMisses(), TableArrayPool.getDropped());
+        }
+        TableArrayPool.setEnabled(false);
+        TableArrayPool.clear();
+    }
+
+    // a table built row by row (several reallocations), copied, transposed and dropped
+    @Benchmark
+    public int growCopyRelease() {
+        Table<Integer> table = Table.createWithCapacity(Integer.class, 4, cols);
+        table.addCols(cols);
+        for (int r = 0; r < rows; ++r) {
+            table.addRow(row);
+        }
+        Table<Integer> copy = table.copy();
+        Table<Integer> transposed = table.transpose();
+        final int result = copy.getNumRows() + transposed.getNumRows();
+        copy.release();
+        transposed.release();
+        table.release();
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class QueryBenchmark extends TableShapeState {
+
+    @Param({"200"})
+    public int vocabulary;
+
+    private Table<Integer> table;
+    private int lastCol;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        initShape();
+        table = Table.createWithSize(Integer.class, rows, cols);
+        Random init = new Random(42);
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                table.set(r, c, init.nextInt(vocabulary));
+            }
+        }
+        lastCol = cols - 1;
+    }
+
+    // "col 0 and the last col of the rows whose col 0 is below a tenth of the values"
+    @Benchmark
+    public Table<Integer> filterProjectQuery() {
+        return table.query()
+                .where(0, v -> v < vocabulary / 10)
+                .select(0, lastCol)
+                .execute();
+    }
+
+    // the hand-written version: filtered table first, then the projection
+    @Benchmark
+    public Table<Integer> filterProjectLoops() {
+        int matches = 0;
+        for (int r = 0; r < rows; ++r) {
+            if (table.get(r, 0) < vocabulary / 10) {
+                ++matches;
+            }
+        }
+        Table<Integer> filtered = Table.createWithSize(Integer.class, matches, cols);
+        int dst = 0;
+        for (int r = 0; r < rows; ++r) {
+            if (table.get(r, 0) < vocabulary / 10) {
+                for (int c = 0; c < cols; ++c) {
+                    filtered.set(dst, c, table.get(r, c));
+                }
+                ++dst;
+            }
+        }
+        Table<Integer> projected = Table.createWithSize(Integer.class, matches, 2);
+        for (int r = 0; r < matches; ++r) {
+            projected.set(r, 0, filtered.get(r, 0));
+            projected.set(r, 1, filtered.get(r, lastCol));
+        }
+        return projected;
+    }
+
+    // "sum of the last col per value of col 0"
+    @Benchmark
+    public Table<Integer> groupSumQuery() {
+        return table.query()
+                .groupBy(0)
+                .aggregate(lastCol, Collectors.summingInt(Integer::intValue))
+                .execute();
+    }
+
+    @Benchmark
+    public Table<Integer> groupSumLoops() {
+        HashMap<Integer, Integer> sums = new HashMap<>();
+        for (int r = 0; r < rows; ++r) {
+            sums.merge(table.get(r, 0), table.get(r, lastCol), Integer::sum);
+        }
+        Table<Integer> result = Table.createWithSize(Integer.class, sums.size(), 2);
+        int r = 0;
+        for (HashMap.Entry<Integer, Integer> entry : sums.entrySet()) {
+            result.set(r, 0, entry.getKey());
+            result.set(r, 1, entry.getValue());
+            ++r;
+        }
+        return result;
+    }
+}
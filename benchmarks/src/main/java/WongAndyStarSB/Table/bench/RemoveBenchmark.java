@@ -0,0 +1,70 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.Table;
+import WongAndyStarSB.Table.TableEdit;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, batchSize = 1)
+@Measurement(iterations = 20, batchSize = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RemoveBenchmark extends TableShapeState {
+
+    private Table<Integer> source;
+    private Table<Integer> table;
+
+    @Setup(Level.Trial)
+    public void setupSource() {
+        initShape();
+        source = createFilled(rows, cols);
+    }
+
+    // every removal gets a fresh copy, the copy is not part of the measurement
+    @Setup(Level.Iteration)
+    public void setupTable() {
+        table = source.copy();
+    }
+
+    @Benchmark
+    public Table<Integer> removeFirstRow() {
+        return table.removeRow(0);
+    }
+
+    @Benchmark
+    public Table<Integer> removeLastRow() {
+        return table.removeRow(rows - 1);
+    }
+
+    @Benchmark
+    public Table<Integer> removeFirstCol() {
+        return table.removeCol(0);
+    }
+
+    @Benchmark
+    public Table<Integer> removeLastCol() {
+        return table.removeCol(cols - 1);
+    }
+
+    @Benchmark
+    public Table<Integer> removeFirstHalfRows() {
+        return table.removeRows(0, rows / 2);
+    }
+
+    // a diff-like batch: drop every 10th row and col, insert a row and a col in the middle
+    @Benchmark
+    public Table<Integer> editRemoveEveryTenth() {
+        TableEdit<Integer> edit = table.beginEdit();
+        for (int r = 0; r < rows; r += 10) {
+            edit.removeRow(r);
+        }
+        for (int c = 0; c < cols; c += 10) {
+            edit.removeCol(c);
+        }
+        edit.insertRows(rows / 2, 1);
+        edit.insertCols(cols / 2, 1);
+        return edit.apply();
+    }
+}
@@ -0,0 +1,77 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SortBenchmark extends TableShapeState {
+
+    @Param({"200"})
+    public int vocabulary;
+
+    private Table<Integer> table;
+    private Table<Integer> indexed;
+    private Table<Integer> plain;
+    private Random random;
+    // every call sorts by the other column, so the rows are never in order already
+    private int sortCol;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        initShape();
+        table = Table.createWithSize(Integer.class, rows, cols);
+        Random init = new Random(42);
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                table.set(r, c, init.nextInt(vocabulary));
+            }
+        }
+        plain = table.copy();
+        indexed = table.copy().addOrderedIndex(0, Comparator.naturalOrder());
+        random = new Random(7);
+    }
+
+    @Benchmark
+    public Table<Integer> sortRowsInPlace() {
+        sortCol = (sortCol == 0) ? Math.min(1, cols - 1) : 0;
+        return table.sortRows(sortCol, Comparator.naturalOrder());
+    }
+
+    // what callers did before: rows out, sort, rows back in
+    @Benchmark
+    public Table<Integer> sortRowsByExport() {
+        sortCol = (sortCol == 0) ? Math.min(1, cols - 1) : 0;
+        final int col = sortCol;
+        Integer[][] exported = new Integer[rows][];
+        for (int r = 0; r < rows; ++r) {
+            exported[r] = table.getRowClone(r);
+        }
+        Arrays.sort(exported, Comparator.comparing(row -> row[col]));
+        for (int r = 0; r < rows; ++r) {
+            table.setRow(r, exported[r]);
+        }
+        return table;
+    }
+
+    // "rows whose column 0 lies in [lo, lo + 4]"
+    @Benchmark
+    public int[] rangeIndexed() {
+        final int lo = random.nextInt(vocabulary);
+        return indexed.findRowsInRange(0, lo, lo + 4);
+    }
+
+    @Benchmark
+    public int[] rangeScan() {
+        final int lo = random.nextInt(vocabulary);
+        return plain.findRowsInRange(0, lo, lo + 4, Comparator.naturalOrder());
+    }
+}
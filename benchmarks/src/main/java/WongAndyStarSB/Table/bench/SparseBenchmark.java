@@ -0,0 +1,106 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.SparseTable;
+import WongAndyStarSB.Table.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SparseBenchmark extends TableShapeState {
+
+    // fraction of non-null cells
+    @Param({"0.01"})
+    public double density;
+
+    private Table<Integer> dense;
+    private SparseTable<Integer> sparse;
+    private int toggle = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        initShape();
+        dense = Table.createWithSize(Integer.class, rows, cols);
+        Random random = new Random(42);
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                if (random.nextDouble() < density) {
+                    dense.set(r, c, r * cols + c);
+                }
+            }
+        }
+        sparse = SparseTable.createCopy(dense);
+    }
+
+    // skipping the empty cells vs reading all of them
+    @Benchmark
+    public long sumNonNullSparse() {
+        long[] sum = {0};
+        sparse.forEachNonNull((r, c, val) -> sum[0] += val);
+        return sum[0];
+    }
+
+    @Benchmark
+    public long sumNonNullDense() {
+        long sum = 0;
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                Integer val = dense.get(r, c);
+                if (val != null) {
+                    sum += val;
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long getAllSparse() {
+        long sum = 0;
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                Integer val = sparse.get(r, c);
+                if (val != null) {
+                    sum += val;
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Table<Integer> copySparse() {
+        return sparse.copy();
+    }
+
+    @Benchmark
+    public Table<Integer> copyDense() {
+        return dense.copy();
+    }
+
+    // a first render after a structural change: every col width is rebuilt
+    @Benchmark
+    public String toStringAfterResizeSparse() {
+        doToggleLastCol(sparse);
+        return sparse.toString();
+    }
+
+    @Benchmark
+    public String toStringAfterResizeDense() {
+        doToggleLastCol(dense);
+        return dense.toString();
+    }
+
+    private void doToggleLastCol(final Table<Integer> table) {
+        if ((toggle++ & 1) == 0) {
+            table.addCols(1);
+        } else {
+            table.removeCol(table.getNumCols() - 1);
+        }
+    }
+}
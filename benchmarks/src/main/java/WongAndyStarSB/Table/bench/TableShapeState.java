@@ -0,0 +1,73 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.Table;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+// shared shape parameters, benchmark classes extend this and read rows/cols in their own @Setup
+@State(Scope.Benchmark)
+public abstract class TableShapeState {
+
+    // tall: many rows and few columns, wide: the other way round, square: rows == cols (rounded)
+    @Param({"tall", "wide", "square"})
+    public String shape;
+
+    @Param({"1000", "100000", "10000000"})
+    public int cells;
+
+    protected int rows;
+    protected int cols;
+
+    protected void initShape() {
+        rows = rowsOf(shape, cells);
+        cols = colsOf(shape, cells);
+    }
+
+    static final int narrowSide = 10;
+
+    static int rowsOf(final String shape, final int cells) {
+        switch (shape) {
+            case "tall":
+                return cells / narrowSide;
+            case "wide":
+                return narrowSide;
+            case "square":
+                return (int) Math.round(Math.sqrt(cells));
+            default:
+                throw new IllegalArgumentException("UnknownShape: " + shape);
+        }
+    }
+
+    static int colsOf(final String shape, final int cells) {
+        return cells / rowsOf(shape, cells);
+    }
+
+    static Integer[][] createArr(final int rows, final int cols) {
+        Integer[][] arr2d = new Integer[rows][cols];
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                arr2d[r][c] = r * cols + c;
+            }
+        }
+        return arr2d;
+    }
+
+    static Table<Integer> createFilled(final int rows, final int cols) {
+        Table<Integer> table = Table.createWithSize(Integer.class, rows, cols);
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                table.set(r, c, r * cols + c);
+            }
+        }
+        return table;
+    }
+
+    static Integer[] createSeq(final int len, final int offset) {
+        Integer[] result = new Integer[len];
+        for (int i = 0; i < len; ++i) {
+            result[i] = offset + i;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,33 @@
+package WongAndyStarSB.Table.bench;
+
+import WongAndyStarSB.Table.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TransposeBenchmark extends TableShapeState {
+
+    private Table<Integer> table;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        initShape();
+        table = createFilled(rows, cols);
+    }
+
+    @Benchmark
+    public Table<Integer> transpose() {
+        return table.transpose();
+    }
+
+    // flips between the two shapes on every call
+    @Benchmark
+    public Table<Integer> beTransposed() {
+        return table.beTransposed();
+    }
+}
@@ -0,0 +1,164 @@
+package WongAndyStarSB.Table;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Multi-threaded stress run for ConcurrentTable, fails on the first violation.
+// Runs for stress.seconds (default 2) with stress.threads threads (default max(4, cores)):
+//  mvn -B verify -Dstress.seconds=30
+// Writers only ever write uniform rows (every cell of a row holds the same value), while a structure thread
+// appends/removes/inserts rows and cols and reallocates. Readers check that
+//  - no read throws anything but the documented IllegalArgumentException for an index that just went away
+//  - every row read through getRowClone is uniform (no half-written rows, no wrong stride after a realloc)
+class ConcurrentTableStressTest {
+
+    static final int initialRows = 256;
+    static final int initialCols = 16;
+
+    // lower bounds on the work done, far below what any machine reaches in a second
+    static final long minReads = 1000;
+    static final long minWrites = 100;
+    static final long minStructural = 10;
+    // a thread still running this long after the stop is taken as a deadlock
+    static final long joinGraceMillis = 30_000;
+
+    @Test
+    void uniformRowsSurviveConcurrentWritesAndStructuralChanges() throws Throwable {
+        final long seconds = Long.getLong("stress.seconds", 2);
+        final int numThreads = Integer.getInteger("stress.threads", Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+        final ConcurrentTable<Long> table = ConcurrentTable.createWithSize(Long.class, initialRows, initialCols, 0L);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicLong numReads = new AtomicLong();
+        final AtomicLong numWrites = new AtomicLong();
+        final AtomicLong numStructural = new AtomicLong();
+
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; ++i) {
+            final int role = i % 4; // 0: structure, 1: writer, 2 and 3: readers
+            threads[i] = new Thread(() -> {
+                try {
+                    while (running.get() && failure.get() == null) {
+                        switch (role) {
+                            case 0 -> { doStructuralOp(table); numStructural.incrementAndGet(); }
+                            case 1 -> { doWrite(table); numWrites.incrementAndGet(); }
+                            default -> { doRead(table); numReads.incrementAndGet(); }
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            }, "stress-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        Thread.sleep(seconds * 1000);
+        running.set(false);
+        final long deadline = System.currentTimeMillis() + joinGraceMillis;
+        for (Thread thread : threads) {
+            thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            if (thread.isAlive()) {
+                throw new AssertionError(String.format(
+                        "Deadlock: %s still running %d ms after the stop", thread.getName(), joinGraceMillis));
+            }
+        }
+
+        // final state has to be uniform per row as well
+        for (int r = 0; r < table.getNumRows() && failure.get() == null; ++r) {
+            try {
+                checkUniform(table.getRowClone(r), r);
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        // every role has to have made progress, a stalled worker would pass the checks above vacuously
+        assertTrue(numReads.get() >= minReads, () -> "too few reads: " + numReads.get());
+        assertTrue(numWrites.get() >= minWrites, () -> "too few row writes: " + numWrites.get());
+        assertTrue(numStructural.get() >= minStructural, () -> "too few structural changes: " + numStructural.get());
+    }
+
+    private static void doStructuralOp(final ConcurrentTable<Long> table) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        final int rows = table.getNumRows();
+        final int cols = table.getNumCols();
+        try {
+            switch (rnd.nextInt(7)) {
+                case 0 -> { if (rows < 4 * initialRows) { table.addRows(uniformDefaults(rnd.nextInt(1, 16), rnd.nextLong())); } }
+                case 1 -> { if (rows > initialRows / 2) { table.removeRows(0, rnd.nextInt(1, 8)); } }
+                case 2 -> { if (cols < 4 * initialCols) { table.addCols(1); doFixCol(table); } }
+                case 3 -> { if (cols > 2) { table.removeCol(rnd.nextInt(cols)); } }
+                case 4 -> table.insertRow(rnd.nextInt(rows + 1), uniformRow(cols, rnd.nextLong()));
+                case 5 -> { if (rows > 1) { table.removeRow(rnd.nextInt(rows)); } }
+                default -> table.reallocate(table.getNumRows() + rnd.nextInt(64), table.getNumCols() + rnd.nextInt(8));
+            }
+        } catch (IllegalArgumentException ignored) {
+            // the shape changed between reading it and using it
+        }
+    }
+
+    // a freshly added col is null, make every row uniform again (under the writer protocol)
+    private static void doFixCol(final ConcurrentTable<Long> table) {
+        for (int r = 0; r < table.getNumRows(); ++r) {
+            try {
+                table.setRow(r, uniformRow(table.getNumCols(), r));
+            } catch (IllegalArgumentException ignored) {
+                // shape moved on meanwhile
+            }
+        }
+    }
+
+    private static void doWrite(final ConcurrentTable<Long> table) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        final int rows = table.getNumRows();
+        final int cols = table.getNumCols();
+        try {
+            table.setRow(rnd.nextInt(rows), uniformRow(cols, rnd.nextLong()));
+        } catch (IllegalArgumentException ignored) {
+            // the row count or col count changed between reading it and writing
+        }
+    }
+
+    private static void doRead(final ConcurrentTable<Long> table) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        final int rows = table.getNumRows();
+        final int rowIndex = rnd.nextInt(rows);
+        try {
+            checkUniform(table.getRowClone(rowIndex), rowIndex);
+            table.get(rowIndex, rnd.nextInt(table.getNumCols()));
+        } catch (IllegalArgumentException ignored) {
+            // the row went away between reading the size and reading the row
+        }
+    }
+
+    private static void checkUniform(final Long[] row, final int rowIndex) {
+        for (int c = 1; c < row.length; ++c) {
+            if (row[c] != null && row[0] != null && !row[c].equals(row[0])) {
+                throw new IllegalStateException(String.format(
+                        "TornRow: row %d holds %d at col 0 but %d at col %d", rowIndex, row[0], row[c], c));
+            }
+        }
+    }
+
+    private static Long[] uniformRow(final int cols, final long val) {
+        Long[] row = new Long[cols];
+        Arrays.fill(row, val);
+        return row;
+    }
+
+    private static Long[] uniformDefaults(final int numRows, final long val) {
+        Long[] defaults = new Long[numRows];
+        Arrays.fill(defaults, val);
+        return defaults;
+    }
+}
@@ -0,0 +1,169 @@
+package WongAndyStarSB.Table;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// DictTable as a Table storage variant: every mutator gives the same cells as on a plain Table.
+class DictTableTest {
+
+    private static final String[][] cells = {
+            {"MATH", "T1", "R101"},
+            {"ENG", "T2", "R102"},
+            {"MATH", "T3", null},
+            {"ART", "T1", "R101"}};
+
+    @Test
+    void encodesEachDistinctValueOnce() {
+        DictTable<String> dict = DictTable.createFromArr(String.class, cells);
+
+        assertEquals(8, dict.getDictionarySize());
+        assertEquals(Byte.SIZE, dict.getCodeBits());
+        assertArrayEquals(cells[2], dict.getRowClone(2));
+        assertNull(dict.get(2, 2));
+    }
+
+    @Test
+    void equalsAndHashCodeMatchAPlainTable() {
+        Table<String> table = Table.createFromArr(String.class, cells);
+        DictTable<String> dict = DictTable.createCopy(table);
+        DictTable<String> other = DictTable.createFromArr(String.class, cells);
+
+        assertEquals(table, dict);
+        assertEquals(dict, table);
+        assertEquals(dict, other);
+        assertEquals(table.hashCode(), dict.hashCode());
+        assertEquals(table.toString(), dict.toString());
+
+        other.set(3, 0, "MUSIC");
+        assertNotEquals(dict, other);
+    }
+
+    @Test
+    void inheritedMutatorsKeepTheCellsOfAPlainTable() {
+        Table<String> table = Table.createFromArr(String.class, cells);
+        DictTable<String> dict = DictTable.createFromArr(String.class, cells);
+
+        table.insertRow(1, new String[] {"PE", "T4", "GYM"});
+        dict.insertRow(1, new String[] {"PE", "T4", "GYM"});
+        table.insertCol(0, new String[] {"a", "b", "c", "d", "e"});
+        dict.insertCol(0, new String[] {"a", "b", "c", "d", "e"});
+        assertEquals(table, dict);
+
+        table.addRow(new String[] {"x", "MATH", "T2", "R103"});
+        dict.addRow(new String[] {"x", "MATH", "T2", "R103"});
+        table.addCols(2);
+        dict.addCols(2);
+        table.setCol(4, new String[] {"1", "2", "3", "4", "5", "6"});
+        dict.setCol(4, new String[] {"1", "2", "3", "4", "5", "6"});
+        table.removeCol(0);
+        dict.removeCol(0);
+        table.removeRows(0, 2);
+        dict.removeRows(0, 2);
+        assertEquals(table, dict);
+        assertEquals(table.hashCode(), dict.hashCode());
+
+        table.sortRows(0, Comparator.naturalOrder());
+        dict.sortRows(0, Comparator.naturalOrder());
+        assertEquals(table, dict);
+
+        table.fill("Z");
+        dict.fill("Z");
+        assertEquals(table, dict);
+    }
+
+    @Test
+    void batchedEditRemapsTheCodes() {
+        Table<String> table = Table.createFromArr(String.class, cells);
+        DictTable<String> dict = DictTable.createFromArr(String.class, cells);
+
+        table.beginEdit().removeRow(0).moveCol(2, 0).insertRow(4, new String[] {"n", "e", "w"}).apply();
+        dict.beginEdit().removeRow(0).moveCol(2, 0).insertRow(4, new String[] {"n", "e", "w"}).apply();
+
+        assertEquals(4, dict.getNumRows());
+        assertEquals(table, dict);
+        assertEquals("R102", dict.get(0, 0));
+    }
+
+    @Test
+    void indexesFollowTheCodes() {
+        DictTable<String> dict = DictTable.createFromArr(String.class, cells);
+        dict.addIndex(1);
+
+        assertArrayEquals(new int[] {0, 3}, dict.findRows(1, "T1"));
+        dict.set(1, 1, "T1");
+        dict.removeRow(0);
+        assertArrayEquals(new int[] {0, 2}, dict.findRows(1, "T1"));
+    }
+
+    @Test
+    void replaceAllMapsEveryDictionaryValueOnce() {
+        DictTable<String> dict = DictTable.createFromArr(String.class, cells);
+        int[] calls = {0};
+        dict.replaceAll(val -> {
+            calls[0] += 1;
+            return (val == null) ? "-" : val.toLowerCase();
+        });
+
+        assertEquals(9, calls[0]); // 8 values and null
+        assertEquals("r101", dict.get(3, 2));
+        assertEquals("-", dict.get(2, 2));
+    }
+
+    @Test
+    void codesWidenAndCompactNarrowsThemAgain() {
+        DictTable<Integer> dict = DictTable.createWithSize(Integer.class, 20, 20);
+        for (int i = 0; i < 400; ++i) {
+            dict.set(i / 20, i % 20, i);
+        }
+        assertEquals(Short.SIZE, dict.getCodeBits());
+        assertEquals(399, dict.get(19, 19));
+
+        dict.fill(7);
+        assertEquals(400, dict.getDictionarySize());
+        dict.compact();
+        assertEquals(1, dict.getDictionarySize());
+        assertEquals(Byte.SIZE, dict.getCodeBits());
+        assertEquals(7, dict.get(19, 19));
+    }
+
+    @Test
+    void transposeAndSnapshotAreIndependentCopies() {
+        Table<String> table = Table.createFromArr(String.class, cells);
+        DictTable<String> dict = DictTable.createFromArr(String.class, cells);
+
+        ReadableTable<String> snapshot = dict.snapshot();
+        assertEquals(table.transpose(), dict.transpose());
+        dict.beTransposed();
+        assertEquals(table.transpose(), dict);
+        assertEquals(table, snapshot);
+    }
+
+    @Test
+    void hashTrackingMatchesTheRecomputedHash() {
+        DictTable<String> dict = DictTable.createFromArr(String.class, cells);
+        dict.setHashTracking(true);
+        dict.hashCode();
+        dict.set(0, 0, "BIO");
+        dict.addRow(new String[] {"CHEM", null, "LAB"});
+
+        assertEquals(Table.createCopy(dict).hashCode(), dict.hashCode());
+    }
+
+    @Test
+    void decodesIntoALayout() {
+        DictTable<String> dict = DictTable.createFromArr(String.class, cells);
+        dict.setLayout(TableLayout.COL_MAJOR);
+        Table<String> decoded = dict.toTable();
+
+        assertEquals(TableLayout.COL_MAJOR, decoded.getLayout());
+        assertEquals(dict, decoded);
+        assertTrue(dict.getUnderlyingArrayClone().length >= 12);
+    }
+}
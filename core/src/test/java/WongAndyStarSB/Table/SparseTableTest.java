@@ -0,0 +1,156 @@
+package WongAndyStarSB.Table;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Switching between sparse and dense storage, and the cells surviving every switch.
+class SparseTableTest {
+
+    // 32 x 32 = 1024 cells: sparse below 128 non-null cells, dense above 256 (default thresholds)
+    private static final int size = 32;
+
+    @Test
+    void emptyLargeTableStartsSparse() {
+        SparseTable<Integer> table = SparseTable.createWithSize(Integer.class, size, size);
+        assertTrue(table.isSparse());
+        assertEquals(0, table.getNumNonNull());
+        assertNull(table.get(size - 1, size - 1));
+    }
+
+    @Test
+    void smallTableStaysDense() {
+        SparseTable<Integer> table = SparseTable.createWithSize(Integer.class, 4, 4);
+        assertFalse(table.isSparse());
+    }
+
+    @Test
+    void growingDensitySwitchesToDenseAndKeepsCells() {
+        SparseTable<Integer> table = SparseTable.createWithSize(Integer.class, size, size);
+        Table<Integer> expected = Table.createWithSize(Integer.class, size, size);
+        int count = 0;
+        for (int i = 0; i < size * size && table.isSparse(); i += 3) {
+            table.set(i / size, i % size, i);
+            expected.set(i / size, i % size, i);
+            ++count;
+        }
+
+        assertFalse(table.isSparse());
+        assertTrue(count > size * size / 4);
+        assertEquals(count, table.getNumNonNull());
+        assertEquals(expected, table);
+    }
+
+    @Test
+    void shrinkingDensitySwitchesBackToSparseAndKeepsCells() {
+        SparseTable<Integer> table = SparseTable.createWithSize(Integer.class, size, size);
+        table.fill(1);
+        assertFalse(table.isSparse());
+
+        for (int r = 0; r < size; ++r) {
+            for (int c = 0; c < size; ++c) {
+                if (c != r) {
+                    table.set(r, c, null);
+                }
+            }
+        }
+
+        assertTrue(table.isSparse());
+        assertEquals(size, table.getNumNonNull());
+        for (int r = 0; r < size; ++r) {
+            assertEquals(1, table.get(r, r));
+            assertNull(table.get(r, (r + 1) % size));
+        }
+    }
+
+    @Test
+    void densityBetweenThresholdsDoesNotSwitch() {
+        SparseTable<Integer> table = SparseTable.createWithSize(Integer.class, size, size);
+        // 20%: stays sparse on the way up
+        for (int i = 0; i < size * size / 5; ++i) {
+            table.set(i / size, i % size, i);
+        }
+        assertTrue(table.isSparse());
+
+        table.setDensityThresholds(0.05, 0.1);
+        assertFalse(table.isSparse());
+        // 20% is above sparseBelow, so it stays dense with the defaults again
+        table.setDensityThresholds(SparseTable.defaultSparseBelow, SparseTable.defaultDenseAbove);
+        assertFalse(table.isSparse());
+    }
+
+    @Test
+    void illegalThresholdsAreRejected() {
+        SparseTable<Integer> table = SparseTable.createWithSize(Integer.class, size, size);
+        assertThrows(IllegalArgumentException.class, () -> table.setDensityThresholds(0.5, 0.25));
+        assertThrows(IllegalArgumentException.class, () -> table.setDensityThresholds(0.1, 1.5));
+    }
+
+    @Test
+    void structuralChangesWhileSparseMoveCells() {
+        SparseTable<String> table = SparseTable.createWithSize(String.class, size, size);
+        table.set(0, 0, "a");
+        table.set(5, 7, "b");
+        table.set(31, 31, "c");
+
+        table.insertRow(1, new String[size]);
+        assertTrue(table.isSparse());
+        assertEquals("b", table.get(6, 7));
+        assertEquals("c", table.get(32, 31));
+
+        table.removeCol(0);
+        assertTrue(table.isSparse());
+        assertEquals("b", table.get(6, 6));
+        assertEquals(2, table.getNumNonNull());
+
+        table.removeRow(6);
+        assertEquals(1, table.getNumNonNull());
+        assertEquals("c", table.get(31, 30));
+    }
+
+    @Test
+    void sparseTransposeMatchesDenseTranspose() {
+        SparseTable<Integer> table = SparseTable.createWithSize(Integer.class, size, size + 8);
+        table.set(3, 30, 1);
+        table.set(20, 2, 2);
+        Table<Integer> dense = Table.createCopy(table);
+
+        assertTrue(table.isSparse());
+        assertEquals(dense.transpose(), table.transpose());
+        table.beTransposed();
+        assertEquals(size + 8, table.getNumRows());
+        assertEquals(1, table.get(30, 3));
+        assertEquals(2, table.get(2, 20));
+    }
+
+    @Test
+    void batchedEditDensifiesAndRechecksDensity() {
+        SparseTable<Integer> table = SparseTable.createWithSize(Integer.class, size, size);
+        table.set(0, 0, 1);
+        table.set(1, 1, 2);
+        table.beginEdit().moveRow(0, 2).apply();
+
+        assertTrue(table.isSparse());
+        assertEquals(2, table.get(0, 1));
+        assertEquals(1, table.get(1, 0));
+    }
+
+    @Test
+    void copiesKeepCellsAndStorage() {
+        SparseTable<Long> table = SparseTable.createFromArr(Long.class, new Long[size][size]);
+        table.set(10, 10, 42L);
+        assertTrue(table.isSparse());
+
+        SparseTable<Long> copy = table.copy();
+        assertTrue(copy.isSparse());
+        assertEquals(table, copy);
+
+        table.set(10, 10, 43L);
+        assertEquals(42L, copy.get(10, 10));
+        assertEquals(table, table.snapshot());
+    }
+}
@@ -0,0 +1,140 @@
+package WongAndyStarSB.Table;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Round-trips tables through the WTBL binary format (writeBinary -> MappedTable.open).
+class TableBinaryFormatTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void integerTableRoundTrips() throws IOException {
+        Table<Integer> table = Table.createFromArr(Integer.class, new Integer[][] {
+                {1, 2, 3},
+                {4, 5, 6}});
+        MappedTable<Integer> mapped = writeAndOpen(table, Integer.class);
+
+        assertEquals(2, mapped.getNumRows());
+        assertEquals(3, mapped.getNumCols());
+        assertArrayEquals(new Integer[] {4, 5, 6}, mapped.getRowClone(1));
+        assertArrayEquals(new Integer[] {3, 6}, mapped.getColClone(2));
+        assertEquals(table, mapped.toTable());
+    }
+
+    @Test
+    void longAndDoubleTablesRoundTrip() throws IOException {
+        Table<Long> longs = Table.createFromArr(Long.class, new Long[][] {{Long.MIN_VALUE, 0L}, {1L << 40, Long.MAX_VALUE}});
+        assertEquals(longs, writeAndOpen(longs, Long.class).toTable());
+
+        Table<Double> doubles = Table.createFromArr(Double.class, new Double[][] {{0.5, -1.25}, {Double.NaN, 1e300}});
+        MappedTable<Double> mapped = writeAndOpen(doubles, Double.class);
+        assertEquals(-1.25, mapped.get(0, 1), 0.0);
+        assertEquals(Double.NaN, mapped.get(1, 0), 0.0);
+    }
+
+    @Test
+    void stringTableRoundTripsWithVariableWidthCells() throws IOException {
+        Table<String> table = Table.createFromArr(String.class, new String[][] {
+                {"", "a", "h\u00e9llo"},
+                {"comma,quote\"", "line\nbreak", "\u4e2d\u6587"}});
+        MappedTable<String> mapped = writeAndOpen(table, String.class);
+
+        assertEquals("h\u00e9llo", mapped.get(0, 2));
+        assertEquals("line\nbreak", mapped.get(1, 1));
+        assertEquals(table, mapped.toTable());
+    }
+
+    @Test
+    void nullBitmapPreservesNulls() throws IOException {
+        Table<Integer> ints = Table.createFromArr(Integer.class, new Integer[][] {{1, null}, {null, 4}});
+        MappedTable<Integer> mappedInts = writeAndOpen(ints, Integer.class);
+        assertNull(mappedInts.get(0, 1));
+        assertNull(mappedInts.get(1, 0));
+        assertEquals(4, mappedInts.get(1, 1));
+
+        Table<String> strings = Table.createFromArr(String.class, new String[][] {{null, ""}, {"x", null}});
+        MappedTable<String> mappedStrings = writeAndOpen(strings, String.class);
+        assertNull(mappedStrings.get(0, 0));
+        assertEquals("", mappedStrings.get(0, 1));
+        assertEquals(strings, mappedStrings.toTable());
+    }
+
+    @Test
+    void nullBitmapSpansMoreThanOneWord() throws IOException {
+        Table<Long> table = Table.createWithSize(Long.class, 10, 13);
+        for (int r = 0; r < 10; ++r) {
+            for (int c = 0; c < 13; ++c) {
+                table.set(r, c, ((r * 13 + c) % 7 == 0) ? null : (long) (r * 13 + c));
+            }
+        }
+        assertEquals(table, writeAndOpen(table, Long.class).toTable());
+    }
+
+    @Test
+    void storedLayoutSurvivesRoundTrip() throws IOException {
+        Table<Integer> table = Table.createWithLayout(Integer.class, 3, 2, TableLayout.COL_MAJOR);
+        table.set(2, 1, 7);
+        MappedTable<Integer> mapped = writeAndOpen(table, Integer.class);
+
+        assertEquals(TableLayout.COL_MAJOR, mapped.getStoredLayout());
+        Table<Integer> decoded = mapped.toTable();
+        assertEquals(TableLayout.COL_MAJOR, decoded.getLayout());
+        assertEquals(7, decoded.get(2, 1));
+    }
+
+    @Test
+    void primitiveTableRoundTrips() throws IOException {
+        IntTable table = IntTable.createFromArr(new int[][] {{1, 2}, {3, 4}, {5, 6}});
+        MappedTable<Integer> mapped = writeAndOpen(table, Integer.class);
+        assertArrayEquals(new Integer[] {5, 6}, mapped.getRowClone(2));
+        assertEquals(table, IntTable.createFromBoxed(mapped));
+    }
+
+    @Test
+    void emptyTableRoundTrips() throws IOException {
+        MappedTable<Double> mapped = writeAndOpen(Table.createEmpty(Double.class), Double.class);
+        assertEquals(0, mapped.getNumRows());
+        assertEquals(0, mapped.getNumCols());
+    }
+
+    @Test
+    void unsupportedElementTypeIsRejected() {
+        Table<Object> table = Table.createWithSize(Object.class, 1, 1);
+        assertThrows(IllegalArgumentException.class, () -> table.writeBinary(dir.resolve("object.wtbl")));
+    }
+
+    @Test
+    void mismatchedElementTypeIsRejected() throws IOException {
+        Path path = dir.resolve("ints.wtbl");
+        Table.createWithSize(Integer.class, 2, 2, 0).writeBinary(path);
+        assertThrows(IllegalArgumentException.class, () -> MappedTable.open(path, Long.class));
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path path = dir.resolve("ints.wtbl");
+        Table.createWithSize(Integer.class, 4, 4, 1).writeBinary(path);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, java.util.Arrays.copyOf(bytes, bytes.length - 4));
+        assertThrows(IOException.class, () -> MappedTable.open(path, Integer.class));
+    }
+
+    // helpers
+
+    private <T> MappedTable<T> writeAndOpen(final ReadableTable<T> table, final Class<T> elementType) throws IOException {
+        Path path = dir.resolve("table.wtbl");
+        table.writeBinary(path);
+        return MappedTable.open(path, elementType);
+    }
+}
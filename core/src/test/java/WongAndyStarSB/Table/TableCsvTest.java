@@ -0,0 +1,155 @@
+package WongAndyStarSB.Table;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Parsing and writing of CSV/TSV files: quoting, line breaks, headers and round trips.
+class TableCsvTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void quotedFieldsHoldDelimitersQuotesAndLineBreaks() throws IOException {
+        Table<String> table = read(TableCsv.createCsv(),
+                "\"a,b\",\"say \"\"hi\"\"\"\n"
+                + "\"two\nlines\",plain\n", String.class);
+
+        assertEquals(2, table.getNumRows());
+        assertArrayEquals(new String[] {"a,b", "say \"hi\""}, table.getRowClone(0));
+        assertArrayEquals(new String[] {"two\nlines", "plain"}, table.getRowClone(1));
+    }
+
+    @Test
+    void emptyUnquotedFieldIsNullAndEmptyQuotedFieldIsEmptyString() throws IOException {
+        Table<String> table = read(TableCsv.createCsv(), "x,,\"\"\n", String.class);
+
+        assertEquals("x", table.get(0, 0));
+        assertNull(table.get(0, 1));
+        assertEquals("", table.get(0, 2));
+    }
+
+    @Test
+    void crlfLineBreaksAreStripped() throws IOException {
+        Table<Integer> table = read(TableCsv.createCsv(), "1,2\r\n3,4\r\n", Integer.class);
+
+        assertEquals(2, table.getNumRows());
+        assertArrayEquals(new Integer[] {1, 2}, table.getRowClone(0));
+        assertArrayEquals(new Integer[] {3, 4}, table.getRowClone(1));
+    }
+
+    @Test
+    void bareCrAtEndOfInputIsStripped() throws IOException {
+        Table<String> unquoted = read(TableCsv.createCsv(), "a,b\r\nc,d\r", String.class);
+        assertEquals(2, unquoted.getNumRows());
+        assertArrayEquals(new String[] {"c", "d"}, unquoted.getRowClone(1));
+
+        Table<String> quoted = read(TableCsv.createCsv(), "a,b\r\nc,\"d\"\r", String.class);
+        assertEquals(2, quoted.getNumRows());
+        assertArrayEquals(new String[] {"c", "d"}, quoted.getRowClone(1));
+
+        Table<Integer> numbers = read(TableCsv.createCsv(), "1,2\r\n3,4\r", Integer.class);
+        assertArrayEquals(new Integer[] {3, 4}, numbers.getRowClone(1));
+    }
+
+    @Test
+    void crInsideARecordIsKept() throws IOException {
+        Table<String> table = read(TableCsv.createCsv(), "a\r,b\n", String.class);
+        assertEquals("a\r", table.get(0, 0));
+        assertEquals("b", table.get(0, 1));
+    }
+
+    @Test
+    void missingFinalLineBreakEndsTheLastRecord() throws IOException {
+        Table<Long> table = read(TableCsv.createCsv(), "1,2\n3,4", Long.class);
+        assertArrayEquals(new Long[] {3L, 4L}, table.getRowClone(1));
+    }
+
+    @Test
+    void headerLineIsSkippedOnReading() throws IOException {
+        Table<Double> table = read(TableCsv.createCsv().setHasHeader(true), "x,y\n0.5,-2\n", Double.class);
+
+        assertEquals(1, table.getNumRows());
+        assertArrayEquals(new Double[] {0.5, -2.0}, table.getRowClone(0));
+    }
+
+    @Test
+    void headerIsWrittenSoRoundTripKeepsTheFirstRow() throws IOException {
+        Table<Integer> table = Table.createFromArr(Integer.class, new Integer[][] {{1, 2, 3}, {4, null, 6}});
+        TableCsv csv = TableCsv.createCsv().setHasHeader(true);
+        Path path = dir.resolve("header.csv");
+        csv.write(table, path);
+
+        assertEquals("0,1,2\n1,2,3\n4,,6\n", Files.readString(path, StandardCharsets.UTF_8));
+        assertEquals(table, csv.read(path, Integer.class));
+    }
+
+    @Test
+    void stringsNeedingQuotesRoundTrip() throws IOException {
+        Table<String> table = Table.createFromArr(String.class, new String[][] {
+                {"plain", "with,comma", "with \"quote\""},
+                {"", null, "line\r\nbreak"}});
+        TableCsv csv = TableCsv.createCsv();
+        Path path = dir.resolve("strings.csv");
+        csv.write(table, path);
+
+        assertEquals(table, csv.read(path, String.class));
+    }
+
+    @Test
+    void tsvUsesTabs() throws IOException {
+        TableCsv tsv = TableCsv.createTsv();
+        Table<String> table = read(tsv, "a,b\tc\n", String.class);
+        assertArrayEquals(new String[] {"a,b", "c"}, table.getRowClone(0));
+
+        Path path = dir.resolve("out.tsv");
+        tsv.write(table, path);
+        assertEquals("a,b\tc\n", Files.readString(path, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void recordsLongerThanTheBufferAreParsed() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < 50; ++r) {
+            sb.append(r).append(",\"").append("x".repeat(r)).append("\"\r\n");
+        }
+        Table<String> table = read(TableCsv.createCsv().setBufferSize(8), sb.toString(), String.class);
+
+        assertEquals(50, table.getNumRows());
+        assertEquals("49", table.get(49, 0));
+        assertEquals("x".repeat(49), table.get(49, 1));
+    }
+
+    @Test
+    void inconsistentColumnSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> read(TableCsv.createCsv(), "1,2\n3\n", Integer.class));
+    }
+
+    @Test
+    void unclosedQuoteIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> read(TableCsv.createCsv(), "\"open,1\n", String.class));
+    }
+
+    @Test
+    void invalidNumberIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> read(TableCsv.createCsv(), "1,x\n", Integer.class));
+    }
+
+    // helpers
+
+    private <T> Table<T> read(final TableCsv csv, final String content, final Class<T> elementType) throws IOException {
+        Path path = dir.resolve("in.csv");
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        return csv.read(path, elementType);
+    }
+}
@@ -0,0 +1,130 @@
+package WongAndyStarSB.Table;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Hash indexes staying in step with their columns through single and batched edits.
+class TableHashIndexTest {
+
+    private static Table<String> createTimetable() {
+        return Table.createFromArr(String.class, new String[][] {
+                {"MATH", "T1", "R101"},
+                {"ENG", "T2", "R102"},
+                {"MATH", "T3", "R103"},
+                {"ART", "T1", "R101"}});
+    }
+
+    @Test
+    void lookupsMatchAScan() {
+        Table<String> table = createTimetable().addIndex(1);
+
+        assertTrue(table.hasIndex(1));
+        assertArrayEquals(new int[] {0, 3}, sorted(table.findRows(1, "T1")));
+        assertEquals(2, table.countRows(1, "T1"));
+        assertEquals(1, table.findFirstRow(1, "T2"));
+        assertEquals(-1, table.findFirstRow(1, "T9"));
+        assertEquals(3, table.getIndexDistinctCount(1));
+    }
+
+    @Test
+    void singleEditsKeepTheIndexUpToDate() {
+        Table<String> table = createTimetable().addIndex(0);
+
+        table.set(1, 0, "MATH");
+        assertArrayEquals(new int[] {0, 1, 2}, sorted(table.findRows(0, "MATH")));
+        table.removeRow(0);
+        assertArrayEquals(new int[] {0, 1}, sorted(table.findRows(0, "MATH")));
+        table.insertRow(0, new String[] {"MATH", "T4", "R104"});
+        assertArrayEquals(new int[] {0, 1, 2}, sorted(table.findRows(0, "MATH")));
+        table.addRow(new String[] {"ART", "T5", "R105"});
+        assertArrayEquals(new int[] {3, 4}, sorted(table.findRows(0, "ART")));
+        assertEquals(0, table.countRows(0, "ENG"));
+    }
+
+    @Test
+    void indexFollowsItsColumnWhenColumnsShift() {
+        Table<String> table = createTimetable().addIndex(2);
+
+        table.insertCol(0, new String[] {"a", "b", "c", "d"});
+        assertFalse(table.hasIndex(2));
+        assertTrue(table.hasIndex(3));
+        assertArrayEquals(new int[] {0, 3}, sorted(table.findRows(3, "R101")));
+
+        table.removeCol(0);
+        assertTrue(table.hasIndex(2));
+        assertArrayEquals(new int[] {0, 3}, sorted(table.findRows(2, "R101")));
+    }
+
+    @Test
+    void indexGoesAwayWithItsColumn() {
+        Table<String> table = createTimetable().addIndex(1).addIndex(2);
+
+        table.removeCol(1);
+        assertTrue(table.hasIndex(1)); // the old col 2
+        assertFalse(table.hasIndex(2));
+        assertArrayEquals(new int[] {1}, table.findRows(1, "R102"));
+    }
+
+    @Test
+    void batchedEditRemapsIndexedColumns() {
+        Table<String> table = createTimetable().addIndex(0).addIndex(2);
+
+        table.beginEdit()
+                .removeCol(1)
+                .moveCol(2, 0)
+                .removeRow(1)
+                .insertRow(0, new String[] {"GYM", "PE"})
+                .apply();
+
+        // cols are now {room, subject}
+        assertTrue(table.hasIndex(0));
+        assertTrue(table.hasIndex(1));
+        assertFalse(table.hasIndex(2));
+        assertArrayEquals(new int[] {1, 3}, sorted(table.findRows(0, "R101")));
+        assertArrayEquals(new int[] {1, 2}, sorted(table.findRows(1, "MATH")));
+        assertArrayEquals(new int[] {0}, table.findRows(1, "PE"));
+        assertEquals(0, table.countRows(1, "ENG"));
+    }
+
+    @Test
+    void batchedEditDroppingAnIndexedColumnDropsTheIndex() {
+        Table<String> table = createTimetable().addIndex(1);
+
+        table.beginEdit().removeCol(1).insertCols(0, 1).apply();
+
+        assertFalse(table.hasIndex(1));
+        assertFalse(table.hasIndex(2));
+    }
+
+    @Test
+    void transposeDropsIndexes() {
+        Table<String> table = createTimetable().addIndex(0);
+
+        table.beTransposed();
+        assertFalse(table.hasIndex(0));
+        assertArrayEquals(new int[] {1}, table.findRows(0, "T1"));
+    }
+
+    @Test
+    void sortRowsReindexes() {
+        Table<String> table = createTimetable().addIndex(1);
+
+        table.sortRows(0, String::compareTo);
+        // ART, ENG, MATH, MATH
+        assertArrayEquals(new int[] {0, 2}, sorted(table.findRows(1, "T1")));
+    }
+
+    // helpers
+
+    private static int[] sorted(final int[] rows) {
+        int[] result = rows.clone();
+        Arrays.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,162 @@
+package WongAndyStarSB.Table;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Inner and left joins on one or more key cols, hashing either side, materialized and streamed.
+class TableJoinTest {
+
+    // course, teacher
+    private static Table<String> createCourses() {
+        return Table.createFromArr(String.class, new String[][] {
+                {"MATH", "T1"},
+                {"ENG", "T2"},
+                {"ART", "T3"},
+                {null, "T4"}});
+    }
+
+    // teacher, room
+    private static Table<String> createRooms() {
+        return Table.createFromArr(String.class, new String[][] {
+                {"T1", "R101"},
+                {"T2", "R102"},
+                {"T1", "R103"},
+                {"T9", "R109"},
+                {null, "R110"}});
+    }
+
+    @Test
+    void innerJoinOnOneKey() {
+        Object[][] expected = {
+                {"MATH", "T1", "R101"},
+                {"MATH", "T1", "R103"},
+                {"ENG", "T2", "R102"}};
+
+        // the smaller left table is hashed
+        assertRows(expected, createCourses().innerJoin(createRooms(), 1, 0));
+        // the smaller right table is hashed, same rows in the same order
+        Table<String> moreCourses = createCourses();
+        moreCourses.addRow(new String[] {"PE", "T5"}).addRow(new String[] {"LAW", "T6"});
+        assertRows(expected, moreCourses.innerJoin(createRooms(), 1, 0));
+    }
+
+    @Test
+    void leftJoinKeepsUnmatchedRowsOnce() {
+        Object[][] expected = {
+                {"MATH", "T1", "R101"},
+                {"MATH", "T1", "R103"},
+                {"ENG", "T2", "R102"},
+                {"ART", "T3", null},
+                {null, "T4", null}};
+
+        assertRows(expected, createCourses().leftJoin(createRooms(), 1, 0));
+        Table<String> moreCourses = createCourses();
+        moreCourses.addRow(new String[] {"PE", "T5"}).addRow(new String[] {"LAW", "T6"});
+        assertRows(new Object[][] {
+                {"MATH", "T1", "R101"},
+                {"MATH", "T1", "R103"},
+                {"ENG", "T2", "R102"},
+                {"ART", "T3", null},
+                {null, "T4", null},
+                {"PE", "T5", null},
+                {"LAW", "T6", null}}, moreCourses.leftJoin(createRooms(), 1, 0));
+    }
+
+    @Test
+    void nullKeysNeverMatch() {
+        Table<String> left = Table.createFromArr(String.class, new String[][] {{null, "a"}});
+        Table<String> right = Table.createFromArr(String.class, new String[][] {{null, "b"}});
+
+        assertEquals(0, left.innerJoin(right, 0, 0).getNumRows());
+        assertRows(new Object[][] {{null, "a", null}}, left.leftJoin(right, 0, 0));
+    }
+
+    @Test
+    void duplicateKeysGiveEveryPair() {
+        Table<String> left = Table.createFromArr(String.class, new String[][] {
+                {"k", "l0"},
+                {"k", "l1"}});
+        Table<String> right = Table.createFromArr(String.class, new String[][] {
+                {"r0", "k"},
+                {"r1", "k"},
+                {"r2", "k"}});
+
+        assertRows(new Object[][] {
+                {"k", "l0", "r0"},
+                {"k", "l0", "r1"},
+                {"k", "l0", "r2"},
+                {"k", "l1", "r0"},
+                {"k", "l1", "r1"},
+                {"k", "l1", "r2"}}, left.innerJoin(right, 0, 1));
+    }
+
+    @Test
+    void joinOnMultipleKeys() {
+        // course, teacher, term
+        Table<String> left = Table.createFromArr(String.class, new String[][] {
+                {"MATH", "T1", "S1"},
+                {"MATH", "T1", "S2"},
+                {"ENG", "T2", "S1"}});
+        // term, teacher, room
+        Table<String> right = Table.createFromArr(String.class, new String[][] {
+                {"S2", "T1", "R101"},
+                {"S1", "T2", "R102"},
+                {"S1", "T1", "R103"}});
+
+        int[] leftKeys = {1, 2};
+        int[] rightKeys = {1, 0};
+        assertRows(new Object[][] {
+                {"MATH", "T1", "S1", "R103"},
+                {"MATH", "T1", "S2", "R101"},
+                {"ENG", "T2", "S1", "R102"}}, left.innerJoin(right, leftKeys, rightKeys));
+
+        right.removeRow(0);
+        assertRows(new Object[][] {
+                {"MATH", "T1", "S1", "R103"},
+                {"MATH", "T1", "S2", null},
+                {"ENG", "T2", "S1", "R102"}}, left.leftJoin(right, leftKeys, rightKeys));
+    }
+
+    @Test
+    void joinStreamMatchesTheMaterializedJoins() {
+        Table<String> courses = createCourses();
+        Table<String> rooms = createRooms();
+        int[] keys = {1};
+        int[] otherKeys = {0};
+
+        assertArrayEquals(toArr(courses.innerJoin(rooms, keys, otherKeys)),
+                courses.joinStream(rooms, keys, otherKeys, false).toArray(Object[][]::new));
+        assertArrayEquals(toArr(courses.leftJoin(rooms, keys, otherKeys)),
+                courses.joinStream(rooms, keys, otherKeys, true).toArray(Object[][]::new));
+    }
+
+    @Test
+    void keyCountsMustMatch() {
+        Table<String> courses = createCourses();
+        Table<String> rooms = createRooms();
+
+        assertThrows(IllegalArgumentException.class, () -> courses.innerJoin(rooms, new int[] {0, 1}, new int[] {0}));
+        assertThrows(IllegalArgumentException.class, () -> courses.leftJoin(rooms, new int[0], new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> courses.innerJoin(rooms, 1, 2));
+    }
+
+    // helpers
+
+    private static Object[][] toArr(final ReadableTable<?> table) {
+        Object[][] result = new Object[table.getNumRows()][table.getNumCols()];
+        for (int r = 0; r < result.length; ++r) {
+            for (int c = 0; c < result[r].length; ++c) {
+                result[r][c] = table.get(r, c);
+            }
+        }
+        return result;
+    }
+
+    private static void assertRows(final Object[][] expected, final ReadableTable<?> actual) {
+        assertEquals(expected.length, actual.getNumRows(), "rows");
+        assertArrayEquals(expected, toArr(actual));
+    }
+}
@@ -0,0 +1,99 @@
+package WongAndyStarSB.Table;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Ordered indexes: range lookups, and the index following its column through edits.
+class TableOrderedIndexTest {
+
+    // {period, room}
+    private static Table<Integer> createSchedule() {
+        return Table.createFromArr(Integer.class, new Integer[][] {
+                {3, 101},
+                {1, 102},
+                {4, null},
+                {1, 103},
+                {5, 101}});
+    }
+
+    @Test
+    void rangesComeSortedByCellThenRow() {
+        Table<Integer> table = createSchedule().addOrderedIndex(0, Comparator.naturalOrder());
+
+        assertArrayEquals(new int[] {1, 3, 0}, table.findRowsInRange(0, 1, 3));
+        assertEquals(3, table.countRowsInRange(0, 1, 3));
+        assertArrayEquals(new int[] {}, table.findRowsInRange(0, 6, 9));
+        assertArrayEquals(new int[] {1, 3, 0, 2, 4}, table.findRowsInOrder(0));
+    }
+
+    @Test
+    void nullCellsNeverMatch() {
+        Table<Integer> table = createSchedule().addOrderedIndex(1, Comparator.naturalOrder());
+
+        assertArrayEquals(new int[] {0, 4, 1, 3}, table.findRowsInOrder(1));
+        assertEquals(4, table.countRowsInRange(1, Integer.MIN_VALUE, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void editsAreSeenByTheNextQuery() {
+        Table<Integer> table = createSchedule().addOrderedIndex(0, Comparator.naturalOrder());
+        table.findRowsInOrder(0);
+
+        table.set(4, 0, 0);
+        table.removeRow(1);
+        table.addRow(new Integer[] {2, 104});
+
+        // periods {3, 4, 1, 0, 2}
+        assertArrayEquals(new int[] {3, 2, 4, 0, 1}, table.findRowsInOrder(0));
+    }
+
+    @Test
+    void comparatorDecidesTheOrder() {
+        Table<Integer> table = createSchedule().addOrderedIndex(0, Comparator.reverseOrder());
+
+        assertArrayEquals(new int[] {4, 2, 0}, table.findRowsInRange(0, 5, 3));
+    }
+
+    @Test
+    void batchedEditMovesTheIndexWithItsColumn() {
+        Table<Integer> table = createSchedule().addOrderedIndex(1, Comparator.naturalOrder());
+
+        table.beginEdit().moveCol(1, 0).removeRow(0).insertCols(2, 1).apply();
+
+        assertTrue(table.hasOrderedIndex(0));
+        assertFalse(table.hasOrderedIndex(1));
+        // rooms {102, null, 103, 101}
+        assertArrayEquals(new int[] {3, 0, 2}, table.findRowsInOrder(0));
+    }
+
+    @Test
+    void removingTheColumnDropsTheIndex() {
+        Table<Integer> table = createSchedule().addOrderedIndex(0, Comparator.naturalOrder());
+
+        table.removeCol(0);
+        assertFalse(table.hasOrderedIndex(0));
+        assertThrows(IllegalStateException.class, () -> table.findRowsInOrder(0));
+    }
+
+    @Test
+    void insertingAColumnShiftsTheIndex() {
+        Table<Integer> table = createSchedule().addOrderedIndex(1, Comparator.naturalOrder());
+
+        table.insertCol(0, new Integer[] {9, 8, 7, 6, 5});
+        assertTrue(table.hasOrderedIndex(2));
+        assertArrayEquals(new int[] {0, 4}, table.findRowsInRange(2, 101, 101));
+    }
+
+    @Test
+    void queryWithoutIndexIsRejected() {
+        Table<Integer> table = createSchedule();
+        assertThrows(IllegalStateException.class, () -> table.findRowsInRange(0, 1, 2));
+    }
+}
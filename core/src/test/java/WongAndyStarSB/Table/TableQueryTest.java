@@ -0,0 +1,169 @@
+package WongAndyStarSB.Table;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Queries giving the same rows as a plain scan would, with and without grouping, and aggregates of any type.
+class TableQueryTest {
+
+    private static Table<String> createTimetable() {
+        return Table.createFromArr(String.class, new String[][] {
+                {"MATH", "T1", "R101"},
+                {"ENG", "T2", "R102"},
+                {"MATH", "T3", "R103"},
+                {"ART", "T1", "R101"},
+                {"MATH", "T1", "R104"}});
+    }
+
+    private static Table<Integer> createScores() {
+        return Table.createFromArr(Integer.class, new Integer[][] {
+                {1, 10, 70},
+                {2, 20, 80},
+                {1, 30, 90},
+                {3, 40, 60}});
+    }
+
+    @Test
+    void whereSelectAndLimitKeepTheMatchingRowsInOrder() {
+        Table<String> table = createTimetable();
+
+        Table<String> result = table.query()
+                .where(0, "MATH"::equals)
+                .select(2, 1)
+                .execute();
+        assertRows(new Object[][] {{"R101", "T1"}, {"R103", "T3"}, {"R104", "T1"}}, result);
+
+        Table<String> limited = table.query()
+                .where(1, "T1"::equals)
+                .where(row -> !row.get(2).equals("R104"))
+                .limit(1)
+                .execute();
+        assertRows(new Object[][] {{"MATH", "T1", "R101"}}, limited);
+    }
+
+    @Test
+    void noConditionsCopyTheWholeTable() {
+        Table<String> table = createTimetable();
+
+        assertEquals(table, table.query().execute());
+        assertEquals(0, table.query().where(0, "PE"::equals).execute().getNumRows());
+    }
+
+    @Test
+    void countOverANonNumericCol() {
+        Table<String> table = createTimetable();
+
+        Table<Object> result = table.query()
+                .groupBy(0)
+                .aggregate(1, Collectors.counting())
+                .execute(Object.class);
+        assertRows(new Object[][] {{"MATH", 3L}, {"ENG", 1L}, {"ART", 1L}}, result);
+    }
+
+    @Test
+    void groupByMultipleKeys() {
+        Table<String> table = createTimetable();
+
+        Table<Object> result = table.query()
+                .groupBy(0, 1)
+                .aggregate(2, Collectors.joining("+"))
+                .aggregate(2, Collectors.counting())
+                .execute(Object.class);
+        assertRows(new Object[][] {
+                {"MATH", "T1", "R101+R104", 2L},
+                {"ENG", "T2", "R102", 1L},
+                {"MATH", "T3", "R103", 1L},
+                {"ART", "T1", "R101", 1L}}, result);
+    }
+
+    @Test
+    void aggregatesOfTheElementType() {
+        Table<Integer> table = createScores();
+
+        Table<Integer> result = table.query()
+                .groupBy(0)
+                .aggregate(2, Collectors.summingInt(Integer::intValue))
+                .execute();
+        assertRows(new Object[][] {{1, 160}, {2, 80}, {3, 60}}, result);
+    }
+
+    @Test
+    void aggregatesWithoutGroupByGiveOneRow() {
+        Table<Integer> table = createScores();
+
+        Table<Double> mean = table.query()
+                .aggregate(2, Collectors.averagingInt(Integer::intValue))
+                .execute(Double.class);
+        assertRows(new Object[][] {{75.0}}, mean);
+
+        // still one row when no row matches
+        Table<Object> empty = table.query()
+                .where(0, id -> id > 9)
+                .aggregate(1, Collectors.counting())
+                .aggregate(1, Collectors.summingInt(Integer::intValue))
+                .execute(Object.class);
+        assertRows(new Object[][] {{0L, 0}}, empty);
+    }
+
+    @Test
+    void mismatchedResultTypesAreRejected() {
+        Table<Integer> table = createScores();
+
+        // the mean of Integers is a Double, so it can't go in a Table<Integer>
+        TableQuery<Integer> mean = table.query()
+                .groupBy(0)
+                .aggregate(2, Collectors.averagingInt(Integer::intValue));
+        assertThrows(IllegalArgumentException.class, mean::execute);
+        // the Integer keys can't go in a Table<Double>
+        assertThrows(IllegalArgumentException.class, () -> mean.execute(Double.class));
+        assertThrows(IllegalArgumentException.class, () -> table.query().select(0).execute(String.class));
+    }
+
+    @Test
+    void selectAfterGroupByIsRejected() {
+        Table<String> table = createTimetable();
+
+        assertThrows(IllegalStateException.class, () -> table.query().groupBy(0).select(1));
+        assertThrows(IllegalStateException.class, () -> table.query().select(1).groupBy(0));
+    }
+
+    @Test
+    void queriesReadTheTableAsOfExecute() {
+        Table<String> table = createTimetable();
+        TableQuery<String> query = table.query().where(0, "ART"::equals).select(2);
+
+        assertRows(new Object[][] {{"R101"}}, query.execute());
+        table.set(1, 0, "ART");
+        assertRows(new Object[][] {{"R102"}, {"R101"}}, query.execute());
+    }
+
+    @Test
+    void concurrentTableQueries() {
+        ConcurrentTable<String> table = ConcurrentTable.createFromArr(String.class, new String[][] {
+                {"MATH", "T1"},
+                {"ENG", "T2"},
+                {"MATH", "T3"}});
+
+        assertRows(new Object[][] {{"T1"}, {"T3"}}, table.query().where(0, "MATH"::equals).select(1).execute());
+        Table<Object> counts = table.query().groupBy(0).aggregate(1, Collectors.counting()).execute(Object.class);
+        assertRows(new Object[][] {{"MATH", 2L}, {"ENG", 1L}}, counts);
+    }
+
+    // helpers
+
+    private static void assertRows(final Object[][] expected, final ReadableTable<?> actual) {
+        assertEquals(expected.length, actual.getNumRows(), "rows");
+        for (int r = 0; r < expected.length; ++r) {
+            Object[] row = new Object[actual.getNumCols()];
+            for (int c = 0; c < row.length; ++c) {
+                row[c] = actual.get(r, c);
+            }
+            assertArrayEquals(expected[r], row, "row " + r);
+        }
+    }
+}
@@ -13,7 +13,7 @@ public class Main {
         Table<Table> tt = Table.createWithSize(Table.class, 3, 3);
         System.out.print(table);
         System.out.print(tt);
-        ReadableTable<Table> rtt = (ReadableTable<Table>) tt;
+        ReadableTable<Table> rtt = tt.freeze();
         System.out.print(rtt);
     }
 }
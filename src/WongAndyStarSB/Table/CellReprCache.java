@@ -0,0 +1,143 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// LRU cache of rendered cells for TableFormatter, bounded by entry count and total chars.
+// An entry is keyed by cell position and only hits while the cell still holds the same object
+// at the same version (see TableFormatter.calReprStamp), so stale entries simply miss and age out.
+public class CellReprCache {
+
+    public static final int defaultMaxEntries = 4096;
+    public static final long defaultMaxChars = 4L << 20;
+
+    protected final int maxEntries;
+    protected final long maxChars;
+    protected final LinkedHashMap<Long, Entry> entries;
+    protected long totalChars = 0;
+
+    protected long hitCount = 0;
+    protected long missCount = 0;
+    protected long evictionCount = 0;
+
+    protected CellReprCache(final int maxEntries, final long maxChars) {
+        this.maxEntries = maxEntries;
+        this.maxChars = maxChars;
+        this.entries = new LinkedHashMap<>(Math.min(maxEntries, 1024), 0.75f, true);
+    }
+
+    public static CellReprCache create() {
+        return new CellReprCache(defaultMaxEntries, defaultMaxChars);
+    }
+    public static CellReprCache create(final int maxEntries, final long maxChars) {
+        if (maxEntries <= 0 || maxChars <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "IllegalCacheBound: maxEntries(%d) and maxChars(%d) have to be positive",
+                    maxEntries, maxChars));
+        }
+        return new CellReprCache(maxEntries, maxChars);
+    }
+
+    // getters
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+    public long getMaxChars() {
+        return maxChars;
+    }
+    public int getNumEntries() {
+        return entries.size();
+    }
+    public long getTotalChars() {
+        return totalChars;
+    }
+    public long getHitCount() {
+        return hitCount;
+    }
+    public long getMissCount() {
+        return missCount;
+    }
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+    public double getHitRate() {
+        final long lookups = hitCount + missCount;
+        return (lookups == 0) ? 0.0 : (double) hitCount / lookups;
+    }
+
+    public void clear() {
+        entries.clear();
+        totalChars = 0;
+    }
+    public void resetCounters() {
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "CellReprCache: %d entries, %d chars, hits %d, misses %d (hit rate %.3f), evictions %d",
+                entries.size(), totalChars, hitCount, missCount, getHitRate(), evictionCount);
+    }
+
+    // used by TableFormatter
+
+    protected @Nullable String get(final int r, final int c, final Object val, final int stamp) {
+        Entry entry = entries.get(toKey(r, c));
+        if (entry != null && entry.val == val && entry.stamp == stamp) {
+            hitCount += 1;
+            return entry.repr;
+        }
+        missCount += 1;
+        return null;
+    }
+
+    // lookup without touching the counters
+    protected boolean isFresh(final int r, final int c, final Object val, final int stamp) {
+        Entry entry = entries.get(toKey(r, c));
+        return entry != null && entry.val == val && entry.stamp == stamp;
+    }
+
+    protected void put(final int r, final int c, final Object val, final int stamp, final String repr) {
+        if (repr.length() > maxChars) {
+            return; // would evict everything else and still not fit
+        }
+        Entry old = entries.put(toKey(r, c), new Entry(val, stamp, repr));
+        if (old != null) {
+            totalChars -= old.repr.length();
+        }
+        totalChars += repr.length();
+        doEvictIfNeeded();
+    }
+
+    private void doEvictIfNeeded() {
+        Iterator<Map.Entry<Long, Entry>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalChars > maxChars) && it.hasNext()) {
+            totalChars -= it.next().getValue().repr.length();
+            it.remove();
+            evictionCount += 1;
+        }
+    }
+
+    private static long toKey(final int r, final int c) {
+        return ((long) r << 32) | (c & 0xFFFFFFFFL);
+    }
+
+    protected static final class Entry {
+        final Object val;
+        final int stamp;
+        final String repr;
+
+        Entry(final Object val, final int stamp, final String repr) {
+            this.val = val;
+            this.stamp = stamp;
+            this.repr = repr;
+        }
+    }
+}
@@ -0,0 +1,1050 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Array;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+// A Table that can be shared between threads.
+//  structure (shape, capacity, layout, gaps): guarded by a StampedLock, changed under its write lock
+//  reads (get, getRowClone, getColClone, views): optimistic, no lock is taken unless a writer got in the way
+//  cell writes (set, setRow, setCol): shared structure lock + a lock per block of rows, so writers to
+//      different row blocks don't wait for each other; each block also has a seqlock counter so an
+//      optimistic getRowClone never returns a half-written row
+//  bulk reads (copy, transpose, equals, hashCode, toString, ...): shared structure lock + all row block locks
+public class ConcurrentTable<E> extends Table<E> {
+
+    // 16 rows per block, blocks map onto 32 stripes
+    static final int stripeShift = 4;
+    static final int numStripes = 32;
+
+    private static final VarHandle cells = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    protected final StampedLock structLock = new StampedLock();
+    protected final ReentrantLock[] stripeLocks = new ReentrantLock[numStripes];
+    protected final AtomicLongArray stripeSeqs = new AtomicLongArray(numStripes);
+    // odd while a setCol is writing
+    protected final AtomicLong colSeq = new AtomicLong();
+    protected final Object notifyLock = new Object();
+    // the thread holding the structure write lock, its own reads (e.g. from the formatter) go straight through
+    protected volatile Thread structWriter = null;
+
+    protected ConcurrentTable(final Class<E> elementType, final Object[] data, final int rows, final int cols, final int rowCap, final int colCap, final TableFormatter<E> formatter) {
+        super(elementType, data, rows, cols, rowCap, colCap, formatter);
+        for (int i = 0; i < numStripes; ++i) {
+            stripeLocks[i] = new ReentrantLock();
+        }
+    }
+
+    // factory methods (built as a Table, then the buffer is taken over)
+
+    protected static <T> @NotNull ConcurrentTable<T> doAdopt(final Table<T> table) {
+        ConcurrentTable<T> result = new ConcurrentTable<T>(
+                table.elementType,
+                table.data,
+                table.rows, table.cols,
+                table.rowCapacity, table.colCapacity,
+                null
+        );
+        result.layout = table.layout;
+        result.rowGapStart = table.rowGapStart;
+        result.rowGapLen = table.rowGapLen;
+        result.colGapStart = table.colGapStart;
+        result.colGapLen = table.colGapLen;
+        return result;
+    }
+
+    public static <T> @NotNull ConcurrentTable<T> createEmpty(final Class<T> elementType) {
+        return doAdopt(Table.createEmpty(elementType));
+    }
+
+    public static <T> @NotNull ConcurrentTable<T> createCopy(final Table<T> other) {
+        if (other instanceof ConcurrentTable<T> concurrent) {
+            return doAdopt(concurrent.snapshot());
+        }
+        return doAdopt(Table.createCopy(other));
+    }
+    public static <T> @NotNull ConcurrentTable<T> createWithSizeCapacity(final Class<T> elementType, final int rows, final int cols, final int rowCap, final int colCap) {
+        return doAdopt(Table.createWithSizeCapacity(elementType, rows, cols, rowCap, colCap));
+    }
+    public static <T> @NotNull ConcurrentTable<T> createWithSizeCapacity(final Class<T> elementType, final int rows, final int cols, final int rowCap, final int colCap, final TableLayout layout) {
+        return doAdopt(Table.createWithSizeCapacity(elementType, rows, cols, rowCap, colCap, layout));
+    }
+
+    public static <T> @NotNull ConcurrentTable<T> createWithCapacity(final Class<T> elementType, final int rowCap, final int colCap) {
+        return doAdopt(Table.createWithCapacity(elementType, rowCap, colCap));
+    }
+
+    public static <T> @NotNull ConcurrentTable<T> createWithSize(final Class<T> elementType, final int rows, final int cols) {
+        return doAdopt(Table.createWithSize(elementType, rows, cols));
+    }
+    public static <T> @NotNull ConcurrentTable<T> createWithLayout(final Class<T> elementType, final int rows, final int cols, final TableLayout layout) {
+        return doAdopt(Table.createWithLayout(elementType, rows, cols, layout));
+    }
+    public static <T> @NotNull ConcurrentTable<T> createWithSize(final Class<T> elementType, final int rows, final int cols, final T defaultVal) {
+        return doAdopt(Table.createWithSize(elementType, rows, cols, defaultVal));
+    }
+
+    public static <T> @NotNull ConcurrentTable<T> createFromArr(final Class<T> elementType, final T[][] arr2d) {
+        return doAdopt(Table.createFromArr(elementType, arr2d));
+    }
+
+    // consistent copy as a plain (single-threaded) Table, cells here are written under stripe locks only,
+    // so the buffer is not shared copy-on-write like Table.snapshot()
+    @Override
+    public @NotNull Table<E> snapshot() {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.copy();
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+
+    // getters (optimistic)
+
+    @Override
+    public E get(final int rowIndex, final int colIndex) {
+        final long stamp = structLock.tryOptimisticRead();
+        if (stamp != 0 && isIndexValid(rowIndex, colIndex)) {
+            final Object[] d = data;
+            final int flatIndex = toFlatIndex(rowIndex, colIndex);
+            if (flatIndex >= 0 && flatIndex < d.length) {
+                @SuppressWarnings("unchecked")
+                final E val = (E) cells.getAcquire(d, flatIndex);
+                if (structLock.validate(stamp)) {
+                    return val;
+                }
+            }
+        }
+        // a structural change was in flight, validate and read under the lock
+        if (structWriter == Thread.currentThread()) {
+            return super.get(rowIndex, colIndex);
+        }
+        final long readStamp = structLock.readLock();
+        try {
+            return super.get(rowIndex, colIndex);
+        } finally {
+            structLock.unlockRead(readStamp);
+        }
+    }
+
+    @Override
+    public E[] getRowClone(final int rowIndex) {
+        final long stamp = structLock.tryOptimisticRead();
+        if (stamp != 0 && rowIndex >= 0 && rowIndex < rows) {
+            final int stripe = toStripe(rowIndex);
+            final long seq = stripeSeqs.get(stripe);
+            if ((seq & 1) == 0) {
+                final E[] result = doTryReadRow(rowIndex);
+                VarHandle.acquireFence(); // the row reads above happen before the seq re-check
+                if (result != null && stripeSeqs.get(stripe) == seq && structLock.validate(stamp)) {
+                    return result;
+                }
+            }
+        }
+        if (structWriter == Thread.currentThread()) {
+            return super.getRowClone(rowIndex);
+        }
+        final long readStamp = structLock.readLock();
+        try {
+            validateRowIndex(rowIndex);
+            final int stripe = toStripe(rowIndex);
+            stripeLocks[stripe].lock();
+            try {
+                return super.getRowClone(rowIndex);
+            } finally {
+                stripeLocks[stripe].unlock();
+            }
+        } finally {
+            structLock.unlockRead(readStamp);
+        }
+    }
+
+    @Override
+    public E[] getColClone(final int colIndex) {
+        final long stamp = structLock.tryOptimisticRead();
+        if (stamp != 0 && colIndex >= 0 && colIndex < cols) {
+            final long seq = colSeq.get();
+            if ((seq & 1) == 0) {
+                final E[] result = doTryReadCol(colIndex);
+                VarHandle.acquireFence();
+                if (result != null && colSeq.get() == seq && structLock.validate(stamp)) {
+                    return result;
+                }
+            }
+        }
+        if (structWriter == Thread.currentThread()) {
+            return super.getColClone(colIndex);
+        }
+        final long readStamp = doLockAllForRead();
+        try {
+            return super.getColClone(colIndex);
+        } finally {
+            doUnlockAllForRead(readStamp);
+        }
+    }
+
+    @Override
+    public Object[] getUnderlyingArrayClone() {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.getUnderlyingArrayClone();
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+
+    // simple setters
+
+    @Override
+    public ConcurrentTable<E> set(final int rowIndex, final int colIndex, @Nullable E val) {
+        final long stamp = structLock.readLock();
+        try {
+            validateRowIndex(rowIndex);
+            validateColIndex(colIndex);
+            final int stripe = toStripe(rowIndex);
+            doLockStripe(stripe);
+            try {
+                if (hashTracking) {
+                    doAddTrackedHash(calCellHashDelta(rowIndex, colIndex, val));
+                }
+                cells.setRelease(data, toFlatIndex(rowIndex, colIndex), val);
+                onCellChange(rowIndex, colIndex);
+            } finally {
+                doUnlockStripe(stripe);
+            }
+        } finally {
+            structLock.unlockRead(stamp);
+        }
+        return this;
+    }
+
+    @Override
+    public ConcurrentTable<E> setRow(final int rowIndex, final @Nullable E[] row) {
+        final long stamp = structLock.readLock();
+        try {
+            validateRowIndex(rowIndex);
+            validateSizeNewRow(row);
+            final int stripe = toStripe(rowIndex);
+            doLockStripe(stripe);
+            try {
+                if (hashTracking) {
+                    int hashDelta = 0;
+                    for (int c = 0; c < cols; ++c) {
+                        hashDelta += calCellHashDelta(rowIndex, c, row[c]);
+                    }
+                    doAddTrackedHash(hashDelta);
+                }
+                VarHandle.releaseFence(); // the plain stores below publish like setRelease
+                doCopyRowIn(row, rowIndex);
+                onRowChange(rowIndex);
+            } finally {
+                doUnlockStripe(stripe);
+            }
+        } finally {
+            structLock.unlockRead(stamp);
+        }
+        return this;
+    }
+
+    @Override
+    public ConcurrentTable<E> setCol(final int colIndex, final @Nullable E[] col) {
+        final long stamp = structLock.readLock();
+        try {
+            validateColIndex(colIndex);
+            validateSizeNewCol(col);
+            // a column crosses every row block
+            for (int i = 0; i < numStripes; ++i) {
+                doLockStripe(i);
+            }
+            colSeq.incrementAndGet();
+            try {
+                if (hashTracking) {
+                    int hashDelta = 0;
+                    for (int r = 0; r < rows; ++r) {
+                        hashDelta += calCellHashDelta(r, colIndex, col[r]);
+                    }
+                    doAddTrackedHash(hashDelta);
+                }
+                VarHandle.releaseFence();
+                doCopyColIn(col, colIndex);
+                onColChange(colIndex);
+            } finally {
+                colSeq.incrementAndGet();
+                for (int i = numStripes - 1; i >= 0; --i) {
+                    doUnlockStripe(i);
+                }
+            }
+        } finally {
+            structLock.unlockRead(stamp);
+        }
+        return this;
+    }
+
+    // resize/add/remove rows/cols (exclusive)
+
+    @Override
+    public ConcurrentTable<E> resizeRows(final int newRowSize) {
+        final long stamp = doLockWrite();
+        try {
+            validateRowSize(newRowSize);
+            if (newRowSize < rows) {
+                super.removeRows(newRowSize, rows);
+            } else {
+                super.addRows(newRowSize - rows);
+            }
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    @Override
+    public ConcurrentTable<E> removeRow(final int rowIndex) {
+        final long stamp = doLockWrite();
+        try {
+            super.removeRow(rowIndex);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    @Override
+    public ConcurrentTable<E> removeCol(final int colIndex) {
+        final long stamp = doLockWrite();
+        try {
+            super.removeCol(colIndex);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    @Override
+    public ConcurrentTable<E> removeRows(final int beginRowIdx, final int endRowIdx) {
+        final long stamp = doLockWrite();
+        try {
+            super.removeRows(beginRowIdx, endRowIdx);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    @Override
+    public ConcurrentTable<E> addRow(final @Nullable E[] row) {
+        final long stamp = doLockWrite();
+        try {
+            super.addRow(row);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    @Override
+    public ConcurrentTable<E> addRows(final int numRowsToAdd) {
+        final long stamp = doLockWrite();
+        try {
+            super.addRows(numRowsToAdd);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    @Override
+    public ConcurrentTable<E> addRows(final E[] defaultVals) {
+        final long stamp = doLockWrite();
+        try {
+            super.addRows(defaultVals);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    @Override
+    public ConcurrentTable<E> addCol(final @Nullable E[] col) {
+        final long stamp = doLockWrite();
+        try {
+            super.addCol(col);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    @Override
+    public ConcurrentTable<E> addCols(final int numColsToAdd) {
+        final long stamp = doLockWrite();
+        try {
+            super.addCols(numColsToAdd);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    @Override
+    public ConcurrentTable<E> addCols(final E[] defaultVals) {
+        final long stamp = doLockWrite();
+        try {
+            super.addCols(defaultVals);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    @Override
+    public ConcurrentTable<E> insertRow(final int rowIndex, final @Nullable E[] row) {
+        final long stamp = doLockWrite();
+        try {
+            super.insertRow(rowIndex, row);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    @Override
+    public ConcurrentTable<E> insertCol(final int colIndex, final @Nullable E[] col) {
+        final long stamp = doLockWrite();
+        try {
+            super.insertCol(colIndex, col);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    // the whole batch is applied under one write lock
+    @Override
+    public @NotNull TableEdit<E> beginEdit() {
+        return new TableEdit<E>(this) {
+            @Override
+            public @NotNull Table<E> apply() {
+                final long stamp = doLockWrite();
+                try {
+                    return super.apply();
+                } finally {
+                    doUnlockWrite(stamp);
+                }
+            }
+        };
+    }
+
+    // joins read a frozen copy: no lock is held while the other table is read, a self-join included
+    @Override
+    protected @NotNull ReadableTable<E> calStableSource() {
+        return freeze();
+    }
+
+    // a query runs under the read locks, its conditions see one consistent state
+    @Override
+    public @NotNull TableQuery<E> query() {
+        return new TableQuery<E>(this) {
+            @Override
+            public <R> @NotNull Table<R> execute(final @NotNull Class<R> resultType) {
+                final long stamp = doLockAllForRead();
+                try {
+                    return super.execute(resultType);
+                } finally {
+                    doUnlockAllForRead(stamp);
+                }
+            }
+        };
+    }
+
+    // transpose
+
+    @Override
+    public @NotNull ConcurrentTable<E> transpose() {
+        final long stamp = doLockAllForRead();
+        try {
+            return doAdopt(super.transpose());
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+
+    @Override
+    public @NotNull ConcurrentTable<E> beTransposed() {
+        final long stamp = doLockWrite();
+        try {
+            super.beTransposed();
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    // buffer pool
+
+    @Override
+    public void release() {
+        final long stamp = doLockWrite();
+        try {
+            super.release();
+        } finally {
+            doUnlockWrite(stamp);
+        }
+    }
+
+    // layout
+
+    @Override
+    public @NotNull ConcurrentTable<E> setLayout(final @NotNull TableLayout newLayout) {
+        final long stamp = doLockWrite();
+        try {
+            super.setLayout(newLayout);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    // Capacity/Reallocate (the new buffer and capacities are published together when the write lock is released)
+
+    @Override
+    public void setRowCapacity(final int newRowCap) {
+        final long stamp = doLockWrite();
+        try {
+            super.setRowCapacity(newRowCap);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+    }
+    @Override
+    public void setColCapacity(final int newColCap) {
+        final long stamp = doLockWrite();
+        try {
+            super.setColCapacity(newColCap);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void reallocate(final int newRowCap, final int newColCap) {
+        final long stamp = doLockWrite();
+        try {
+            super.reallocate(newRowCap, newColCap);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+    }
+
+    // copy
+
+    @Override
+    public @NotNull ConcurrentTable<E> copy() {
+        return createCopy(this);
+    }
+    @Override
+    public @NotNull ConcurrentTable<E> copyAndTrim() {
+        final long stamp = doLockAllForRead();
+        try {
+            return doAdopt(super.copyAndTrim());
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+    @Override
+    public @NotNull ReadableTable<E> copyWithLayout(final @NotNull TableLayout newLayout) {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.copyWithLayout(newLayout);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+    @Override
+    public @NotNull FrozenTable<E> freeze() {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.freeze();
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+
+    // common functions (rendered from a consistent state)
+
+    @Override
+    public @NotNull String toString() {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.toString();
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+
+    @Override
+    public void appendRepr(final Appendable out) throws IOException {
+        final long stamp = doLockAllForRead();
+        try {
+            super.appendRepr(out);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+    @Override
+    public void writeRepr(final OutputStream out) throws IOException {
+        final long stamp = doLockAllForRead();
+        try {
+            super.writeRepr(out);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+    @Override
+    public void writeBinary(final @NotNull WritableByteChannel out) throws IOException {
+        final long stamp = doLockAllForRead();
+        try {
+            super.writeBinary(out);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) { return true; }
+        final long stamp = doLockAllForRead();
+        try {
+            return super.equals(obj);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+    @Override
+    public int hashCode() {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.hashCode();
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+
+    // bulk setters (exclusive) and bulk reads (consistent)
+
+    @Override
+    public ConcurrentTable<E> fill(final @Nullable E val) {
+        final long stamp = doLockWrite();
+        try {
+            super.fill(val);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    @Override
+    public ConcurrentTable<E> replaceAll(final @NotNull UnaryOperator<E> operator) {
+        final long stamp = doLockWrite();
+        try {
+            super.replaceAll(operator);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    @Override
+    public <R> @NotNull Table<R> mapTo(final @NotNull Class<R> resultType, final @NotNull Function<? super E, ? extends R> mapper) {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.mapTo(resultType, mapper);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+
+    @Override
+    public <T> T reduce(final T identity, final @NotNull BiFunction<T, ? super E, T> accumulator, final @NotNull BinaryOperator<T> combiner) {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.reduce(identity, accumulator, combiner);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+
+    @Override
+    public void forEachNonNull(final FrozenTable.@NotNull CellVisitor<? super E> visitor) {
+        final long stamp = doLockAllForRead();
+        try {
+            super.forEachNonNull(visitor);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+
+    // streams run over a consistent copy, a traversal can't hold the locks between elements
+    @Override
+    public @NotNull Spliterator<E> spliterator() {
+        return snapshot().spliterator();
+    }
+    @Override
+    public @NotNull Spliterator<E[]> rowSpliterator() {
+        return snapshot().rowSpliterator();
+    }
+
+    // switched exclusively, cell writers keep the tracked hash up to date (see doAddTrackedHash)
+    @Override
+    public ConcurrentTable<E> setHashTracking(final boolean enabled) {
+        final long stamp = doLockWrite();
+        try {
+            super.setHashTracking(enabled);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    // hash indexes are added and removed exclusively, cell writers update them under notifyLock,
+    // lookups hold every row block so no write is half applied
+    @Override
+    public ConcurrentTable<E> addIndex(final int colIndex) {
+        final long stamp = doLockWrite();
+        try {
+            super.addIndex(colIndex);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+    @Override
+    public ConcurrentTable<E> removeIndex(final int colIndex) {
+        final long stamp = doLockWrite();
+        try {
+            super.removeIndex(colIndex);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+    @Override
+    public boolean hasIndex(final int colIndex) {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.hasIndex(colIndex);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+    @Override
+    public int getIndexDistinctCount(final int colIndex) {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.getIndexDistinctCount(colIndex);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+    @Override
+    public int @NotNull [] findRows(final int colIndex, final @Nullable E val) {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.findRows(colIndex, val);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+    @Override
+    public int countRows(final int colIndex, final @Nullable E val) {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.countRows(colIndex, val);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+    @Override
+    public int findFirstRow(final int colIndex, final @Nullable E val) {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.findFirstRow(colIndex, val);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+    @Override
+    public int @NotNull [] findRowsInRange(final int colIndex, final @NotNull E from, final @NotNull E to, final @NotNull Comparator<? super E> comparator) {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.findRowsInRange(colIndex, from, to, comparator);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+
+    // ordered indexes (a stale index is sorted again by the first query, under the index's own monitor)
+
+    @Override
+    public ConcurrentTable<E> addOrderedIndex(final int colIndex, final @NotNull Comparator<? super E> comparator) {
+        final long stamp = doLockWrite();
+        try {
+            super.addOrderedIndex(colIndex, comparator);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+    @Override
+    public ConcurrentTable<E> removeOrderedIndex(final int colIndex) {
+        final long stamp = doLockWrite();
+        try {
+            super.removeOrderedIndex(colIndex);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+    @Override
+    public boolean hasOrderedIndex(final int colIndex) {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.hasOrderedIndex(colIndex);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+    @Override
+    public int @NotNull [] findRowsInRange(final int colIndex, final @NotNull E from, final @NotNull E to) {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.findRowsInRange(colIndex, from, to);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+    @Override
+    public int countRowsInRange(final int colIndex, final @NotNull E from, final @NotNull E to) {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.countRowsInRange(colIndex, from, to);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+    @Override
+    public int @NotNull [] findRowsInOrder(final int colIndex) {
+        final long stamp = doLockAllForRead();
+        try {
+            return super.findRowsInOrder(colIndex);
+        } finally {
+            doUnlockAllForRead(stamp);
+        }
+    }
+
+    // sorting (the single-key forms end up here, the write lock is taken once)
+
+    @Override
+    public ConcurrentTable<E> sortRows(final int colIndex, final @NotNull Comparator<? super E> comparator) {
+        return sortRows(new int[] { colIndex }, comparator);
+    }
+    @Override
+    public ConcurrentTable<E> sortRows(final int @NotNull [] colIndices, final @NotNull Comparator<? super E> comparator) {
+        return sortRows(colIndices, Collections.nCopies(colIndices.length, comparator));
+    }
+    @Override
+    public ConcurrentTable<E> sortRows(final int @NotNull [] colIndices, final @NotNull List<? extends Comparator<? super E>> comparators) {
+        final long stamp = doLockWrite();
+        try {
+            super.sortRows(colIndices, comparators);
+        } finally {
+            doUnlockWrite(stamp);
+        }
+        return this;
+    }
+
+    // helpers - getters (views and the formatter read through these)
+
+    // bulk reads go through doReadCell as well
+    @Override
+    protected boolean isRowMajorReadable() {
+        return false;
+    }
+
+    @Override
+    protected E doGetElementCasted(final int rowIndex, final int colIndex) {
+        @SuppressWarnings("unchecked")
+        final E val = (E) doReadCell(rowIndex, colIndex);
+        return val;
+    }
+
+    @Override
+    protected Object doGetElementAsObject(final int rowIndex, final int colIndex) {
+        return doReadCell(rowIndex, colIndex);
+    }
+
+    private Object doReadCell(final int rowIndex, final int colIndex) {
+        final long stamp = structLock.tryOptimisticRead();
+        if (stamp != 0) {
+            final Object[] d = data;
+            final int flatIndex = toFlatIndex(rowIndex, colIndex);
+            if (flatIndex >= 0 && flatIndex < d.length) {
+                final Object val = cells.getAcquire(d, flatIndex);
+                if (structLock.validate(stamp)) {
+                    return val;
+                }
+            }
+        }
+        if (structWriter == Thread.currentThread()) {
+            return data[toFlatIndex(rowIndex, colIndex)];
+        }
+        final long readStamp = structLock.readLock();
+        try {
+            return cells.getAcquire(data, toFlatIndex(rowIndex, colIndex));
+        } finally {
+            structLock.unlockRead(readStamp);
+        }
+    }
+
+    // null if the racing fields pointed outside the buffer, the caller retries under the lock
+    @SuppressWarnings("unchecked")
+    private E[] doTryReadRow(final int rowIndex) {
+        final Object[] d = data;
+        final int numCols = cols;
+        E[] result = (E[]) Array.newInstance(elementType, numCols);
+        if (layout == TableLayout.ROW_MAJOR && colGapLen == 0) {
+            final int base = toPhysicalRow(rowIndex) * colCapacity;
+            if (base < 0 || base + numCols > d.length) {
+                return null;
+            }
+            System.arraycopy(d, base, result, 0, numCols);
+            return result;
+        }
+        for (int c = 0; c < numCols; ++c) {
+            final int flatIndex = toFlatIndex(rowIndex, c);
+            if (flatIndex < 0 || flatIndex >= d.length) {
+                return null;
+            }
+            result[c] = (E) cells.getAcquire(d, flatIndex);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E[] doTryReadCol(final int colIndex) {
+        final Object[] d = data;
+        final int numRows = rows;
+        E[] result = (E[]) Array.newInstance(elementType, numRows);
+        for (int r = 0; r < numRows; ++r) {
+            final int flatIndex = toFlatIndex(r, colIndex);
+            if (flatIndex < 0 || flatIndex >= d.length) {
+                return null;
+            }
+            result[r] = (E) cells.getAcquire(d, flatIndex);
+        }
+        return result;
+    }
+
+    // helpers - change notification (cell writers on different row blocks run at the same time)
+
+    @Override
+    protected void onCellChange(final int rowIndex, final int colIndex) {
+        synchronized (notifyLock) {
+            super.onCellChange(rowIndex, colIndex);
+        }
+    }
+    @Override
+    protected void onRowChange(final int rowIndex) {
+        synchronized (notifyLock) {
+            super.onRowChange(rowIndex);
+        }
+    }
+    @Override
+    protected void onColChange(final int colIndex) {
+        synchronized (notifyLock) {
+            super.onColChange(colIndex);
+        }
+    }
+
+    // helpers - rolling hash
+
+    // Cell writers on different row blocks run at the same time, their deltas are added under
+    // notifyLock like the index updates. hashCode() holds every row block, so no delta is in flight.
+    protected void doAddTrackedHash(final int delta) {
+        synchronized (notifyLock) {
+            if (trackedHashValid) {
+                trackedHash += delta;
+            }
+        }
+    }
+
+    // change of the tracked hash when the cell becomes newVal, read under the cell's row block lock
+    protected int calCellHashDelta(final int rowIndex, final int colIndex, final Object newVal) {
+        return calCellHash(newVal, rowIndex, colIndex) - calCellHash(data[toFlatIndex(rowIndex, colIndex)], rowIndex, colIndex);
+    }
+
+    // equals already holds every lock, it must not call hashCode() (which takes them again)
+    @Override
+    protected boolean hasCheapHash() {
+        return false;
+    }
+
+    // helpers - locking
+
+    protected static int toStripe(final int rowIndex) {
+        return (rowIndex >>> stripeShift) & (numStripes - 1);
+    }
+
+    protected void doLockStripe(final int stripe) {
+        stripeLocks[stripe].lock();
+        stripeSeqs.incrementAndGet(stripe); // odd: rows of this stripe are being written
+    }
+    protected void doUnlockStripe(final int stripe) {
+        stripeSeqs.incrementAndGet(stripe);
+        stripeLocks[stripe].unlock();
+    }
+
+    protected long doLockWrite() {
+        final long stamp = structLock.writeLock();
+        structWriter = Thread.currentThread();
+        return stamp;
+    }
+    protected void doUnlockWrite(final long stamp) {
+        structWriter = null;
+        structLock.unlockWrite(stamp);
+    }
+
+    // shared structure lock plus every row block, nothing can change until doUnlockAllForRead
+    protected long doLockAllForRead() {
+        final long stamp = structLock.readLock();
+        for (int i = 0; i < numStripes; ++i) {
+            stripeLocks[i].lock();
+        }
+        return stamp;
+    }
+    protected void doUnlockAllForRead(final long stamp) {
+        for (int i = numStripes - 1; i >= 0; --i) {
+            stripeLocks[i].unlock();
+        }
+        structLock.unlockRead(stamp);
+    }
+}
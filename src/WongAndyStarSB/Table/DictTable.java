@@ -0,0 +1,823 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.UnaryOperator;
+
+// A dictionary-encoded Table: every distinct value is stored once in the dictionary, the cells hold its code.
+// Codes are bytes while the dictionary has up to 255 values, then shorts (up to 65535), then ints; the array
+// is widened once when a new value does not fit. Code 0 is null.
+// The hash and the repr of each value are computed once per dictionary entry, so hashCode(), equals
+// against another dictionary table and the col widths of TableFormatter work on the codes.
+// The cell hooks of Table read and write codes, so set/setRow/setCol, the appends, indexes, sorting and
+// batched edits are Table's own; only the operations that move cells within Table.data are redone on the codes.
+// The codes are always row-major (colCapacity stride) without gaps, the layout applies to decoded copies.
+// Values must not change while they are in the dictionary (same as keys of a HashMap).
+public class DictTable<E> extends Table<E> {
+
+    protected static final int initialDictCapacity = 16;
+    protected static final int maxByteCode = 0xFF;
+    protected static final int maxShortCode = 0xFFFF;
+
+    // Table.data is left null, the codes live in exactly one of these; codes outside the used cells are 0
+    protected byte[] byteCodes;
+    protected short[] shortCodes;
+    protected int[] intCodes;
+
+    // code -> value / hashCode() / toString() (filled on first render), code 0 is null
+    protected Object[] dictVals;
+    protected int[] dictHashes;
+    protected String[] dictReprs;
+    // codes in use, the null code included
+    protected int dictSize;
+    protected HashMap<Object, Integer> dictCodes;
+
+    protected DictTable(final Class<E> elementType, final int rows, final int cols, final int rowCap, final int colCap, final TableFormatter<E> formatter) {
+        super(elementType, null, rows, cols, rowCap, colCap, formatter);
+        this.byteCodes = new byte[rowCap * colCap];
+        doClearDict();
+    }
+
+    // factory methods
+
+    protected static <T> @NotNull DictTable<T> doCreateDict(final Class<T> elementType, final int rows, final int cols, final int rowCap, final int colCap) {
+        // no check
+        return new DictTable<T>(elementType, rows, cols, rowCap, colCap, null);
+    }
+
+    public static <T> @NotNull DictTable<T> createEmpty(final Class<T> elementType) {
+        return doCreateDict(elementType, 0, 0, defaultRowCapacity, defaultColCapacity);
+    }
+
+    // encodes every cell of other, same capacities and layout
+    public static <T> @NotNull DictTable<T> createCopy(final Table<T> other) {
+        return createCopy((ReadableTable<T>) other);
+    }
+    public static <T> @NotNull DictTable<T> createCopy(final ReadableTable<T> other) {
+        DictTable<T> result = doCreateDict(other.elementType, other.rows, other.cols, other.rowCapacity, other.colCapacity);
+        result.layout = other.layout;
+        result.doEncodeFrom(other);
+        return result;
+    }
+
+    public static <T> @NotNull DictTable<T> createWithSizeCapacity(final Class<T> elementType, final int rows, final int cols, final int rowCap, final int colCap) {
+        validateDimensions(rows, cols);
+        validateDimensions(rowCap, colCap);
+        return doCreateDict(elementType, rows, cols, rowCap, colCap);
+    }
+
+    public static <T> @NotNull DictTable<T> createWithCapacity(final Class<T> elementType, final int rowCap, final int colCap) {
+        validateDimensions(rowCap, colCap);
+        return doCreateDict(elementType, 0, 0, rowCap, colCap);
+    }
+
+    public static <T> @NotNull DictTable<T> createWithSize(final Class<T> elementType, final int rows, final int cols) {
+        validateDimensions(rows, cols);
+        final int rowCap = rows * 3 / 2;
+        final int colCap = cols * 3 / 2;
+        return doCreateDict(elementType, rows, cols, rowCap, colCap);
+    }
+
+    public static <T> @NotNull DictTable<T> createFromArr(final Class<T> elementType, final T[][] arr2d) {
+        return createCopy(ReadableTable.createFromArr(elementType, arr2d));
+    }
+
+    // decodes every cell into a Table with the same capacities and layout
+    public @NotNull Table<E> toTable() {
+        Table<E> result = Table.doCreateWithSizeCapacity(elementType, rows, cols, rowCapacity, colCapacity, layout);
+        doCopyCellsTo(result.data, result.layout, result.rowCapacity, result.colCapacity);
+        return result;
+    }
+
+    // getters
+
+    // distinct non-null values in the dictionary (values no longer in any cell included, until compacted)
+    public int getDictionarySize() {
+        return dictSize - 1;
+    }
+
+    // 8, 16 or 32
+    public int getCodeBits() {
+        if (byteCodes != null) {
+            return Byte.SIZE;
+        }
+        return (shortCodes != null) ? Short.SIZE : Integer.SIZE;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] getRowClone(final int rowIndex) {
+        validateRowIndex(rowIndex);
+        E[] result = (E[]) Array.newInstance(elementType, cols);
+        final int base = rowIndex * colCapacity;
+        for (int c = 0; c < cols; ++c) {
+            result[c] = (E) dictVals[doReadCode(base + c)];
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] getColClone(final int colIndex) {
+        validateColIndex(colIndex);
+        E[] result = (E[]) Array.newInstance(elementType, rows);
+        for (int r = 0; r < rows; ++r) {
+            result[r] = (E) dictVals[doReadCode(r * colCapacity + colIndex)];
+        }
+        return result;
+    }
+
+    // the buffer the table would have if it were not encoded
+    @Override
+    public Object[] getUnderlyingArrayClone() {
+        Object[] result = new Object[rowCapacity * colCapacity];
+        doCopyCellsTo(result, layout, rowCapacity, colCapacity);
+        return result;
+    }
+
+    // bulk setters (each distinct value is looked at once)
+
+    @Override
+    public DictTable<E> fill(final @Nullable E val) {
+        final int code = doEncode(val);
+        for (int r = 0; r < rows; ++r) {
+            doFillCodes(r * colCapacity, r * colCapacity + cols, code);
+        }
+        onCellsChange();
+        return this;
+    }
+
+    // operator is applied once per dictionary value (null included), not once per cell
+    @Override
+    @SuppressWarnings("unchecked")
+    public DictTable<E> replaceAll(final @NotNull UnaryOperator<E> operator) {
+        final int oldSize = dictSize;
+        int[] newCodes = new int[oldSize];
+        for (int k = 0; k < oldSize; ++k) {
+            newCodes[k] = doEncode(operator.apply((E) dictVals[k]));
+        }
+        for (int r = 0; r < rows; ++r) {
+            final int base = r * colCapacity;
+            for (int c = 0; c < cols; ++c) {
+                doWriteCode(base + c, newCodes[doReadCode(base + c)]);
+            }
+        }
+        onCellsChange();
+        return this;
+    }
+
+    // resize/add/remove rows/cols
+
+    @Override
+    public DictTable<E> removeRow(final int rowIndex) {
+        return removeRows(rowIndex, rowIndex + 1);
+    }
+
+    // [begin, end)
+    @Override
+    public DictTable<E> removeRows(final int beginRowIdx, final int endRowIdx) {
+        validateRowIndex(beginRowIdx);
+        validateEndRowIndex(endRowIdx);
+        validateRowBeginEnd(beginRowIdx, endRowIdx);
+        final int numRemoved = endRowIdx - beginRowIdx;
+        // rows after the range are contiguous, so shift them up in one copy
+        final Object codes = getCodeArray();
+        System.arraycopy(codes, endRowIdx * colCapacity, codes, beginRowIdx * colCapacity, (rows - endRowIdx) * colCapacity);
+        doFillCodes((rows - numRemoved) * colCapacity, rows * colCapacity, 0);
+        rows -= numRemoved;
+        onRowsRemoved(beginRowIdx, endRowIdx);
+        return this;
+    }
+
+    @Override
+    public DictTable<E> removeCol(final int colIndex) {
+        validateColIndex(colIndex);
+        final Object codes = getCodeArray();
+        for (int r = 0; r < rows; ++r) {
+            final int base = r * colCapacity;
+            System.arraycopy(codes, base + colIndex + 1, codes, base + colIndex, cols - colIndex - 1);
+            doWriteCode(base + cols - 1, 0);
+        }
+        cols -= 1;
+        onColsRemoved(colIndex, colIndex + 1);
+        return this;
+    }
+
+    // defaultVals[i] fills the new row i
+    @Override
+    public DictTable<E> addRows(final E[] defaultVals) {
+        final int numRowsToAdd = defaultVals.length;
+        if (numRowsToAdd == 0) {
+            return this;
+        }
+        doGrowRowCapIfNeeded(rows + numRowsToAdd);
+        for (int i = 0; i < numRowsToAdd; ++i) {
+            final int base = (rows + i) * colCapacity;
+            doFillCodes(base, base + cols, doEncode(defaultVals[i]));
+        }
+        rows += numRowsToAdd;
+        onRowsInserted(rows - numRowsToAdd, numRowsToAdd);
+        return this;
+    }
+
+    // defaultVals[i] fills the new col i
+    @Override
+    public DictTable<E> addCols(final E[] defaultVals) {
+        final int numColsToAdd = defaultVals.length;
+        if (numColsToAdd == 0) {
+            return this;
+        }
+        doGrowColCapIfNeeded(cols + numColsToAdd);
+        for (int i = 0; i < numColsToAdd; ++i) {
+            final int code = doEncode(defaultVals[i]);
+            for (int r = 0; r < rows; ++r) {
+                doWriteCode(r * colCapacity + cols + i, code);
+            }
+        }
+        cols += numColsToAdd;
+        onColsInserted(cols - numColsToAdd, numColsToAdd);
+        return this;
+    }
+
+    // insert in the middle (no gap buffer, the codes after the insert position shift by one)
+
+    @Override
+    public DictTable<E> insertRow(final int rowIndex, final @Nullable E[] row) {
+        validateEndRowIndex(rowIndex);
+        validateSizeNewRow(row);
+        doGrowRowCapIfNeeded(rows + 1);
+        final Object codes = getCodeArray();
+        System.arraycopy(codes, rowIndex * colCapacity, codes, (rowIndex + 1) * colCapacity, (rows - rowIndex) * colCapacity);
+        rows += 1;
+        doCopyRowIn(row, rowIndex);
+        onRowsInserted(rowIndex, 1);
+        return this;
+    }
+
+    @Override
+    public DictTable<E> insertCol(final int colIndex, final @Nullable E[] col) {
+        validateEndColIndex(colIndex);
+        validateSizeNewCol(col);
+        doGrowColCapIfNeeded(cols + 1);
+        final Object codes = getCodeArray();
+        for (int r = 0; r < rows; ++r) {
+            final int base = r * colCapacity;
+            System.arraycopy(codes, base + colIndex, codes, base + colIndex + 1, cols - colIndex);
+        }
+        cols += 1;
+        doCopyColIn(col, colIndex);
+        onColsInserted(colIndex, 1);
+        return this;
+    }
+
+    // dictionary
+
+    // drops the values no cell holds any more and narrows the codes if the rest fit, cells stay the same
+    public DictTable<E> compact() {
+        boolean[] used = new boolean[dictSize];
+        for (int r = 0; r < rows; ++r) {
+            final int base = r * colCapacity;
+            for (int c = 0; c < cols; ++c) {
+                used[doReadCode(base + c)] = true;
+            }
+        }
+        int[] newCodes = new int[dictSize];
+        int newSize = 1;
+        for (int k = 1; k < dictSize; ++k) {
+            if (!used[k]) {
+                dictCodes.remove(dictVals[k]);
+                continue;
+            }
+            newCodes[k] = newSize;
+            dictVals[newSize] = dictVals[k];
+            dictHashes[newSize] = dictHashes[k];
+            dictReprs[newSize] = dictReprs[k];
+            dictCodes.put(dictVals[newSize], newSize);
+            ++newSize;
+        }
+        if (newSize == dictSize) {
+            return this;
+        }
+        for (int k = newSize; k < dictSize; ++k) {
+            dictVals[k] = null;
+            dictReprs[k] = null;
+        }
+        dictSize = newSize;
+        for (int r = 0; r < rows; ++r) {
+            final int base = r * colCapacity;
+            for (int c = 0; c < cols; ++c) {
+                doWriteCode(base + c, newCodes[doReadCode(base + c)]);
+            }
+        }
+        doNarrowCodes();
+        return this;
+    }
+
+    // buffer pool
+
+    // nothing is pooled for codes, the table just empties (dictionary included)
+    @Override
+    public void release() {
+        doSetCodeArray(new byte[0]);
+        doClearDict();
+        rows = 0;
+        cols = 0;
+        rowCapacity = 0;
+        colCapacity = 0;
+        onTableChange();
+    }
+
+    // snapshots
+
+    // the codes are not shared copy-on-write, a snapshot is a copy (O(cells) bytes, the dictionary cloned)
+    @Override
+    public @NotNull ReadableTable<E> snapshot() {
+        return copy();
+    }
+
+    // transpose
+
+    @Override
+    public @NotNull DictTable<E> transpose() {
+        final long start = TableMetrics.start();
+        DictTable<E> result = doCreateDict(elementType, cols, rows, colCapacity, rowCapacity);
+        result.layout = layout;
+        doTransposeCodesInto(result);
+        TableMetrics.recordTranspose(this, false, start);
+        return result;
+    }
+
+    @Override
+    public @NotNull DictTable<E> beTransposed() {
+        final long start = TableMetrics.start();
+        Object result = doAllocCodes(colCapacity * rowCapacity);
+        TableTransposer.transpose(getCodeArray(), colCapacity, result, rowCapacity, rows, cols);
+        doSetCodeArray(result);
+        doSwapCapacities();
+        final int tmpSize = rows;
+        rows = cols;
+        cols = tmpSize;
+        // the columns are gone, what was indexed are rows now
+        doRemoveIndexes(0, Integer.MAX_VALUE);
+        doRemoveOrderedIndexes(0, Integer.MAX_VALUE);
+        onTableChange();
+        TableMetrics.recordTranspose(this, true, start);
+        return this;
+    }
+
+    // layout
+
+    // the codes stay row-major, only the capacities are rounded; the layout applies to decoded copies
+    @Override
+    public @NotNull DictTable<E> setLayout(final @NotNull TableLayout newLayout) {
+        layout = newLayout;
+        final int newRowCap = newLayout.roundCapacity(rowCapacity);
+        final int newColCap = newLayout.roundCapacity(colCapacity);
+        if (newRowCap != rowCapacity || newColCap != colCapacity) {
+            doRealloc(newRowCap, newColCap);
+        }
+        return this;
+    }
+
+    // copy
+
+    @Override
+    public @NotNull DictTable<E> copy() {
+        final long start = TableMetrics.start();
+        DictTable<E> result = doCreateDict(elementType, rows, cols, rowCapacity, colCapacity);
+        result.layout = layout;
+        doCopyCodesInto(result);
+        TableMetrics.recordCopy(this, TableMetrics.copy, start);
+        return result;
+    }
+    @Override
+    public @NotNull DictTable<E> copyAndTrim() {
+        final long start = TableMetrics.start();
+        DictTable<E> result = doCreateDict(elementType, rows, cols, layout.roundCapacity(rows), layout.roundCapacity(cols));
+        result.layout = layout;
+        doCopyCodesInto(result);
+        TableMetrics.recordCopy(this, TableMetrics.copyAndTrim, start);
+        return result;
+    }
+
+    // common functions
+
+    // against another dictionary table: its codes are translated to ours once, then only codes are compared
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) { return true; }
+        if (!(obj instanceof DictTable<?> other)) { return super.equals(obj); }
+        if ((this.rows != other.rows) || (this.cols != other.cols)) { return false; }
+        if (this.hasCheapHash() && other.hasCheapHash() && this.hashCode() != other.hashCode()) { return false; }
+        final int[] toOurs = calCodeMapFrom(other);
+        for (int r = 0; r < rows; ++r) {
+            final int base = r * this.colCapacity;
+            final int otherBase = r * other.colCapacity;
+            for (int c = 0; c < cols; ++c) {
+                if (this.doReadCode(base + c) != toOurs[other.doReadCode(otherBase + c)]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    //  hashCode (remain same as super, the cell terms come from calCellsHash)
+
+    // helpers
+
+    @Override
+    protected int toFlatIndex(final int rowIndex, final int colIndex) {
+        return rowIndex * colCapacity + colIndex;
+    }
+
+    // helpers - metrics
+
+    @Override
+    protected int calCellBytes() {
+        return getCodeBits() / Byte.SIZE;
+    }
+
+    // helpers - getters
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected E doGetElementCasted(final int rowIndex, final int colIndex) {
+        return (E) dictVals[doReadCode(rowIndex * colCapacity + colIndex)];
+    }
+
+    @Override
+    protected Object doGetElementAsObject(final int rowIndex, final int colIndex) {
+        return dictVals[doReadCode(rowIndex * colCapacity + colIndex)];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected E doGetElementCasted(final int flatIndex) {
+        return (E) dictVals[doReadCode(flatIndex)];
+    }
+
+    @Override
+    protected Object doGetElementAsObject(final int flatIndex) {
+        return dictVals[doReadCode(flatIndex)];
+    }
+
+    // helpers - setters
+
+    @Override
+    protected void doSetElementRaw(final int flatIndex, final Object rawVal) {
+        doWriteCode(flatIndex, doEncode(rawVal));
+    }
+
+    @Override
+    protected void doCopyRowIn(final Object[] row, final int rowIndex) {
+        final int base = rowIndex * colCapacity;
+        for (int c = 0; c < cols; ++c) {
+            doWriteCode(base + c, doEncode(row[c]));
+        }
+    }
+
+    @Override
+    protected void doCopyColIn(final Object[] col, final int colIndex) {
+        for (int r = 0; r < rows; ++r) {
+            doWriteCode(r * colCapacity + colIndex, doEncode(col[r]));
+        }
+    }
+
+    // helpers - repr (each value is rendered once)
+
+    @Override
+    protected int doCalElementReprLen(final int rowIndex, final int colIndex, final String nullRepr) {
+        final int code = doReadCode(rowIndex * colCapacity + colIndex);
+        return (code == 0) ? nullRepr.length() : doGetDictRepr(code).length();
+    }
+
+    @Override
+    protected String doGetElementRepr(final int rowIndex, final int colIndex, final String nullRepr) {
+        final int code = doReadCode(rowIndex * colCapacity + colIndex);
+        return (code == 0) ? nullRepr : doGetDictRepr(code);
+    }
+
+    protected String doGetDictRepr(final int code) {
+        String result = dictReprs[code];
+        if (result == null) {
+            result = dictReprs[code] = dictVals[code].toString();
+        }
+        return result;
+    }
+
+    // helpers - hashing (each value hashed once, same value as for a Table)
+
+    @Override
+    protected int calCellsHash(final int rowBegin, final int rowEnd, final int colBegin, final int colEnd) {
+        int result = 0;
+        for (int r = rowBegin; r < rowEnd; ++r) {
+            final int base = r * colCapacity;
+            int weight = calPositionWeight(r, colBegin);
+            for (int c = colBegin; c < colEnd; ++c) {
+                result += dictHashes[doReadCode(base + c)] * weight;
+                weight += colWeightStep;
+            }
+        }
+        return result;
+    }
+
+    // helpers - sorting (rows of codes are moved into a new array)
+
+    @Override
+    protected void doPermuteRows(final int[] order) {
+        final Object codes = getCodeArray();
+        Object result = doAllocCodes(rowCapacity * colCapacity);
+        for (int r = 0; r < rows; ++r) {
+            System.arraycopy(codes, order[r] * colCapacity, result, r * colCapacity, cols);
+        }
+        doSetCodeArray(result);
+    }
+
+    // helpers - batched edits (always into a new code array, the codes are small next to references)
+
+    @Override
+    protected void doRemap(final int[] rowSrc, final int[] colSrc, final boolean inPlace) {
+        final int newRows = rowSrc.length;
+        final int newCols = colSrc.length;
+        final int newRowCap = layout.roundCapacity((newRows > rowCapacity) ? newRows * 3 / 2 : rowCapacity);
+        final int newColCap = layout.roundCapacity((newCols > colCapacity) ? newCols * 3 / 2 : colCapacity);
+        final Object codes = getCodeArray();
+        Object result = doAllocCodes(newRowCap * newColCap);
+        for (int dr = 0; dr < newRows; ++dr) {
+            if (rowSrc[dr] < 0) {
+                continue;
+            }
+            final int srcBase = rowSrc[dr] * colCapacity;
+            // every run of consecutive old cols is one copy
+            for (int dc = 0; dc < newCols; ) {
+                final int numCols = calSrcRunLen(colSrc, dc);
+                if (colSrc[dc] >= 0) {
+                    System.arraycopy(codes, srcBase + colSrc[dc], result, dr * newColCap + dc, numCols);
+                }
+                dc += numCols;
+            }
+        }
+        doSetCodeArray(result);
+        rowCapacity = newRowCap;
+        colCapacity = newColCap;
+        rows = newRows;
+        cols = newCols;
+    }
+
+    // helpers - codes
+
+    protected int doReadCode(final int flatIndex) {
+        if (byteCodes != null) {
+            return byteCodes[flatIndex] & maxByteCode;
+        }
+        if (shortCodes != null) {
+            return shortCodes[flatIndex] & maxShortCode;
+        }
+        return intCodes[flatIndex];
+    }
+
+    protected void doWriteCode(final int flatIndex, final int code) {
+        if (byteCodes != null) {
+            byteCodes[flatIndex] = (byte) code;
+        } else if (shortCodes != null) {
+            shortCodes[flatIndex] = (short) code;
+        } else {
+            intCodes[flatIndex] = code;
+        }
+    }
+
+    // the code array in use, for System.arraycopy
+    protected Object getCodeArray() {
+        if (byteCodes != null) {
+            return byteCodes;
+        }
+        return (shortCodes != null) ? shortCodes : intCodes;
+    }
+
+    // an array of the current code width
+    protected Object doAllocCodes(final int len) {
+        if (byteCodes != null) {
+            return new byte[len];
+        }
+        return (shortCodes != null) ? new short[len] : new int[len];
+    }
+
+    protected void doSetCodeArray(final Object codes) {
+        byteCodes = (codes instanceof byte[] b) ? b : null;
+        shortCodes = (codes instanceof short[] s) ? s : null;
+        intCodes = (codes instanceof int[] i) ? i : null;
+    }
+
+    // codes of [flatBegin, flatEnd) become code
+    protected void doFillCodes(final int flatBegin, final int flatEnd, final int code) {
+        if (byteCodes != null) {
+            Arrays.fill(byteCodes, flatBegin, flatEnd, (byte) code);
+        } else if (shortCodes != null) {
+            Arrays.fill(shortCodes, flatBegin, flatEnd, (short) code);
+        } else {
+            Arrays.fill(intCodes, flatBegin, flatEnd, code);
+        }
+    }
+
+    // helpers - dictionary
+
+    // only the null code
+    protected void doClearDict() {
+        dictVals = new Object[initialDictCapacity];
+        dictHashes = new int[initialDictCapacity];
+        dictReprs = new String[initialDictCapacity];
+        dictSize = 1;
+        dictCodes = new HashMap<>();
+    }
+
+    // the code of val, added to the dictionary (and the code array widened) if new
+    protected int doEncode(final Object val) {
+        if (val == null) {
+            return 0;
+        }
+        final Integer known = dictCodes.get(val);
+        if (known != null) {
+            return known;
+        }
+        final int code = dictSize;
+        if (code == dictVals.length) {
+            final int newCap = dictVals.length * 2;
+            dictVals = Arrays.copyOf(dictVals, newCap);
+            dictHashes = Arrays.copyOf(dictHashes, newCap);
+            dictReprs = Arrays.copyOf(dictReprs, newCap);
+        }
+        dictVals[code] = val;
+        dictHashes[code] = val.hashCode();
+        dictSize += 1;
+        dictCodes.put(val, code);
+        if ((byteCodes != null && code > maxByteCode) || (shortCodes != null && code > maxShortCode)) {
+            doWidenCodes();
+        }
+        return code;
+    }
+
+    // byte -> short -> int, same cells
+    protected void doWidenCodes() {
+        if (byteCodes != null) {
+            short[] result = new short[byteCodes.length];
+            for (int i = 0; i < result.length; ++i) {
+                result[i] = (short) (byteCodes[i] & maxByteCode);
+            }
+            doSetCodeArray(result);
+        } else if (shortCodes != null) {
+            int[] result = new int[shortCodes.length];
+            for (int i = 0; i < result.length; ++i) {
+                result[i] = shortCodes[i] & maxShortCode;
+            }
+            doSetCodeArray(result);
+        }
+    }
+
+    // narrowest code array that holds the current dictionary, same cells
+    protected void doNarrowCodes() {
+        final Object narrowed;
+        if (dictSize - 1 <= maxByteCode) {
+            if (byteCodes != null) {
+                return;
+            }
+            byte[] result = new byte[rowCapacity * colCapacity];
+            for (int i = 0; i < result.length; ++i) {
+                result[i] = (byte) doReadCode(i);
+            }
+            narrowed = result;
+        } else if (dictSize - 1 <= maxShortCode) {
+            if (byteCodes != null || shortCodes != null) {
+                return;
+            }
+            short[] result = new short[rowCapacity * colCapacity];
+            for (int i = 0; i < result.length; ++i) {
+                result[i] = (short) intCodes[i];
+            }
+            narrowed = result;
+        } else {
+            return;
+        }
+        doSetCodeArray(narrowed);
+    }
+
+    // other's code -> our code for the same value, -1 if we don't have the value
+    protected int[] calCodeMapFrom(final DictTable<?> other) {
+        int[] result = new int[other.dictSize];
+        for (int k = 1; k < other.dictSize; ++k) {
+            final Integer code = dictCodes.get(other.dictVals[k]);
+            result[k] = (code == null) ? -1 : code;
+        }
+        return result;
+    }
+
+    protected void doCopyDictInto(final DictTable<E> dst) {
+        dst.dictVals = dictVals.clone();
+        dst.dictHashes = dictHashes.clone();
+        dst.dictReprs = dictReprs.clone();
+        dst.dictSize = dictSize;
+        dst.dictCodes = new HashMap<>(dictCodes);
+    }
+
+    // dst has the same size, any capacities
+    protected void doCopyCodesInto(final DictTable<E> dst) {
+        doCopyDictInto(dst);
+        dst.doSetCodeArray(doAllocCodes(dst.rowCapacity * dst.colCapacity));
+        final Object src = getCodeArray();
+        final Object dstCodes = dst.getCodeArray();
+        if (dst.colCapacity == colCapacity) {
+            System.arraycopy(src, 0, dstCodes, 0, rows * colCapacity);
+            return;
+        }
+        for (int r = 0; r < rows; ++r) {
+            System.arraycopy(src, r * colCapacity, dstCodes, r * dst.colCapacity, cols);
+        }
+    }
+
+    // dst is cols x rows
+    protected void doTransposeCodesInto(final DictTable<E> dst) {
+        doCopyDictInto(dst);
+        dst.doSetCodeArray(doAllocCodes(dst.rowCapacity * dst.colCapacity));
+        TableTransposer.transpose(getCodeArray(), colCapacity, dst.getCodeArray(), dst.colCapacity, rows, cols);
+    }
+
+    // src has the same size
+    protected void doEncodeFrom(final ReadableTable<E> src) {
+        if (src instanceof DictTable<E> dict) {
+            dict.doCopyCodesInto(this);
+            return;
+        }
+        for (int r = 0; r < src.rows; ++r) {
+            for (int c = 0; c < src.cols; ++c) {
+                doWriteCode(r * colCapacity + c, doEncode(src.doGetElementAsObject(r, c)));
+            }
+        }
+    }
+
+    // helpers - capacity/reallocate (new code arrays of the current width, rounded like the layout's buffer)
+
+    @Override
+    protected void doRealloc(final int newRowCap, final int newColCap) {
+        // Note: no argument check
+        // newRowCap should be >= rows and newColCap >= cols, this is ensured by caller
+        final long start = TableMetrics.start();
+        final int oldRowCap = rowCapacity;
+        final int oldColCap = colCapacity;
+        final int roundedRowCap = layout.roundCapacity(newRowCap);
+        final int roundedColCap = layout.roundCapacity(newColCap);
+        final Object codes = getCodeArray();
+        Object result = doAllocCodes(roundedRowCap * roundedColCap);
+        for (int r = 0; r < rows; ++r) {
+            System.arraycopy(codes, r * colCapacity, result, r * roundedColCap, cols);
+        }
+        rowCapacity = roundedRowCap;
+        colCapacity = roundedColCap;
+        doSetCodeArray(result);
+        TableMetrics.recordRealloc(this, oldRowCap, oldColCap, (long) rows * cols, start);
+    }
+    @Override
+    protected void doReallocRow(final int newRowCap) {
+        // Note: no argument check
+        // newRowCap should be >= rows, this is ensured by caller
+        final long start = TableMetrics.start();
+        final int oldRowCap = rowCapacity;
+        final int roundedRowCap = layout.roundCapacity(newRowCap);
+        Object result = doAllocCodes(roundedRowCap * colCapacity);
+        System.arraycopy(getCodeArray(), 0, result, 0, rows * colCapacity);
+        rowCapacity = roundedRowCap;
+        doSetCodeArray(result);
+        TableMetrics.recordRealloc(this, oldRowCap, colCapacity, (long) rows * colCapacity, start);
+    }
+    @Override
+    protected void doReallocCol(final int newColCap) {
+        // Note: no argument check
+        // newColCap should be >= cols, this is ensured by caller
+        doRealloc(rowCapacity, newColCap);
+    }
+
+    // helpers - layout
+
+    @Override
+    protected void doCopyCellsTo(final Object[] dst, final TableLayout dstLayout, final int dstRowCap, final int dstColCap) {
+        for (int r = 0; r < rows; ++r) {
+            final int base = r * colCapacity;
+            for (int c = 0; c < cols; ++c) {
+                dst[dstLayout.toFlatIndex(r, c, dstRowCap, dstColCap)] = dictVals[doReadCode(base + c)];
+            }
+        }
+    }
+
+    @Override
+    protected void doTransposeInto(final Object[] dst, final int dstRowCap, final int dstColCap) {
+        for (int r = 0; r < rows; ++r) {
+            final int base = r * colCapacity;
+            for (int c = 0; c < cols; ++c) {
+                dst[layout.toFlatIndex(c, r, dstRowCap, dstColCap)] = dictVals[doReadCode(base + c)];
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+
+// The structural work (remove/add/realloc) is shared in ReadablePrimitiveTable, the typed setters are here.
+public class DoubleTable extends ReadableDoubleTable {
+
+    protected DoubleTable(final double[] doubleData, final int rows, final int cols, final int rowCap, final int colCap, final TableFormatter<Double> formatter) {
+        super(doubleData, rows, cols, rowCap, colCap, formatter);
+    }
+
+    // factory methods
+
+    protected static @NotNull DoubleTable doCreateWithSizeCapacity(final int rows, final int cols, final int rowCap, final int colCap) {
+        // no check
+        return new DoubleTable(
+                new double[rowCap * colCap],
+                rows, cols,
+                rowCap, colCap,
+                null
+        );
+    }
+
+    public static @NotNull DoubleTable createEmpty() {
+        return doCreateWithSizeCapacity(0, 0, defaultRowCapacity, defaultColCapacity);
+    }
+
+    public static @NotNull DoubleTable createCopy(final ReadableDoubleTable other) {
+        DoubleTable result = doCreateWithSizeCapacity(
+                other.rows, other.cols,
+                other.rowCapacity, other.colCapacity
+        );
+        result.doCopyDataFrom(other);
+        return result;
+    }
+    public static @NotNull DoubleTable createWithSizeCapacity(final int rows, final int cols, final int rowCap, final int colCap) {
+        validateDimensions(rows, cols);
+        validateDimensions(rowCap, colCap);
+        return doCreateWithSizeCapacity(rows, cols, rowCap, colCap);
+    }
+
+    public static @NotNull DoubleTable createWithCapacity(final int rowCap, final int colCap) {
+        validateDimensions(rowCap, colCap);
+        return doCreateWithSizeCapacity(0, 0, rowCap, colCap);
+    }
+
+    public static @NotNull DoubleTable createWithSize(final int rows, final int cols) {
+        validateDimensions(rows, cols);
+        final int rowCap = rows * 3 / 2;
+        final int colCap = cols * 3 / 2;
+        return doCreateWithSizeCapacity(rows, cols, rowCap, colCap);
+    }
+    public static @NotNull DoubleTable createWithSize(final int rows, final int cols, final double defaultVal) {
+        DoubleTable result = createWithSize(rows, cols);
+        result.doFillUsed(defaultVal);
+        return result;
+    }
+
+    public static @NotNull DoubleTable createFromArr(final double[][] arr2d) {
+        if (arr2d.length == 0) {
+            return createEmpty();
+        }
+        DoubleTable result = createWithSize(arr2d.length, calArr2dCols(arr2d));
+        result.doCopyArr2dIn(arr2d);
+        return result;
+    }
+
+    public static @NotNull DoubleTable createFromBoxed(final ReadableTable<Double> other) {
+        DoubleTable result = doCreateWithSizeCapacity(other.rows, other.cols, other.rowCapacity, other.colCapacity);
+        result.doUnboxFrom(other, false, null);
+        return result;
+    }
+    public static @NotNull DoubleTable createFromBoxed(final ReadableTable<Double> other, final double nullVal) {
+        DoubleTable result = doCreateWithSizeCapacity(other.rows, other.cols, other.rowCapacity, other.colCapacity);
+        result.doUnboxFrom(other, true, nullVal);
+        return result;
+    }
+
+    // getters (remain as super)
+
+    // simple setters
+
+    public DoubleTable setDouble(final int rowIndex, final int colIndex, final double val) {
+        validateRowIndex(rowIndex);
+        validateColIndex(colIndex);
+        doubleData[toFlatIndex(rowIndex, colIndex)] = val;
+        onCellChange(rowIndex, colIndex);
+        return this;
+    }
+
+    public DoubleTable setRow(final int rowIndex, final double[] row) {
+        validateRowIndex(rowIndex);
+        validateSizeNewArrRow(row);
+        doCopyRowIn(row, rowIndex);
+        onRowChange(rowIndex);
+        return this;
+    }
+
+    public DoubleTable setCol(final int colIndex, final double[] col) {
+        validateColIndex(colIndex);
+        validateSizeNewArrCol(col);
+        for (int r = 0; r < rows; ++r) {
+            doubleData[toFlatIndex(r, colIndex)] = col[r];
+        }
+        onColChange(colIndex);
+        return this;
+    }
+
+    // resize/add/remove rows/cols
+
+    public DoubleTable resizeRows(int newRowSize) {
+        doResizeRows(newRowSize);
+        return this;
+    }
+
+    public DoubleTable removeRow(final int rowIndex) {
+        doRemoveRow(rowIndex);
+        return this;
+    }
+
+    public DoubleTable removeCol(final int colIndex) {
+        doRemoveCol(colIndex);
+        return this;
+    }
+
+    // [begin, end)
+    public DoubleTable removeRows(final int beginRowIdx, final int endRowIdx) {
+        doRemoveRows(beginRowIdx, endRowIdx);
+        return this;
+    }
+
+    public DoubleTable addRow(final double[] row) {
+        doAddRow(row);
+        return this;
+    }
+
+    public DoubleTable addRows(int numRowsToAdd) {
+        doAddRows(numRowsToAdd);
+        return this;
+    }
+
+    public DoubleTable addCol(final double[] col) {
+        validateSizeNewArrCol(col);
+        doGrowColCapIfNeeded(cols + 1);
+        for (int r = 0; r < rows; ++r) {
+            doubleData[r * colCapacity + cols] = col[r];
+        }
+        cols += 1;
+        onColsInserted(cols - 1, 1);
+        return this;
+    }
+
+    public DoubleTable addCols(int numColsToAdd) {
+        doAddCols(numColsToAdd);
+        return this;
+    }
+
+    // transpose
+
+    @Override
+    public @NotNull DoubleTable transpose() {
+        final long start = TableMetrics.start();
+        DoubleTable result = doCreateWithSizeCapacity(cols, rows, colCapacity, rowCapacity);
+        doTransposeInto(result.doubleData, result.colCapacity);
+        TableMetrics.recordTranspose(this, false, start);
+        return result;
+    }
+
+    // Capacity/Reallocate
+
+    public void setRowCapacity(final int newRowCap) {
+        validateRowCapacity(newRowCap);
+        doReallocRow(newRowCap);
+    }
+    public void setColCapacity(final int newColCap) {
+        validateColCapacity(newColCap);
+        doReallocCol(newColCap);
+    }
+
+    public void reallocate(final int newRowCap, final int newColCap) {
+        doReallocate(newRowCap, newColCap);
+    }
+
+    // copy
+
+    @Override
+    public @NotNull DoubleTable copy() {
+        final long start = TableMetrics.start();
+        DoubleTable result = createCopy(this);
+        TableMetrics.recordCopy(this, TableMetrics.copy, start);
+        return result;
+    }
+    @Override
+    public @NotNull DoubleTable copyAndTrim() {
+        final long start = TableMetrics.start();
+        DoubleTable result = doCreateWithSizeCapacity(rows, cols, rows, cols);
+        doCopyTrimmedInto(result);
+        TableMetrics.recordCopy(this, TableMetrics.copyAndTrim, start);
+        return result;
+    }
+}
@@ -0,0 +1,236 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+// A trimmed, immutable copy of a table, made by freeze().
+// Cells are row-major without slack (flat index = r * cols + c) and only ever written by the
+// constructor, so a frozen table can be shared across threads and used as a map key without copying.
+// The cell accessors (get, the unchecked accessors, row/col clones, forEach, equals and hashCode)
+// read only the final fields below, so they see the constructor's writes even through a racy
+// reference. The inherited bulk operations (streams, queries, copies, the formatter) still size
+// themselves from the non-final inherited fields: use them across threads only after handing the
+// table over through a safe publication (a final or volatile field, a concurrent collection, ...).
+// The hash is computed once (equals against another frozen table compares it first),
+// the unchecked accessors skip the index validation of get().
+public final class FrozenTable<E> extends ReadableTable<E> {
+
+    protected final Object[] cells;
+    protected final int numRows;
+    protected final int numCols;
+    protected final int hash;
+
+    protected FrozenTable(final Class<E> elementType, final Object[] cells, final int rows, final int cols) {
+        super(elementType, cells, rows, cols, rows, cols, null);
+        this.cells = cells;
+        this.numRows = rows;
+        this.numCols = cols;
+        this.hash = super.hashCode();
+    }
+
+    protected static <T> @NotNull FrozenTable<T> createFrom(final ReadableTable<T> table) {
+        if (table instanceof FrozenTable<T> frozen) {
+            return frozen;
+        }
+        Object[] cells = new Object[table.rows * table.cols];
+        table.doCopyCellsTo(cells, TableLayout.ROW_MAJOR, table.rows, table.cols);
+        return new FrozenTable<T>(table.elementType, cells, table.rows, table.cols);
+    }
+
+    // getters
+
+    @Override
+    public int getNumRows() {
+        return numRows;
+    }
+
+    @Override
+    public int getNumCols() {
+        return numCols;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] getRowClone(final int rowIndex) {
+        validateRowIndex(rowIndex);
+        E[] result = (E[]) Array.newInstance(elementType, numCols);
+        System.arraycopy(cells, rowIndex * numCols, result, 0, numCols);
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] getColClone(final int colIndex) {
+        validateColIndex(colIndex);
+        E[] result = (E[]) Array.newInstance(elementType, numRows);
+        for (int r = 0; r < numRows; ++r) {
+            result[r] = (E) cells[r * numCols + colIndex];
+        }
+        return result;
+    }
+
+    @Override
+    public Object[] getUnderlyingArrayClone() {
+        return cells.clone();
+    }
+
+    // no index check, the caller guarantees 0 <= rowIndex < rows and 0 <= colIndex < cols
+    @SuppressWarnings("unchecked")
+    public E getUnchecked(final int rowIndex, final int colIndex) {
+        return (E) cells[rowIndex * numCols + colIndex];
+    }
+
+    // no index check, flatIndex = rowIndex * cols + colIndex
+    @SuppressWarnings("unchecked")
+    public E getUnchecked(final int flatIndex) {
+        return (E) cells[flatIndex];
+    }
+
+    // bulk iteration, row by row
+
+    @FunctionalInterface
+    public interface CellVisitor<T> {
+        void visit(int rowIndex, int colIndex, T val);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(final @NotNull Consumer<? super E> action) {
+        for (final Object val : cells) {
+            action.accept((E) val);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachCell(final @NotNull CellVisitor<? super E> visitor) {
+        int i = 0;
+        for (int r = 0; r < numRows; ++r) {
+            for (int c = 0; c < numCols; ++c) {
+                visitor.visit(r, c, (E) cells[i++]);
+            }
+        }
+    }
+
+    // already frozen
+
+    @Override
+    public @NotNull FrozenTable<E> freeze() {
+        return this;
+    }
+
+    // common functions
+    // the formatter keeps caches, so rendering is serialized per table
+
+    @Override
+    public synchronized @NotNull TableFormatter<E> getFormatter() {
+        return super.getFormatter();
+    }
+
+    @Override
+    public synchronized @NotNull String toString() {
+        return super.toString();
+    }
+
+    @Override
+    public synchronized void appendRepr(Appendable out) throws IOException {
+        super.appendRepr(out);
+    }
+
+    @Override
+    public synchronized void writeRepr(OutputStream out) throws IOException {
+        super.writeRepr(out);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) { return true; }
+        if (obj instanceof FrozenTable<?> other) {
+            return (this.numRows == other.numRows) && (this.numCols == other.numCols)
+                    && (this.hash == other.hash) && Arrays.equals(this.cells, other.cells);
+        }
+        if (!(obj instanceof ReadableTable<?> other)) { return false; }
+        if ((this.numRows != other.getNumRows()) || (this.numCols != other.getNumCols())) { return false; }
+        if (other.hasCheapHash() && this.hash != other.hashCode()) { return false; }
+        int i = 0;
+        for (int r = 0; r < numRows; ++r) {
+            for (int c = 0; c < numCols; ++c) {
+                if (!Objects.equals(cells[i++], other.doGetElementAsObject(r, c))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean isIndexValid(final int rowIndex, final int colIndex) {
+        return (rowIndex >= 0 && rowIndex < numRows && colIndex >= 0 && colIndex < numCols);
+    }
+
+    // helpers (all on the final fields, see the class comment)
+
+    @Override
+    protected int toFlatIndex(final int rowIndex, final int colIndex) {
+        return rowIndex * numCols + colIndex;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected E doGetElementCasted(final int rowIndex, final int colIndex) {
+        return (E) cells[rowIndex * numCols + colIndex];
+    }
+
+    @Override
+    protected Object doGetElementAsObject(final int rowIndex, final int colIndex) {
+        return cells[rowIndex * numCols + colIndex];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected E doGetElementCasted(final int flatIndex) {
+        return (E) cells[flatIndex];
+    }
+
+    @Override
+    protected Object doGetElementAsObject(final int flatIndex) {
+        return cells[flatIndex];
+    }
+
+    // bulk reads go through the accessors above instead of the inherited data/colCapacity
+    @Override
+    protected boolean isRowMajorReadable() {
+        return false;
+    }
+
+    @Override
+    protected boolean hasCheapHash() {
+        return true;
+    }
+
+    @Override
+    protected void validateRowIndex(final int rowIndex) {
+        if (rowIndex < 0 || rowIndex >= numRows) {
+            throw new IllegalArgumentException(String.format(
+                    "IllegalRowIndex: rowIndex(%d) out of range(0 to %d)",
+                    rowIndex, numRows-1));
+        }
+    }
+    @Override
+    protected void validateColIndex(final int colIndex) {
+        if (colIndex < 0 || colIndex >= numCols) {
+            throw new IllegalArgumentException(String.format(
+                    "IllegalColIndex: colIndex(%d) out of range(0 to %d)",
+                    colIndex, numCols-1));
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+
+// The structural work (remove/add/realloc) is shared in ReadablePrimitiveTable, the typed setters are here.
+public class IntTable extends ReadableIntTable {
+
+    protected IntTable(final int[] intData, final int rows, final int cols, final int rowCap, final int colCap, final TableFormatter<Integer> formatter) {
+        super(intData, rows, cols, rowCap, colCap, formatter);
+    }
+
+    // factory methods
+
+    protected static @NotNull IntTable doCreateWithSizeCapacity(final int rows, final int cols, final int rowCap, final int colCap) {
+        // no check
+        return new IntTable(
+                new int[rowCap * colCap],
+                rows, cols,
+                rowCap, colCap,
+                null
+        );
+    }
+
+    public static @NotNull IntTable createEmpty() {
+        return doCreateWithSizeCapacity(0, 0, defaultRowCapacity, defaultColCapacity);
+    }
+
+    public static @NotNull IntTable createCopy(final ReadableIntTable other) {
+        IntTable result = doCreateWithSizeCapacity(
+                other.rows, other.cols,
+                other.rowCapacity, other.colCapacity
+        );
+        result.doCopyDataFrom(other);
+        return result;
+    }
+    public static @NotNull IntTable createWithSizeCapacity(final int rows, final int cols, final int rowCap, final int colCap) {
+        validateDimensions(rows, cols);
+        validateDimensions(rowCap, colCap);
+        return doCreateWithSizeCapacity(rows, cols, rowCap, colCap);
+    }
+
+    public static @NotNull IntTable createWithCapacity(final int rowCap, final int colCap) {
+        validateDimensions(rowCap, colCap);
+        return doCreateWithSizeCapacity(0, 0, rowCap, colCap);
+    }
+
+    public static @NotNull IntTable createWithSize(final int rows, final int cols) {
+        validateDimensions(rows, cols);
+        final int rowCap = rows * 3 / 2;
+        final int colCap = cols * 3 / 2;
+        return doCreateWithSizeCapacity(rows, cols, rowCap, colCap);
+    }
+    public static @NotNull IntTable createWithSize(final int rows, final int cols, final int defaultVal) {
+        IntTable result = createWithSize(rows, cols);
+        result.doFillUsed(defaultVal);
+        return result;
+    }
+
+    public static @NotNull IntTable createFromArr(final int[][] arr2d) {
+        if (arr2d.length == 0) {
+            return createEmpty();
+        }
+        IntTable result = createWithSize(arr2d.length, calArr2dCols(arr2d));
+        result.doCopyArr2dIn(arr2d);
+        return result;
+    }
+
+    public static @NotNull IntTable createFromBoxed(final ReadableTable<Integer> other) {
+        IntTable result = doCreateWithSizeCapacity(other.rows, other.cols, other.rowCapacity, other.colCapacity);
+        result.doUnboxFrom(other, false, null);
+        return result;
+    }
+    public static @NotNull IntTable createFromBoxed(final ReadableTable<Integer> other, final int nullVal) {
+        IntTable result = doCreateWithSizeCapacity(other.rows, other.cols, other.rowCapacity, other.colCapacity);
+        result.doUnboxFrom(other, true, nullVal);
+        return result;
+    }
+
+    // getters (remain as super)
+
+    // simple setters
+
+    public IntTable setInt(final int rowIndex, final int colIndex, final int val) {
+        validateRowIndex(rowIndex);
+        validateColIndex(colIndex);
+        intData[toFlatIndex(rowIndex, colIndex)] = val;
+        onCellChange(rowIndex, colIndex);
+        return this;
+    }
+
+    public IntTable setRow(final int rowIndex, final int[] row) {
+        validateRowIndex(rowIndex);
+        validateSizeNewArrRow(row);
+        doCopyRowIn(row, rowIndex);
+        onRowChange(rowIndex);
+        return this;
+    }
+
+    public IntTable setCol(final int colIndex, final int[] col) {
+        validateColIndex(colIndex);
+        validateSizeNewArrCol(col);
+        for (int r = 0; r < rows; ++r) {
+            intData[toFlatIndex(r, colIndex)] = col[r];
+        }
+        onColChange(colIndex);
+        return this;
+    }
+
+    // resize/add/remove rows/cols
+
+    public IntTable resizeRows(int newRowSize) {
+        doResizeRows(newRowSize);
+        return this;
+    }
+
+    public IntTable removeRow(final int rowIndex) {
+        doRemoveRow(rowIndex);
+        return this;
+    }
+
+    public IntTable removeCol(final int colIndex) {
+        doRemoveCol(colIndex);
+        return this;
+    }
+
+    // [begin, end)
+    public IntTable removeRows(final int beginRowIdx, final int endRowIdx) {
+        doRemoveRows(beginRowIdx, endRowIdx);
+        return this;
+    }
+
+    public IntTable addRow(final int[] row) {
+        doAddRow(row);
+        return this;
+    }
+
+    public IntTable addRows(int numRowsToAdd) {
+        doAddRows(numRowsToAdd);
+        return this;
+    }
+
+    public IntTable addCol(final int[] col) {
+        validateSizeNewArrCol(col);
+        doGrowColCapIfNeeded(cols + 1);
+        for (int r = 0; r < rows; ++r) {
+            intData[r * colCapacity + cols] = col[r];
+        }
+        cols += 1;
+        onColsInserted(cols - 1, 1);
+        return this;
+    }
+
+    public IntTable addCols(int numColsToAdd) {
+        doAddCols(numColsToAdd);
+        return this;
+    }
+
+    // transpose
+
+    @Override
+    public @NotNull IntTable transpose() {
+        final long start = TableMetrics.start();
+        IntTable result = doCreateWithSizeCapacity(cols, rows, colCapacity, rowCapacity);
+        doTransposeInto(result.intData, result.colCapacity);
+        TableMetrics.recordTranspose(this, false, start);
+        return result;
+    }
+
+    // Capacity/Reallocate
+
+    public void setRowCapacity(final int newRowCap) {
+        validateRowCapacity(newRowCap);
+        doReallocRow(newRowCap);
+    }
+    public void setColCapacity(final int newColCap) {
+        validateColCapacity(newColCap);
+        doReallocCol(newColCap);
+    }
+
+    public void reallocate(final int newRowCap, final int newColCap) {
+        doReallocate(newRowCap, newColCap);
+    }
+
+    // copy
+
+    @Override
+    public @NotNull IntTable copy() {
+        final long start = TableMetrics.start();
+        IntTable result = createCopy(this);
+        TableMetrics.recordCopy(this, TableMetrics.copy, start);
+        return result;
+    }
+    @Override
+    public @NotNull IntTable copyAndTrim() {
+        final long start = TableMetrics.start();
+        IntTable result = doCreateWithSizeCapacity(rows, cols, rows, cols);
+        doCopyTrimmedInto(result);
+        TableMetrics.recordCopy(this, TableMetrics.copyAndTrim, start);
+        return result;
+    }
+}
@@ -0,0 +1,201 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+
+// The structural work (remove/add/realloc) is shared in ReadablePrimitiveTable, the typed setters are here.
+public class LongTable extends ReadableLongTable {
+
+    protected LongTable(final long[] longData, final int rows, final int cols, final int rowCap, final int colCap, final TableFormatter<Long> formatter) {
+        super(longData, rows, cols, rowCap, colCap, formatter);
+    }
+
+    // factory methods
+
+    protected static @NotNull LongTable doCreateWithSizeCapacity(final int rows, final int cols, final int rowCap, final int colCap) {
+        // no check
+        return new LongTable(
+                new long[rowCap * colCap],
+                rows, cols,
+                rowCap, colCap,
+                null
+        );
+    }
+
+    public static @NotNull LongTable createEmpty() {
+        return doCreateWithSizeCapacity(0, 0, defaultRowCapacity, defaultColCapacity);
+    }
+
+    public static @NotNull LongTable createCopy(final ReadableLongTable other) {
+        LongTable result = doCreateWithSizeCapacity(
+                other.rows, other.cols,
+                other.rowCapacity, other.colCapacity
+        );
+        result.doCopyDataFrom(other);
+        return result;
+    }
+    public static @NotNull LongTable createWithSizeCapacity(final int rows, final int cols, final int rowCap, final int colCap) {
+        validateDimensions(rows, cols);
+        validateDimensions(rowCap, colCap);
+        return doCreateWithSizeCapacity(rows, cols, rowCap, colCap);
+    }
+
+    public static @NotNull LongTable createWithCapacity(final int rowCap, final int colCap) {
+        validateDimensions(rowCap, colCap);
+        return doCreateWithSizeCapacity(0, 0, rowCap, colCap);
+    }
+
+    public static @NotNull LongTable createWithSize(final int rows, final int cols) {
+        validateDimensions(rows, cols);
+        final int rowCap = rows * 3 / 2;
+        final int colCap = cols * 3 / 2;
+        return doCreateWithSizeCapacity(rows, cols, rowCap, colCap);
+    }
+    public static @NotNull LongTable createWithSize(final int rows, final int cols, final long defaultVal) {
+        LongTable result = createWithSize(rows, cols);
+        result.doFillUsed(defaultVal);
+        return result;
+    }
+
+    public static @NotNull LongTable createFromArr(final long[][] arr2d) {
+        if (arr2d.length == 0) {
+            return createEmpty();
+        }
+        LongTable result = createWithSize(arr2d.length, calArr2dCols(arr2d));
+        result.doCopyArr2dIn(arr2d);
+        return result;
+    }
+
+    public static @NotNull LongTable createFromBoxed(final ReadableTable<Long> other) {
+        LongTable result = doCreateWithSizeCapacity(other.rows, other.cols, other.rowCapacity, other.colCapacity);
+        result.doUnboxFrom(other, false, null);
+        return result;
+    }
+    public static @NotNull LongTable createFromBoxed(final ReadableTable<Long> other, final long nullVal) {
+        LongTable result = doCreateWithSizeCapacity(other.rows, other.cols, other.rowCapacity, other.colCapacity);
+        result.doUnboxFrom(other, true, nullVal);
+        return result;
+    }
+
+    // getters (remain as super)
+
+    // simple setters
+
+    public LongTable setLong(final int rowIndex, final int colIndex, final long val) {
+        validateRowIndex(rowIndex);
+        validateColIndex(colIndex);
+        longData[toFlatIndex(rowIndex, colIndex)] = val;
+        onCellChange(rowIndex, colIndex);
+        return this;
+    }
+
+    public LongTable setRow(final int rowIndex, final long[] row) {
+        validateRowIndex(rowIndex);
+        validateSizeNewArrRow(row);
+        doCopyRowIn(row, rowIndex);
+        onRowChange(rowIndex);
+        return this;
+    }
+
+    public LongTable setCol(final int colIndex, final long[] col) {
+        validateColIndex(colIndex);
+        validateSizeNewArrCol(col);
+        for (int r = 0; r < rows; ++r) {
+            longData[toFlatIndex(r, colIndex)] = col[r];
+        }
+        onColChange(colIndex);
+        return this;
+    }
+
+    // resize/add/remove rows/cols
+
+    public LongTable resizeRows(int newRowSize) {
+        doResizeRows(newRowSize);
+        return this;
+    }
+
+    public LongTable removeRow(final int rowIndex) {
+        doRemoveRow(rowIndex);
+        return this;
+    }
+
+    public LongTable removeCol(final int colIndex) {
+        doRemoveCol(colIndex);
+        return this;
+    }
+
+    // [begin, end)
+    public LongTable removeRows(final int beginRowIdx, final int endRowIdx) {
+        doRemoveRows(beginRowIdx, endRowIdx);
+        return this;
+    }
+
+    public LongTable addRow(final long[] row) {
+        doAddRow(row);
+        return this;
+    }
+
+    public LongTable addRows(int numRowsToAdd) {
+        doAddRows(numRowsToAdd);
+        return this;
+    }
+
+    public LongTable addCol(final long[] col) {
+        validateSizeNewArrCol(col);
+        doGrowColCapIfNeeded(cols + 1);
+        for (int r = 0; r < rows; ++r) {
+            longData[r * colCapacity + cols] = col[r];
+        }
+        cols += 1;
+        onColsInserted(cols - 1, 1);
+        return this;
+    }
+
+    public LongTable addCols(int numColsToAdd) {
+        doAddCols(numColsToAdd);
+        return this;
+    }
+
+    // transpose
+
+    @Override
+    public @NotNull LongTable transpose() {
+        final long start = TableMetrics.start();
+        LongTable result = doCreateWithSizeCapacity(cols, rows, colCapacity, rowCapacity);
+        doTransposeInto(result.longData, result.colCapacity);
+        TableMetrics.recordTranspose(this, false, start);
+        return result;
+    }
+
+    // Capacity/Reallocate
+
+    public void setRowCapacity(final int newRowCap) {
+        validateRowCapacity(newRowCap);
+        doReallocRow(newRowCap);
+    }
+    public void setColCapacity(final int newColCap) {
+        validateColCapacity(newColCap);
+        doReallocCol(newColCap);
+    }
+
+    public void reallocate(final int newRowCap, final int newColCap) {
+        doReallocate(newRowCap, newColCap);
+    }
+
+    // copy
+
+    @Override
+    public @NotNull LongTable copy() {
+        final long start = TableMetrics.start();
+        LongTable result = createCopy(this);
+        TableMetrics.recordCopy(this, TableMetrics.copy, start);
+        return result;
+    }
+    @Override
+    public @NotNull LongTable copyAndTrim() {
+        final long start = TableMetrics.start();
+        LongTable result = doCreateWithSizeCapacity(rows, cols, rows, cols);
+        doCopyTrimmedInto(result);
+        TableMetrics.recordCopy(this, TableMetrics.copyAndTrim, start);
+        return result;
+    }
+}
@@ -0,0 +1,242 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// A read-only table over a memory-mapped binary table file (see TableBinaryFormat).
+// open() only reads the header and maps the file, cells are decoded when they are read, so opening
+// costs the same for any size. The payload order becomes the layout (ROW_MAJOR or COL_MAJOR with the
+// capacities equal to the size), flat indices then address the payload directly.
+// The file is mapped in segments of 1 GiB, so files beyond 2 GiB work as well.
+// Reads are safe from several threads. The file must not change while it is mapped.
+public class MappedTable<E> extends ReadableTable<E> {
+
+    static final int segmentShift = 30;
+    static final long segmentMask = (1L << segmentShift) - 1;
+
+    protected final ByteBuffer[] segments;
+    protected final byte typeCode;
+    protected final TableLayout storedLayout;
+    protected final boolean hasNulls;
+    protected final long bitmapPos;
+    protected final long payloadPos;
+    // String files: start of the UTF-8 bytes (after the offsets)
+    protected final long bytesPos;
+
+    protected MappedTable(final Class<E> elementType, final ByteBuffer[] segments, final byte typeCode, final byte order,
+                          final TableLayout storedLayout, final int rows, final int cols, final boolean hasNulls) {
+        super(elementType, null, rows, cols, rows, cols, null);
+        this.layout = (order == TableBinaryFormat.orderColMajor) ? TableLayout.COL_MAJOR : TableLayout.ROW_MAJOR;
+        this.segments = segments;
+        this.typeCode = typeCode;
+        this.storedLayout = storedLayout;
+        this.hasNulls = hasNulls;
+        final long n = (long) rows * cols;
+        this.bitmapPos = TableBinaryFormat.headerSize;
+        this.payloadPos = bitmapPos + (hasNulls ? TableBinaryFormat.calBitmapBytes(n) : 0);
+        this.bytesPos = payloadPos + (n + 1) * Long.BYTES;
+    }
+
+    public static <T> @NotNull MappedTable<T> open(final @NotNull Path path, final @NotNull Class<T> elementType) throws IOException {
+        final ByteBuffer[] segments;
+        final long size;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            if (size < TableBinaryFormat.headerSize) {
+                throw new IOException("InvalidTableFile: " + path + " is too short for a table header");
+            }
+            segments = new ByteBuffer[(int) ((size + segmentMask) >>> segmentShift)];
+            for (int k = 0; k < segments.length; ++k) {
+                final long pos = (long) k << segmentShift;
+                segments[k] = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(size - pos, 1L << segmentShift))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+            // the mapping stays valid after the channel is closed
+        }
+
+        final ByteBuffer header = segments[0];
+        if (header.getInt(0) != TableBinaryFormat.magic) {
+            throw new IOException("InvalidTableFile: " + path + " is not a binary table file");
+        }
+        if (header.get(4) != TableBinaryFormat.version) {
+            throw new IOException("UnsupportedVersion: " + path + " has version " + header.get(4));
+        }
+        final byte typeCode = header.get(5);
+        final Class<?> storedType = TableBinaryFormat.toElementType(typeCode);
+        if (storedType == null) {
+            throw new IOException("InvalidTableFile: " + path + " has the unknown element type code " + typeCode);
+        }
+        if (storedType != elementType) {
+            throw new IllegalArgumentException(String.format(
+                    "MismatchElementType: %s holds %s, not %s",
+                    path, storedType.getName(), elementType.getName()));
+        }
+        final byte order = header.get(6);
+        final int layoutOrdinal = header.get(7);
+        final int rows = header.getInt(8);
+        final int cols = header.getInt(12);
+        final int flags = header.getInt(16);
+        if ((order != TableBinaryFormat.orderRowMajor && order != TableBinaryFormat.orderColMajor)
+                || layoutOrdinal < 0 || layoutOrdinal >= TableLayout.values().length
+                || rows < 0 || cols < 0) {
+            throw new IOException("InvalidTableFile: " + path + " has a corrupt header");
+        }
+
+        MappedTable<T> result = new MappedTable<T>(
+                elementType, segments, typeCode, order,
+                TableLayout.values()[layoutOrdinal], rows, cols,
+                (flags & TableBinaryFormat.flagHasNulls) != 0);
+        final long endPos = result.calEndPos(size);
+        if (size < endPos) {
+            throw new IOException(String.format(
+                    "TruncatedTableFile: %s has %d bytes, the header needs %d", path, size, endPos));
+        }
+        return result;
+    }
+
+    // getters
+
+    public @NotNull TableLayout getStoredLayout() {
+        return storedLayout;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] getRowClone(final int rowIndex) {
+        validateRowIndex(rowIndex);
+        E[] result = (E[]) Array.newInstance(elementType, cols);
+        for (int c = 0; c < cols; ++c) {
+            result[c] = (E) doReadCell(toFlatIndex(rowIndex, c));
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] getColClone(final int colIndex) {
+        validateColIndex(colIndex);
+        E[] result = (E[]) Array.newInstance(elementType, rows);
+        for (int r = 0; r < rows; ++r) {
+            result[r] = (E) doReadCell(toFlatIndex(r, colIndex));
+        }
+        return result;
+    }
+
+    @Override
+    public Object[] getUnderlyingArrayClone() {
+        Object[] result = new Object[rows * cols];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = doReadCell(i);
+        }
+        return result;
+    }
+
+    // decodes every cell into a Table with the layout the file was written from
+    public @NotNull Table<E> toTable() {
+        Table<E> result = Table.doCreateWithSizeCapacity(elementType, rows, cols, rows, cols, storedLayout);
+        doCopyCellsTo(result.data, result.layout, result.rowCapacity, result.colCapacity);
+        return result;
+    }
+
+    // helpers - getters
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected E doGetElementCasted(final int rowIndex, final int colIndex) {
+        return (E) doReadCell(toFlatIndex(rowIndex, colIndex));
+    }
+
+    @Override
+    protected Object doGetElementAsObject(final int rowIndex, final int colIndex) {
+        return doReadCell(toFlatIndex(rowIndex, colIndex));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected E doGetElementCasted(final int flatIndex) {
+        return (E) doReadCell(flatIndex);
+    }
+
+    @Override
+    protected Object doGetElementAsObject(final int flatIndex) {
+        return doReadCell(flatIndex);
+    }
+
+    // helpers - decoding
+
+    protected Object doReadCell(final int cellIndex) {
+        if (hasNulls && (doReadLong(bitmapPos + ((long) (cellIndex >>> 6) << 3)) & (1L << cellIndex)) != 0) {
+            return null;
+        }
+        return switch (typeCode) {
+            case TableBinaryFormat.typeInteger -> doReadInt(payloadPos + (long) cellIndex * Integer.BYTES);
+            case TableBinaryFormat.typeLong -> doReadLong(payloadPos + (long) cellIndex * Long.BYTES);
+            case TableBinaryFormat.typeDouble -> Double.longBitsToDouble(doReadLong(payloadPos + (long) cellIndex * Long.BYTES));
+            default -> doReadString(cellIndex);
+        };
+    }
+
+    // sections are 8-byte aligned and segments are a multiple of 8 bytes, a number never straddles two segments
+    protected int doReadInt(final long pos) {
+        return segments[(int) (pos >>> segmentShift)].getInt((int) (pos & segmentMask));
+    }
+    protected long doReadLong(final long pos) {
+        return segments[(int) (pos >>> segmentShift)].getLong((int) (pos & segmentMask));
+    }
+
+    protected String doReadString(final int cellIndex) {
+        final long offsetPos = payloadPos + (long) cellIndex * Long.BYTES;
+        final long begin = bytesPos + doReadLong(offsetPos);
+        final int len = (int) (bytesPos + doReadLong(offsetPos + Long.BYTES) - begin);
+        byte[] bytes = new byte[len];
+        int done = 0;
+        while (done < len) {
+            // a string may straddle two segments
+            final long pos = begin + done;
+            final ByteBuffer segment = segments[(int) (pos >>> segmentShift)];
+            final int index = (int) (pos & segmentMask);
+            final int count = Math.min(len - done, segment.limit() - index);
+            segment.get(index, bytes, done, count);
+            done += count;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // end of the payload as described by the header
+    protected long calEndPos(final long fileSize) {
+        final long n = (long) rows * cols;
+        if (typeCode != TableBinaryFormat.typeString) {
+            return payloadPos + n * TableBinaryFormat.calCellWidth(typeCode);
+        }
+        // the last offset is the length of the bytes, readable once the offsets fit in the file
+        return (bytesPos > fileSize) ? bytesPos : bytesPos + doReadLong(bytesPos - Long.BYTES);
+    }
+
+    // helpers - layout
+
+    @Override
+    protected void doCopyCellsTo(final Object[] dst, final TableLayout dstLayout, final int dstRowCap, final int dstColCap) {
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                dst[dstLayout.toFlatIndex(r, c, dstRowCap, dstColCap)] = doReadCell(toFlatIndex(r, c));
+            }
+        }
+    }
+
+    @Override
+    protected void doTransposeInto(final Object[] dst, final int dstRowCap, final int dstColCap) {
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                dst[layout.toFlatIndex(c, r, dstRowCap, dstColCap)] = doReadCell(toFlatIndex(r, c));
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+public class ReadableDoubleTable extends ReadablePrimitiveTable<Double, double[]> {
+
+    // all cells live in doubleData (row-major, colCapacity stride), see ReadablePrimitiveTable
+    protected double[] doubleData;
+
+    protected ReadableDoubleTable(final double[] doubleData, final int rows, final int cols, final int rowCap, final int colCap, final TableFormatter<Double> formatter) {
+        super(Double.class, rows, cols, rowCap, colCap, formatter);
+        this.doubleData = doubleData;
+    }
+
+    protected static @NotNull ReadableDoubleTable doCreateWithSizeCapacity(final int rows, final int cols, final int rowCap, final int colCap) {
+        // no check
+        return new ReadableDoubleTable(
+                new double[rowCap * colCap],
+                rows, cols,
+                rowCap, colCap,
+                null
+        );
+    }
+
+    public static @NotNull ReadableDoubleTable createEmpty() {
+        return doCreateWithSizeCapacity(0, 0, defaultRowCapacity, defaultColCapacity);
+    }
+
+    public static @NotNull ReadableDoubleTable createCopy(final ReadableDoubleTable other) {
+        ReadableDoubleTable result = doCreateWithSizeCapacity(
+                other.rows, other.cols,
+                other.rowCapacity, other.colCapacity
+        );
+        result.doCopyDataFrom(other);
+        return result;
+    }
+    public static @NotNull ReadableDoubleTable createWithSizeCapacity(final int rows, final int cols, final int rowCap, final int colCap) {
+        validateDimensions(rows, cols);
+        validateDimensions(rowCap, colCap);
+        return doCreateWithSizeCapacity(rows, cols, rowCap, colCap);
+    }
+
+    public static @NotNull ReadableDoubleTable createWithCapacity(final int rowCap, final int colCap) {
+        validateDimensions(rowCap, colCap);
+        return doCreateWithSizeCapacity(0, 0, rowCap, colCap);
+    }
+
+    public static @NotNull ReadableDoubleTable createWithSize(final int rows, final int cols) {
+        validateDimensions(rows, cols);
+        final int rowCap = rows * 3 / 2;
+        final int colCap = cols * 3 / 2;
+        return doCreateWithSizeCapacity(rows, cols, rowCap, colCap);
+    }
+    public static @NotNull ReadableDoubleTable createWithSize(final int rows, final int cols, final double defaultVal) {
+        ReadableDoubleTable result = createWithSize(rows, cols);
+        result.doFillUsed(defaultVal);
+        return result;
+    }
+
+    public static @NotNull ReadableDoubleTable createFromArr(final double[][] arr2d) {
+        if (arr2d.length == 0) {
+            return createEmpty();
+        }
+        ReadableDoubleTable result = createWithSize(arr2d.length, calArr2dCols(arr2d));
+        result.doCopyArr2dIn(arr2d);
+        return result;
+    }
+
+    // conversion from/to boxed tables (toBoxed in ReadablePrimitiveTable)
+
+    public static @NotNull ReadableDoubleTable createFromBoxed(final ReadableTable<Double> other) {
+        ReadableDoubleTable result = doCreateWithSizeCapacity(other.rows, other.cols, other.rowCapacity, other.colCapacity);
+        result.doUnboxFrom(other, false, null);
+        return result;
+    }
+    public static @NotNull ReadableDoubleTable createFromBoxed(final ReadableTable<Double> other, final double nullVal) {
+        ReadableDoubleTable result = doCreateWithSizeCapacity(other.rows, other.cols, other.rowCapacity, other.colCapacity);
+        result.doUnboxFrom(other, true, nullVal);
+        return result;
+    }
+
+    // getters
+
+    public double getDouble(final int rowIndex, final int colIndex) {
+        validateRowIndex(rowIndex);
+        validateColIndex(colIndex);
+        return doubleData[toFlatIndex(rowIndex, colIndex)];
+    }
+
+    public double[] getDoubleRowClone(final int rowIndex) {
+        validateRowIndex(rowIndex);
+        double[] result = new double[cols];
+        System.arraycopy(doubleData, rowIndex * colCapacity, result, 0, cols);
+        return result;
+    }
+
+    public double[] getDoubleColClone(final int colIndex) {
+        validateColIndex(colIndex);
+        double[] result = new double[rows];
+        for (int r = 0; r < rows; ++r) {
+            result[r] = doubleData[toFlatIndex(r, colIndex)];
+        }
+        return result;
+    }
+
+    public double[] getUnderlyingDoubleArrayClone() {
+        return doubleData.clone();
+    }
+
+    // transpose
+
+    @Override
+    public @NotNull ReadableDoubleTable transpose() {
+        final long start = TableMetrics.start();
+        ReadableDoubleTable result = doCreateWithSizeCapacity(cols, rows, colCapacity, rowCapacity);
+        doTransposeInto(result.doubleData, result.colCapacity);
+        TableMetrics.recordTranspose(this, false, start);
+        return result;
+    }
+
+    // copy
+
+    @Override
+    public @NotNull ReadableDoubleTable copy() {
+        final long start = TableMetrics.start();
+        ReadableDoubleTable result = createCopy(this);
+        TableMetrics.recordCopy(this, TableMetrics.copy, start);
+        return result;
+    }
+    @Override
+    public @NotNull ReadableDoubleTable copyAndTrim() {
+        final long start = TableMetrics.start();
+        ReadableDoubleTable result = doCreateWithSizeCapacity(rows, cols, rows, cols);
+        doCopyTrimmedInto(result);
+        TableMetrics.recordCopy(this, TableMetrics.copyAndTrim, start);
+        return result;
+    }
+
+    // helpers - metrics
+
+    @Override
+    protected int calCellBytes() {
+        return Double.BYTES;
+    }
+
+    // helpers - repr
+
+    @Override
+    protected int doCalElementReprLen(final int rowIndex, final int colIndex, final String nullRepr) {
+        return Double.toString(doubleData[toFlatIndex(rowIndex, colIndex)]).length();
+    }
+
+    @Override
+    protected String doGetElementRepr(final int rowIndex, final int colIndex, final String nullRepr) {
+        return Double.toString(doubleData[toFlatIndex(rowIndex, colIndex)]);
+    }
+
+    // helpers - typed array access
+
+    @Override
+    protected double[] doGetData() {
+        return doubleData;
+    }
+    @Override
+    protected void doSetData(final double[] newData) {
+        doubleData = newData;
+    }
+    @Override
+    protected double[] doNewData(final int length) {
+        return new double[length];
+    }
+    @Override
+    protected Double doBox(final int flatIndex) {
+        return doubleData[flatIndex];
+    }
+    @Override
+    protected void doUnbox(final int flatIndex, final Double val) {
+        doubleData[flatIndex] = val;
+    }
+    @Override
+    protected boolean isRangeEqual(final int flatIndex, final double[] otherData, final int otherFlatIndex, final int len) {
+        return Arrays.equals(doubleData, flatIndex, flatIndex + len, otherData, otherFlatIndex, otherFlatIndex + len);
+    }
+    @Override
+    protected int calRangeHash(final int flatIndex, final int len, int weight) {
+        int result = 0;
+        for (int i = flatIndex; i < flatIndex + len; ++i) {
+            result += Double.hashCode(doubleData[i]) * weight;
+            weight += colWeightStep;
+        }
+        return result;
+    }
+    @Override
+    protected void doClearRange(final int fromFlatIndex, final int toFlatIndex) {
+        Arrays.fill(doubleData, fromFlatIndex, toFlatIndex, 0.0);
+    }
+
+    // every used cell becomes val
+    protected void doFillUsed(final double val) {
+        if (val != 0.0) {
+            for (int r = 0; r < rows; ++r) {
+                Arrays.fill(doubleData, r * colCapacity, r * colCapacity + cols, val);
+            }
+        }
+    }
+}
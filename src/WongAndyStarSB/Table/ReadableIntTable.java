@@ -0,0 +1,208 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+public class ReadableIntTable extends ReadablePrimitiveTable<Integer, int[]> {
+
+    // all cells live in intData (row-major, colCapacity stride), see ReadablePrimitiveTable
+    protected int[] intData;
+
+    protected ReadableIntTable(final int[] intData, final int rows, final int cols, final int rowCap, final int colCap, final TableFormatter<Integer> formatter) {
+        super(Integer.class, rows, cols, rowCap, colCap, formatter);
+        this.intData = intData;
+    }
+
+    protected static @NotNull ReadableIntTable doCreateWithSizeCapacity(final int rows, final int cols, final int rowCap, final int colCap) {
+        // no check
+        return new ReadableIntTable(
+                new int[rowCap * colCap],
+                rows, cols,
+                rowCap, colCap,
+                null
+        );
+    }
+
+    public static @NotNull ReadableIntTable createEmpty() {
+        return doCreateWithSizeCapacity(0, 0, defaultRowCapacity, defaultColCapacity);
+    }
+
+    public static @NotNull ReadableIntTable createCopy(final ReadableIntTable other) {
+        ReadableIntTable result = doCreateWithSizeCapacity(
+                other.rows, other.cols,
+                other.rowCapacity, other.colCapacity
+        );
+        result.doCopyDataFrom(other);
+        return result;
+    }
+    public static @NotNull ReadableIntTable createWithSizeCapacity(final int rows, final int cols, final int rowCap, final int colCap) {
+        validateDimensions(rows, cols);
+        validateDimensions(rowCap, colCap);
+        return doCreateWithSizeCapacity(rows, cols, rowCap, colCap);
+    }
+
+    public static @NotNull ReadableIntTable createWithCapacity(final int rowCap, final int colCap) {
+        validateDimensions(rowCap, colCap);
+        return doCreateWithSizeCapacity(0, 0, rowCap, colCap);
+    }
+
+    public static @NotNull ReadableIntTable createWithSize(final int rows, final int cols) {
+        validateDimensions(rows, cols);
+        final int rowCap = rows * 3 / 2;
+        final int colCap = cols * 3 / 2;
+        return doCreateWithSizeCapacity(rows, cols, rowCap, colCap);
+    }
+    public static @NotNull ReadableIntTable createWithSize(final int rows, final int cols, final int defaultVal) {
+        ReadableIntTable result = createWithSize(rows, cols);
+        result.doFillUsed(defaultVal);
+        return result;
+    }
+
+    public static @NotNull ReadableIntTable createFromArr(final int[][] arr2d) {
+        if (arr2d.length == 0) {
+            return createEmpty();
+        }
+        ReadableIntTable result = createWithSize(arr2d.length, calArr2dCols(arr2d));
+        result.doCopyArr2dIn(arr2d);
+        return result;
+    }
+
+    // conversion from/to boxed tables (toBoxed in ReadablePrimitiveTable)
+
+    public static @NotNull ReadableIntTable createFromBoxed(final ReadableTable<Integer> other) {
+        ReadableIntTable result = doCreateWithSizeCapacity(other.rows, other.cols, other.rowCapacity, other.colCapacity);
+        result.doUnboxFrom(other, false, null);
+        return result;
+    }
+    public static @NotNull ReadableIntTable createFromBoxed(final ReadableTable<Integer> other, final int nullVal) {
+        ReadableIntTable result = doCreateWithSizeCapacity(other.rows, other.cols, other.rowCapacity, other.colCapacity);
+        result.doUnboxFrom(other, true, nullVal);
+        return result;
+    }
+
+    // getters
+
+    public int getInt(final int rowIndex, final int colIndex) {
+        validateRowIndex(rowIndex);
+        validateColIndex(colIndex);
+        return intData[toFlatIndex(rowIndex, colIndex)];
+    }
+
+    public int[] getIntRowClone(final int rowIndex) {
+        validateRowIndex(rowIndex);
+        int[] result = new int[cols];
+        System.arraycopy(intData, rowIndex * colCapacity, result, 0, cols);
+        return result;
+    }
+
+    public int[] getIntColClone(final int colIndex) {
+        validateColIndex(colIndex);
+        int[] result = new int[rows];
+        for (int r = 0; r < rows; ++r) {
+            result[r] = intData[toFlatIndex(r, colIndex)];
+        }
+        return result;
+    }
+
+    public int[] getUnderlyingIntArrayClone() {
+        return intData.clone();
+    }
+
+    // transpose
+
+    @Override
+    public @NotNull ReadableIntTable transpose() {
+        final long start = TableMetrics.start();
+        ReadableIntTable result = doCreateWithSizeCapacity(cols, rows, colCapacity, rowCapacity);
+        doTransposeInto(result.intData, result.colCapacity);
+        TableMetrics.recordTranspose(this, false, start);
+        return result;
+    }
+
+    // copy
+
+    @Override
+    public @NotNull ReadableIntTable copy() {
+        final long start = TableMetrics.start();
+        ReadableIntTable result = createCopy(this);
+        TableMetrics.recordCopy(this, TableMetrics.copy, start);
+        return result;
+    }
+    @Override
+    public @NotNull ReadableIntTable copyAndTrim() {
+        final long start = TableMetrics.start();
+        ReadableIntTable result = doCreateWithSizeCapacity(rows, cols, rows, cols);
+        doCopyTrimmedInto(result);
+        TableMetrics.recordCopy(this, TableMetrics.copyAndTrim, start);
+        return result;
+    }
+
+    // helpers - metrics
+
+    @Override
+    protected int calCellBytes() {
+        return Integer.BYTES;
+    }
+
+    // helpers - repr
+
+    @Override
+    protected int doCalElementReprLen(final int rowIndex, final int colIndex, final String nullRepr) {
+        return calIntegralReprLen(intData[toFlatIndex(rowIndex, colIndex)]);
+    }
+
+    @Override
+    protected String doGetElementRepr(final int rowIndex, final int colIndex, final String nullRepr) {
+        return Integer.toString(intData[toFlatIndex(rowIndex, colIndex)]);
+    }
+
+    // helpers - typed array access
+
+    @Override
+    protected int[] doGetData() {
+        return intData;
+    }
+    @Override
+    protected void doSetData(final int[] newData) {
+        intData = newData;
+    }
+    @Override
+    protected int[] doNewData(final int length) {
+        return new int[length];
+    }
+    @Override
+    protected Integer doBox(final int flatIndex) {
+        return intData[flatIndex];
+    }
+    @Override
+    protected void doUnbox(final int flatIndex, final Integer val) {
+        intData[flatIndex] = val;
+    }
+    @Override
+    protected boolean isRangeEqual(final int flatIndex, final int[] otherData, final int otherFlatIndex, final int len) {
+        return Arrays.equals(intData, flatIndex, flatIndex + len, otherData, otherFlatIndex, otherFlatIndex + len);
+    }
+    @Override
+    protected int calRangeHash(final int flatIndex, final int len, int weight) {
+        int result = 0;
+        for (int i = flatIndex; i < flatIndex + len; ++i) {
+            result += Integer.hashCode(intData[i]) * weight;
+            weight += colWeightStep;
+        }
+        return result;
+    }
+    @Override
+    protected void doClearRange(final int fromFlatIndex, final int toFlatIndex) {
+        Arrays.fill(intData, fromFlatIndex, toFlatIndex, 0);
+    }
+
+    // every used cell becomes val
+    protected void doFillUsed(final int val) {
+        if (val != 0) {
+            for (int r = 0; r < rows; ++r) {
+                Arrays.fill(intData, r * colCapacity, r * colCapacity + cols, val);
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+public class ReadableLongTable extends ReadablePrimitiveTable<Long, long[]> {
+
+    // all cells live in longData (row-major, colCapacity stride), see ReadablePrimitiveTable
+    protected long[] longData;
+
+    protected ReadableLongTable(final long[] longData, final int rows, final int cols, final int rowCap, final int colCap, final TableFormatter<Long> formatter) {
+        super(Long.class, rows, cols, rowCap, colCap, formatter);
+        this.longData = longData;
+    }
+
+    protected static @NotNull ReadableLongTable doCreateWithSizeCapacity(final int rows, final int cols, final int rowCap, final int colCap) {
+        // no check
+        return new ReadableLongTable(
+                new long[rowCap * colCap],
+                rows, cols,
+                rowCap, colCap,
+                null
+        );
+    }
+
+    public static @NotNull ReadableLongTable createEmpty() {
+        return doCreateWithSizeCapacity(0, 0, defaultRowCapacity, defaultColCapacity);
+    }
+
+    public static @NotNull ReadableLongTable createCopy(final ReadableLongTable other) {
+        ReadableLongTable result = doCreateWithSizeCapacity(
+                other.rows, other.cols,
+                other.rowCapacity, other.colCapacity
+        );
+        result.doCopyDataFrom(other);
+        return result;
+    }
+    public static @NotNull ReadableLongTable createWithSizeCapacity(final int rows, final int cols, final int rowCap, final int colCap) {
+        validateDimensions(rows, cols);
+        validateDimensions(rowCap, colCap);
+        return doCreateWithSizeCapacity(rows, cols, rowCap, colCap);
+    }
+
+    public static @NotNull ReadableLongTable createWithCapacity(final int rowCap, final int colCap) {
+        validateDimensions(rowCap, colCap);
+        return doCreateWithSizeCapacity(0, 0, rowCap, colCap);
+    }
+
+    public static @NotNull ReadableLongTable createWithSize(final int rows, final int cols) {
+        validateDimensions(rows, cols);
+        final int rowCap = rows * 3 / 2;
+        final int colCap = cols * 3 / 2;
+        return doCreateWithSizeCapacity(rows, cols, rowCap, colCap);
+    }
+    public static @NotNull ReadableLongTable createWithSize(final int rows, final int cols, final long defaultVal) {
+        ReadableLongTable result = createWithSize(rows, cols);
+        result.doFillUsed(defaultVal);
+        return result;
+    }
+
+    public static @NotNull ReadableLongTable createFromArr(final long[][] arr2d) {
+        if (arr2d.length == 0) {
+            return createEmpty();
+        }
+        ReadableLongTable result = createWithSize(arr2d.length, calArr2dCols(arr2d));
+        result.doCopyArr2dIn(arr2d);
+        return result;
+    }
+
+    // conversion from/to boxed tables (toBoxed in ReadablePrimitiveTable)
+
+    public static @NotNull ReadableLongTable createFromBoxed(final ReadableTable<Long> other) {
+        ReadableLongTable result = doCreateWithSizeCapacity(other.rows, other.cols, other.rowCapacity, other.colCapacity);
+        result.doUnboxFrom(other, false, null);
+        return result;
+    }
+    public static @NotNull ReadableLongTable createFromBoxed(final ReadableTable<Long> other, final long nullVal) {
+        ReadableLongTable result = doCreateWithSizeCapacity(other.rows, other.cols, other.rowCapacity, other.colCapacity);
+        result.doUnboxFrom(other, true, nullVal);
+        return result;
+    }
+
+    // getters
+
+    public long getLong(final int rowIndex, final int colIndex) {
+        validateRowIndex(rowIndex);
+        validateColIndex(colIndex);
+        return longData[toFlatIndex(rowIndex, colIndex)];
+    }
+
+    public long[] getLongRowClone(final int rowIndex) {
+        validateRowIndex(rowIndex);
+        long[] result = new long[cols];
+        System.arraycopy(longData, rowIndex * colCapacity, result, 0, cols);
+        return result;
+    }
+
+    public long[] getLongColClone(final int colIndex) {
+        validateColIndex(colIndex);
+        long[] result = new long[rows];
+        for (int r = 0; r < rows; ++r) {
+            result[r] = longData[toFlatIndex(r, colIndex)];
+        }
+        return result;
+    }
+
+    public long[] getUnderlyingLongArrayClone() {
+        return longData.clone();
+    }
+
+    // transpose
+
+    @Override
+    public @NotNull ReadableLongTable transpose() {
+        final long start = TableMetrics.start();
+        ReadableLongTable result = doCreateWithSizeCapacity(cols, rows, colCapacity, rowCapacity);
+        doTransposeInto(result.longData, result.colCapacity);
+        TableMetrics.recordTranspose(this, false, start);
+        return result;
+    }
+
+    // copy
+
+    @Override
+    public @NotNull ReadableLongTable copy() {
+        final long start = TableMetrics.start();
+        ReadableLongTable result = createCopy(this);
+        TableMetrics.recordCopy(this, TableMetrics.copy, start);
+        return result;
+    }
+    @Override
+    public @NotNull ReadableLongTable copyAndTrim() {
+        final long start = TableMetrics.start();
+        ReadableLongTable result = doCreateWithSizeCapacity(rows, cols, rows, cols);
+        doCopyTrimmedInto(result);
+        TableMetrics.recordCopy(this, TableMetrics.copyAndTrim, start);
+        return result;
+    }
+
+    // helpers - metrics
+
+    @Override
+    protected int calCellBytes() {
+        return Long.BYTES;
+    }
+
+    // helpers - repr
+
+    @Override
+    protected int doCalElementReprLen(final int rowIndex, final int colIndex, final String nullRepr) {
+        return calIntegralReprLen(longData[toFlatIndex(rowIndex, colIndex)]);
+    }
+
+    @Override
+    protected String doGetElementRepr(final int rowIndex, final int colIndex, final String nullRepr) {
+        return Long.toString(longData[toFlatIndex(rowIndex, colIndex)]);
+    }
+
+    // helpers - typed array access
+
+    @Override
+    protected long[] doGetData() {
+        return longData;
+    }
+    @Override
+    protected void doSetData(final long[] newData) {
+        longData = newData;
+    }
+    @Override
+    protected long[] doNewData(final int length) {
+        return new long[length];
+    }
+    @Override
+    protected Long doBox(final int flatIndex) {
+        return longData[flatIndex];
+    }
+    @Override
+    protected void doUnbox(final int flatIndex, final Long val) {
+        longData[flatIndex] = val;
+    }
+    @Override
+    protected boolean isRangeEqual(final int flatIndex, final long[] otherData, final int otherFlatIndex, final int len) {
+        return Arrays.equals(longData, flatIndex, flatIndex + len, otherData, otherFlatIndex, otherFlatIndex + len);
+    }
+    @Override
+    protected int calRangeHash(final int flatIndex, final int len, int weight) {
+        int result = 0;
+        for (int i = flatIndex; i < flatIndex + len; ++i) {
+            result += Long.hashCode(longData[i]) * weight;
+            weight += colWeightStep;
+        }
+        return result;
+    }
+    @Override
+    protected void doClearRange(final int fromFlatIndex, final int toFlatIndex) {
+        Arrays.fill(longData, fromFlatIndex, toFlatIndex, 0L);
+    }
+
+    // every used cell becomes val
+    protected void doFillUsed(final long val) {
+        if (val != 0) {
+            for (int r = 0; r < rows; ++r) {
+                Arrays.fill(longData, r * colCapacity, r * colCapacity + cols, val);
+            }
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Array;
+
+// Shared base of the primitive-backed tables (ReadableIntTable/IntTable, ReadableLongTable/LongTable,
+// ReadableDoubleTable/DoubleTable). ReadableTable.data is left null, all cells live in a primitive array A
+// (int[], long[], double[]) in row-major order with colCapacity as the stride.
+// Shape, copy, conversion and structural logic live here and work on A as a whole (System.arraycopy),
+// the subclasses only implement the typed element accesses below.
+public abstract class ReadablePrimitiveTable<E, A> extends ReadableTable<E> {
+
+    protected ReadablePrimitiveTable(final Class<E> elementType, final int rows, final int cols, final int rowCap, final int colCap, final TableFormatter<E> formatter) {
+        super(elementType, null, rows, cols, rowCap, colCap, formatter);
+    }
+
+    // typed array access
+
+    protected abstract A doGetData();
+    protected abstract void doSetData(A newData);
+    protected abstract A doNewData(int length);
+    // the cell at flatIndex, boxed
+    protected abstract E doBox(int flatIndex);
+    // stores the (non-null) val at flatIndex
+    protected abstract void doUnbox(int flatIndex, E val);
+    // cells [flatIndex, flatIndex + len) equal the cells of otherData from otherFlatIndex
+    protected abstract boolean isRangeEqual(int flatIndex, A otherData, int otherFlatIndex, int len);
+    // sum of the hash terms of the cells [flatIndex, flatIndex + len) of one row, the first weighted by weight
+    protected abstract int calRangeHash(int flatIndex, int len, int weight);
+    // resets the cells [fromFlatIndex, toFlatIndex) to 0
+    protected abstract void doClearRange(int fromFlatIndex, int toFlatIndex);
+
+    // conversion
+
+    public @NotNull Table<E> toBoxed() {
+        Table<E> result = Table.doCreateWithSizeCapacity(elementType, rows, cols, rowCapacity, colCapacity);
+        for (int r = 0; r < rows; ++r) {
+            final int base = r * colCapacity;
+            for (int c = 0; c < cols; ++c) {
+                result.data[base + c] = doBox(base + c);
+            }
+        }
+        return result;
+    }
+
+    // getters
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] getRowClone(final int rowIndex) {
+        validateRowIndex(rowIndex);
+        E[] result = (E[]) Array.newInstance(elementType, cols);
+        final int base = rowIndex * colCapacity;
+        for (int c = 0; c < cols; ++c) {
+            result[c] = doBox(base + c);
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] getColClone(final int colIndex) {
+        validateColIndex(colIndex);
+        E[] result = (E[]) Array.newInstance(elementType, rows);
+        for (int r = 0; r < rows; ++r) {
+            result[r] = doBox(r * colCapacity + colIndex);
+        }
+        return result;
+    }
+
+    @Override
+    public Object[] getUnderlyingArrayClone() {
+        Object[] result = new Object[Array.getLength(doGetData())];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = doBox(i);
+        }
+        return result;
+    }
+
+    // common functions
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean equals(Object obj) {
+        if (this == obj) { return true; }
+        if (!(obj instanceof ReadablePrimitiveTable<?, ?> other) || other.elementType != this.elementType) {
+            return super.equals(obj);
+        }
+        if ((this.rows != other.rows) || (this.cols != other.cols)) { return false; }
+        final A otherData = (A) other.doGetData();
+        for (int r = 0; r < rows; ++r) {
+            if (!isRangeEqual(r * this.colCapacity, otherData, r * other.colCapacity, cols)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    @Override
+    public int hashCode() {
+        // same value as ReadableTable.hashCode() of the boxed table, so equal tables hash equally across types
+        int result = calShapeHash(rows, cols);
+        for (int r = 0; r < rows; ++r) {
+            result += calRangeHash(r * colCapacity, cols, calRowWeight(r));
+        }
+        return result;
+    }
+
+    // helpers - getters
+
+    @Override
+    protected E doGetElementCasted(int rowIndex, int colIndex) {
+        return doBox(this.toFlatIndex(rowIndex, colIndex));
+    }
+
+    @Override
+    protected Object doGetElementAsObject(int rowIndex, int colIndex) {
+        return doBox(this.toFlatIndex(rowIndex, colIndex));
+    }
+
+    @Override
+    protected E doGetElementCasted(int flatIndex) {
+        return doBox(flatIndex);
+    }
+
+    @Override
+    protected Object doGetElementAsObject(int flatIndex) {
+        return doBox(flatIndex);
+    }
+
+    // helpers - repr
+
+    // digits (and sign) of an int or long without building the string
+    protected static int calIntegralReprLen(long val) {
+        if (val == Long.MIN_VALUE) {
+            return 20;
+        }
+        int len = 1;
+        if (val < 0) {
+            len += 1;
+            val = -val;
+        }
+        while (val >= 10) {
+            val /= 10;
+            len += 1;
+        }
+        return len;
+    }
+
+    // helpers - layout
+
+    @Override
+    protected void doCopyCellsTo(final Object[] dst, final TableLayout dstLayout, final int dstRowCap, final int dstColCap) {
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                dst[dstLayout.toFlatIndex(r, c, dstRowCap, dstColCap)] = doBox(toFlatIndex(r, c));
+            }
+        }
+    }
+
+    @Override
+    protected void doTransposeInto(final Object[] dst, final int dstRowCap, final int dstColCap) {
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                dst[layout.toFlatIndex(c, r, dstRowCap, dstColCap)] = doBox(toFlatIndex(r, c));
+            }
+        }
+    }
+
+    // helpers - conversion/copy/transpose
+
+    // the cells of src, null cells become nullVal (or throw without replaceNull)
+    protected void doUnboxFrom(final ReadableTable<E> src, final boolean replaceNull, final E nullVal) {
+        for (int r = 0; r < src.rows; ++r) {
+            for (int c = 0; c < src.cols; ++c) {
+                E val = src.doGetElementCasted(r, c);
+                if (val == null) {
+                    if (!replaceNull) {
+                        throw new IllegalArgumentException(String.format(
+                                "NullElement: cannot unbox null at (%d, %d)", r, c));
+                    }
+                    val = nullVal;
+                }
+                doUnbox(r * colCapacity + c, val);
+            }
+        }
+    }
+
+    // every row of arr2d (an int[][], long[][] or double[][] of the element type, validated by calArr2dCols)
+    protected void doCopyArr2dIn(final Object[] arr2d) {
+        for (int r = 0; r < arr2d.length; ++r) {
+            System.arraycopy(arr2d[r], 0, doGetData(), r * colCapacity, cols);
+        }
+    }
+
+    // same capacities as this table
+    protected void doCopyDataFrom(final ReadablePrimitiveTable<E, A> other) {
+        System.arraycopy(other.doGetData(), 0, doGetData(), 0, other.rows * other.colCapacity);
+    }
+
+    // dst has capacities rows x cols
+    protected void doCopyTrimmedInto(final ReadablePrimitiveTable<E, A> dst) {
+        for (int r = 0; r < rows; ++r) {
+            System.arraycopy(doGetData(), r * colCapacity, dst.doGetData(), r * cols, cols);
+        }
+    }
+
+    protected void doTransposeInto(final A dst, final int dstColCap) {
+        TableTransposer.transpose(doGetData(), colCapacity, dst, dstColCap, rows, cols);
+    }
+
+    // helpers - setters/structure (used by IntTable, LongTable and DoubleTable)
+
+    protected void doCopyRowIn(final A row, final int rowIndex) {
+        System.arraycopy(row, 0, doGetData(), rowIndex * colCapacity, cols);
+    }
+
+    protected void doRemoveRow(final int rowIndex) {
+        validateRowIndex(rowIndex);
+        // rows after rowIndex are contiguous, so shift them up in one copy
+        final A d = doGetData();
+        System.arraycopy(d, (rowIndex + 1) * colCapacity, d, rowIndex * colCapacity, (rows - rowIndex - 1) * colCapacity);
+        doClearRange((rows - 1) * colCapacity, rows * colCapacity);
+        rows -= 1;
+        onRowsRemoved(rowIndex, rowIndex + 1);
+    }
+
+    protected void doRemoveCol(final int colIndex) {
+        validateColIndex(colIndex);
+        final A d = doGetData();
+        for (int r = 0; r < rows; ++r) {
+            final int base = r * colCapacity;
+            System.arraycopy(d, base + colIndex + 1, d, base + colIndex, cols - colIndex - 1);
+            doClearRange(base + cols - 1, base + cols);
+        }
+        cols -= 1;
+        onColsRemoved(colIndex, colIndex + 1);
+    }
+
+    // [begin, end)
+    protected void doRemoveRows(final int beginRowIdx, final int endRowIdx) {
+        validateRowBeginEnd(beginRowIdx, endRowIdx);
+        final int numRemoved = endRowIdx - beginRowIdx;
+        final A d = doGetData();
+        System.arraycopy(d, endRowIdx * colCapacity, d, beginRowIdx * colCapacity, (rows - endRowIdx) * colCapacity);
+        doClearRange((rows - numRemoved) * colCapacity, rows * colCapacity);
+        rows -= numRemoved;
+        onRowsRemoved(beginRowIdx, endRowIdx);
+    }
+
+    protected void doResizeRows(final int newRowSize) {
+        validateRowSize(newRowSize);
+        if (newRowSize < rows) {
+            doRemoveRows(newRowSize, rows);
+        } else {
+            doAddRows(newRowSize - rows);
+        }
+    }
+
+    protected void doAddRow(final A row) {
+        validateSizeNewArrRow(row);
+        doGrowRowCapIfNeeded(rows + 1);
+        System.arraycopy(row, 0, doGetData(), rows * colCapacity, cols);
+        rows += 1;
+        onRowsInserted(rows - 1, 1);
+    }
+
+    protected void doAddRows(final int numRowsToAdd) {
+        validateNonNeg(numRowsToAdd);
+        if (numRowsToAdd == 0) {
+            return;
+        }
+        doGrowRowCapIfNeeded(rows + numRowsToAdd);
+        rows += numRowsToAdd;
+        onRowsInserted(rows - numRowsToAdd, numRowsToAdd);
+    }
+
+    protected void doAddCols(final int numColsToAdd) {
+        validateNonNeg(numColsToAdd);
+        if (numColsToAdd == 0) {
+            return;
+        }
+        doGrowColCapIfNeeded(cols + numColsToAdd);
+        cols += numColsToAdd;
+        onColsInserted(cols - numColsToAdd, numColsToAdd);
+    }
+
+    // helpers - capacity/reallocate
+
+    protected void doReallocate(final int newRowCap, final int newColCap) {
+        if (newRowCap < rows || newColCap < cols) {
+            throw new IllegalArgumentException("New capacity cannot be smaller than current logical size.");
+        }
+        if (newRowCap == rowCapacity && newColCap == colCapacity) {
+            return; // don't do anything
+        } else if (newRowCap == rowCapacity) {
+            doReallocCol(newColCap);
+        } else if (newColCap == colCapacity) {
+            doReallocRow(newRowCap);
+        } else {
+            doRealloc(newRowCap, newColCap);
+        }
+    }
+
+    protected void doGrowRowCapIfNeeded(final int minNeededRowCap) {
+        if (minNeededRowCap > rowCapacity) {
+            doReallocRow(minNeededRowCap * 3 / 2);
+        }
+    }
+    protected void doGrowColCapIfNeeded(final int minNeededColCap) {
+        if (minNeededColCap > colCapacity) {
+            doReallocCol(minNeededColCap * 3 / 2);
+        }
+    }
+
+    protected void doRealloc(final int newRowCap, final int newColCap) {
+        // Note: no argument check
+        // newRowCap should be >= rows and newColCap >= cols, this is ensured by caller
+        final long start = TableMetrics.start();
+        final int oldRowCap = rowCapacity;
+        final int oldColCap = colCapacity;
+        final A d = doGetData();
+        A result = doNewData(newRowCap * newColCap);
+        for (int r = 0; r < rows; ++r) {
+            System.arraycopy(d, r * colCapacity, result, r * newColCap, cols);
+        }
+        rowCapacity = newRowCap;
+        colCapacity = newColCap;
+        doSetData(result);
+        TableMetrics.recordRealloc(this, oldRowCap, oldColCap, (long) rows * cols, start);
+    }
+    protected void doReallocRow(final int newRowCap) {
+        // Note: no argument check
+        // newRowCap should be >= rows, this is ensured by caller
+        final long start = TableMetrics.start();
+        final int oldRowCap = rowCapacity;
+        A result = doNewData(newRowCap * colCapacity);
+        System.arraycopy(doGetData(), 0, result, 0, rows * colCapacity);
+        rowCapacity = newRowCap;
+        doSetData(result);
+        TableMetrics.recordRealloc(this, oldRowCap, colCapacity, (long) rows * colCapacity, start);
+    }
+    protected void doReallocCol(final int newColCap) {
+        // Note: no argument check
+        // newColCap should be >= cols, this is ensured by caller
+        final long start = TableMetrics.start();
+        final int oldColCap = colCapacity;
+        final A d = doGetData();
+        A result = doNewData(rowCapacity * newColCap);
+        for (int r = 0; r < rows; ++r) {
+            System.arraycopy(d, r * colCapacity, result, r * newColCap, cols);
+        }
+        colCapacity = newColCap;
+        doSetData(result);
+        TableMetrics.recordRealloc(this, rowCapacity, oldColCap, (long) rows * cols, start);
+    }
+
+    // throw if condition methods
+
+    protected void validateSizeNewArrRow(final A newRow) {
+        final int len = Array.getLength(newRow);
+        if (len != cols) {
+            throw new IllegalArgumentException(String.format(
+                    "MismatchRowSize: expected %d but %d were given",
+                    cols, len));
+        }
+    }
+    protected void validateSizeNewArrCol(final A newCol) {
+        final int len = Array.getLength(newCol);
+        if (len != rows) {
+            throw new IllegalArgumentException(String.format(
+                    "MismatchColSize: expected %d but %d were given",
+                    rows, len));
+        }
+    }
+    // cols of a rectangular int[][]/long[][]/double[][] with at least one row
+    protected static int calArr2dCols(final Object[] arr2d) {
+        final int cols = Array.getLength(arr2d[0]);
+        for (int r = 1; r < arr2d.length; ++r) {
+            final int len = Array.getLength(arr2d[r]);
+            if (len != cols) {
+                throw new IllegalArgumentException(String.format(
+                        "InconsistentColumnSize: at row %d: expected %d, but found %d",
+                        r, cols, len));
+            }
+        }
+        return cols;
+    }
+}
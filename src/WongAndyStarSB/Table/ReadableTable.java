@@ -1,8 +1,25 @@
-package Table;
+package WongAndyStarSB.Table;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Array;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ReadableTable<E> {
 
@@ -15,7 +32,18 @@ public class ReadableTable<E> {
     protected int cols = 0;
     protected int rowCapacity = 0;
     protected int colCapacity = 0;
+    protected TableLayout layout = TableLayout.ROW_MAJOR;
+    // gap buffers left open by Table.insertRow/insertCol: logical rows >= rowGapStart sit rowGapLen
+    // physical rows further on (same for cols), the gap itself holds nulls, length 0 = no gap
+    protected int rowGapStart = 0;
+    protected int rowGapLen = 0;
+    protected int colGapStart = 0;
+    protected int colGapLen = 0;
     protected TableFormatter<E> formatter = null;
+    // bumped on every change of content or shape
+    protected int modCount = 0;
+    // bumped when existing rows/cols move or go away (appending doesn't count), views check it
+    protected int structModCount = 0;
 
     protected ReadableTable(final Class<E> elementType, final Object[] data, final int rows, final int cols, final int rowCap, final int colCap, final TableFormatter<E> formatter) {
         this.elementType = elementType;
@@ -38,6 +66,21 @@ public class ReadableTable<E> {
         );
     }
 
+    protected static <T> @NotNull ReadableTable<T> doCreateWithSizeCapacity(final Class<T> elementType, final int rows, final int cols, final int rowCap, final int colCap, final TableLayout layout) {
+        // no check
+        final int roundedRowCap = layout.roundCapacity(rowCap);
+        final int roundedColCap = layout.roundCapacity(colCap);
+        ReadableTable<T> result = new ReadableTable<T>(
+                elementType,
+                new Object[roundedRowCap * roundedColCap],
+                rows, cols,
+                roundedRowCap, roundedColCap,
+                null
+        );
+        result.layout = layout;
+        return result;
+    }
+
     public static <T> @NotNull ReadableTable<T> createEmpty(final Class<T> elementType) {
         return doCreateWithSizeCapacity(elementType, 0, 0, defaultRowCapacity, defaultColCapacity);
     }
@@ -46,9 +89,10 @@ public class ReadableTable<E> {
         ReadableTable<T> result = doCreateWithSizeCapacity(
                 other.elementType,
                 other.rows, other.cols,
-                other.rowCapacity, other.colCapacity
+                other.rowCapacity, other.colCapacity,
+                other.layout
         );
-        System.arraycopy(other.data, 0, result.data, 0, other.rows * other.colCapacity);
+        other.doCopyCellsTo(result.data, result.layout, result.rowCapacity, result.colCapacity);
         return result;
     }
     public static <T> @NotNull ReadableTable<T> createWithSizeCapacity(final Class<T> elementType, final int rows, final int cols, final int rowCap, final int colCap) {
@@ -56,6 +100,12 @@ public class ReadableTable<E> {
         validateDimensions(rowCap, colCap);
         return doCreateWithSizeCapacity(elementType, rows, cols, rowCap, colCap);
     }
+    public static <T> @NotNull ReadableTable<T> createWithSizeCapacity(final Class<T> elementType, final int rows, final int cols, final int rowCap, final int colCap, final TableLayout layout) {
+        validateDimensions(rows, cols);
+        validateDimensions(rowCap, colCap);
+        validateCapacityCoversSize(rows, cols, rowCap, colCap);
+        return doCreateWithSizeCapacity(elementType, rows, cols, rowCap, colCap, layout);
+    }
 
     public static <T> @NotNull ReadableTable<T> createWithCapacity(final Class<T> elementType, final int rowCap, final int colCap) {
         validateDimensions(rowCap, colCap);
@@ -121,6 +171,10 @@ public class ReadableTable<E> {
         return colCapacity;
     }
 
+    public @NotNull TableLayout getLayout() {
+        return layout;
+    }
+
     public @NotNull TableFormatter<E> getFormatter() {
         if (formatter == null) { formatter = TableFormatter.createDefaultFrom(this); }
         return formatter;
@@ -142,7 +196,13 @@ public class ReadableTable<E> {
     public E[] getRowClone(final int rowIndex) {
         validateRowIndex(rowIndex);
         E[] result = (E[]) Array.newInstance(elementType, cols);
-        System.arraycopy(data, rowIndex * colCapacity, result, 0, cols);
+        if (layout == TableLayout.ROW_MAJOR && colGapLen == 0) {
+            System.arraycopy(data, toPhysicalRow(rowIndex) * colCapacity, result, 0, cols);
+            return result;
+        }
+        for (int c = 0; c < cols; ++c) {
+            result[c] = (E) data[toFlatIndex(rowIndex, c)];
+        }
         return result;
     }
 
@@ -150,6 +210,10 @@ public class ReadableTable<E> {
     public E[] getColClone(final int colIndex) {
         validateColIndex(colIndex);
         E[] result = (E[]) Array.newInstance(elementType, rows);
+        if (layout == TableLayout.COL_MAJOR && rowGapLen == 0) {
+            System.arraycopy(data, toPhysicalCol(colIndex) * rowCapacity, result, 0, rows);
+            return result;
+        }
         for (int r = 0; r < rows; ++r) {
             result[r] = (E) data[toFlatIndex(r, colIndex)];
         }
@@ -157,24 +221,209 @@ public class ReadableTable<E> {
     }
 
     public Object[] getUnderlyingArrayClone() {
-        return data.clone();
+        // a pooled buffer may be longer than the capacities
+        return Arrays.copyOf(data, rowCapacity * colCapacity);
     }
 
-    // transpose
+    // views (no copy, they read this table's live cells until its existing rows/cols move or go away)
 
-    public @NotNull ReadableTable<E> transpose() {
-        ReadableTable<E> result = createWithSizeCapacity(
-                elementType,
-                rows, cols,
-                rowCapacity, colCapacity
-        );
+    public @NotNull TableView<E> getRowView(final int rowIndex) {
+        validateRowIndex(rowIndex);
+        return TableView.create(this, rowIndex, rowIndex + 1, 0, cols);
+    }
+
+    public @NotNull TableView<E> getColView(final int colIndex) {
+        validateColIndex(colIndex);
+        return TableView.create(this, 0, rows, colIndex, colIndex + 1);
+    }
+
+    // [rowBegin, rowEnd) x [colBegin, colEnd)
+    public @NotNull TableView<E> subTable(final int rowBegin, final int rowEnd, final int colBegin, final int colEnd) {
+        validateRowBeginEnd(rowBegin, rowEnd);
+        validateColBeginEnd(colBegin, colEnd);
+        return TableView.create(this, rowBegin, rowEnd, colBegin, colEnd);
+    }
+
+    // streams (cells row by row, parallel streams split at row boundaries)
+
+    public @NotNull Spliterator<E> spliterator() {
+        return new TableSpliterator.Cells<E>(this, 0, rows);
+    }
+    public @NotNull Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+    public @NotNull Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    public @NotNull Spliterator<E[]> rowSpliterator() {
+        return new TableSpliterator.Rows<E>(this, 0, rows);
+    }
+    public @NotNull Stream<E[]> rowStream() {
+        return StreamSupport.stream(rowSpliterator(), false);
+    }
+    public @NotNull Stream<E[]> parallelRowStream() {
+        return StreamSupport.stream(rowSpliterator(), true);
+    }
+
+    // bulk operations (large tables are split by row ranges across the common ForkJoinPool)
+
+    // same shape, capacities and layout, every cell mapped
+    public <R> @NotNull Table<R> mapTo(final @NotNull Class<R> resultType, final @NotNull Function<? super E, ? extends R> mapper) {
+        final Table<R> result = Table.doCreateWithSizeCapacity(resultType, rows, cols, rowCapacity, colCapacity, layout);
+        final Object[] dst = result.data;
+        final TableLayout dstLayout = result.layout;
+        final int dstRowCap = result.rowCapacity;
+        final int dstColCap = result.colCapacity;
+        final boolean direct = isRowMajorReadable();
+        RowRangeTask.invoke(rows, cols, (rowBegin, rowEnd) -> {
+            for (int r = rowBegin; r < rowEnd; ++r) {
+                for (int c = 0; c < cols; ++c) {
+                    dst[dstLayout.toFlatIndex(r, c, dstRowCap, dstColCap)] = mapper.apply(direct ? doGetElementCasted(r * colCapacity + c) : doGetElementCasted(r, c));
+                }
+            }
+            return null;
+        });
+        return result;
+    }
+
+    // like Stream.reduce: each row range folds from identity with accumulator, the parts are merged with combiner
+    public <T> T reduce(final T identity, final @NotNull BiFunction<T, ? super E, T> accumulator, final @NotNull BinaryOperator<T> combiner) {
+        final boolean direct = isRowMajorReadable();
+        return RowRangeTask.invoke(rows, cols, (rowBegin, rowEnd) -> {
+            T result = identity;
+            for (int r = rowBegin; r < rowEnd; ++r) {
+                for (int c = 0; c < cols; ++c) {
+                    result = accumulator.apply(result, direct ? doGetElementCasted(r * colCapacity + c) : doGetElementCasted(r, c));
+                }
+            }
+            return result;
+        }, combiner);
+    }
+
+    // the non-null cells row by row (a SparseTable visits only the cells it stores)
+    public void forEachNonNull(final FrozenTable.@NotNull CellVisitor<? super E> visitor) {
         for (int r = 0; r < rows; ++r) {
             for (int c = 0; c < cols; ++c) {
-                result.data[toFlatIndex(r, c)] = data[toFlatIndex(c, r)];
+                final E val = doGetElementCasted(r, c);
+                if (val != null) {
+                    visitor.visit(r, c, val);
+                }
+            }
+        }
+    }
+
+    // search (Table answers these from a hash index when the column has one, see Table.addIndex)
+
+    // rows whose cell in colIndex equals val, ascending
+    public int @NotNull [] findRows(final int colIndex, final @Nullable E val) {
+        validateColIndex(colIndex);
+        int[] result = new int[8];
+        int size = 0;
+        for (int r = 0; r < rows; ++r) {
+            if (isElementEqual(r, colIndex, val)) {
+                if (size == result.length) {
+                    result = Arrays.copyOf(result, size * 2);
+                }
+                result[size++] = r;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+    public int countRows(final int colIndex, final @Nullable E val) {
+        validateColIndex(colIndex);
+        int result = 0;
+        for (int r = 0; r < rows; ++r) {
+            if (isElementEqual(r, colIndex, val)) {
+                ++result;
             }
         }
         return result;
     }
+    // -1 if no row matches
+    public int findFirstRow(final int colIndex, final @Nullable E val) {
+        validateColIndex(colIndex);
+        for (int r = 0; r < rows; ++r) {
+            if (isElementEqual(r, colIndex, val)) {
+                return r;
+            }
+        }
+        return -1;
+    }
+
+    // rows with from <= cell <= to in colIndex by comparator, by cell then row, null cells never match
+    // (Table answers this from an ordered index, see Table.addOrderedIndex)
+    public int @NotNull [] findRowsInRange(final int colIndex, final @NotNull E from, final @NotNull E to, final @NotNull Comparator<? super E> comparator) {
+        validateColIndex(colIndex);
+        TableSorter.Entry[] matches = new TableSorter.Entry[8];
+        int size = 0;
+        for (int r = 0; r < rows; ++r) {
+            final E val = doGetElementCasted(r, colIndex);
+            if (val != null && comparator.compare(val, from) >= 0 && comparator.compare(val, to) <= 0) {
+                if (size == matches.length) {
+                    matches = Arrays.copyOf(matches, size * 2);
+                }
+                matches[size++] = new TableSorter.Entry(val, r);
+            }
+        }
+        matches = Arrays.copyOf(matches, size);
+        @SuppressWarnings("unchecked")
+        final Comparator<Object> cmp = (Comparator<Object>) comparator;
+        TableSorter.doSort(matches, (a, b) -> cmp.compare(a.key, b.key));
+        int[] result = new int[size];
+        for (int i = 0; i < size; ++i) {
+            result[i] = matches[i].row;
+        }
+        return result;
+    }
+
+    // query (lazy where/select/groupBy/aggregate/limit, run in one pass by execute(), see TableQuery)
+
+    public @NotNull TableQuery<E> query() {
+        return new TableQuery<E>(this);
+    }
+
+    // join (hash join on key cols, see TableJoin): every col of this table, then the non-key cols of other,
+    // rows ordered by this table's row, then other's row, null key cells never match
+
+    public @NotNull Table<E> innerJoin(final @NotNull ReadableTable<? extends E> other, final int keyColIndex, final int otherKeyColIndex) {
+        return innerJoin(other, new int[] { keyColIndex }, new int[] { otherKeyColIndex });
+    }
+    public @NotNull Table<E> innerJoin(final @NotNull ReadableTable<? extends E> other, final int @NotNull [] keyColIndices, final int @NotNull [] otherKeyColIndices) {
+        validateJoinKeys(other, keyColIndices, otherKeyColIndices);
+        return TableJoin.doJoin(calStableSource(), other.calStableSource(), keyColIndices, otherKeyColIndices, false);
+    }
+
+    // rows of this table without a match are kept once, with null in other's cols
+    public @NotNull Table<E> leftJoin(final @NotNull ReadableTable<? extends E> other, final int keyColIndex, final int otherKeyColIndex) {
+        return leftJoin(other, new int[] { keyColIndex }, new int[] { otherKeyColIndex });
+    }
+    public @NotNull Table<E> leftJoin(final @NotNull ReadableTable<? extends E> other, final int @NotNull [] keyColIndices, final int @NotNull [] otherKeyColIndices) {
+        validateJoinKeys(other, keyColIndices, otherKeyColIndices);
+        return TableJoin.doJoin(calStableSource(), other.calStableSource(), keyColIndices, otherKeyColIndices, true);
+    }
+
+    // the joined rows one by one, nothing but other's key hash is held (keepUnmatched: like leftJoin)
+    // the tables are read while the stream is consumed, they must not change until then
+    public @NotNull Stream<E[]> joinStream(final @NotNull ReadableTable<? extends E> other, final int @NotNull [] keyColIndices, final int @NotNull [] otherKeyColIndices, final boolean keepUnmatched) {
+        validateJoinKeys(other, keyColIndices, otherKeyColIndices);
+        return TableJoin.doStream(calStableSource(), other.calStableSource(), keyColIndices, otherKeyColIndices, keepUnmatched);
+    }
+
+    // transpose
+
+    public @NotNull ReadableTable<E> transpose() {
+        final long start = TableMetrics.start();
+        ReadableTable<E> result = doCreateWithSizeCapacity(
+                elementType,
+                cols, rows,
+                colCapacity, rowCapacity,
+                layout
+        );
+        doTransposeInto(result.data, result.rowCapacity, result.colCapacity);
+        TableMetrics.recordTranspose(this, false, start);
+        return result;
+    }
 
     // clone
 
@@ -192,16 +441,33 @@ public class ReadableTable<E> {
     // copy
 
     public @NotNull ReadableTable<E> copy() {
-        return createCopy(this);
+        final long start = TableMetrics.start();
+        ReadableTable<E> result = createCopy(this);
+        TableMetrics.recordCopy(this, TableMetrics.copy, start);
+        return result;
     }
     public @NotNull ReadableTable<E> copyAndTrim() {
-        ReadableTable<E> result = doCreateWithSizeCapacity(elementType, rows, cols, rows, cols);
-        for (int r = 0; r < rows; ++r) {
-            System.arraycopy(data, r * colCapacity, result.data, r * cols, cols);
-        }
+        final long start = TableMetrics.start();
+        ReadableTable<E> result = doCreateWithSizeCapacity(elementType, rows, cols, rows, cols, layout);
+        doCopyCellsTo(result.data, result.layout, result.rowCapacity, result.colCapacity);
+        TableMetrics.recordCopy(this, TableMetrics.copyAndTrim, start);
+        return result;
+    }
+
+    // copy with the cells laid out differently, the capacities stay (rounded up for CHUNKED)
+    public @NotNull ReadableTable<E> copyWithLayout(final @NotNull TableLayout newLayout) {
+        final long start = TableMetrics.start();
+        ReadableTable<E> result = doCreateWithSizeCapacity(elementType, rows, cols, rowCapacity, colCapacity, newLayout);
+        doCopyCellsTo(result.data, result.layout, result.rowCapacity, result.colCapacity);
+        TableMetrics.recordCopy(this, TableMetrics.copyWithLayout, start);
         return result;
     }
 
+    // trimmed immutable copy, safe to share across threads and to use as a map key
+    public @NotNull FrozenTable<E> freeze() {
+        return FrozenTable.createFrom(this);
+    }
+
     // common functions
 
     @Override
@@ -212,14 +478,49 @@ public class ReadableTable<E> {
         return formatter.getTableRepr();
     }
 
+    // same text as toString(), streamed with bounded memory
+    public void appendRepr(Appendable out) throws IOException {
+        getFormatter().appendTableRepr(out);
+    }
+    public void writeRepr(OutputStream out) throws IOException {
+        getFormatter().writeTableRepr(out);
+    }
+
+    // binary file (see TableBinaryFormat), reopened without parsing by MappedTable.open
+    // element types: Integer, Long, Double, String
+    public void writeBinary(final @NotNull Path path) throws IOException {
+        TableBinaryFormat.toTypeCode(elementType); // throws before the file is truncated
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeBinary(channel);
+        }
+    }
+    public void writeBinary(final @NotNull OutputStream out) throws IOException {
+        writeBinary(Channels.newChannel(out));
+    }
+    public void writeBinary(final @NotNull WritableByteChannel out) throws IOException {
+        TableBinaryFormat.write(this, out);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) { return true; }
         if (!(obj instanceof ReadableTable<?> other)) { return false; }
         if ((this.rows != other.rows) || (this.cols != other.cols)) { return false; }
+        if (this.hasCheapHash() && other.hasCheapHash() && this.hashCode() != other.hashCode()) { return false; }
+        if (this.isRowMajorReadable() && other.isRowMajorReadable()) {
+            for (int r = 0; r < rows; ++r) {
+                if (!Arrays.equals(
+                        this.data, r * this.colCapacity, r * this.colCapacity + cols,
+                        other.data, r * other.colCapacity, r * other.colCapacity + cols)) {
+                    return false;
+                }
+            }
+            return true;
+        }
         for (int r = 0; r < rows; ++r) {
             for (int c = 0; c < cols; ++c) {
-                if (!java.util.Objects.equals(this.get(r, c), other.get(r, c))) {
+                if (!Objects.equals(this.doGetElementAsObject(r, c), other.doGetElementAsObject(r, c))) {
                     return false;
                 }
             }
@@ -228,20 +529,88 @@ public class ReadableTable<E> {
     }
     @Override
     public int hashCode() {
-        int result = java.util.Objects.hash(rows, cols);
-        for (int r = 0; r < rows; ++r) {
-            for (int c = 0; c < cols; ++c) {
-                result *= 31;
-                result += java.util.Objects.hash(get(r, c));
+        int result = calShapeHash(rows, cols);
+        if (isRowMajorReadable()) {
+            for (int r = 0; r < rows; ++r) {
+                final int base = r * colCapacity;
+                int weight = calRowWeight(r);
+                for (int c = 0; c < cols; ++c) {
+                    final Object val = data[base + c];
+                    if (val != null) {
+                        result += val.hashCode() * weight;
+                    }
+                    weight += colWeightStep;
+                }
             }
+            return result;
         }
-        return result;
+        return result + calCellsHash(0, rows, 0, cols);
     }
 
     // helpers
 
-    protected int toFlatIndex(final int rowIndex, final int colIndex) {
-        return rowIndex * colCapacity + colIndex;
+    protected int toFlatIndex(int rowIndex, int colIndex) {
+        if ((rowGapLen | colGapLen) != 0) {
+            rowIndex = toPhysicalRow(rowIndex);
+            colIndex = toPhysicalCol(colIndex);
+        }
+        if (layout == TableLayout.ROW_MAJOR) {
+            return rowIndex * colCapacity + colIndex;
+        }
+        return layout.toFlatIndex(rowIndex, colIndex, rowCapacity, colCapacity);
+    }
+
+    // helpers - gap buffers
+
+    protected boolean hasGaps() {
+        return (rowGapLen | colGapLen) != 0;
+    }
+    protected int toPhysicalRow(final int rowIndex) {
+        return (rowIndex < rowGapStart) ? rowIndex : rowIndex + rowGapLen;
+    }
+    protected int toPhysicalCol(final int colIndex) {
+        return (colIndex < colGapStart) ? colIndex : colIndex + colGapLen;
+    }
+    // physical extent of the used rows/cols, gap included
+    protected int calPhysicalRows() {
+        return rows + rowGapLen;
+    }
+    protected int calPhysicalCols() {
+        return cols + colGapLen;
+    }
+
+    // helpers - layout
+
+    protected void doCopyCellsTo(final Object[] dst, final TableLayout dstLayout, final int dstRowCap, final int dstColCap) {
+        if (hasGaps()) {
+            for (int r = 0; r < rows; ++r) {
+                for (int c = 0; c < cols; ++c) {
+                    dst[dstLayout.toFlatIndex(r, c, dstRowCap, dstColCap)] = data[toFlatIndex(r, c)];
+                }
+            }
+            return;
+        }
+        if (layout == TableLayout.ROW_MAJOR && dstLayout == TableLayout.ROW_MAJOR && dstColCap == colCapacity) {
+            System.arraycopy(data, 0, dst, 0, rows * colCapacity);
+            return;
+        }
+        TableLayout.copyCells(data, layout, rowCapacity, colCapacity, dst, dstLayout, dstRowCap, dstColCap, rows, cols);
+    }
+
+    // dst has this layout with the capacities swapped
+    protected void doTransposeInto(final Object[] dst, final int dstRowCap, final int dstColCap) {
+        if (layout == TableLayout.ROW_MAJOR && !hasGaps()) {
+            TableTransposer.transpose(data, colCapacity, dst, dstColCap, rows, cols);
+        } else if (layout == TableLayout.COL_MAJOR && !hasGaps()) {
+            // a col-major rows x cols buffer reads like a row-major cols x rows one
+            TableTransposer.transpose(data, rowCapacity, dst, dstRowCap, cols, rows);
+        } else {
+            for (int r = 0; r < rows; ++r) {
+                for (int c = 0; c < cols; ++c) {
+                    dst[layout.toFlatIndex(c, r, dstRowCap, dstColCap)] = data[toFlatIndex(r, c)];
+                }
+            }
+        }
     }
 
     // helpers - getters
@@ -264,11 +633,145 @@ public class ReadableTable<E> {
         return data[flatIndex];
     }
 
+    protected boolean isElementEqual(final int rowIndex, final int colIndex, final @Nullable Object val) {
+        return Objects.equals(val, doGetElementAsObject(rowIndex, colIndex));
+    }
+
+    // helpers - repr (used by TableFormatter, primitive tables override these to skip boxing)
+
+    protected int doCalElementReprLen(final int rowIndex, final int colIndex, final String nullRepr) {
+        Object val = doGetElementAsObject(rowIndex, colIndex);
+        return (val == null) ? nullRepr.length() : val.toString().length();
+    }
+
+    protected String doGetElementRepr(final int rowIndex, final int colIndex, final String nullRepr) {
+        Object val = doGetElementAsObject(rowIndex, colIndex);
+        return (val == null) ? nullRepr : val.toString();
+    }
+    // stamp of the current content, used by TableFormatter to validate cached reprs
+    protected int calModStamp() {
+        return modCount;
+    }
+
+
 
 
 
 
 
+    // helpers - hashing
+    // hashCode() = calShapeHash(rows, cols) + the sum of val.hashCode() * calPositionWeight(r, c) over the
+    // non-null cells. Every cell adds its own term, so Table can keep the sum up to date cell by cell.
+    // The primitive tables use the same formula, equal tables hash equally across types.
+
+    static final int colWeightStep = 0x9E3779B8; // even, so every weight stays odd
+
+    protected static int calShapeHash(final int rows, final int cols) {
+        return mixBits(rows * 31 + cols);
+    }
+    protected static int calRowWeight(final int rowIndex) {
+        return mixBits(rowIndex) | 1;
+    }
+    protected static int calPositionWeight(final int rowIndex, final int colIndex) {
+        return calRowWeight(rowIndex) + colIndex * colWeightStep;
+    }
+    protected static int calCellHash(final Object val, final int rowIndex, final int colIndex) {
+        return (val == null) ? 0 : val.hashCode() * calPositionWeight(rowIndex, colIndex);
+    }
+    // murmur3 finalizer
+    protected static int mixBits(int x) {
+        x ^= x >>> 16;
+        x *= 0x85EBCA6B;
+        x ^= x >>> 13;
+        x *= 0xC2B2AE35;
+        x ^= x >>> 16;
+        return x;
+    }
+
+    // cell terms of [rowBegin, rowEnd) x [colBegin, colEnd)
+    protected int calCellsHash(final int rowBegin, final int rowEnd, final int colBegin, final int colEnd) {
+        int result = 0;
+        for (int r = rowBegin; r < rowEnd; ++r) {
+            for (int c = colBegin; c < colEnd; ++c) {
+                result += calCellHash(doGetElementAsObject(r, c), r, c);
+            }
+        }
+        return result;
+    }
+
+    // data can be read directly as rows of colCapacity slots (no gaps, not a view/snapshot/primitive table)
+    protected boolean isRowMajorReadable() {
+        return data != null && layout == TableLayout.ROW_MAJOR && !hasGaps();
+    }
+    // hashCode() is O(1) (frozen or hash-tracking tables), so equals can compare it first
+    protected boolean hasCheapHash() {
+        return false;
+    }
+    // null cells are not stored (sparse tables), forEachNonNull is cheaper than reading every cell
+    protected boolean hasImplicitNulls() {
+        return false;
+    }
+    // this table as a long read (a join) should see it, ConcurrentTable hands out a frozen copy
+    protected @NotNull ReadableTable<E> calStableSource() {
+        return this;
+    }
+    // size of one cell in the backing array, for TableMetrics
+    protected int calCellBytes() {
+        return TableMetrics.referenceBytes;
+    }
+
+    // helpers - change notification, called by the writable tables after each modification
+
+    protected void onCellChange(final int rowIndex, final int colIndex) {
+        modCount += 1;
+        if (formatter != null) { formatter.handleCellChange(rowIndex, colIndex); }
+    }
+    protected void onRowChange(final int rowIndex) {
+        modCount += 1;
+        if (formatter != null) { formatter.handleRowChange(rowIndex); }
+    }
+    protected void onColChange(final int colIndex) {
+        modCount += 1;
+        if (formatter != null) { formatter.handleColChange(colIndex); }
+    }
+    // any number of cells changed in place, nothing moved
+    protected void onCellsChange() {
+        modCount += 1;
+        if (formatter != null) { formatter.handleTableChange(); }
+    }
+    protected void onRowsInserted(final int beginRowIndex, final int count) {
+        modCount += 1;
+        if (beginRowIndex + count < rows) { structModCount += 1; }
+        if (formatter != null) { formatter.handleRowsInserted(beginRowIndex, count); }
+        TableMetrics.recordStructuralEdit(this, TableMetrics.rowsInserted, beginRowIndex, count);
+    }
+    protected void onRowsRemoved(final int beginRowIndex, final int endRowIndex) {
+        modCount += 1;
+        structModCount += 1;
+        if (formatter != null) { formatter.handleRowsRemoved(beginRowIndex, endRowIndex); }
+        TableMetrics.recordStructuralEdit(this, TableMetrics.rowsRemoved, beginRowIndex, endRowIndex - beginRowIndex);
+    }
+    protected void onColsInserted(final int beginColIndex, final int count) {
+        modCount += 1;
+        if (beginColIndex + count < cols) { structModCount += 1; }
+        if (formatter != null) { formatter.handleColsInserted(beginColIndex, count); }
+        TableMetrics.recordStructuralEdit(this, TableMetrics.colsInserted, beginColIndex, count);
+    }
+    protected void onColsRemoved(final int beginColIndex, final int endColIndex) {
+        modCount += 1;
+        structModCount += 1;
+        if (formatter != null) { formatter.handleColsRemoved(beginColIndex, endColIndex); }
+        TableMetrics.recordStructuralEdit(this, TableMetrics.colsRemoved, beginColIndex, endColIndex - beginColIndex);
+    }
+    protected void onTableChange() {
+        modCount += 1;
+        structModCount += 1;
+        if (formatter != null) { formatter.handleTableChange(); }
+    }
+
+
+
+
     public boolean isIndexValid(final int rowIndex, final int colIndex) {
         return (rowIndex >= 0 && rowIndex < rows && colIndex >= 0 && colIndex < cols);
     }
@@ -342,6 +845,19 @@ public class ReadableTable<E> {
             ));
         }
     }
+    protected void validateJoinKeys(final @NotNull ReadableTable<?> other, final int @NotNull [] keyColIndices, final int @NotNull [] otherKeyColIndices) {
+        if (keyColIndices.length == 0 || keyColIndices.length != otherKeyColIndices.length) {
+            throw new IllegalArgumentException(String.format(
+                    "MismatchKeyCount: %d key cols joined to %d key cols (at least one on each side)",
+                    keyColIndices.length, otherKeyColIndices.length));
+        }
+        for (int colIndex : keyColIndices) {
+            validateColIndex(colIndex);
+        }
+        for (int colIndex : otherKeyColIndices) {
+            other.validateColIndex(colIndex);
+        }
+    }
     protected void validateSizeNewRow(final E[] newRow) {
         if (newRow.length != cols) {
             throw new IllegalArgumentException(String.format(
@@ -370,6 +886,13 @@ public class ReadableTable<E> {
                     newColCap, cols));
         }
     }
+    protected static void validateCapacityCoversSize(final int rows, final int cols, final int rowCap, final int colCap) {
+        if (rowCap < rows || colCap < cols) {
+            throw new IllegalArgumentException(String.format(
+                    "IllegalCapacity: capacity %d x %d cannot be smaller than size %d x %d",
+                    rowCap, colCap, rows, cols));
+        }
+    }
     protected static void validateDimensions(final int rows, final int cols) {
         if (rows < 0 || cols < 0) {
             throw new IllegalArgumentException(String.format(
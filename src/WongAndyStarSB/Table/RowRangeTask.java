@@ -0,0 +1,61 @@
+package WongAndyStarSB.Table;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+// Runs a leaf over the rows [0, rows) of a table on the common ForkJoinPool: the range is halved
+// until a part holds about leafCells cells, the results of the halves are combined in row order.
+// Tables below parallelThreshold cells (or a single-thread pool) run the leaf once on the caller's thread.
+public class RowRangeTask<T> extends RecursiveTask<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final long parallelThreshold = 1L << 16;
+    static final long leafCells = 1L << 14;
+
+    @FunctionalInterface
+    public interface Leaf<T> {
+        T compute(int rowBegin, int rowEnd);
+    }
+
+    protected final Leaf<T> leaf;
+    protected final BinaryOperator<T> combiner;
+    protected final int rowBegin;
+    protected final int rowEnd;
+    protected final int leafRows;
+
+    protected RowRangeTask(final Leaf<T> leaf, final BinaryOperator<T> combiner, final int rowBegin, final int rowEnd, final int leafRows) {
+        this.leaf = leaf;
+        this.combiner = combiner;
+        this.rowBegin = rowBegin;
+        this.rowEnd = rowEnd;
+        this.leafRows = leafRows;
+    }
+
+    public static <T> T invoke(final int rows, final int cols, final Leaf<T> leaf, final BinaryOperator<T> combiner) {
+        if ((long) rows * cols < parallelThreshold || rows < 2 || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            return leaf.compute(0, rows);
+        }
+        final int leafRows = (int) Math.max(1, leafCells / Math.max(1, cols));
+        return ForkJoinPool.commonPool().invoke(new RowRangeTask<T>(leaf, combiner, 0, rows, leafRows));
+    }
+
+    // for leaves without a result
+    public static void invoke(final int rows, final int cols, final Leaf<Void> leaf) {
+        invoke(rows, cols, leaf, (a, b) -> null);
+    }
+
+    @Override
+    protected T compute() {
+        if (rowEnd - rowBegin <= leafRows) {
+            return leaf.compute(rowBegin, rowEnd);
+        }
+        final int mid = (rowBegin + rowEnd) >>> 1;
+        RowRangeTask<T> front = new RowRangeTask<T>(leaf, combiner, rowBegin, mid, leafRows);
+        RowRangeTask<T> back = new RowRangeTask<T>(leaf, combiner, mid, rowEnd, leafRows);
+        back.fork();
+        final T frontResult = front.compute();
+        return combiner.apply(frontResult, back.join());
+    }
+}
@@ -0,0 +1,963 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+// A Table that stores only its non-null cells while they are few, and switches between that and the
+// usual dense buffer by itself when the density (non-null cells / rows * cols) crosses the thresholds:
+//  sparse -> dense above denseAbove, dense -> sparse below sparseBelow (and only from minSparseCells cells,
+//  small tables stay dense). The gap between the thresholds keeps a table from switching back and forth.
+// Sparse storage: one SparseRow per row (null = empty row) holding the sorted col indices of its cells,
+// so a cell is a binary search within its row, and inserting/removing rows only moves row references.
+// The capacities and the layout stay as they would be for the dense buffer, the buffer is allocated
+// with them on switching. Flat indices are row-major (r * colCapacity + c) while sparse.
+// The checks run in the change notifications, which end every modification.
+public class SparseTable<E> extends Table<E> {
+
+    protected static final double defaultSparseBelow = 0.125;
+    protected static final double defaultDenseAbove = 0.25;
+    protected static final int minSparseCells = 1 << 8;
+
+    // null while dense
+    protected SparseRow @Nullable [] sparseRows;
+    protected int nonNullCount = 0;
+    protected boolean nonNullCountValid = true;
+    protected double sparseBelow = defaultSparseBelow;
+    protected double denseAbove = defaultDenseAbove;
+
+    protected SparseTable(final Class<E> elementType, final Object[] data, final SparseRow[] sparseRows, final int rows, final int cols, final int rowCap, final int colCap) {
+        super(elementType, data, rows, cols, rowCap, colCap, null);
+        this.sparseRows = sparseRows;
+    }
+
+    protected static <T> @NotNull SparseTable<T> doCreateSparse(final Class<T> elementType, final int rows, final int cols, final int rowCap, final int colCap) {
+        // no check
+        return new SparseTable<T>(elementType, null, new SparseRow[rowCap], rows, cols, rowCap, colCap);
+    }
+
+    public static <T> @NotNull SparseTable<T> createEmpty(final Class<T> elementType) {
+        return doCreateSparse(elementType, 0, 0, defaultRowCapacity, defaultColCapacity);
+    }
+
+    // every cell null, nothing allocated per cell (no slack either, the capacities are the size)
+    public static <T> @NotNull SparseTable<T> createWithSize(final Class<T> elementType, final int rows, final int cols) {
+        validateDimensions(rows, cols);
+        SparseTable<T> result = doCreateSparse(elementType, rows, cols, rows, cols);
+        result.doCheckDensity();
+        return result;
+    }
+
+    public static <T> @NotNull SparseTable<T> createWithCapacity(final Class<T> elementType, final int rowCap, final int colCap) {
+        validateDimensions(rowCap, colCap);
+        return doCreateSparse(elementType, 0, 0, rowCap, colCap);
+    }
+
+    // same cells, capacities and layout, stored the way the density suggests
+    public static <T> @NotNull SparseTable<T> createCopy(final Table<T> other) {
+        return createCopy((ReadableTable<T>) other);
+    }
+    public static <T> @NotNull SparseTable<T> createCopy(final ReadableTable<T> other) {
+        SparseTable<T> result = doCreateSparse(other.elementType, other.rows, other.cols, other.rowCapacity, other.colCapacity);
+        result.layout = other.layout;
+        for (int r = 0; r < other.rows; ++r) {
+            for (int c = 0; c < other.cols; ++c) {
+                result.doPutSparse(r, c, other.doGetElementAsObject(r, c));
+            }
+        }
+        result.doCheckDensity();
+        return result;
+    }
+
+    public static <T> @NotNull SparseTable<T> createFromArr(final Class<T> elementType, final T[][] arr2d) {
+        return createCopy(Table.createFromArr(elementType, arr2d));
+    }
+
+    // getters
+
+    public boolean isSparse() {
+        return sparseRows != null;
+    }
+
+    public int getNumNonNull() {
+        doValidateNonNullCount();
+        return nonNullCount;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] getRowClone(final int rowIndex) {
+        if (sparseRows == null) {
+            return super.getRowClone(rowIndex);
+        }
+        validateRowIndex(rowIndex);
+        E[] result = (E[]) Array.newInstance(elementType, cols);
+        SparseRow row = sparseRows[rowIndex];
+        if (row != null) {
+            for (int i = 0; i < row.size; ++i) {
+                result[row.colIndices[i]] = (E) row.vals[i];
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] getColClone(final int colIndex) {
+        if (sparseRows == null) {
+            return super.getColClone(colIndex);
+        }
+        validateColIndex(colIndex);
+        E[] result = (E[]) Array.newInstance(elementType, rows);
+        for (int r = 0; r < rows; ++r) {
+            SparseRow row = sparseRows[r];
+            if (row != null) {
+                result[r] = (E) row.get(colIndex);
+            }
+        }
+        return result;
+    }
+
+    // the buffer the table would have if it were dense
+    @Override
+    public Object[] getUnderlyingArrayClone() {
+        if (sparseRows == null) {
+            return super.getUnderlyingArrayClone();
+        }
+        Object[] result = new Object[rowCapacity * colCapacity];
+        doCopyCellsTo(result, layout, rowCapacity, colCapacity);
+        return result;
+    }
+
+    // iteration over the stored cells only
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachNonNull(final FrozenTable.@NotNull CellVisitor<? super E> visitor) {
+        if (sparseRows == null) {
+            super.forEachNonNull(visitor);
+            return;
+        }
+        for (int r = 0; r < rows; ++r) {
+            SparseRow row = sparseRows[r];
+            if (row == null) {
+                continue;
+            }
+            for (int i = 0; i < row.size; ++i) {
+                visitor.visit(r, row.colIndices[i], (E) row.vals[i]);
+            }
+        }
+    }
+
+    // density switching
+
+    // 0 <= sparseBelow < denseAbove <= 1
+    public SparseTable<E> setDensityThresholds(final double sparseBelow, final double denseAbove) {
+        if (!(0 <= sparseBelow && sparseBelow < denseAbove && denseAbove <= 1)) {
+            throw new IllegalArgumentException(String.format(
+                    "IllegalThresholds: expected 0 <= sparseBelow(%s) < denseAbove(%s) <= 1", sparseBelow, denseAbove));
+        }
+        this.sparseBelow = sparseBelow;
+        this.denseAbove = denseAbove;
+        doCheckDensity();
+        return this;
+    }
+    public double getSparseBelow() {
+        return sparseBelow;
+    }
+    public double getDenseAbove() {
+        return denseAbove;
+    }
+
+    // bulk setters
+
+    @Override
+    public SparseTable<E> fill(final @Nullable E val) {
+        if (sparseRows == null || val != null) {
+            doDensify();
+            super.fill(val);
+            return this;
+        }
+        Arrays.fill(sparseRows, null);
+        nonNullCount = 0;
+        onCellsChange();
+        return this;
+    }
+
+    // operator(null) != null turns every empty cell non-null: the table goes dense first
+    // (operator is then applied to the null cells once more)
+    @Override
+    public SparseTable<E> replaceAll(final @NotNull UnaryOperator<E> operator) {
+        if (sparseRows == null || operator.apply(null) != null) {
+            doDensify();
+            super.replaceAll(operator);
+            return this;
+        }
+        doReplaceStored(operator);
+        onCellsChange();
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void doReplaceStored(final UnaryOperator<E> operator) {
+        assert sparseRows != null;
+        for (int r = 0; r < rows; ++r) {
+            SparseRow row = sparseRows[r];
+            if (row == null) {
+                continue;
+            }
+            int kept = 0;
+            for (int i = 0; i < row.size; ++i) {
+                final Object val = operator.apply((E) row.vals[i]);
+                if (val != null) {
+                    row.colIndices[kept] = row.colIndices[i];
+                    row.vals[kept] = val;
+                    ++kept;
+                }
+            }
+            Arrays.fill(row.vals, kept, row.size, null);
+            nonNullCount -= row.size - kept;
+            row.size = kept;
+            if (kept == 0) {
+                sparseRows[r] = null;
+            }
+        }
+    }
+
+    // resize/add/remove rows/cols
+
+    @Override
+    public SparseTable<E> removeRow(final int rowIndex) {
+        return removeRows(rowIndex, rowIndex + 1);
+    }
+
+    @Override
+    public SparseTable<E> removeRows(final int beginRowIdx, final int endRowIdx) {
+        validateRowIndex(beginRowIdx);
+        validateEndRowIndex(endRowIdx);
+        validateRowBeginEnd(beginRowIdx, endRowIdx);
+        if (sparseRows == null) {
+            nonNullCount -= doCountNonNull(beginRowIdx, endRowIdx, 0, cols);
+            super.removeRows(beginRowIdx, endRowIdx);
+            return this;
+        }
+        for (int r = beginRowIdx; r < endRowIdx; ++r) {
+            if (sparseRows[r] != null) {
+                nonNullCount -= sparseRows[r].size;
+            }
+        }
+        final int numRemoved = endRowIdx - beginRowIdx;
+        System.arraycopy(sparseRows, endRowIdx, sparseRows, beginRowIdx, rows - endRowIdx);
+        Arrays.fill(sparseRows, rows - numRemoved, rows, null);
+        rows -= numRemoved;
+        onRowsRemoved(beginRowIdx, endRowIdx);
+        return this;
+    }
+
+    @Override
+    public SparseTable<E> removeCol(final int colIndex) {
+        validateColIndex(colIndex);
+        if (sparseRows == null) {
+            nonNullCount -= doCountNonNull(0, rows, colIndex, colIndex + 1);
+            super.removeCol(colIndex);
+            return this;
+        }
+        for (int r = 0; r < rows; ++r) {
+            SparseRow row = sparseRows[r];
+            if (row == null) {
+                continue;
+            }
+            if (row.removeCol(colIndex) != null) {
+                nonNullCount -= 1;
+                if (row.size == 0) {
+                    sparseRows[r] = null;
+                }
+            }
+        }
+        cols -= 1;
+        onColsRemoved(colIndex, colIndex + 1);
+        return this;
+    }
+
+    // defaultVals[i] fills the new row i
+    @Override
+    public SparseTable<E> addRows(final E[] defaultVals) {
+        if (sparseRows == null) {
+            nonNullCount += doCountNonNull(defaultVals) * cols;
+            super.addRows(defaultVals);
+            return this;
+        }
+        final int numRowsToAdd = defaultVals.length;
+        if (numRowsToAdd == 0) {
+            return this;
+        }
+        doGrowRowCapIfNeeded(rows + numRowsToAdd);
+        for (int i = 0; i < numRowsToAdd; ++i) {
+            for (int c = 0; c < cols; ++c) {
+                doPutSparse(rows + i, c, defaultVals[i]);
+            }
+        }
+        rows += numRowsToAdd;
+        onRowsInserted(rows - numRowsToAdd, numRowsToAdd);
+        return this;
+    }
+
+    // defaultVals[i] fills the new col i
+    @Override
+    public SparseTable<E> addCols(final E[] defaultVals) {
+        if (sparseRows == null) {
+            nonNullCount += doCountNonNull(defaultVals) * rows;
+            super.addCols(defaultVals);
+            return this;
+        }
+        final int numColsToAdd = defaultVals.length;
+        if (numColsToAdd == 0) {
+            return this;
+        }
+        doGrowColCapIfNeeded(cols + numColsToAdd);
+        for (int r = 0; r < rows; ++r) {
+            for (int i = 0; i < numColsToAdd; ++i) {
+                doPutSparse(r, cols + i, defaultVals[i]);
+            }
+        }
+        cols += numColsToAdd;
+        onColsInserted(cols - numColsToAdd, numColsToAdd);
+        return this;
+    }
+
+    @Override
+    public SparseTable<E> insertRow(final int rowIndex, final @Nullable E[] row) {
+        if (sparseRows == null) {
+            super.insertRow(rowIndex, row);
+            return this;
+        }
+        validateEndRowIndex(rowIndex);
+        validateSizeNewRow(row);
+        doGrowRowCapIfNeeded(rows + 1);
+        System.arraycopy(sparseRows, rowIndex, sparseRows, rowIndex + 1, rows - rowIndex);
+        sparseRows[rowIndex] = null;
+        rows += 1;
+        doCopyRowIn(row, rowIndex);
+        onRowsInserted(rowIndex, 1);
+        return this;
+    }
+
+    @Override
+    public SparseTable<E> insertCol(final int colIndex, final @Nullable E[] col) {
+        if (sparseRows == null) {
+            super.insertCol(colIndex, col);
+            return this;
+        }
+        validateEndColIndex(colIndex);
+        validateSizeNewCol(col);
+        doGrowColCapIfNeeded(cols + 1);
+        for (int r = 0; r < rows; ++r) {
+            if (sparseRows[r] != null) {
+                sparseRows[r].shiftColsFrom(colIndex, 1);
+            }
+        }
+        cols += 1;
+        doCopyColIn(col, colIndex);
+        onColsInserted(colIndex, 1);
+        return this;
+    }
+
+    // buffer pool
+
+    @Override
+    public void release() {
+        sparseRows = null;
+        nonNullCount = 0;
+        nonNullCountValid = true;
+        super.release();
+    }
+
+    // batched structural edits work on the dense buffer
+
+    @Override
+    public @NotNull TableEdit<E> beginEdit() {
+        doDensify();
+        return super.beginEdit();
+    }
+
+    // snapshots
+
+    // a sparse table has no buffer to share, its snapshot is a copy (O(non-null cells))
+    @Override
+    public @NotNull ReadableTable<E> snapshot() {
+        if (sparseRows == null) {
+            return super.snapshot();
+        }
+        return copy();
+    }
+
+    // transpose
+
+    @Override
+    public @NotNull SparseTable<E> transpose() {
+        final long start = TableMetrics.start();
+        SparseTable<E> result = doCreateSparse(elementType, cols, rows, colCapacity, rowCapacity);
+        result.layout = layout;
+        doCopySettingsTo(result);
+        if (sparseRows == null) {
+            result.doDensify();
+            doTransposeInto(result.data, result.rowCapacity, result.colCapacity);
+        } else {
+            doTransposeSparseInto(result.sparseRows);
+        }
+        result.nonNullCount = nonNullCount;
+        result.nonNullCountValid = nonNullCountValid;
+        result.doCheckDensity();
+        TableMetrics.recordTranspose(this, false, start);
+        return result;
+    }
+
+    @Override
+    public @NotNull SparseTable<E> beTransposed() {
+        if (sparseRows == null) {
+            super.beTransposed();
+            return this;
+        }
+        final long start = TableMetrics.start();
+        SparseRow[] result = new SparseRow[colCapacity];
+        doTransposeSparseInto(result);
+        sparseRows = result;
+        doSwapCapacities();
+        final int tmpSize = rows;
+        rows = cols;
+        cols = tmpSize;
+        doRemoveIndexes(0, Integer.MAX_VALUE);
+        doRemoveOrderedIndexes(0, Integer.MAX_VALUE);
+        onTableChange();
+        TableMetrics.recordTranspose(this, true, start);
+        return this;
+    }
+
+    // layout
+
+    // while sparse only the capacities are rounded, the layout applies once the table is dense
+    @Override
+    public @NotNull SparseTable<E> setLayout(final @NotNull TableLayout newLayout) {
+        if (sparseRows == null) {
+            super.setLayout(newLayout);
+            return this;
+        }
+        layout = newLayout;
+        rowCapacity = newLayout.roundCapacity(rowCapacity);
+        colCapacity = newLayout.roundCapacity(colCapacity);
+        sparseRows = Arrays.copyOf(sparseRows, rowCapacity);
+        return this;
+    }
+
+    // copy
+
+    @Override
+    public @NotNull SparseTable<E> copy() {
+        final long start = TableMetrics.start();
+        SparseTable<E> result = doCopyWithCapacity(rowCapacity, colCapacity);
+        TableMetrics.recordCopy(this, TableMetrics.copy, start);
+        return result;
+    }
+    @Override
+    public @NotNull SparseTable<E> copyAndTrim() {
+        final long start = TableMetrics.start();
+        SparseTable<E> result = doCopyWithCapacity(layout.roundCapacity(rows), layout.roundCapacity(cols));
+        TableMetrics.recordCopy(this, TableMetrics.copyAndTrim, start);
+        return result;
+    }
+
+    private SparseTable<E> doCopyWithCapacity(final int rowCap, final int colCap) {
+        SparseTable<E> result = doCreateSparse(elementType, rows, cols, rowCap, colCap);
+        result.layout = layout;
+        doCopySettingsTo(result);
+        if (sparseRows == null) {
+            result.doDensify();
+            doCopyCellsTo(result.data, result.layout, result.rowCapacity, result.colCapacity);
+        } else {
+            for (int r = 0; r < rows; ++r) {
+                if (sparseRows[r] != null) {
+                    result.sparseRows[r] = sparseRows[r].copy();
+                }
+            }
+        }
+        result.nonNullCount = nonNullCount;
+        result.nonNullCountValid = nonNullCountValid;
+        return result;
+    }
+
+    private void doCopySettingsTo(final SparseTable<E> other) {
+        other.sparseBelow = sparseBelow;
+        other.denseAbove = denseAbove;
+    }
+
+    // helpers
+
+    @Override
+    protected int toFlatIndex(final int rowIndex, final int colIndex) {
+        if (sparseRows != null) {
+            return rowIndex * colCapacity + colIndex;
+        }
+        return super.toFlatIndex(rowIndex, colIndex);
+    }
+
+    // helpers - getters
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected E doGetElementCasted(final int rowIndex, final int colIndex) {
+        return (E) doGetElementAsObject(rowIndex, colIndex);
+    }
+
+    @Override
+    protected Object doGetElementAsObject(final int rowIndex, final int colIndex) {
+        final SparseRow[] sparse = sparseRows;
+        if (sparse == null) {
+            return super.doGetElementAsObject(rowIndex, colIndex);
+        }
+        final SparseRow row = sparse[rowIndex];
+        return (row == null) ? null : row.get(colIndex);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected E doGetElementCasted(final int flatIndex) {
+        return (E) doGetElementAsObject(flatIndex);
+    }
+
+    @Override
+    protected Object doGetElementAsObject(final int flatIndex) {
+        if (sparseRows == null) {
+            return super.doGetElementAsObject(flatIndex);
+        }
+        return doGetElementAsObject(flatIndex / colCapacity, flatIndex % colCapacity);
+    }
+
+    // helpers - setters (they keep nonNullCount up to date in both modes)
+
+    @Override
+    protected void doSetElementRaw(final int flatIndex, final Object rawVal) {
+        if (sparseRows != null) {
+            doPutSparse(flatIndex / colCapacity, flatIndex % colCapacity, rawVal);
+            return;
+        }
+        nonNullCount += ((rawVal != null) ? 1 : 0) - ((data[flatIndex] != null) ? 1 : 0);
+        super.doSetElementRaw(flatIndex, rawVal);
+    }
+
+    @Override
+    protected void doCopyRowIn(final Object[] row, final int rowIndex) {
+        final int count = doCountNonNull(row, cols);
+        if (sparseRows == null) {
+            // super may or may not go through doSetElementRaw, the count is set afterwards
+            final int newCount = nonNullCount + count - doCountNonNull(rowIndex, rowIndex + 1, 0, cols);
+            super.doCopyRowIn(row, rowIndex);
+            nonNullCount = newCount;
+            return;
+        }
+        final SparseRow old = sparseRows[rowIndex];
+        nonNullCount += count - ((old == null) ? 0 : old.size);
+        if (count == 0) {
+            sparseRows[rowIndex] = null;
+            return;
+        }
+        SparseRow result = new SparseRow(count);
+        for (int c = 0; c < cols; ++c) {
+            if (row[c] != null) {
+                result.colIndices[result.size] = c;
+                result.vals[result.size] = row[c];
+                ++result.size;
+            }
+        }
+        sparseRows[rowIndex] = result;
+    }
+
+    @Override
+    protected void doCopyColIn(final Object[] col, final int colIndex) {
+        if (sparseRows == null) {
+            final int newCount = nonNullCount + doCountNonNull(col, rows) - doCountNonNull(0, rows, colIndex, colIndex + 1);
+            super.doCopyColIn(col, colIndex);
+            nonNullCount = newCount;
+            return;
+        }
+        for (int r = 0; r < rows; ++r) {
+            doPutSparse(r, colIndex, col[r]);
+        }
+    }
+
+    protected void doPutSparse(final int rowIndex, final int colIndex, final Object val) {
+        assert sparseRows != null;
+        SparseRow row = sparseRows[rowIndex];
+        if (row == null) {
+            if (val == null) {
+                return;
+            }
+            row = sparseRows[rowIndex] = new SparseRow(4);
+        }
+        final Object old = row.put(colIndex, val);
+        nonNullCount += ((val != null) ? 1 : 0) - ((old != null) ? 1 : 0);
+        if (row.size == 0) {
+            sparseRows[rowIndex] = null;
+        }
+    }
+
+    // helpers - capacity/reallocate (only numbers while sparse)
+
+    @Override
+    protected void doRealloc(final int newRowCap, final int newColCap) {
+        if (sparseRows == null) {
+            super.doRealloc(newRowCap, newColCap);
+            return;
+        }
+        doReallocRow(newRowCap);
+        doReallocCol(newColCap);
+    }
+    @Override
+    protected void doReallocRow(final int newRowCap) {
+        if (sparseRows == null) {
+            super.doReallocRow(newRowCap);
+            return;
+        }
+        rowCapacity = layout.roundCapacity(newRowCap);
+        sparseRows = Arrays.copyOf(sparseRows, rowCapacity);
+    }
+    @Override
+    protected void doReallocCol(final int newColCap) {
+        if (sparseRows == null) {
+            super.doReallocCol(newColCap);
+            return;
+        }
+        colCapacity = layout.roundCapacity(newColCap);
+    }
+
+    // helpers - density
+
+    protected void doCheckDensity() {
+        doValidateNonNullCount();
+        final long cells = (long) rows * cols;
+        if (sparseRows != null) {
+            if (cells < minSparseCells || nonNullCount > denseAbove * cells) {
+                doDensify();
+            }
+        } else if (cells >= minSparseCells && nonNullCount < sparseBelow * cells) {
+            doSparsify();
+        }
+    }
+
+    private void doValidateNonNullCount() {
+        if (!nonNullCountValid) {
+            nonNullCount = doCountNonNull(0, rows, 0, cols);
+            nonNullCountValid = true;
+        }
+    }
+
+    // the dense buffer with the current capacities and layout, no-op if dense already
+    protected void doDensify() {
+        final SparseRow[] sparse = sparseRows;
+        if (sparse == null) {
+            return;
+        }
+        Object[] result = TableArrayPool.acquire(rowCapacity * colCapacity);
+        for (int r = 0; r < rows; ++r) {
+            SparseRow row = sparse[r];
+            if (row == null) {
+                continue;
+            }
+            for (int i = 0; i < row.size; ++i) {
+                result[layout.toFlatIndex(r, row.colIndices[i], rowCapacity, colCapacity)] = row.vals[i];
+            }
+        }
+        data = result;
+        sparseRows = null;
+    }
+
+    protected void doSparsify() {
+        if (sparseRows != null) {
+            return;
+        }
+        SparseRow[] result = new SparseRow[rowCapacity];
+        for (int r = 0; r < rows; ++r) {
+            final int count = doCountNonNull(r, r + 1, 0, cols);
+            if (count == 0) {
+                continue;
+            }
+            SparseRow row = result[r] = new SparseRow(count);
+            for (int c = 0; c < cols; ++c) {
+                final Object val = data[super.toFlatIndex(r, c)];
+                if (val != null) {
+                    row.colIndices[row.size] = c;
+                    row.vals[row.size] = val;
+                    ++row.size;
+                }
+            }
+        }
+        // snapshots sharing the old buffer keep it, it is never written again
+        doReplaceData(null);
+        rowGapStart = rowGapLen = colGapStart = colGapLen = 0;
+        sparseRows = result;
+    }
+
+    // non-null cells of [rowBegin, rowEnd) x [colBegin, colEnd)
+    protected int doCountNonNull(final int rowBegin, final int rowEnd, final int colBegin, final int colEnd) {
+        int result = 0;
+        for (int r = rowBegin; r < rowEnd; ++r) {
+            for (int c = colBegin; c < colEnd; ++c) {
+                if (doGetElementAsObject(r, c) != null) {
+                    ++result;
+                }
+            }
+        }
+        return result;
+    }
+    protected static int doCountNonNull(final Object[] vals) {
+        return doCountNonNull(vals, vals.length);
+    }
+    protected static int doCountNonNull(final Object[] vals, final int len) {
+        int result = 0;
+        for (int i = 0; i < len; ++i) {
+            if (vals[i] != null) {
+                ++result;
+            }
+        }
+        return result;
+    }
+
+    // helpers - layout
+
+    @Override
+    protected void doCopyCellsTo(final Object[] dst, final TableLayout dstLayout, final int dstRowCap, final int dstColCap) {
+        if (sparseRows == null) {
+            super.doCopyCellsTo(dst, dstLayout, dstRowCap, dstColCap);
+            return;
+        }
+        for (int r = 0; r < rows; ++r) {
+            SparseRow row = sparseRows[r];
+            if (row == null) {
+                continue;
+            }
+            for (int i = 0; i < row.size; ++i) {
+                dst[dstLayout.toFlatIndex(r, row.colIndices[i], dstRowCap, dstColCap)] = row.vals[i];
+            }
+        }
+    }
+
+    @Override
+    protected void doTransposeInto(final Object[] dst, final int dstRowCap, final int dstColCap) {
+        if (sparseRows == null) {
+            super.doTransposeInto(dst, dstRowCap, dstColCap);
+            return;
+        }
+        for (int r = 0; r < rows; ++r) {
+            SparseRow row = sparseRows[r];
+            if (row == null) {
+                continue;
+            }
+            for (int i = 0; i < row.size; ++i) {
+                dst[layout.toFlatIndex(row.colIndices[i], r, dstRowCap, dstColCap)] = row.vals[i];
+            }
+        }
+    }
+
+    // rows are visited in order, so every transposed row is appended to in increasing col order
+    private void doTransposeSparseInto(final SparseRow[] dst) {
+        assert sparseRows != null;
+        for (int r = 0; r < rows; ++r) {
+            SparseRow row = sparseRows[r];
+            if (row == null) {
+                continue;
+            }
+            for (int i = 0; i < row.size; ++i) {
+                final int c = row.colIndices[i];
+                if (dst[c] == null) {
+                    dst[c] = new SparseRow(4);
+                }
+                dst[c].append(r, row.vals[i]);
+            }
+        }
+    }
+
+    // helpers - sorting (while sparse only the row objects move)
+
+    @Override
+    protected void doPermuteRows(final int[] order) {
+        if (sparseRows == null) {
+            super.doPermuteRows(order);
+            return;
+        }
+        final SparseRow[] permuted = new SparseRow[sparseRows.length];
+        for (int r = 0; r < rows; ++r) {
+            permuted[r] = sparseRows[order[r]];
+        }
+        sparseRows = permuted;
+    }
+
+    // helpers - hashing (null cells add nothing, so only the stored cells are visited)
+
+    @Override
+    protected int calCellsHash(final int rowBegin, final int rowEnd, final int colBegin, final int colEnd) {
+        if (sparseRows == null) {
+            return super.calCellsHash(rowBegin, rowEnd, colBegin, colEnd);
+        }
+        int result = 0;
+        for (int r = rowBegin; r < rowEnd; ++r) {
+            SparseRow row = sparseRows[r];
+            if (row == null) {
+                continue;
+            }
+            for (int i = row.findFirstAtLeast(colBegin); i < row.size && row.colIndices[i] < colEnd; ++i) {
+                result += calCellHash(row.vals[i], r, row.colIndices[i]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected boolean hasImplicitNulls() {
+        return sparseRows != null;
+    }
+
+    // helpers - change notification (the density is checked after every change)
+
+    @Override
+    protected void onCellChange(final int rowIndex, final int colIndex) {
+        super.onCellChange(rowIndex, colIndex);
+        doCheckDensity();
+    }
+    @Override
+    protected void onRowChange(final int rowIndex) {
+        super.onRowChange(rowIndex);
+        doCheckDensity();
+    }
+    @Override
+    protected void onColChange(final int colIndex) {
+        super.onColChange(colIndex);
+        doCheckDensity();
+    }
+    @Override
+    protected void onCellsChange() {
+        nonNullCountValid = false;
+        super.onCellsChange();
+        doCheckDensity();
+    }
+    @Override
+    protected void onRowsInserted(final int beginRowIndex, final int count) {
+        super.onRowsInserted(beginRowIndex, count);
+        doCheckDensity();
+    }
+    @Override
+    protected void onRowsRemoved(final int beginRowIndex, final int endRowIndex) {
+        super.onRowsRemoved(beginRowIndex, endRowIndex);
+        doCheckDensity();
+    }
+    @Override
+    protected void onColsInserted(final int beginColIndex, final int count) {
+        super.onColsInserted(beginColIndex, count);
+        doCheckDensity();
+    }
+    @Override
+    protected void onColsRemoved(final int beginColIndex, final int endColIndex) {
+        super.onColsRemoved(beginColIndex, endColIndex);
+        doCheckDensity();
+    }
+    // batched edits may change anything, the count is redone
+    @Override
+    protected void onTableChange() {
+        nonNullCountValid = false;
+        super.onTableChange();
+        doCheckDensity();
+    }
+
+    // the non-null cells of one row, sorted by col index
+    protected static final class SparseRow {
+        int[] colIndices;
+        Object[] vals;
+        int size = 0;
+
+        SparseRow(final int cap) {
+            colIndices = new int[cap];
+            vals = new Object[cap];
+        }
+
+        Object get(final int colIndex) {
+            final int i = Arrays.binarySearch(colIndices, 0, size, colIndex);
+            return (i >= 0) ? vals[i] : null;
+        }
+
+        // returns the previous value, null removes the cell
+        Object put(final int colIndex, final Object val) {
+            final int i = Arrays.binarySearch(colIndices, 0, size, colIndex);
+            if (i >= 0) {
+                final Object old = vals[i];
+                if (val == null) {
+                    doRemoveAt(i);
+                } else {
+                    vals[i] = val;
+                }
+                return old;
+            }
+            if (val != null) {
+                doInsertAt(-i - 1, colIndex, val);
+            }
+            return null;
+        }
+
+        // colIndex has to be above every stored one
+        void append(final int colIndex, final Object val) {
+            doInsertAt(size, colIndex, val);
+        }
+
+        // removes the cell at colIndex (if any) and moves the cells after it one col left
+        Object removeCol(final int colIndex) {
+            final int i = Arrays.binarySearch(colIndices, 0, size, colIndex);
+            Object old = null;
+            if (i >= 0) {
+                old = vals[i];
+                doRemoveAt(i);
+            }
+            shiftColsFrom(colIndex, -1);
+            return old;
+        }
+
+        // col indices >= colIndex move by delta
+        void shiftColsFrom(final int colIndex, final int delta) {
+            for (int i = findFirstAtLeast(colIndex); i < size; ++i) {
+                colIndices[i] += delta;
+            }
+        }
+
+        int findFirstAtLeast(final int colIndex) {
+            final int i = Arrays.binarySearch(colIndices, 0, size, colIndex);
+            return (i >= 0) ? i : -i - 1;
+        }
+
+        SparseRow copy() {
+            SparseRow result = new SparseRow(size);
+            System.arraycopy(colIndices, 0, result.colIndices, 0, size);
+            System.arraycopy(vals, 0, result.vals, 0, size);
+            result.size = size;
+            return result;
+        }
+
+        private void doInsertAt(final int i, final int colIndex, final Object val) {
+            if (size == colIndices.length) {
+                final int newCap = Math.max(4, size * 3 / 2 + 1);
+                colIndices = Arrays.copyOf(colIndices, newCap);
+                vals = Arrays.copyOf(vals, newCap);
+            }
+            System.arraycopy(colIndices, i, colIndices, i + 1, size - i);
+            System.arraycopy(vals, i, vals, i + 1, size - i);
+            colIndices[i] = colIndex;
+            vals[i] = val;
+            ++size;
+        }
+
+        private void doRemoveAt(final int i) {
+            System.arraycopy(colIndices, i + 1, colIndices, i, size - i - 1);
+            System.arraycopy(vals, i + 1, vals, i, size - i - 1);
+            --size;
+            vals[size] = null;
+        }
+    }
+}
@@ -1,10 +1,30 @@
-package Table;
+package WongAndyStarSB.Table;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
 public class Table<E> extends ReadableTable<E> {
 
+    // buffer of released tables, never written (no cells)
+    protected static final Object[] emptyData = new Object[0];
+
+    // the snapshots still reading this table's buffer, null when there are none
+    protected TableSnapshot.Sharing sharing = null;
+    // rolling hash, see setHashTracking
+    protected boolean hashTracking = false;
+    protected boolean trackedHashValid = false;
+    protected int trackedHash = 0;
+    // hash indexes on columns, see addIndex
+    protected TableHashIndex @Nullable [] hashIndexes = null;
+    // ordered indexes on columns, see addOrderedIndex
+    protected TableOrderedIndex @Nullable [] orderedIndexes = null;
+
     protected Table(final Class<E> elementType, final Object[] data, final int rows, final int cols, final int rowCap, final int colCap, final TableFormatter<E> formatter) {
         super(elementType, data, rows, cols, rowCap, colCap, formatter);
     }
@@ -15,13 +35,28 @@ public class Table<E> extends ReadableTable<E> {
         // no check
         return new Table<T>(
                 elementType,
-                new Object[rowCap * colCap],
+                TableArrayPool.acquire(rowCap * colCap),
                 rows, cols,
                 rowCap, colCap,
                 null
         );
     }
 
+    protected static <T> @NotNull Table<T> doCreateWithSizeCapacity(final Class<T> elementType, final int rows, final int cols, final int rowCap, final int colCap, final TableLayout layout) {
+        // no check
+        final int roundedRowCap = layout.roundCapacity(rowCap);
+        final int roundedColCap = layout.roundCapacity(colCap);
+        Table<T> result = new Table<T>(
+                elementType,
+                TableArrayPool.acquire(roundedRowCap * roundedColCap),
+                rows, cols,
+                roundedRowCap, roundedColCap,
+                null
+        );
+        result.layout = layout;
+        return result;
+    }
+
     public static <T> @NotNull Table<T> createEmpty(final Class<T> elementType) {
         return doCreateWithSizeCapacity(elementType, 0, 0, defaultRowCapacity, defaultColCapacity);
     }
@@ -30,9 +65,10 @@ public class Table<E> extends ReadableTable<E> {
         Table<T> result = doCreateWithSizeCapacity(
                 other.elementType,
                 other.rows, other.cols,
-                other.rowCapacity, other.colCapacity
+                other.rowCapacity, other.colCapacity,
+                other.layout
         );
-        System.arraycopy(other.data, 0, result.data, 0, other.rows * other.colCapacity);
+        other.doCopyCellsTo(result.data, result.layout, result.rowCapacity, result.colCapacity);
         return result;
     }
     public static <T> @NotNull Table<T> createWithSizeCapacity(final Class<T> elementType, final int rows, final int cols, final int rowCap, final int colCap) {
@@ -40,10 +76,16 @@ public class Table<E> extends ReadableTable<E> {
         validateDimensions(rowCap, colCap);
         return doCreateWithSizeCapacity(elementType, rows, cols, rowCap, colCap);
     }
+    public static <T> @NotNull Table<T> createWithSizeCapacity(final Class<T> elementType, final int rows, final int cols, final int rowCap, final int colCap, final TableLayout layout) {
+        validateDimensions(rows, cols);
+        validateDimensions(rowCap, colCap);
+        validateCapacityCoversSize(rows, cols, rowCap, colCap);
+        return doCreateWithSizeCapacity(elementType, rows, cols, rowCap, colCap, layout);
+    }
 
     public static <T> @NotNull Table<T> createWithCapacity(final Class<T> elementType, final int rowCap, final int colCap) {
         validateDimensions(rowCap, colCap);
-        Object[] data = new Object[rowCap * colCap];
+        Object[] data = TableArrayPool.acquire(rowCap * colCap);
         return new Table<T>(elementType, data, 0, 0, rowCap, colCap, null);
     }
 
@@ -53,6 +95,12 @@ public class Table<E> extends ReadableTable<E> {
         final int colCap = cols * 3 / 2;
         return doCreateWithSizeCapacity(elementType, rows, cols, rowCap, colCap);
     }
+    public static <T> @NotNull Table<T> createWithLayout(final Class<T> elementType, final int rows, final int cols, final TableLayout layout) {
+        validateDimensions(rows, cols);
+        final int rowCap = rows * 3 / 2;
+        final int colCap = cols * 3 / 2;
+        return doCreateWithSizeCapacity(elementType, rows, cols, rowCap, colCap, layout);
+    }
     public static <T> @NotNull Table<T> createWithSize(final Class<T> elementType, final int rows, final int cols, final T defaultVal) {
         Table<T> result = createWithSize(elementType, rows, cols);
         for (int r = 0; r < rows; ++r) {
@@ -90,24 +138,86 @@ public class Table<E> extends ReadableTable<E> {
     public Table<E> set(final int rowIndex, final int colIndex, @Nullable E val) {
         validateRowIndex(rowIndex);
         validateColIndex(colIndex);
+        if (hashTracking) {
+            doTrackCellChange(rowIndex, colIndex, val);
+        }
         doSet(rowIndex, colIndex, val);
-
+        onCellChange(rowIndex, colIndex);
         return this;
     }
 
     public Table<E> setRow(final int rowIndex, final @Nullable E[] row) {
         validateRowIndex(rowIndex);
         validateSizeNewRow(row);
-        System.arraycopy(row, 0, data, rowIndex * colCapacity, cols);
+        if (hashTracking) {
+            for (int c = 0; c < cols; ++c) {
+                doTrackCellChange(rowIndex, c, row[c]);
+            }
+        }
+        doCopyRowIn(row, rowIndex);
+        onRowChange(rowIndex);
         return this;
     }
 
     public Table<E> setCol(final int colIndex, final @Nullable E[] col) {
         validateColIndex(colIndex);
         validateSizeNewCol(col);
-        for (int r = 0; r < cols; ++r) {
-            data[toFlatIndex(r, colIndex)] = col[r];
+        if (hashTracking) {
+            for (int r = 0; r < rows; ++r) {
+                doTrackCellChange(r, colIndex, col[r]);
+            }
         }
+        doCopyColIn(col, colIndex);
+        onColChange(colIndex);
+        return this;
+    }
+
+    // bulk setters (large tables are split by row ranges across the common ForkJoinPool)
+
+    public Table<E> fill(final @Nullable E val) {
+        if (sharing != null) {
+            // every cell changes, the snapshots keep the whole buffer
+            data = TableArrayPool.acquire(rowCapacity * colCapacity);
+            sharing = null;
+        }
+        final Object[] dst = data;
+        final boolean direct = isRowMajorReadable();
+        RowRangeTask.invoke(rows, cols, (rowBegin, rowEnd) -> {
+            for (int r = rowBegin; r < rowEnd; ++r) {
+                if (direct) {
+                    Arrays.fill(dst, r * colCapacity, r * colCapacity + cols, val);
+                    continue;
+                }
+                for (int c = 0; c < cols; ++c) {
+                    dst[toFlatIndex(r, c)] = val;
+                }
+            }
+            return null;
+        });
+        onCellsChange();
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Table<E> replaceAll(final @NotNull UnaryOperator<E> operator) {
+        final Object[] src = data;
+        if (sharing != null) {
+            // every cell changes, the snapshots keep the whole buffer
+            data = TableArrayPool.acquire(rowCapacity * colCapacity);
+            sharing = null;
+        }
+        final Object[] dst = data;
+        final boolean direct = isRowMajorReadable();
+        RowRangeTask.invoke(rows, cols, (rowBegin, rowEnd) -> {
+            for (int r = rowBegin; r < rowEnd; ++r) {
+                for (int c = 0; c < cols; ++c) {
+                    final int i = direct ? r * colCapacity + c : toFlatIndex(r, c);
+                    dst[i] = operator.apply((E) src[i]);
+                }
+            }
+            return null;
+        });
+        onCellsChange();
         return this;
     }
 
@@ -125,27 +235,23 @@ public class Table<E> extends ReadableTable<E> {
 
     public Table<E> removeRow(final int rowIndex) {
         validateRowIndex(rowIndex);
-        for (int r = 0; r < rows-1; ++r) {
-            System.arraycopy(data, (r+1) * colCapacity, data, r * colCapacity, cols);
-        }
-        for (int c = 0; c < cols; ++c) {
-            data[toFlatIndex(rows-1, c)] = null;
-        }
+        doCloseGaps();
+        doUnshareData();
+        layout.moveRows(data, rowCapacity, colCapacity, rowIndex + 1, rowIndex, rows - rowIndex - 1, cols);
+        layout.clearRows(data, rowCapacity, colCapacity, rows - 1, rows, cols);
         rows -= 1;
+        onRowsRemoved(rowIndex, rowIndex + 1);
         return this;
     }
 
     public Table<E> removeCol(final int colIndex) {
         validateColIndex(colIndex);
-        for (int c = 0; c < cols-1; ++c) {
-            for (int r = 0; r < rows; ++r) {
-                data[toFlatIndex(r, c)] = doGetElementAsObject(r, c+1);
-            }
-        }
-        for (int r = 0; r < rows; ++r) {
-            data[toFlatIndex(r, cols-1)] = null;
-        }
+        doCloseGaps();
+        doUnshareData();
+        layout.moveCols(data, rowCapacity, colCapacity, colIndex + 1, colIndex, cols - colIndex - 1, rows);
+        layout.clearCols(data, rowCapacity, colCapacity, cols - 1, cols, rows);
         cols -= 1;
+        onColsRemoved(colIndex, colIndex + 1);
         return this;
     }
 
@@ -154,69 +260,80 @@ public class Table<E> extends ReadableTable<E> {
         validateRowIndex(beginRowIdx);
         validateEndRowIndex(endRowIdx);
         validateRowBeginEnd(beginRowIdx, endRowIdx);
-        for (int r = beginRowIdx; r < endRowIdx; ++r) {
-            for (int c = 0; c < cols; ++c) {
-                data[toFlatIndex(r, c)] = null;
-            }
-        }
-        rows -= endRowIdx - beginRowIdx;
+        doCloseGaps();
+        doUnshareData();
+        final int numRemoved = endRowIdx - beginRowIdx;
+        // move the rows after the range up, then clear the freed tail
+        layout.moveRows(data, rowCapacity, colCapacity, endRowIdx, beginRowIdx, rows - endRowIdx, cols);
+        layout.clearRows(data, rowCapacity, colCapacity, rows - numRemoved, rows, cols);
+        rows -= numRemoved;
+        onRowsRemoved(beginRowIdx, endRowIdx);
         return this;
     }
 
     public Table<E> addRow(final @Nullable E[] row) {
         validateSizeNewRow(row);
+        doCloseGaps();
         doGrowRowCapIfNeeded(rows + 1);
-        System.arraycopy(row, 0, data, rows * colCapacity, cols);
+        doCopyRowIn(row, rows);
         rows += 1;
+        onRowsInserted(rows - 1, 1);
         return this;
     }
 
     public Table<E> addRows(int numRowsToAdd) {
         validateNonNeg(numRowsToAdd);
+        doCloseGaps();
         if (numRowsToAdd == 0) {
             return this;
         }
         doGrowRowCapIfNeeded(rows + numRowsToAdd);
         rows += numRowsToAdd;
+        onRowsInserted(rows - numRowsToAdd, numRowsToAdd);
         return this;
     }
 
     public Table<E> addRows(E[] defaultVals) {
+        doCloseGaps();
         int numRowsToAdd = defaultVals.length;
         if (numRowsToAdd == 0) {
             return this;
         }
-        doGrowRowCapIfNeeded(cols + numRowsToAdd);
+        doGrowRowCapIfNeeded(rows + numRowsToAdd);
         for (int i = 0; i < numRowsToAdd; ++i) {
             for (int c = 0; c < cols; ++c) {
                 data[toFlatIndex(rows + i, c)] = defaultVals[i];
             }
         }
         rows += numRowsToAdd;
+        onRowsInserted(rows - numRowsToAdd, numRowsToAdd);
         return this;
     }
 
     public Table<E> addCol(final @Nullable E[] col) {
         validateSizeNewCol(col);
-        doGrowColCapIfNeeded(rows + 1);
-        for (int r = 0; r < rows; ++r) {
-            data[r * colCapacity + cols] = col[r];
-        }
+        doCloseGaps();
+        doGrowColCapIfNeeded(cols + 1);
+        doCopyColIn(col, cols);
         cols += 1;
+        onColsInserted(cols - 1, 1);
         return this;
     }
 
     public Table<E> addCols(int numColsToAdd) {
         validateNonNeg(numColsToAdd);
+        doCloseGaps();
         if (numColsToAdd == 0) {
             return this;
         }
         doGrowColCapIfNeeded(cols + numColsToAdd);
         cols += numColsToAdd;
+        onColsInserted(cols - numColsToAdd, numColsToAdd);
         return this;
     }
 
     public Table<E> addCols(E[] defaultVals) {
+        doCloseGaps();
         int numColsToAdd = defaultVals.length;
         if (numColsToAdd == 0) {
             return this;
@@ -228,34 +345,130 @@ public class Table<E> extends ReadableTable<E> {
             }
         }
         cols += numColsToAdd;
+        onColsInserted(cols - numColsToAdd, numColsToAdd);
+        return this;
+    }
+
+    // insert in the middle
+    // The free capacity is kept as a gap at the last insert position, so a run of inserts at or near
+    // the same place only shifts the rows/cols between two consecutive insert positions.
+    // Any other structural change closes the gap again.
+
+    public Table<E> insertRow(final int rowIndex, final @Nullable E[] row) {
+        validateEndRowIndex(rowIndex);
+        validateSizeNewRow(row);
+        doMoveRowGapTo(rowIndex);
+        rowGapStart += 1;
+        rowGapLen -= 1;
+        rows += 1;
+        doCopyRowIn(row, rowIndex);
+        if (rowGapLen == 0) {
+            rowGapStart = 0;
+        }
+        onRowsInserted(rowIndex, 1);
         return this;
     }
 
+    public Table<E> insertCol(final int colIndex, final @Nullable E[] col) {
+        validateEndColIndex(colIndex);
+        validateSizeNewCol(col);
+        doMoveColGapTo(colIndex);
+        colGapStart += 1;
+        colGapLen -= 1;
+        cols += 1;
+        doCopyColIn(col, colIndex);
+        if (colGapLen == 0) {
+            colGapStart = 0;
+        }
+        onColsInserted(colIndex, 1);
+        return this;
+    }
+
+    // batched structural edits
+
+    public @NotNull TableEdit<E> beginEdit() {
+        return new TableEdit<E>(this);
+    }
+
+    // snapshots
+
+    // O(1) immutable view of the current content, later writes to this table copy only the chunks they touch
+    public @NotNull ReadableTable<E> snapshot() {
+        if (sharing == null) {
+            sharing = new TableSnapshot.Sharing(data);
+        }
+        return sharing.createSnapshot(this);
+    }
+
     // transpose
 
     @Override
     public @NotNull Table<E> transpose() {
-        Table<E> result = createWithSizeCapacity(
+        final long start = TableMetrics.start();
+        Table<E> result = doCreateWithSizeCapacity(
                 elementType,
-                rows, cols,
-                rowCapacity, colCapacity
+                cols, rows,
+                colCapacity, rowCapacity,
+                layout
         );
-        for (int r = 0; r < rows; ++r) {
-            for (int c = 0; c < cols; ++c) {
-                result.data[toFlatIndex(r, c)] = data[toFlatIndex(c, r)];
-            }
-        }
+        doTransposeInto(result.data, result.rowCapacity, result.colCapacity);
+        TableMetrics.recordTranspose(this, false, start);
         return result;
     }
 
     public @NotNull Table<E> beTransposed() {
-        for (int r = 0; r < rows; ++r) {
-            for (int c = 0; c < cols; ++c) {
-                Object tmp = doGetElementAsObject(r, c);
-                data[toFlatIndex(r, c)] = data[toFlatIndex(c, r)];
-                data[toFlatIndex(c, r)] = tmp;
+        final long start = TableMetrics.start();
+        doCloseGaps();
+        if (layout == TableLayout.CHUNKED) {
+            // tiles don't map onto themselves under transpose, go through a second buffer
+            Object[] result = TableArrayPool.acquire(colCapacity * rowCapacity);
+            doTransposeInto(result, colCapacity, rowCapacity);
+            doReplaceData(result);
+            doSwapCapacities();
+        } else {
+            doUnshareData();
+            // a col-major buffer is a row-major one with rowCapacity as the stride
+            final int stride = (layout == TableLayout.ROW_MAJOR) ? colCapacity : rowCapacity;
+            final int otherCap = (layout == TableLayout.ROW_MAJOR) ? rowCapacity : colCapacity;
+            final int size = Math.max(rows, cols);
+            if (size <= rowCapacity && size <= colCapacity) {
+                // both shapes fit in the current buffer, swap across the diagonal of the covering square
+                // (cells outside the logical size are null, so they swap with nulls)
+                TableTransposer.transposeSquareInPlace(data, stride, size);
+            } else {
+                // transpose the whole buffer, then the capacities swap as well
+                TableTransposer.transposeBufferInPlace(data, otherCap, stride);
+                doSwapCapacities();
             }
         }
+        final int tmpSize = rows;
+        rows = cols;
+        cols = tmpSize;
+        // the columns are gone, what was indexed are rows now
+        doRemoveIndexes(0, Integer.MAX_VALUE);
+        doRemoveOrderedIndexes(0, Integer.MAX_VALUE);
+        onTableChange();
+        TableMetrics.recordTranspose(this, true, start);
+        return this;
+    }
+
+    // layout
+
+    // re-lays the cells out in a new buffer, capacities stay (rounded up for CHUNKED)
+    public @NotNull Table<E> setLayout(final @NotNull TableLayout newLayout) {
+        if (newLayout == layout) {
+            return this;
+        }
+        doCloseGaps();
+        final int newRowCap = newLayout.roundCapacity(rowCapacity);
+        final int newColCap = newLayout.roundCapacity(colCapacity);
+        Object[] result = TableArrayPool.acquire(newRowCap * newColCap);
+        doCopyCellsTo(result, newLayout, newRowCap, newColCap);
+        doReplaceData(result);
+        layout = newLayout;
+        rowCapacity = newRowCap;
+        colCapacity = newColCap;
+        // same cells at the same indices, nothing to notify
         return this;
     }
 
@@ -302,22 +515,177 @@ public class Table<E> extends ReadableTable<E> {
 
     @Override
     public @NotNull Table<E> copy() {
-        return createCopy(this);
+        final long start = TableMetrics.start();
+        Table<E> result = createCopy(this);
+        TableMetrics.recordCopy(this, TableMetrics.copy, start);
+        return result;
     }
     @Override
     public @NotNull Table<E> copyAndTrim() {
-        Table<E> result = doCreateWithSizeCapacity(elementType, rows, cols, rows, cols);
-        for (int r = 0; r < rows; ++r) {
-            System.arraycopy(data, r * colCapacity, result.data, r * cols, cols);
-        }
+        final long start = TableMetrics.start();
+        Table<E> result = doCreateWithSizeCapacity(elementType, rows, cols, rows, cols, layout);
+        doCopyCellsTo(result.data, result.layout, result.rowCapacity, result.colCapacity);
+        TableMetrics.recordCopy(this, TableMetrics.copyAndTrim, start);
         return result;
     }
 
+    // buffer pool
+
+    // Empties the table (0 x 0, no capacity) and gives its buffer to TableArrayPool for the next table.
+    // The table stays usable, it grows again from nothing. Snapshots taken before keep their content.
+    public void release() {
+        doReplaceData(emptyData);
+        rows = 0;
+        cols = 0;
+        rowCapacity = 0;
+        colCapacity = 0;
+        rowGapStart = rowGapLen = colGapStart = colGapLen = 0;
+        onTableChange();
+    }
+
+    // rolling hash
+
+    // Keeps hashCode() up to date while the table changes: set/setRow/setCol and appends adjust it
+    // per changed cell, so hashCode() is O(1) and equals against another O(1)-hash table exits early
+    // on a mismatch. Removing, inserting in the middle, transposing and batched edits move cells to
+    // other weights, the next hashCode() recomputes it once.
+    public Table<E> setHashTracking(final boolean enabled) {
+        hashTracking = enabled;
+        trackedHashValid = false;
+        return this;
+    }
+    public boolean isHashTracking() {
+        return hashTracking;
+    }
+
+    // hash indexes
+
+    // findRows/countRows/findFirstRow on an indexed column take O(matches) instead of a scan.
+    // Every change keeps the index up to date (rows moved by removals or inserts in the middle cost
+    // O(rows) once). An index goes away with its column and is not carried over to copies.
+    public Table<E> addIndex(final int colIndex) {
+        validateColIndex(colIndex);
+        if (doFindIndex(colIndex) != null) {
+            return this;
+        }
+        TableHashIndex index = new TableHashIndex(colIndex);
+        index.doRebuild(this);
+        if (hashIndexes == null) {
+            hashIndexes = new TableHashIndex[] { index };
+        } else {
+            hashIndexes = Arrays.copyOf(hashIndexes, hashIndexes.length + 1);
+            hashIndexes[hashIndexes.length - 1] = index;
+        }
+        return this;
+    }
+    public Table<E> removeIndex(final int colIndex) {
+        validateColIndex(colIndex);
+        doRemoveIndexes(colIndex, colIndex + 1);
+        return this;
+    }
+    public boolean hasIndex(final int colIndex) {
+        return doFindIndex(colIndex) != null;
+    }
+    // distinct values in an indexed column, -1 without index
+    public int getIndexDistinctCount(final int colIndex) {
+        TableHashIndex index = doFindIndex(colIndex);
+        return (index == null) ? -1 : index.getNumDistinct();
+    }
+
+    @Override
+    public int @NotNull [] findRows(final int colIndex, final @Nullable E val) {
+        TableHashIndex index = doFindIndex(colIndex);
+        return (index == null) ? super.findRows(colIndex, val) : index.getRows(val);
+    }
+    @Override
+    public int countRows(final int colIndex, final @Nullable E val) {
+        TableHashIndex index = doFindIndex(colIndex);
+        return (index == null) ? super.countRows(colIndex, val) : index.countRows(val);
+    }
+    @Override
+    public int findFirstRow(final int colIndex, final @Nullable E val) {
+        TableHashIndex index = doFindIndex(colIndex);
+        return (index == null) ? super.findFirstRow(colIndex, val) : index.getFirstRow(val);
+    }
+
+    // ordered indexes
+
+    // Rows with a non-null cell in colIndex sorted by comparator (a row-id array), so findRowsInRange on
+    // the column is two binary searches. Changes to the column only mark the index stale, the next query
+    // sorts it again. Replaces an ordered index already on colIndex. Not carried over to copies.
+    public Table<E> addOrderedIndex(final int colIndex, final @NotNull Comparator<? super E> comparator) {
+        validateColIndex(colIndex);
+        doRemoveOrderedIndexes(colIndex, colIndex + 1);
+        TableOrderedIndex index = new TableOrderedIndex(colIndex, comparator);
+        if (orderedIndexes == null) {
+            orderedIndexes = new TableOrderedIndex[] { index };
+        } else {
+            orderedIndexes = Arrays.copyOf(orderedIndexes, orderedIndexes.length + 1);
+            orderedIndexes[orderedIndexes.length - 1] = index;
+        }
+        return this;
+    }
+    public Table<E> removeOrderedIndex(final int colIndex) {
+        validateColIndex(colIndex);
+        doRemoveOrderedIndexes(colIndex, colIndex + 1);
+        return this;
+    }
+    public boolean hasOrderedIndex(final int colIndex) {
+        return doFindOrderedIndex(colIndex) != null;
+    }
+
+    // rows with from <= cell <= to by the index's comparator, by cell then row, null cells never match
+    public int @NotNull [] findRowsInRange(final int colIndex, final @NotNull E from, final @NotNull E to) {
+        return doRequireOrderedIndex(colIndex).getRowsInRange(this, from, to);
+    }
+    public int countRowsInRange(final int colIndex, final @NotNull E from, final @NotNull E to) {
+        return doRequireOrderedIndex(colIndex).countRowsInRange(this, from, to);
+    }
+    // rows with a non-null cell in colIndex, by cell then row (the sorted order without moving any row)
+    public int @NotNull [] findRowsInOrder(final int colIndex) {
+        return doRequireOrderedIndex(colIndex).getRowsInOrder(this);
+    }
+
+    // sorting
+
+    // Reorders the rows by their cell in colIndex, ties keep their order. The comparator gets null cells
+    // as they are (wrap it in Comparator.nullsFirst/nullsLast if the column holds nulls).
+    // The order is computed from the key cells alone (Arrays.parallelSort for large tables), then the
+    // rows are permuted inside the buffer, each cycle of the permutation through one spare row.
+    public Table<E> sortRows(final int colIndex, final @NotNull Comparator<? super E> comparator) {
+        return sortRows(new int[] { colIndex }, comparator);
+    }
+    // by the cells of colIndices in turn, all compared with comparator
+    public Table<E> sortRows(final int @NotNull [] colIndices, final @NotNull Comparator<? super E> comparator) {
+        return sortRows(colIndices, Collections.nCopies(colIndices.length, comparator));
+    }
+    // by the cells of colIndices in turn, colIndices[k] compared with comparators.get(k)
+    public Table<E> sortRows(final int @NotNull [] colIndices, final @NotNull List<? extends Comparator<? super E>> comparators) {
+        validateSortKeys(colIndices, comparators);
+        final int[] order = TableSorter.calRowOrder(this, colIndices, comparators);
+        if (!TableSorter.isIdentity(order)) {
+            doPermuteRows(order);
+            onTableChange();
+        }
+        return this;
+    }
+
     // common functions
 
     //  toString (remain same as super)
     //  equals (remain same as super)
-    //  hashCode (remain same as super)
+
+    @Override
+    public int hashCode() {
+        if (!hashTracking) {
+            return super.hashCode();
+        }
+        if (!trackedHashValid) {
+            trackedHash = super.hashCode();
+            trackedHashValid = true;
+        }
+        return trackedHash;
+    }
 
     // helpers
 
@@ -334,21 +702,378 @@ public class Table<E> extends ReadableTable<E> {
     // helpers - setters
 
     protected void doSet(final int rowIndex, final int colIndex, E val) {
-        data[toFlatIndex(rowIndex, colIndex)] = val;
+        doSetElementRaw(toFlatIndex(rowIndex, colIndex), val);
     }
 
     protected void doSet(final int flatIndex, E val) {
-        data[flatIndex] = val;
+        doSetElementRaw(flatIndex, val);
     }
 
     protected void doSetElementRaw(final int rowIndex, final int colIndex, Object rawVal) {
-        data[toFlatIndex(rowIndex, colIndex)] = rawVal;
+        doSetElementRaw(toFlatIndex(rowIndex, colIndex), rawVal);
     }
 
     protected void doSetElementRaw(final int flatIndex, Object rawVal) {
+        if (sharing != null) {
+            doBeforeSharedWrite(flatIndex, flatIndex + 1);
+        }
         data[flatIndex] = rawVal;
     }
 
+    protected void doCopyRowIn(final Object[] row, final int rowIndex) {
+        if (layout == TableLayout.ROW_MAJOR && colGapLen == 0) {
+            final int begin = toPhysicalRow(rowIndex) * colCapacity;
+            if (sharing != null) {
+                doBeforeSharedWrite(begin, begin + cols);
+            }
+            System.arraycopy(row, 0, data, begin, cols);
+            return;
+        }
+        for (int c = 0; c < cols; ++c) {
+            doSetElementRaw(toFlatIndex(rowIndex, c), row[c]);
+        }
+    }
+
+    protected void doCopyColIn(final Object[] col, final int colIndex) {
+        if (layout == TableLayout.COL_MAJOR && rowGapLen == 0) {
+            final int begin = toPhysicalCol(colIndex) * rowCapacity;
+            if (sharing != null) {
+                doBeforeSharedWrite(begin, begin + rows);
+            }
+            System.arraycopy(col, 0, data, begin, rows);
+            return;
+        }
+        for (int r = 0; r < rows; ++r) {
+            doSetElementRaw(toFlatIndex(r, colIndex), col[r]);
+        }
+    }
+
+    // helpers - rolling hash
+
+    // before the cell at (rowIndex, colIndex) becomes newVal
+    protected void doTrackCellChange(final int rowIndex, final int colIndex, final Object newVal) {
+        if (trackedHashValid) {
+            trackedHash += calCellHash(newVal, rowIndex, colIndex) - calCellHash(doGetElementAsObject(rowIndex, colIndex), rowIndex, colIndex);
+        }
+    }
+
+    @Override
+    protected boolean hasCheapHash() {
+        return hashTracking;
+    }
+
+    // helpers - change notification (appends keep the tracked hash, anything moving cells drops it)
+    // hash indexes follow every change, whole columns or tables are reindexed
+
+    @Override
+    protected void onCellChange(final int rowIndex, final int colIndex) {
+        if (hashIndexes != null) {
+            TableHashIndex index = doFindIndex(colIndex);
+            if (index != null) {
+                index.doUpdateRow(this, rowIndex);
+            }
+        }
+        if (orderedIndexes != null) {
+            TableOrderedIndex index = doFindOrderedIndex(colIndex);
+            if (index != null) {
+                index.doMarkStale();
+            }
+        }
+        super.onCellChange(rowIndex, colIndex);
+    }
+    @Override
+    protected void onRowChange(final int rowIndex) {
+        if (hashIndexes != null) {
+            for (TableHashIndex index : hashIndexes) {
+                index.doUpdateRow(this, rowIndex);
+            }
+        }
+        doMarkOrderedIndexesStale();
+        super.onRowChange(rowIndex);
+    }
+    @Override
+    protected void onColChange(final int colIndex) {
+        if (hashIndexes != null) {
+            TableHashIndex index = doFindIndex(colIndex);
+            if (index != null) {
+                index.doRebuild(this);
+            }
+        }
+        if (orderedIndexes != null) {
+            TableOrderedIndex index = doFindOrderedIndex(colIndex);
+            if (index != null) {
+                index.doMarkStale();
+            }
+        }
+        super.onColChange(colIndex);
+    }
+    @Override
+    protected void onRowsInserted(final int beginRowIndex, final int count) {
+        if (hashIndexes != null) {
+            for (TableHashIndex index : hashIndexes) {
+                index.doInsertRows(this, beginRowIndex, count);
+            }
+        }
+        doMarkOrderedIndexesStale();
+        if (trackedHashValid) {
+            if (beginRowIndex + count == rows) {
+                trackedHash += calShapeHash(rows, cols) - calShapeHash(rows - count, cols) + calCellsHash(beginRowIndex, rows, 0, cols);
+            } else {
+                trackedHashValid = false;
+            }
+        }
+        super.onRowsInserted(beginRowIndex, count);
+    }
+    @Override
+    protected void onColsInserted(final int beginColIndex, final int count) {
+        doShiftIndexCols(beginColIndex, count);
+        if (trackedHashValid) {
+            if (beginColIndex + count == cols) {
+                trackedHash += calShapeHash(rows, cols) - calShapeHash(rows, cols - count) + calCellsHash(0, rows, beginColIndex, cols);
+            } else {
+                trackedHashValid = false;
+            }
+        }
+        super.onColsInserted(beginColIndex, count);
+    }
+    @Override
+    protected void onCellsChange() {
+        trackedHashValid = false;
+        doRebuildIndexes();
+        super.onCellsChange();
+    }
+    @Override
+    protected void onRowsRemoved(final int beginRowIndex, final int endRowIndex) {
+        trackedHashValid = false;
+        if (hashIndexes != null) {
+            for (TableHashIndex index : hashIndexes) {
+                index.doRemoveRows(beginRowIndex, endRowIndex);
+            }
+        }
+        doMarkOrderedIndexesStale();
+        super.onRowsRemoved(beginRowIndex, endRowIndex);
+    }
+    @Override
+    protected void onColsRemoved(final int beginColIndex, final int endColIndex) {
+        trackedHashValid = false;
+        doRemoveIndexes(beginColIndex, endColIndex);
+        doRemoveOrderedIndexes(beginColIndex, endColIndex);
+        doShiftIndexCols(endColIndex, beginColIndex - endColIndex);
+        super.onColsRemoved(beginColIndex, endColIndex);
+    }
+    @Override
+    protected void onTableChange() {
+        trackedHashValid = false;
+        // the shape may have changed (release), indexes past the last col go away
+        doRemoveIndexes(cols, Integer.MAX_VALUE);
+        doRemoveOrderedIndexes(cols, Integer.MAX_VALUE);
+        doRebuildIndexes();
+        super.onTableChange();
+    }
+
+    // helpers - hash indexes
+
+    protected @Nullable TableHashIndex doFindIndex(final int colIndex) {
+        if (hashIndexes == null) {
+            return null;
+        }
+        for (TableHashIndex index : hashIndexes) {
+            if (index.col == colIndex) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    protected @Nullable TableOrderedIndex doFindOrderedIndex(final int colIndex) {
+        if (orderedIndexes == null) {
+            return null;
+        }
+        for (TableOrderedIndex index : orderedIndexes) {
+            if (index.col == colIndex) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    protected @NotNull TableOrderedIndex doRequireOrderedIndex(final int colIndex) {
+        validateColIndex(colIndex);
+        TableOrderedIndex index = doFindOrderedIndex(colIndex);
+        if (index == null) {
+            throw new IllegalStateException(String.format(
+                    "NoOrderedIndex: col %d has no ordered index (see addOrderedIndex)", colIndex));
+        }
+        return index;
+    }
+
+    // hash indexes are rebuilt at once, ordered ones on their next query
+    protected void doRebuildIndexes() {
+        if (hashIndexes != null) {
+            for (TableHashIndex index : hashIndexes) {
+                index.doRebuild(this);
+            }
+        }
+        doMarkOrderedIndexesStale();
+    }
+
+    protected void doMarkOrderedIndexesStale() {
+        if (orderedIndexes == null) {
+            return;
+        }
+        for (TableOrderedIndex index : orderedIndexes) {
+            index.doMarkStale();
+        }
+    }
+
+    // indexes on cols >= fromColIndex move by delta
+    protected void doShiftIndexCols(final int fromColIndex, final int delta) {
+        if (hashIndexes != null) {
+            for (TableHashIndex index : hashIndexes) {
+                if (index.col >= fromColIndex) {
+                    index.col += delta;
+                }
+            }
+        }
+        if (orderedIndexes != null) {
+            for (TableOrderedIndex index : orderedIndexes) {
+                if (index.col >= fromColIndex) {
+                    index.col += delta;
+                }
+            }
+        }
+    }
+
+    // after a batched edit (colSrc[newCol] = old col, negative for an inserted one): every index moves
+    // to the new position of its column, the indexes on removed cols go away
+    protected void doRemapIndexCols(final int[] colSrc) {
+        if (hashIndexes == null) {
+            return;
+        }
+        TableHashIndex[] kept = new TableHashIndex[hashIndexes.length];
+        int numKept = 0;
+        for (TableHashIndex index : hashIndexes) {
+            final int newCol = calRemappedCol(colSrc, index.col);
+            if (newCol >= 0) {
+                index.col = newCol;
+                kept[numKept++] = index;
+            }
+        }
+        hashIndexes = (numKept == 0) ? null : Arrays.copyOf(kept, numKept);
+    }
+    protected void doRemapOrderedIndexCols(final int[] colSrc) {
+        if (orderedIndexes == null) {
+            return;
+        }
+        TableOrderedIndex[] kept = new TableOrderedIndex[orderedIndexes.length];
+        int numKept = 0;
+        for (TableOrderedIndex index : orderedIndexes) {
+            final int newCol = calRemappedCol(colSrc, index.col);
+            if (newCol >= 0) {
+                index.col = newCol;
+                kept[numKept++] = index;
+            }
+        }
+        orderedIndexes = (numKept == 0) ? null : Arrays.copyOf(kept, numKept);
+    }
+
+    // new position of oldColIndex in colSrc, -1 if it was removed
+    protected static int calRemappedCol(final int[] colSrc, final int oldColIndex) {
+        for (int c = 0; c < colSrc.length; ++c) {
+            if (colSrc[c] == oldColIndex) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    // drops the hash/ordered indexes on cols [beginColIndex, endColIndex)
+    protected void doRemoveIndexes(final int beginColIndex, final int endColIndex) {
+        if (hashIndexes == null) {
+            return;
+        }
+        TableHashIndex[] kept = new TableHashIndex[hashIndexes.length];
+        int numKept = 0;
+        for (TableHashIndex index : hashIndexes) {
+            if (index.col < beginColIndex || index.col >= endColIndex) {
+                kept[numKept++] = index;
+            }
+        }
+        hashIndexes = (numKept == 0) ? null : Arrays.copyOf(kept, numKept);
+    }
+    protected void doRemoveOrderedIndexes(final int beginColIndex, final int endColIndex) {
+        if (orderedIndexes == null) {
+            return;
+        }
+        TableOrderedIndex[] kept = new TableOrderedIndex[orderedIndexes.length];
+        int numKept = 0;
+        for (TableOrderedIndex index : orderedIndexes) {
+            if (index.col < beginColIndex || index.col >= endColIndex) {
+                kept[numKept++] = index;
+            }
+        }
+        orderedIndexes = (numKept == 0) ? null : Arrays.copyOf(kept, numKept);
+    }
+
+    // helpers - sorting
+
+    // row r becomes the old row order[r], gaps closed and the buffer unshared first
+    protected void doPermuteRows(final int[] order) {
+        doCloseGaps();
+        doUnshareData();
+        final boolean[] placed = new boolean[rows];
+        Object[] spare = new Object[cols];
+        for (int start = 0; start < rows; ++start) {
+            if (placed[start] || order[start] == start) {
+                continue;
+            }
+            // follow the cycle through start: each row takes its source, start's own row goes last
+            for (int c = 0; c < cols; ++c) {
+                spare[c] = data[toFlatIndex(start, c)];
+            }
+            int dst = start;
+            int src = order[dst];
+            while (src != start) {
+                layout.moveRows(data, rowCapacity, colCapacity, src, dst, 1, cols);
+                placed[dst] = true;
+                dst = src;
+                src = order[dst];
+            }
+            for (int c = 0; c < cols; ++c) {
+                data[toFlatIndex(dst, c)] = spare[c];
+            }
+            placed[dst] = true;
+        }
+    }
+
+    // helpers - copy-on-write snapshots
+    // Cells only ever move while no snapshot shares the buffer, so appends write past every
+    // snapshot's cells and need no saving (addRows/addCols with defaults write data directly).
+
+    // snapshots keep the old content of data[flatBegin, flatEnd)
+    protected void doBeforeSharedWrite(final int flatBegin, final int flatEnd) {
+        if (!sharing.saveChunks(flatBegin, flatEnd)) {
+            sharing = null;
+        }
+    }
+
+    // data becomes newData, the old buffer goes back to TableArrayPool unless snapshots still read it
+    protected void doReplaceData(final Object[] newData) {
+        if (sharing == null && data != null) {
+            TableArrayPool.recycle(data);
+        }
+        data = newData;
+        sharing = null;
+    }
+
+    // cells are about to move within the buffer: the snapshots keep the old buffer, this table goes on with a copy
+    protected void doUnshareData() {
+        if (sharing != null) {
+            data = data.clone();
+            sharing = null;
+        }
+    }
+
     // helpers - capacity/reallocate
 
     protected void doGrowCapIfNeeded(final int minNeededRowCap, final int minNeededColCap) {
@@ -377,44 +1102,276 @@ public class Table<E> extends ReadableTable<E> {
         }
     }
 
-    protected void doRealloc(final int newRowCap, final int newColCap) {
+    protected void doRealloc(int newRowCap, int newColCap) {
         // Note: no argument check
         // newRowCap should be >= rows and newColCap >= cols, this is ensured by caller
-        Object[] result = new Object[newRowCap * newColCap];
-        for (int r = 0; r < rows; ++r) {
-            System.arraycopy(data, r * colCapacity, result, r * newColCap, cols);
-        }
+        final long start = TableMetrics.start();
+        final int oldRowCap = rowCapacity;
+        final int oldColCap = colCapacity;
+        doCloseGaps();
+        newRowCap = layout.roundCapacity(newRowCap);
+        newColCap = layout.roundCapacity(newColCap);
+        Object[] result = TableArrayPool.acquire(newRowCap * newColCap);
+        doCopyCellsTo(result, layout, newRowCap, newColCap);
         rowCapacity = newRowCap;
         colCapacity = newColCap;
-        data = result; // reference changed, the original Object[] is now unreachable
+        doReplaceData(result); // the original Object[] goes back to the pool (or stays with the snapshots)
+        TableMetrics.recordRealloc(this, oldRowCap, oldColCap, (long) rows * cols, start);
     }
-    protected void doReallocRow(final int newRowCap) {
+    protected void doReallocRow(int newRowCap) {
         // Note: no argument check
         // newRowCap should be >= rows, this is ensured by caller
-        Object[] result = new Object[newRowCap * colCapacity];
-        System.arraycopy(data, 0, result, 0, rows * colCapacity);
+        final long start = TableMetrics.start();
+        final int oldRowCap = rowCapacity;
+        doCloseGaps();
+        newRowCap = layout.roundCapacity(newRowCap);
+        Object[] result = TableArrayPool.acquire(newRowCap * colCapacity);
+        final int copied;
+        if (layout == TableLayout.COL_MAJOR) {
+            TableLayout.copyCells(data, layout, rowCapacity, colCapacity, result, layout, newRowCap, colCapacity, rows, cols);
+            copied = rows * cols;
+        } else {
+            // same stride, the used rows are one prefix
+            copied = layout.calRowsPrefixLen(rows, colCapacity);
+            System.arraycopy(data, 0, result, 0, copied);
+        }
         rowCapacity = newRowCap;
-        data = result; // reference changed, the original Object[] is now unreachable
+        doReplaceData(result); // the original Object[] goes back to the pool (or stays with the snapshots)
+        TableMetrics.recordRealloc(this, oldRowCap, colCapacity, copied, start);
     }
-    protected void doReallocCol(final int newColCap) {
+    protected void doReallocCol(int newColCap) {
         // Note: no argument check
         // newRowCap should be >= cols, this is ensured by caller
-        Object[] result = new Object[rowCapacity * newColCap];
-        for (int r = 0; r < rows; ++r) {
-            System.arraycopy(data, r * colCapacity, result, r * newColCap, cols);
+        final long start = TableMetrics.start();
+        final int oldColCap = colCapacity;
+        doCloseGaps();
+        newColCap = layout.roundCapacity(newColCap);
+        Object[] result = TableArrayPool.acquire(rowCapacity * newColCap);
+        final int copied;
+        if (layout == TableLayout.COL_MAJOR) {
+            // same stride, the used cols are one prefix
+            copied = cols * rowCapacity;
+            System.arraycopy(data, 0, result, 0, copied);
+        } else {
+            TableLayout.copyCells(data, layout, rowCapacity, colCapacity, result, layout, rowCapacity, newColCap, rows, cols);
+            copied = rows * cols;
         }
         colCapacity = newColCap;
-        data = result; // reference changed, the original Object[] is now unreachable
+        doReplaceData(result); // the original Object[] goes back to the pool (or stays with the snapshots)
+        TableMetrics.recordRealloc(this, rowCapacity, oldColCap, copied, start);
     }
 
+    // rowSrc[newRow] / colSrc[newCol]: the old index, or negative for a new (null) row/col
+    // inPlace: old rows and cols keep their relative order, so they can be shifted within the buffer
+    protected void doRemap(final int[] rowSrc, final int[] colSrc, final boolean inPlace) {
+        doCloseGaps();
+        final int newRows = rowSrc.length;
+        final int newCols = colSrc.length;
+        if (!inPlace || newRows > rowCapacity || newCols > colCapacity) {
+            final int newRowCap = layout.roundCapacity((newRows > rowCapacity) ? newRows * 3 / 2 : rowCapacity);
+            final int newColCap = layout.roundCapacity((newCols > colCapacity) ? newCols * 3 / 2 : colCapacity);
+            Object[] result = TableArrayPool.acquire(newRowCap * newColCap);
+            // every run of consecutive old rows x run of consecutive old cols is one block copy
+            for (int dr = 0; dr < newRows; ) {
+                final int numRows = calSrcRunLen(rowSrc, dr);
+                if (rowSrc[dr] >= 0) {
+                    for (int dc = 0; dc < newCols; ) {
+                        final int numCols = calSrcRunLen(colSrc, dc);
+                        if (colSrc[dc] >= 0) {
+                            layout.copyBlock(data, rowCapacity, colCapacity, rowSrc[dr], colSrc[dc],
+                                    result, newRowCap, newColCap, dr, dc, numRows, numCols);
+                        }
+                        dc += numCols;
+                    }
+                }
+                dr += numRows;
+            }
+            doReplaceData(result); // the original Object[] goes back to the pool (or stays with the snapshots)
+            rowCapacity = newRowCap;
+            colCapacity = newColCap;
+        } else {
+            doUnshareData();
+            doRemapColsInPlace(colSrc);
+            doRemapRowsInPlace(rowSrc, newCols);
+        }
+        rows = newRows;
+        cols = newCols;
+    }
 
-    // isIndexValid (remain same as super)
+    private void doRemapColsInPlace(final int[] colSrc) {
+        final int newCols = colSrc.length;
+        // runs moving left go first to last, runs moving right last to first, neither overwrites a pending source
+        for (int dc = 0; dc < newCols; ) {
+            final int numCols = calSrcRunLen(colSrc, dc);
+            if (colSrc[dc] > dc) {
+                layout.moveCols(data, rowCapacity, colCapacity, colSrc[dc], dc, numCols, rows);
+            }
+            dc += numCols;
+        }
+        for (int dcEnd = newCols; dcEnd > 0; ) {
+            final int numCols = calSrcRunLenBackward(colSrc, dcEnd);
+            final int dc = dcEnd - numCols;
+            if (colSrc[dc] >= 0 && colSrc[dc] < dc) {
+                layout.moveCols(data, rowCapacity, colCapacity, colSrc[dc], dc, numCols, rows);
+            }
+            dcEnd = dc;
+        }
+        for (int dc = 0; dc < newCols; ++dc) {
+            if (colSrc[dc] < 0) {
+                layout.clearCols(data, rowCapacity, colCapacity, dc, dc + 1, rows);
+            }
+        }
+        if (newCols < cols) {
+            layout.clearCols(data, rowCapacity, colCapacity, newCols, cols, rows);
+        }
+    }
 
-    private void updateFormatter() {
-        if (formatter != null) {
-            formatter.handleTableChange();
+    private void doRemapRowsInPlace(final int[] rowSrc, final int newCols) {
+        final int newRows = rowSrc.length;
+        for (int dr = 0; dr < newRows; ) {
+            final int numRows = calSrcRunLen(rowSrc, dr);
+            if (rowSrc[dr] > dr) {
+                layout.moveRows(data, rowCapacity, colCapacity, rowSrc[dr], dr, numRows, newCols);
+            }
+            dr += numRows;
         }
+        for (int drEnd = newRows; drEnd > 0; ) {
+            final int numRows = calSrcRunLenBackward(rowSrc, drEnd);
+            final int dr = drEnd - numRows;
+            if (rowSrc[dr] >= 0 && rowSrc[dr] < dr) {
+                layout.moveRows(data, rowCapacity, colCapacity, rowSrc[dr], dr, numRows, newCols);
+            }
+            drEnd = dr;
+        }
+        for (int dr = 0; dr < newRows; ++dr) {
+            if (rowSrc[dr] < 0) {
+                layout.clearRows(data, rowCapacity, colCapacity, dr, dr + 1, newCols);
+            }
+        }
+        if (newRows < rows) {
+            layout.clearRows(data, rowCapacity, colCapacity, newRows, rows, newCols);
+        }
+    }
+
+    // length of the run starting at begin where the sources are consecutive (or all new)
+    protected static int calSrcRunLen(final int[] src, final int begin) {
+        int len = 1;
+        if (src[begin] < 0) {
+            while (begin + len < src.length && src[begin + len] < 0) {
+                len += 1;
+            }
+        } else {
+            while (begin + len < src.length && src[begin + len] == src[begin] + len) {
+                len += 1;
+            }
+        }
+        return len;
+    }
+    // same, for the run ending at end (exclusive)
+    private static int calSrcRunLenBackward(final int[] src, final int end) {
+        final int last = src[end - 1];
+        int len = 1;
+        if (last < 0) {
+            while (end - 1 - len >= 0 && src[end - 1 - len] < 0) {
+                len += 1;
+            }
+        } else {
+            while (len < end && len <= last && src[end - 1 - len] == last - len) {
+                len += 1;
+            }
+        }
+        return len;
+    }
+
+    // helpers - gap buffers
+
+    // afterward the row gap starts at rowIndex and is at least one row long
+    protected void doMoveRowGapTo(final int rowIndex) {
+        if (rowGapLen == 0) {
+            if (rows == rowCapacity) {
+                doGrowRowCapIfNeeded(rows + 1); // closes the col gap as well
+            }
+            // open: all the free rows become the gap
+            rowGapStart = rows;
+            rowGapLen = rowCapacity - rows;
+        }
+        if (rowIndex != rowGapStart) {
+            doUnshareData();
+        }
+        final int gapStart = rowGapStart;
+        final int gapLen = rowGapLen;
+        final int physicalCols = calPhysicalCols();
+        if (rowIndex < gapStart) {
+            // rows [rowIndex, gapStart) move to the far side of the gap
+            layout.moveRows(data, rowCapacity, colCapacity, rowIndex, rowIndex + gapLen, gapStart - rowIndex, physicalCols);
+            layout.clearRows(data, rowCapacity, colCapacity, rowIndex, Math.min(gapStart, rowIndex + gapLen), physicalCols);
+        } else if (rowIndex > gapStart) {
+            // rows [gapStart, rowIndex) come back to the near side
+            layout.moveRows(data, rowCapacity, colCapacity, gapStart + gapLen, gapStart, rowIndex - gapStart, physicalCols);
+            layout.clearRows(data, rowCapacity, colCapacity, Math.max(rowIndex, gapStart + gapLen), rowIndex + gapLen, physicalCols);
+        }
+        rowGapStart = rowIndex;
     }
 
+    protected void doMoveColGapTo(final int colIndex) {
+        if (colGapLen == 0) {
+            if (cols == colCapacity) {
+                doGrowColCapIfNeeded(cols + 1); // closes the row gap as well
+            }
+            colGapStart = cols;
+            colGapLen = colCapacity - cols;
+        }
+        if (colIndex != colGapStart) {
+            doUnshareData();
+        }
+        final int gapStart = colGapStart;
+        final int gapLen = colGapLen;
+        final int physicalRows = calPhysicalRows();
+        if (colIndex < gapStart) {
+            layout.moveCols(data, rowCapacity, colCapacity, colIndex, colIndex + gapLen, gapStart - colIndex, physicalRows);
+            layout.clearCols(data, rowCapacity, colCapacity, colIndex, Math.min(gapStart, colIndex + gapLen), physicalRows);
+        } else if (colIndex > gapStart) {
+            layout.moveCols(data, rowCapacity, colCapacity, gapStart + gapLen, gapStart, colIndex - gapStart, physicalRows);
+            layout.clearCols(data, rowCapacity, colCapacity, Math.max(colIndex, gapStart + gapLen), colIndex + gapLen, physicalRows);
+        }
+        colGapStart = colIndex;
+    }
+
+    // moves the rows/cols after the gaps back, so the used cells are a contiguous prefix again
+    protected void doCloseGaps() {
+        if (rowGapLen != 0) {
+            doMoveRowGapTo(rows);
+            rowGapStart = 0;
+            rowGapLen = 0;
+        }
+        if (colGapLen != 0) {
+            doMoveColGapTo(cols);
+            colGapStart = 0;
+            colGapLen = 0;
+        }
+    }
+
+    protected void doSwapCapacities() {
+        final int tmpCap = rowCapacity;
+        rowCapacity = colCapacity;
+        colCapacity = tmpCap;
+    }
+
+
+    // isIndexValid (remain same as super)
+
     // throw if condition methods (remain same as super)
+    protected void validateSortKeys(final int @NotNull [] colIndices, final @NotNull List<?> comparators) {
+        if (colIndices.length == 0) {
+            throw new IllegalArgumentException("NoSortKey: at least one colIndex is needed to sort by");
+        }
+        if (colIndices.length != comparators.size()) {
+            throw new IllegalArgumentException(String.format(
+                    "MismatchComparatorCount: %d colIndices but %d comparators were given",
+                    colIndices.length, comparators.size()));
+        }
+        for (int colIndex : colIndices) {
+            validateColIndex(colIndex);
+        }
+    }
 }
@@ -0,0 +1,227 @@
+package WongAndyStarSB.Table;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Pool of cell buffers for Table, off by default (setEnabled(true) to use it).
+// Reallocations, copies and transposes take their buffer from here, replaced buffers and Table.release()
+// give them back, so programs creating and growing many short-lived tables reuse the same arrays instead
+// of allocating new ones.
+// Size classes: 4 per power of two (64, 80, 96, 112, 128, 160, ...), an acquired array is at least as
+// long as asked for (at most 25% longer) and all null. Arrays below minPooledLen or above maxPooledLen
+// are neither pooled nor counted.
+// Each thread keeps a few small arrays per class without locking, the rest go to a shared pool bounded
+// by maxRetainedCells (cells of all arrays it holds).
+// A buffer is only given back while no snapshot reads it, so a pooled array has no other reader.
+public final class TableArrayPool {
+
+    static final int minPooledShift = 6;
+    static final int minPooledLen = 1 << minPooledShift;
+    static final int maxPooledLen = 1 << 22;
+    static final int numClasses = (22 - minPooledShift) * 4 + 1;
+    // thread-local caches only hold classes up to this length, this many arrays each
+    static final int maxLocalLen = 1 << 16;
+    static final int localArraysPerClass = 2;
+    static final long defaultMaxRetainedCells = 1L << 22;
+
+    private static volatile boolean enabled = false;
+    private static volatile long maxRetainedCells = defaultMaxRetainedCells;
+
+    private static final ThreadLocal<LocalCache> localCaches = ThreadLocal.withInitial(LocalCache::new);
+    private static final SharedClass[] sharedClasses = new SharedClass[numClasses];
+    private static final AtomicLong retainedCells = new AtomicLong();
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder recycled = new LongAdder();
+    private static final LongAdder dropped = new LongAdder();
+
+    static {
+        for (int k = 0; k < numClasses; ++k) {
+            sharedClasses[k] = new SharedClass();
+        }
+    }
+
+    private TableArrayPool() {}
+
+    // settings
+
+    public static void setEnabled(final boolean enabled) {
+        TableArrayPool.enabled = enabled;
+    }
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    // upper bound of the cells held by the shared pool (the thread-local caches come on top)
+    public static void setMaxRetainedCells(final long maxRetainedCells) {
+        if (maxRetainedCells < 0) {
+            throw new IllegalArgumentException("NegativeValue: maxRetainedCells is " + maxRetainedCells);
+        }
+        TableArrayPool.maxRetainedCells = maxRetainedCells;
+    }
+    public static long getMaxRetainedCells() {
+        return maxRetainedCells;
+    }
+
+    // statistics (pooled sizes only)
+
+    // acquires served from the pool
+    public static long getHits() {
+        return hits.sum();
+    }
+    // acquires that allocated
+    public static long getMisses() {
+        return misses.sum();
+    }
+    public static double getHitRate() {
+        final long h = hits.sum();
+        final long total = h + misses.sum();
+        return (total == 0) ? 0 : (double) h / total;
+    }
+    // arrays given back and kept
+    public static long getRecycled() {
+        return recycled.sum();
+    }
+    // arrays given back and left to the GC, the pool being full
+    public static long getDropped() {
+        return dropped.sum();
+    }
+    public static void resetStats() {
+        hits.reset();
+        misses.reset();
+        recycled.reset();
+        dropped.reset();
+    }
+
+    // drops every array held by the shared pool and the calling thread's cache
+    public static void clear() {
+        localCaches.remove();
+        for (SharedClass shared : sharedClasses) {
+            synchronized (shared) {
+                for (int i = 0; i < shared.count; ++i) {
+                    retainedCells.addAndGet(-shared.arrays[i].length);
+                    shared.arrays[i] = null;
+                }
+                shared.count = 0;
+            }
+        }
+    }
+
+    // acquire/recycle, used by Table
+
+    // an all-null array of at least len cells
+    static Object[] acquire(final int len) {
+        if (!enabled || len < minPooledLen || len > maxPooledLen) {
+            return new Object[len];
+        }
+        final int k = calCeilClass(len);
+        if (calClassLen(k) <= maxLocalLen) {
+            Object[] result = localCaches.get().poll(k);
+            if (result != null) {
+                hits.increment();
+                return result;
+            }
+        }
+        Object[] result = sharedClasses[k].poll();
+        if (result != null) {
+            retainedCells.addAndGet(-result.length);
+            hits.increment();
+            return result;
+        }
+        misses.increment();
+        return new Object[calClassLen(k)];
+    }
+
+    // array must have no other reader or writer left, it is cleared here
+    static void recycle(final Object[] array) {
+        if (!enabled || array.length < minPooledLen || array.length > maxPooledLen) {
+            return;
+        }
+        final int k = calFloorClass(array.length);
+        Arrays.fill(array, null);
+        if (calClassLen(k) <= maxLocalLen && localCaches.get().offer(k, array)) {
+            recycled.increment();
+            return;
+        }
+        if (retainedCells.addAndGet(array.length) <= maxRetainedCells && sharedClasses[k].offer(array)) {
+            recycled.increment();
+            return;
+        }
+        retainedCells.addAndGet(-array.length);
+        dropped.increment();
+    }
+
+    // helpers - size classes
+
+    static int calClassLen(final int k) {
+        return (4 + (k & 3)) << ((k >>> 2) + minPooledShift - 2);
+    }
+
+    // smallest class holding len cells (minPooledLen <= len <= maxPooledLen)
+    static int calCeilClass(final int len) {
+        final int shift = 31 - Integer.numberOfLeadingZeros(len);
+        final int step = 1 << (shift - 2);
+        final int sub = (len - (1 << shift) + step - 1) / step;
+        return (shift - minPooledShift) * 4 + sub;
+    }
+
+    // largest class an array of len cells can serve (minPooledLen <= len)
+    static int calFloorClass(final int len) {
+        final int shift = 31 - Integer.numberOfLeadingZeros(len);
+        final int step = 1 << (shift - 2);
+        return Math.min((shift - minPooledShift) * 4 + (len - (1 << shift)) / step, numClasses - 1);
+    }
+
+    private static final class LocalCache {
+        final Object[][][] arrays = new Object[calFloorClass(maxLocalLen) + 1][][];
+        final int[] counts = new int[arrays.length];
+
+        Object[] poll(final int k) {
+            if (counts[k] == 0) {
+                return null;
+            }
+            counts[k] -= 1;
+            final Object[] result = arrays[k][counts[k]];
+            arrays[k][counts[k]] = null;
+            return result;
+        }
+
+        boolean offer(final int k, final Object[] array) {
+            if (arrays[k] == null) {
+                arrays[k] = new Object[localArraysPerClass][];
+            }
+            if (counts[k] == localArraysPerClass) {
+                return false;
+            }
+            arrays[k][counts[k]] = array;
+            counts[k] += 1;
+            return true;
+        }
+    }
+
+    private static final class SharedClass {
+        Object[][] arrays = new Object[4][];
+        int count = 0;
+
+        synchronized Object[] poll() {
+            if (count == 0) {
+                return null;
+            }
+            count -= 1;
+            final Object[] result = arrays[count];
+            arrays[count] = null;
+            return result;
+        }
+
+        synchronized boolean offer(final Object[] array) {
+            if (count == arrays.length) {
+                arrays = Arrays.copyOf(arrays, count * 2);
+            }
+            arrays[count] = array;
+            count += 1;
+            return true;
+        }
+    }
+}
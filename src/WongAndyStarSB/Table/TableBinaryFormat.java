@@ -0,0 +1,296 @@
+package WongAndyStarSB.Table;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+// Binary table files, written by ReadableTable.writeBinary and mapped by MappedTable.open.
+// All numbers are little-endian, every section starts 8-byte aligned:
+//  header (headerSize bytes):
+//   0  magic "WTBL"
+//   4  version
+//   5  element type (typeInteger/typeLong/typeDouble/typeString)
+//   6  payload order (orderRowMajor/orderColMajor)
+//   7  layout of the written table (TableLayout ordinal, restored by MappedTable.toTable)
+//   8  rows (int)
+//  12  cols (int)
+//  16  flags (int, flagHasNulls)
+//  20  reserved (int)
+//  null bitmap (only with flagHasNulls): ceil(n / 64) longs, bit i set = cell i is null
+//  payload, cell i = the i-th cell in payload order (n = rows * cols):
+//   Integer/Long/Double: n ints/longs/doubles, null cells hold 0
+//   String: n + 1 long offsets into the bytes that follow, cell i = UTF-8 bytes [offset i, offset i + 1)
+// The writer streams straight from the table's cells in bounded memory (a few passes, no copy of the table).
+final class TableBinaryFormat {
+
+    static final int magic = 0x4C425457; // "WTBL" read little-endian
+    static final byte version = 1;
+    static final int headerSize = 24;
+
+    static final byte typeInteger = 1;
+    static final byte typeLong = 2;
+    static final byte typeDouble = 3;
+    static final byte typeString = 4;
+
+    static final byte orderRowMajor = 0;
+    static final byte orderColMajor = 1;
+
+    static final int flagHasNulls = 1;
+
+    // flushed to the channel whenever full
+    static final int bufferSize = 1 << 16;
+
+    private TableBinaryFormat() {}
+
+    static byte toTypeCode(final Class<?> elementType) {
+        if (elementType == Integer.class) { return typeInteger; }
+        if (elementType == Long.class) { return typeLong; }
+        if (elementType == Double.class) { return typeDouble; }
+        if (elementType == String.class) { return typeString; }
+        throw new IllegalArgumentException(
+                "UnsupportedElementType: binary tables hold Integer, Long, Double or String, not " + elementType.getName());
+    }
+
+    static Class<?> toElementType(final byte typeCode) {
+        return switch (typeCode) {
+            case typeInteger -> Integer.class;
+            case typeLong -> Long.class;
+            case typeDouble -> Double.class;
+            case typeString -> String.class;
+            default -> null;
+        };
+    }
+
+    static int calCellWidth(final byte typeCode) {
+        return (typeCode == typeInteger) ? Integer.BYTES : Long.BYTES;
+    }
+
+    static long calBitmapBytes(final long cells) {
+        return ((cells + 63) >>> 6) * Long.BYTES;
+    }
+
+    static long alignUp8(final long pos) {
+        return (pos + 7) & ~7L;
+    }
+
+    // writing
+
+    static void write(final ReadableTable<?> table, final WritableByteChannel out) throws IOException {
+        final byte typeCode = toTypeCode(table.elementType);
+        // col-major tables are read down their columns, everything else along the rows
+        final byte order = (table.layout == TableLayout.COL_MAJOR) ? orderColMajor : orderRowMajor;
+        final CellSource cells = new CellSource(table, order == orderColMajor);
+        final long n = (long) table.rows * table.cols;
+        final boolean hasNulls = cells.hasNulls();
+
+        ByteBuffer buf = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(magic)
+                .put(version)
+                .put(typeCode)
+                .put(order)
+                .put((byte) table.layout.ordinal())
+                .putInt(table.rows)
+                .putInt(table.cols)
+                .putInt(hasNulls ? flagHasNulls : 0)
+                .putInt(0);
+
+        if (hasNulls) {
+            long word = 0;
+            for (long i = 0; i < n; ++i) {
+                if (cells.get(i) == null) {
+                    word |= 1L << i;
+                }
+                if ((i & 63) == 63) {
+                    buf = doPutLong(buf, out, word);
+                    word = 0;
+                }
+            }
+            if ((n & 63) != 0) {
+                buf = doPutLong(buf, out, word);
+            }
+        }
+
+        switch (typeCode) {
+            case typeInteger -> doWriteInts(cells, n, buf, out);
+            case typeLong -> doWriteLongs(cells, n, buf, out);
+            case typeDouble -> doWriteDoubles(cells, n, buf, out);
+            default -> doWriteStrings(cells, n, buf, out);
+        }
+    }
+
+    private static void doWriteInts(final CellSource cells, final long n, ByteBuffer buf, final WritableByteChannel out) throws IOException {
+        if (cells.table instanceof ReadableIntTable intTable && !cells.colOrder) {
+            final int[] src = intTable.intData;
+            for (int r = 0; r < intTable.rows; ++r) {
+                final int base = r * intTable.colCapacity;
+                for (int c = 0; c < intTable.cols; ++c) {
+                    if (buf.remaining() < Integer.BYTES) { buf = doFlush(buf, out); }
+                    buf.putInt(src[base + c]);
+                }
+            }
+        } else {
+            for (long i = 0; i < n; ++i) {
+                if (buf.remaining() < Integer.BYTES) { buf = doFlush(buf, out); }
+                final Object val = cells.get(i);
+                buf.putInt((val == null) ? 0 : (Integer) val);
+            }
+        }
+        doFlush(buf, out);
+    }
+
+    private static void doWriteLongs(final CellSource cells, final long n, ByteBuffer buf, final WritableByteChannel out) throws IOException {
+        if (cells.table instanceof ReadableLongTable longTable && !cells.colOrder) {
+            final long[] src = longTable.longData;
+            for (int r = 0; r < longTable.rows; ++r) {
+                final int base = r * longTable.colCapacity;
+                for (int c = 0; c < longTable.cols; ++c) {
+                    buf = doPutLong(buf, out, src[base + c]);
+                }
+            }
+        } else {
+            for (long i = 0; i < n; ++i) {
+                final Object val = cells.get(i);
+                buf = doPutLong(buf, out, (val == null) ? 0L : (Long) val);
+            }
+        }
+        doFlush(buf, out);
+    }
+
+    private static void doWriteDoubles(final CellSource cells, final long n, ByteBuffer buf, final WritableByteChannel out) throws IOException {
+        if (cells.table instanceof ReadableDoubleTable doubleTable && !cells.colOrder) {
+            final double[] src = doubleTable.doubleData;
+            for (int r = 0; r < doubleTable.rows; ++r) {
+                final int base = r * doubleTable.colCapacity;
+                for (int c = 0; c < doubleTable.cols; ++c) {
+                    buf = doPutLong(buf, out, Double.doubleToRawLongBits(src[base + c]));
+                }
+            }
+        } else {
+            for (long i = 0; i < n; ++i) {
+                final Object val = cells.get(i);
+                buf = doPutLong(buf, out, (val == null) ? 0L : Double.doubleToRawLongBits((Double) val));
+            }
+        }
+        doFlush(buf, out);
+    }
+
+    private static void doWriteStrings(final CellSource cells, final long n, ByteBuffer buf, final WritableByteChannel out) throws IOException {
+        // offsets first (from the UTF-8 lengths, nothing is encoded yet), then the bytes
+        long offset = 0;
+        for (long i = 0; i < n; ++i) {
+            buf = doPutLong(buf, out, offset);
+            final Object val = cells.get(i);
+            if (val != null) {
+                offset += calUtf8Len((String) val);
+            }
+        }
+        buf = doPutLong(buf, out, offset);
+        for (long i = 0; i < n; ++i) {
+            final Object val = cells.get(i);
+            if (val == null) {
+                continue;
+            }
+            final byte[] bytes = ((String) val).getBytes(StandardCharsets.UTF_8);
+            if (buf.remaining() < bytes.length) {
+                buf = doFlush(buf, out);
+                if (bytes.length > buf.capacity()) {
+                    doWriteFully(ByteBuffer.wrap(bytes), out);
+                    continue;
+                }
+            }
+            buf.put(bytes);
+        }
+        doFlush(buf, out);
+    }
+
+    static int calUtf8Len(final String s) {
+        final int len = s.length();
+        int result = len;
+        for (int i = 0; i < len; ++i) {
+            final char ch = s.charAt(i);
+            if (ch >= 0x80) {
+                if (ch < 0x800) {
+                    result += 1;
+                } else if (Character.isHighSurrogate(ch) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    result += 2; // 4 bytes for the pair
+                    ++i;
+                } else if (!Character.isSurrogate(ch)) {
+                    result += 2;
+                }
+                // a lone surrogate is encoded as '?', 1 byte
+            }
+        }
+        return result;
+    }
+
+    private static ByteBuffer doPutLong(ByteBuffer buf, final WritableByteChannel out, final long val) throws IOException {
+        if (buf.remaining() < Long.BYTES) {
+            buf = doFlush(buf, out);
+        }
+        return buf.putLong(val);
+    }
+
+    private static ByteBuffer doFlush(final ByteBuffer buf, final WritableByteChannel out) throws IOException {
+        buf.flip();
+        doWriteFully(buf, out);
+        return buf.clear();
+    }
+
+    private static void doWriteFully(final ByteBuffer buf, final WritableByteChannel out) throws IOException {
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+    }
+
+    // the cells of a table in payload order, read from data directly when the table has it
+    private static final class CellSource {
+        final ReadableTable<?> table;
+        final boolean colOrder;
+        final Object[] data;
+        final int rows;
+        final int cols;
+        // position of the last read, so sequential reads skip the division
+        long nextIndex = 0;
+        int major = 0;
+        int minor = 0;
+
+        CellSource(final ReadableTable<?> table, final boolean colOrder) {
+            this.table = table;
+            this.colOrder = colOrder;
+            this.data = table.data;
+            this.rows = table.rows;
+            this.cols = table.cols;
+        }
+
+        Object get(final long index) {
+            final int minorCount = colOrder ? rows : cols;
+            if (index != nextIndex) {
+                major = (int) (index / minorCount);
+                minor = (int) (index % minorCount);
+            }
+            final int r = colOrder ? minor : major;
+            final int c = colOrder ? major : minor;
+            nextIndex = index + 1;
+            if (++minor == minorCount) {
+                minor = 0;
+                ++major;
+            }
+            return (data != null) ? data[table.toFlatIndex(r, c)] : table.doGetElementAsObject(r, c);
+        }
+
+        boolean hasNulls() {
+            if (table instanceof ReadableIntTable || table instanceof ReadableLongTable || table instanceof ReadableDoubleTable) {
+                return false;
+            }
+            final long n = (long) rows * cols;
+            for (long i = 0; i < n; ++i) {
+                if (get(i) == null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
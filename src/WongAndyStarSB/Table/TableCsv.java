@@ -0,0 +1,548 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Streaming CSV/TSV import and export (UTF-8, RFC 4180 quoting).
+// Reading scans the raw bytes of a channel record by record and parses every field straight from
+// the byte buffer into the cells of a ROW_MAJOR Table, whose row capacity is estimated up front from
+// the channel size and the records in the first buffer. No String[] per row, no second copy.
+// Fields: unquoted empty = null, quoted ("" for an empty string) = parsed, "" inside quotes = one quote.
+// Every record must have as many fields as the first one, a blank line is a record with one null field.
+// Writing renders the cells with TableFormatter's cell rendering and encodes them through a
+// bounded buffer into the channel. A header line is skipped on reading, and written as the column
+// indices, so whatever is written with a header reads back with the same setting.
+public class TableCsv {
+
+    protected static final int defaultBufferSize = 1 << 16;
+
+    protected char delimiter;
+    protected char quote;
+    protected boolean hasHeader = false;
+    protected int bufferSize = defaultBufferSize;
+
+    // parses the bytes [begin, end) of a field (unescaped, UTF-8)
+    @FunctionalInterface
+    public interface CellParser<T> {
+        T parse(byte[] bytes, int begin, int end);
+    }
+
+    protected TableCsv(final char delimiter, final char quote) {
+        this.delimiter = delimiter;
+        this.quote = quote;
+    }
+
+    public static @NotNull TableCsv createCsv() {
+        return new TableCsv(',', '"');
+    }
+    public static @NotNull TableCsv createTsv() {
+        return new TableCsv('\t', '"');
+    }
+
+    // setters
+
+    public TableCsv setDelimiter(final char delimiter) {
+        validateSyntaxChar(delimiter, "delimiter");
+        if (delimiter == quote) {
+            throw new IllegalArgumentException("IllegalDelimiter: the delimiter has to differ from the quote");
+        }
+        this.delimiter = delimiter;
+        return this;
+    }
+    // '\0' turns quoting off
+    public TableCsv setQuote(final char quote) {
+        if (quote != '\0') {
+            validateSyntaxChar(quote, "quote");
+            if (quote == delimiter) {
+                throw new IllegalArgumentException("IllegalQuote: the quote has to differ from the delimiter");
+            }
+        }
+        this.quote = quote;
+        return this;
+    }
+    public TableCsv setHasHeader(final boolean hasHeader) {
+        this.hasHeader = hasHeader;
+        return this;
+    }
+    public TableCsv setBufferSize(final int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "IllegalBufferSize: bufferSize(%d) has to be positive", bufferSize));
+        }
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    // reading
+
+    public <T> @NotNull Table<T> read(final @NotNull Path path, final @NotNull Class<T> elementType) throws IOException {
+        return read(path, elementType, getDefaultParser(elementType));
+    }
+    public <T> @NotNull Table<T> read(final @NotNull Path path, final @NotNull Class<T> elementType, final @NotNull CellParser<? extends T> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel, channel.size(), elementType, parser);
+        }
+    }
+    // sizeHint: bytes left in the channel, negative if unknown (the table then grows as rows come in)
+    public <T> @NotNull Table<T> read(final @NotNull ReadableByteChannel in, final long sizeHint, final @NotNull Class<T> elementType, final @NotNull CellParser<? extends T> parser) throws IOException {
+        RecordScanner scanner = new RecordScanner(in, bufferSize, (byte) delimiter, (byte) quote);
+        if (hasHeader) {
+            scanner.next();
+        }
+        if (!scanner.next()) {
+            return Table.createEmpty(elementType);
+        }
+        final int cols = scanner.numFields;
+        final int rowCap = Math.max(Table.defaultRowCapacity, scanner.estimateRecords(sizeHint));
+        Table<T> result = Table.doCreateWithSizeCapacity(elementType, 0, cols, rowCap, cols);
+        do {
+            if (scanner.numFields != cols) {
+                throw new IllegalArgumentException(String.format(
+                        "InconsistentColumnSize: at row %d: expected %d, but found %d",
+                        result.rows, cols, scanner.numFields));
+            }
+            result.doGrowRowCapIfNeeded(result.rows + 1);
+            final Object[] data = result.data;
+            final int base = result.rows * result.colCapacity;
+            for (int c = 0; c < cols; ++c) {
+                data[base + c] = scanner.parseField(c, parser, result.rows);
+            }
+            result.rows += 1;
+        } while (scanner.next());
+        result.onRowsInserted(0, result.rows);
+        return result;
+    }
+
+    // parsers for Integer, Long, Double and String, other element types need their own
+    @SuppressWarnings("unchecked")
+    public static <T> @NotNull CellParser<T> getDefaultParser(final @NotNull Class<T> elementType) {
+        if (elementType == Integer.class) { return (CellParser<T>) (CellParser<Integer>) TableCsv::parseInt; }
+        if (elementType == Long.class) { return (CellParser<T>) (CellParser<Long>) TableCsv::parseLong; }
+        if (elementType == Double.class) { return (CellParser<T>) (CellParser<Double>) TableCsv::parseDouble; }
+        if (elementType == String.class) { return (CellParser<T>) (CellParser<String>) TableCsv::parseString; }
+        throw new IllegalArgumentException(
+                "UnsupportedElementType: no default parser for " + elementType.getName() + ", pass a CellParser");
+    }
+
+    public static int parseInt(final byte[] bytes, final int begin, final int end) {
+        final long val = parseLong(bytes, begin, end);
+        if (val != (int) val) {
+            throw new NumberFormatException("IntegerOverflow: " + toAscii(bytes, begin, end));
+        }
+        return (int) val;
+    }
+
+    public static long parseLong(final byte[] bytes, final int begin, final int end) {
+        int i = begin;
+        final boolean neg = (i < end) && bytes[i] == '-';
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            ++i;
+        }
+        if (i == end) {
+            throw new NumberFormatException("InvalidNumber: \"" + toAscii(bytes, begin, end) + "\"");
+        }
+        // accumulated negative, so Long.MIN_VALUE fits
+        long result = 0;
+        for (; i < end; ++i) {
+            final int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("InvalidNumber: \"" + toAscii(bytes, begin, end) + "\"");
+            }
+            if (result < (Long.MIN_VALUE + digit) / 10) {
+                throw new NumberFormatException("LongOverflow: " + toAscii(bytes, begin, end));
+            }
+            result = result * 10 - digit;
+        }
+        if (!neg && result == Long.MIN_VALUE) {
+            throw new NumberFormatException("LongOverflow: " + toAscii(bytes, begin, end));
+        }
+        return neg ? result : -result;
+    }
+
+    private static final double[] powersOf10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // plain decimals of up to 15 digits are exact as mantissa / 10^k (both exact doubles, one rounding),
+    // anything else (exponents, NaN, more digits) goes through Double.parseDouble
+    public static double parseDouble(final byte[] bytes, final int begin, final int end) {
+        int i = begin;
+        final boolean neg = (i < end) && bytes[i] == '-';
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            ++i;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fracDigits = -1;
+        for (; i < end; ++i) {
+            final byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                ++digits;
+                if (fracDigits >= 0) {
+                    ++fracDigits;
+                }
+            } else if (b == '.' && fracDigits < 0) {
+                fracDigits = 0;
+            } else {
+                break;
+            }
+        }
+        if (i == end && digits > 0 && digits <= 15) {
+            final double val = (fracDigits > 0) ? mantissa / powersOf10[fracDigits] : (double) mantissa;
+            return neg ? -val : val;
+        }
+        return Double.parseDouble(toAscii(bytes, begin, end));
+    }
+
+    public static @NotNull String parseString(final byte[] bytes, final int begin, final int end) {
+        return new String(bytes, begin, end - begin, StandardCharsets.UTF_8);
+    }
+
+    private static String toAscii(final byte[] bytes, final int begin, final int end) {
+        return new String(bytes, begin, end - begin, StandardCharsets.ISO_8859_1);
+    }
+
+    // writing
+
+    public void write(final @NotNull ReadableTable<?> table, final @NotNull Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            write(table, channel);
+        }
+    }
+    public void write(@NotNull ReadableTable<?> table, final @NotNull WritableByteChannel out) throws IOException {
+        if (table instanceof ConcurrentTable<?> concurrent) {
+            table = concurrent.snapshot(); // a consistent copy
+        }
+        TableFormatter<?> renderer = TableFormatter.createCellRendererFrom(table);
+        ChannelSink sink = new ChannelSink(out, bufferSize);
+        StringBuilder sb = sink.buf;
+        if (hasHeader) {
+            for (int c = 0; c < table.cols; ++c) {
+                if (c != 0) {
+                    sb.append(delimiter);
+                }
+                sb.append(c);
+            }
+            sb.append('\n');
+        }
+        for (int r = 0; r < table.rows; ++r) {
+            for (int c = 0; c < table.cols; ++c) {
+                if (c != 0) {
+                    sb.append(delimiter);
+                }
+                doAppendField(sb, renderer.getCellRepr(r, c), r, c);
+            }
+            sb.append('\n');
+            sink.flushIfFull();
+        }
+        sink.finish();
+    }
+
+    protected void doAppendField(final StringBuilder sb, final String repr, final int r, final int c) {
+        if (repr == null) {
+            return; // null: empty field
+        }
+        if (!repr.isEmpty() && !isQuotingNeeded(repr)) {
+            sb.append(repr);
+            return;
+        }
+        if (quote == '\0') {
+            throw new IllegalArgumentException(String.format(
+                    "UnquotableCell: at row %d, col %d: the repr needs quoting, but quoting is off", r, c));
+        }
+        sb.append(quote);
+        for (int i = 0; i < repr.length(); ++i) {
+            final char ch = repr.charAt(i);
+            if (ch == quote) {
+                sb.append(quote);
+            }
+            sb.append(ch);
+        }
+        sb.append(quote);
+    }
+
+    protected boolean isQuotingNeeded(final String repr) {
+        for (int i = 0; i < repr.length(); ++i) {
+            final char ch = repr.charAt(i);
+            if (ch == delimiter || ch == quote || ch == '\n' || ch == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected static void validateSyntaxChar(final char ch, final String name) {
+        if (ch == '\0' || ch > 0x7F || ch == '\n' || ch == '\r') {
+            throw new IllegalArgumentException(String.format(
+                    "IllegalSyntaxChar: the %s has to be an ASCII char other than a line break, found 0x%02X", name, (int) ch));
+        }
+    }
+
+    // Splits the bytes of a channel into records. A record is scanned again from its start after
+    // a refill, so field positions always point into the current buffer.
+    private static final class RecordScanner {
+        final ReadableByteChannel in;
+        final byte delimiter;
+        final byte quote;
+        byte[] buf;
+        ByteBuffer window;
+        int pos = 0;
+        int limit = 0;
+        boolean eof = false;
+        // bytes and record breaks of the first read, for the row estimate
+        long sampleBytes = -1;
+        int sampleRecords = 0;
+
+        int numFields = 0;
+        int[] fieldBegin = new int[16];
+        int[] fieldEnd = new int[16];
+        // 1: quoted, 2: quoted and holding doubled quotes
+        byte[] fieldQuoting = new byte[16];
+        byte[] unescaped = new byte[64];
+
+        RecordScanner(final ReadableByteChannel in, final int bufferSize, final byte delimiter, final byte quote) {
+            this.in = in;
+            this.delimiter = delimiter;
+            this.quote = quote;
+            this.buf = new byte[bufferSize];
+            this.window = ByteBuffer.wrap(buf);
+        }
+
+        boolean next() throws IOException {
+            while (true) {
+                if (pos == limit && eof) {
+                    return false;
+                }
+                final int recordEnd = (pos == limit) ? -1 : scanRecord();
+                if (recordEnd >= 0) {
+                    pos = recordEnd;
+                    return true;
+                }
+                refill();
+            }
+        }
+
+        // end of the record starting at pos (after its line break), -1 if the buffer ends first
+        private int scanRecord() {
+            numFields = 0;
+            int i = pos;
+            while (true) {
+                if (quote != 0 && i < limit && buf[i] == quote) {
+                    final int begin = i + 1;
+                    byte quoting = 1;
+                    int j = begin;
+                    while (true) {
+                        if (j >= limit) {
+                            if (eof) {
+                                throw new IllegalArgumentException("UnclosedQuote: the input ends inside a quoted field");
+                            }
+                            return -1;
+                        }
+                        if (buf[j] == quote) {
+                            if (j + 1 >= limit && !eof) {
+                                return -1;
+                            }
+                            if (j + 1 < limit && buf[j + 1] == quote) {
+                                quoting = 2;
+                                j += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        ++j;
+                    }
+                    addField(begin, j, quoting);
+                    i = j + 1;
+                } else {
+                    int j = i;
+                    while (j < limit && buf[j] != delimiter && buf[j] != '\n') {
+                        ++j;
+                    }
+                    if (j >= limit && !eof) {
+                        return -1;
+                    }
+                    // CRLF, or a CR right before the end of the input
+                    final int end = (j > i && buf[j - 1] == '\r' && (j == limit || buf[j] == '\n')) ? j - 1 : j;
+                    addField(i, end, (byte) 0);
+                    i = j;
+                }
+                if (i >= limit) {
+                    return i; // eof ends the last record
+                }
+                final byte b = buf[i];
+                if (b == delimiter) {
+                    ++i;
+                } else if (b == '\n') {
+                    return i + 1;
+                } else if (b == '\r') {
+                    if (i + 1 >= limit && !eof) {
+                        return -1;
+                    }
+                    return (i + 1 < limit && buf[i + 1] == '\n') ? i + 2 : i + 1;
+                } else {
+                    throw new IllegalArgumentException(String.format(
+                            "MalformedField: unexpected '%c' after the closing quote of field %d", (char) b, numFields - 1));
+                }
+            }
+        }
+
+        private void addField(final int begin, final int end, final byte quoting) {
+            if (numFields == fieldBegin.length) {
+                fieldBegin = Arrays.copyOf(fieldBegin, numFields * 2);
+                fieldEnd = Arrays.copyOf(fieldEnd, numFields * 2);
+                fieldQuoting = Arrays.copyOf(fieldQuoting, numFields * 2);
+            }
+            fieldBegin[numFields] = begin;
+            fieldEnd[numFields] = end;
+            fieldQuoting[numFields] = quoting;
+            ++numFields;
+        }
+
+        private void refill() throws IOException {
+            if (pos > 0) {
+                System.arraycopy(buf, pos, buf, 0, limit - pos);
+                limit -= pos;
+                pos = 0;
+            } else if (limit == buf.length) {
+                // one record is longer than the buffer
+                buf = Arrays.copyOf(buf, buf.length * 2);
+                window = ByteBuffer.wrap(buf);
+            }
+            window.limit(buf.length).position(limit);
+            final int n = in.read(window);
+            if (n < 0) {
+                eof = true;
+            } else {
+                limit += n;
+            }
+            if (sampleBytes < 0 && limit > 0) {
+                sampleBytes = limit;
+                // a doubled quote flips twice, so only line breaks inside quoted fields are skipped
+                boolean quoted = false;
+                for (int i = 0; i < limit; ++i) {
+                    if (buf[i] == quote && quote != 0) {
+                        quoted = !quoted;
+                    } else if (buf[i] == '\n' && !quoted) {
+                        ++sampleRecords;
+                    }
+                }
+            }
+        }
+
+        // rows still to come (the current record included), from the line breaks in the first buffer
+        int estimateRecords(final long sizeHint) {
+            if (sampleBytes <= 0 || sampleRecords == 0 || sizeHint < 0) {
+                return 0;
+            }
+            final long estimate = sizeHint * sampleRecords / sampleBytes;
+            // a little slack, so a slightly longer file needs no reallocation
+            return (int) Math.min(Integer.MAX_VALUE - 8, estimate + estimate / 16 + 1);
+        }
+
+        <T> T parseField(final int fieldIndex, final CellParser<? extends T> parser, final int rowIndex) {
+            final int begin = fieldBegin[fieldIndex];
+            final int end = fieldEnd[fieldIndex];
+            final byte quoting = fieldQuoting[fieldIndex];
+            if (quoting == 0 && begin == end) {
+                return null;
+            }
+            try {
+                if (quoting == 2) {
+                    final int len = doUnescape(begin, end);
+                    return parser.parse(unescaped, 0, len);
+                }
+                return parser.parse(buf, begin, end);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(String.format(
+                        "InvalidCell: at row %d, col %d: %s", rowIndex, fieldIndex, e.getMessage()), e);
+            }
+        }
+
+        private int doUnescape(final int begin, final int end) {
+            if (unescaped.length < end - begin) {
+                unescaped = new byte[Math.max(end - begin, unescaped.length * 2)];
+            }
+            int len = 0;
+            for (int i = begin; i < end; ++i) {
+                unescaped[len++] = buf[i];
+                if (buf[i] == quote) {
+                    ++i; // skip the second quote
+                }
+            }
+            return len;
+        }
+    }
+
+    // bounded char buffer in front of a channel, encoded as UTF-8 whenever it fills up
+    private static final class ChannelSink {
+        final WritableByteChannel out;
+        final StringBuilder buf;
+        final int chunkSize;
+        char[] chars;
+        final ByteBuffer bytes;
+        final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        ChannelSink(final WritableByteChannel out, final int chunkSize) {
+            this.out = out;
+            // a row may overshoot the chunk a bit before the next flush check
+            this.buf = new StringBuilder(chunkSize + chunkSize / 4);
+            this.chunkSize = chunkSize;
+            this.chars = new char[chunkSize + chunkSize / 4];
+            this.bytes = ByteBuffer.allocateDirect(Math.max(chunkSize, 16));
+        }
+
+        void flushIfFull() throws IOException {
+            if (buf.length() >= chunkSize) {
+                doEncode(false);
+            }
+        }
+
+        void finish() throws IOException {
+            doEncode(true);
+            while (encoder.flush(bytes).isOverflow()) {
+                doDrain();
+            }
+            doDrain();
+        }
+
+        // the encoder reads a char[] (a CharBuffer over the StringBuilder would go char by char)
+        private void doEncode(final boolean endOfInput) throws IOException {
+            final int len = buf.length();
+            if (chars.length < len) {
+                chars = new char[len];
+            }
+            buf.getChars(0, len, chars, 0);
+            CharBuffer in = CharBuffer.wrap(chars, 0, len);
+            while (encoder.encode(in, bytes, endOfInput).isOverflow()) {
+                doDrain();
+            }
+            // a trailing high surrogate waits for the rest of its pair
+            buf.delete(0, in.position());
+        }
+
+        private void doDrain() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+            bytes.clear();
+        }
+    }
+}
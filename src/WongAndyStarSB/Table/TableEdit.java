@@ -0,0 +1,251 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+
+// A batch of structural edits on a Table, applied in one go by apply().
+// All indices refer to the table as it was when the edit began, so the calls can come in any order:
+//  remove:  the row/col is dropped
+//  insert:  new rows/cols go before the given index (== size appends), in call order
+//  move:    the row/col goes before the given index, after anything inserted there earlier
+// apply() computes the final order once, then moves the cells in a single pass per axis
+// (or into one new buffer if the edit needs more capacity or reorders rows/cols).
+public class TableEdit<E> {
+
+    protected final Table<E> table;
+    protected final int beginModCount;
+    protected final Axis rowAxis;
+    protected final Axis colAxis;
+    protected boolean applied = false;
+
+    protected TableEdit(final Table<E> table) {
+        this.table = table;
+        this.beginModCount = table.modCount;
+        this.rowAxis = new Axis(table.rows);
+        this.colAxis = new Axis(table.cols);
+    }
+
+    // rows
+
+    public TableEdit<E> removeRow(final int rowIndex) {
+        validateNotApplied();
+        table.validateRowIndex(rowIndex);
+        rowAxis.remove(rowIndex, "row");
+        return this;
+    }
+
+    // [begin, end)
+    public TableEdit<E> removeRows(final int beginRowIdx, final int endRowIdx) {
+        validateNotApplied();
+        table.validateRowBeginEnd(beginRowIdx, endRowIdx);
+        for (int r = beginRowIdx; r < endRowIdx; ++r) {
+            rowAxis.remove(r, "row");
+        }
+        return this;
+    }
+
+    public TableEdit<E> insertRows(final int beforeRowIdx, final int numRows) {
+        validateNotApplied();
+        table.validateEndRowIndex(beforeRowIdx);
+        table.validateNonNeg(numRows);
+        for (int i = 0; i < numRows; ++i) {
+            rowAxis.insert(beforeRowIdx, null);
+        }
+        return this;
+    }
+
+    // row has to match the number of cols after the edit
+    public TableEdit<E> insertRow(final int beforeRowIdx, final @Nullable E[] row) {
+        validateNotApplied();
+        table.validateEndRowIndex(beforeRowIdx);
+        rowAxis.insert(beforeRowIdx, row);
+        return this;
+    }
+
+    public TableEdit<E> moveRow(final int rowIndex, final int beforeRowIdx) {
+        validateNotApplied();
+        table.validateRowIndex(rowIndex);
+        table.validateEndRowIndex(beforeRowIdx);
+        rowAxis.move(rowIndex, beforeRowIdx, "row");
+        return this;
+    }
+
+    // cols
+
+    public TableEdit<E> removeCol(final int colIndex) {
+        validateNotApplied();
+        table.validateColIndex(colIndex);
+        colAxis.remove(colIndex, "col");
+        return this;
+    }
+
+    // [begin, end)
+    public TableEdit<E> removeCols(final int beginColIdx, final int endColIdx) {
+        validateNotApplied();
+        table.validateColBeginEnd(beginColIdx, endColIdx);
+        for (int c = beginColIdx; c < endColIdx; ++c) {
+            colAxis.remove(c, "col");
+        }
+        return this;
+    }
+
+    public TableEdit<E> insertCols(final int beforeColIdx, final int numCols) {
+        validateNotApplied();
+        table.validateEndColIndex(beforeColIdx);
+        table.validateNonNeg(numCols);
+        for (int i = 0; i < numCols; ++i) {
+            colAxis.insert(beforeColIdx, null);
+        }
+        return this;
+    }
+
+    // col has to match the number of rows after the edit
+    public TableEdit<E> insertCol(final int beforeColIdx, final @Nullable E[] col) {
+        validateNotApplied();
+        table.validateEndColIndex(beforeColIdx);
+        colAxis.insert(beforeColIdx, col);
+        return this;
+    }
+
+    public TableEdit<E> moveCol(final int colIndex, final int beforeColIdx) {
+        validateNotApplied();
+        table.validateColIndex(colIndex);
+        table.validateEndColIndex(beforeColIdx);
+        colAxis.move(colIndex, beforeColIdx, "col");
+        return this;
+    }
+
+    // apply
+
+    public @NotNull Table<E> apply() {
+        validateNotApplied();
+        if (table.modCount != beginModCount) {
+            throw new IllegalStateException("ConcurrentModification: the table was changed after the edit began");
+        }
+        final int[] rowSrc = rowAxis.buildSrcMap();
+        final int[] colSrc = colAxis.buildSrcMap();
+        rowAxis.validateInsertedLengths(colSrc.length, "MismatchRowSize");
+        colAxis.validateInsertedLengths(rowSrc.length, "MismatchColSize");
+        applied = true;
+        table.doRemap(rowSrc, colSrc, Axis.isMonotonic(rowSrc) && Axis.isMonotonic(colSrc));
+        // inserted cols first, so the values of an inserted row win where they cross
+        for (int c = 0; c < colSrc.length; ++c) {
+            Object[] vals = (colSrc[c] < 0) ? colAxis.insertedVals.get(-colSrc[c] - 1) : null;
+            if (vals != null) {
+                table.doCopyColIn(vals, c);
+            }
+        }
+        for (int r = 0; r < rowSrc.length; ++r) {
+            Object[] vals = (rowSrc[r] < 0) ? rowAxis.insertedVals.get(-rowSrc[r] - 1) : null;
+            if (vals != null) {
+                table.doCopyRowIn(vals, r);
+            }
+        }
+        // indexes follow their columns before onTableChange rebuilds them
+        table.doRemapIndexCols(colSrc);
+        table.doRemapOrderedIndexCols(colSrc);
+        table.onTableChange();
+        return table;
+    }
+
+    public boolean isApplied() {
+        return applied;
+    }
+
+    // throw if condition methods
+
+    protected void validateNotApplied() {
+        if (applied) {
+            throw new IllegalStateException("EditAlreadyApplied: an edit can only be applied once");
+        }
+    }
+
+    // the pending edits along one axis
+    protected static final class Axis {
+        final int size;
+        final boolean[] removed;
+        final boolean[] moved;
+        // inserted and moved lines, in call order, keyed by the index they go before
+        final ArrayList<int[]> placed = new ArrayList<>();
+        final ArrayList<Object[]> insertedVals = new ArrayList<>();
+
+        Axis(final int size) {
+            this.size = size;
+            this.removed = new boolean[size];
+            this.moved = new boolean[size];
+        }
+
+        void remove(final int index, final String axisName) {
+            if (moved[index]) {
+                throw new IllegalArgumentException(String.format(
+                        "ConflictingEdit: %s %d is both moved and removed", axisName, index));
+            }
+            removed[index] = true;
+        }
+
+        void insert(final int before, final Object[] vals) {
+            insertedVals.add(vals);
+            // negative src: -(position in insertedVals) - 1
+            placed.add(new int[] {before, -insertedVals.size()});
+        }
+
+        void move(final int index, final int before, final String axisName) {
+            if (removed[index] || moved[index]) {
+                throw new IllegalArgumentException(String.format(
+                        "ConflictingEdit: %s %d is already %s", axisName, index, removed[index] ? "removed" : "moved"));
+            }
+            moved[index] = true;
+            placed.add(new int[] {before, index});
+        }
+
+        // result[newIndex] = old index, or -(k + 1) for the k-th inserted line
+        int[] buildSrcMap() {
+            // stable, so lines placed before the same index keep their call order
+            ArrayList<int[]> sorted = new ArrayList<>(placed);
+            sorted.sort((a, b) -> Integer.compare(a[0], b[0]));
+            int newSize = sorted.size();
+            for (int i = 0; i < size; ++i) {
+                if (!removed[i] && !moved[i]) {
+                    newSize += 1;
+                }
+            }
+            int[] result = new int[newSize];
+            int k = 0;
+            int out = 0;
+            for (int i = 0; i <= size; ++i) {
+                while (k < sorted.size() && sorted.get(k)[0] == i) {
+                    result[out++] = sorted.get(k++)[1];
+                }
+                if (i < size && !removed[i] && !moved[i]) {
+                    result[out++] = i;
+                }
+            }
+            return result;
+        }
+
+        // old lines keep their relative order, so they can be shifted in place
+        static boolean isMonotonic(final int[] srcMap) {
+            int last = -1;
+            for (final int src : srcMap) {
+                if (src >= 0) {
+                    if (src < last) {
+                        return false;
+                    }
+                    last = src;
+                }
+            }
+            return true;
+        }
+
+        void validateInsertedLengths(final int expectedLen, final String tag) {
+            for (final Object[] vals : insertedVals) {
+                if (vals != null && vals.length != expectedLen) {
+                    throw new IllegalArgumentException(String.format(
+                            "%s: expected %d but %d were given", tag, expectedLen, vals.length));
+                }
+            }
+        }
+    }
+}
@@ -1,13 +1,26 @@
-package Table;
+package WongAndyStarSB.Table;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
 public class TableFormatter<E> {
 
     protected static final int headerReserveCap = 80;
     protected static final String defaultNullRepr = "null";
     protected static final int defaultDataMatIndentSize = 2;
+    // streaming output is handed to the Appendable in chunks of about this many chars
+    protected static final int defaultStreamChunkSize = 8192;
+    // widths below this are counted in a per-column histogram, wider cells go to an overflow bucket
+    protected static final int widthHistCap = 64;
+    // pending single-cell updates beyond max(this, cells / 8) fall back to rescanning their columns
+    protected static final int minPendingCellsLimit = 64;
 
     protected @Nullable ReadableTable<E> table;
 
@@ -18,6 +31,18 @@ public class TableFormatter<E> {
     protected boolean colWidthsUseDefault;
     protected boolean colWidthsOutdated;
 
+    // incremental col widths, valid while colWidthsOutdated is false
+    private @Nullable ColWidthStat @Nullable [] colStats = null;
+    private boolean someColsDirty = false;
+    private int [] pendingRows = new int [0];
+    private int [] pendingCols = new int [0];
+    private int pendingCount = 0;
+
+    // rendered cells, see doGetCellRepr
+    protected boolean reprCacheEnabled = true;
+    protected boolean reprCacheAllValues = false;
+    protected @Nullable CellReprCache reprCache = null;
+
     protected TableFormatter(
             @Nullable ReadableTable<E> table,
             String nullRepr,
@@ -47,16 +72,84 @@ public class TableFormatter<E> {
                 new int [table.colCapacity], table.cols, true, true);
     }
 
+    // renders single cells only (TableCsv), a null cell comes out as null
+    protected static <T> TableFormatter<T> createCellRendererFrom(@NotNull ReadableTable<T> table) {
+        return new TableFormatter<T>(
+                table,
+                null,
+                0,
+                null, 0, true, true);
+    }
+
     public String getTableRepr() {
         requireTableNonNull();
         doUpdateColWidths();
-        return doGetTableRepr();
+        final long start = TableMetrics.start();
+        final String result = doGetTableRepr();
+        TableMetrics.recordRender(table, false, result.length(), start);
+        return result;
     }
 
     public void appendTableRepr(StringBuilder sb) {
         requireTableNonNull();
         doUpdateColWidths();
+        final long start = TableMetrics.start();
+        final int oldLen = sb.length();
         doAppendTableRepr(sb);
+        TableMetrics.recordRender(table, false, sb.length() - oldLen, start);
+    }
+
+    // streaming: the repr is rendered into a buffer of about chunkSize chars which is handed to out
+    // whenever it fills up, so memory use does not depend on the table size
+    public void appendTableRepr(Appendable out) throws IOException {
+        appendTableRepr(out, defaultStreamChunkSize);
+    }
+    public void appendTableRepr(Appendable out, final int chunkSize) throws IOException {
+        requireTableNonNull();
+        validateChunkSize(chunkSize);
+        doUpdateColWidths();
+        final long start = TableMetrics.start();
+        ChunkedSink sink = new ChunkedSink(out, chunkSize);
+        doStreamTableRepr(sink);
+        sink.flush();
+        TableMetrics.recordRender(table, true, sink.written, start);
+    }
+    // out is flushed but not closed, chars are encoded as UTF-8
+    public void writeTableRepr(OutputStream out) throws IOException {
+        writeTableRepr(out, defaultStreamChunkSize);
+    }
+    public void writeTableRepr(OutputStream out, final int chunkSize) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), chunkSize);
+        appendTableRepr(writer, chunkSize);
+        writer.flush();
+    }
+
+    // the repr of one cell as it appears in the table repr, without the padding
+    public String getCellRepr(final int r, final int c) {
+        requireTableNonNull(); assert table != null; // assert is just for IDE
+        return doGetCellRepr(r, c);
+    }
+
+    public void appendHeader(Appendable out) throws IOException {
+        requireTableNonNull();
+        doUpdateColWidths();
+        StringBuilder sb = new StringBuilder(headerReserveCap);
+        doAppendHeader(sb);
+        out.append(sb);
+    }
+    public void appendDataRow(Appendable out, final int r) throws IOException {
+        requireTableNonNull();
+        doUpdateColWidths();
+        ChunkedSink sink = new ChunkedSink(out, defaultStreamChunkSize);
+        doStreamDataRow(sink, r);
+        sink.flush();
+    }
+    public void appendDataCell(Appendable out, final int r, final int c) throws IOException {
+        requireTableNonNull();
+        doUpdateColWidths(); assert colWidths != null; // assert is just for IDE
+        StringBuilder sb = new StringBuilder(colWidths[c] + 4);
+        doAppendDataCell(sb, colWidths, r, c);
+        out.append(sb);
     }
 
     public void appendHeader(StringBuilder sb) {
@@ -75,6 +168,22 @@ public class TableFormatter<E> {
         doAppendDataCell(sb, colWidths, r, c);
     }
 
+    // repr cache
+    //  by default only cells holding tables (whose elements are not tables themselves) are cached,
+    //  they are validated by identity and modCount; setReprCacheAllValues(true) caches every non-null
+    //  cell by identity, which is only correct if the cell objects never change their toString()
+
+    public @Nullable CellReprCache getReprCache() {
+        return reprCache;
+    }
+    public void setReprCache(@Nullable CellReprCache reprCache) {
+        this.reprCache = reprCache;
+        this.reprCacheEnabled = (reprCache != null);
+    }
+    public void setReprCacheAllValues(final boolean reprCacheAllValues) {
+        this.reprCacheAllValues = reprCacheAllValues;
+    }
+
     public int [] calDataMatColWidths() {
         requireTableNonNull(); assert table != null; // assert is just for IDE
 
@@ -83,27 +192,291 @@ public class TableFormatter<E> {
             doUpdateColWidths(); assert colWidths != null; // assert is just for IDE
             System.arraycopy(colWidths, 0, result, 0, table.cols);
         } else {
+            final long start = TableMetrics.start();
             doCalDataMatColWidths(result);
+            TableMetrics.recordFormatRecompute(table, true, table.cols, start);
         }
         return result;
     }
 
+    // change handlers, called by the table after it has been modified
+
     protected void handleTableChange() {
         // mark all cache outdated
         colWidthsOutdated = true;
+        pendingCount = 0;
+    }
+
+    protected void handleCellChange(final int r, final int c) {
+        if (isTrackingSkipped()) { return; }
+        assert colStats != null; // ensured by isTrackingSkipped
+        ColWidthStat stat = colStats[c];
+        if (stat == null || stat.dirty) {
+            return;
+        }
+        doAddPendingCell(r, c);
+    }
+
+    protected void handleRowChange(final int r) {
+        if (isTrackingSkipped()) { return; }
+        assert table != null;
+        for (int c = 0; c < table.cols; ++c) {
+            handleCellChange(r, c);
+        }
+    }
+
+    protected void handleColChange(final int c) {
+        if (isTrackingSkipped()) { return; }
+        doMarkColDirty(c);
+    }
+
+    // rows [begin, begin + count) are new, rows at and after begin moved down by count
+    protected void handleRowsInserted(final int begin, final int count) {
+        if (isTrackingSkipped()) { return; }
+        assert table != null && colStats != null;
+        for (int i = 0; i < pendingCount; ++i) {
+            if (pendingRows[i] >= begin) { pendingRows[i] += count; }
+        }
+        final boolean rescan = (long) count * table.cols > calPendingCellsLimit();
+        for (int c = 0; c < table.cols; ++c) {
+            ColWidthStat stat = colStats[c];
+            if (stat == null) { continue; }
+            stat.insertRows(begin, count, table.rows);
+            if (stat.dirty) { continue; }
+            if (rescan) {
+                doMarkColDirty(c);
+                continue;
+            }
+            for (int r = begin; r < begin + count; ++r) {
+                doAddPendingCell(r, c);
+            }
+        }
+    }
+
+    // rows [begin, end) were removed, rows after them moved up
+    protected void handleRowsRemoved(final int begin, final int end) {
+        if (isTrackingSkipped()) { return; }
+        assert colStats != null;
+        final int count = end - begin;
+        int kept = 0;
+        if (reprCache != null && isReprCacheUsable()) {
+            doQueueChangedNestedCells();
+        }
+        for (int i = 0; i < pendingCount; ++i) {
+            final int r = pendingRows[i];
+            if (r >= begin && r < end) { continue; }
+            pendingRows[kept] = (r >= end) ? r - count : r;
+            pendingCols[kept] = pendingCols[i];
+            ++kept;
+        }
+        pendingCount = kept;
+        for (ColWidthStat stat : colStats) {
+            if (stat != null) {
+                stat.removeRows(begin, end);
+                someColsDirty |= stat.dirty;
+            }
+        }
+    }
+
+    // cols [begin, begin + count) are new, cols at and after begin moved right by count
+    protected void handleColsInserted(final int begin, final int count) {
+        if (isTrackingSkipped()) { return; }
+        assert table != null && colStats != null;
+        for (int i = 0; i < pendingCount; ++i) {
+            if (pendingCols[i] >= begin) { pendingCols[i] += count; }
+        }
+        final int oldCols = table.cols - count;
+        if (colStats.length < table.cols) {
+            ColWidthStat[] grown = new ColWidthStat[Math.max(table.colCapacity, table.cols)];
+            System.arraycopy(colStats, 0, grown, 0, oldCols);
+            colStats = grown;
+        }
+        System.arraycopy(colStats, begin, colStats, begin + count, oldCols - begin);
+        for (int c = begin; c < begin + count; ++c) {
+            colStats[c] = new ColWidthStat(table.rowCapacity);
+        }
+        someColsDirty = true;
+    }
+
+    // cols [begin, end) were removed, cols after them moved left
+    protected void handleColsRemoved(final int begin, final int end) {
+        if (isTrackingSkipped()) { return; }
+        assert table != null && colStats != null;
+        final int count = end - begin;
+        int kept = 0;
+        for (int i = 0; i < pendingCount; ++i) {
+            final int c = pendingCols[i];
+            if (c >= begin && c < end) { continue; }
+            pendingRows[kept] = pendingRows[i];
+            pendingCols[kept] = (c >= end) ? c - count : c;
+            ++kept;
+        }
+        pendingCount = kept;
+        final int oldCols = table.cols + count;
+        System.arraycopy(colStats, end, colStats, begin, oldCols - end);
+        for (int c = table.cols; c < oldCols; ++c) {
+            colStats[c] = null;
+        }
+    }
+
+    private boolean isTrackingSkipped() {
+        return !colWidthsUseDefault || colWidthsOutdated || colStats == null;
+    }
+
+    private int calPendingCellsLimit() {
+        assert table != null;
+        return (int) Math.max(minPendingCellsLimit, (long) table.rows * table.cols / 8);
+    }
+
+    private void doAddPendingCell(final int r, final int c) {
+        if (pendingCount >= calPendingCellsLimit()) {
+            // too many single cells, rescanning the touched columns is cheaper
+            for (int i = 0; i < pendingCount; ++i) {
+                doMarkColDirty(pendingCols[i]);
+            }
+            pendingCount = 0;
+            doMarkColDirty(c);
+            return;
+        }
+        if (pendingCount == pendingRows.length) {
+            final int newLen = Math.max(16, pendingCount * 3 / 2);
+            int [] newRows = new int [newLen];
+            int [] newCols = new int [newLen];
+            System.arraycopy(pendingRows, 0, newRows, 0, pendingCount);
+            System.arraycopy(pendingCols, 0, newCols, 0, pendingCount);
+            pendingRows = newRows;
+            pendingCols = newCols;
+        }
+        pendingRows[pendingCount] = r;
+        pendingCols[pendingCount] = c;
+        ++pendingCount;
     }
+
+    private void doMarkColDirty(final int c) {
+        assert colStats != null;
+        ColWidthStat stat = colStats[c];
+        if (stat != null) {
+            stat.dirty = true;
+        }
+        someColsDirty = true;
+    }
+
     private void doUpdateColWidths() {
         assert table != null; // ensure by call site
-        if (!colWidthsUseDefault || !colWidthsOutdated) {
+        if (!colWidthsUseDefault) {
             return;
         }
         if (colWidths == null || colWidths.length < table.cols) {
-            colWidths = new int [table.colCapacity];
+            colWidths = new int [Math.max(table.colCapacity, table.cols)];
         }
         colWidthsLen = table.cols;
-        doCalDataMatColWidths(colWidths);
-        colWidthsOutdated = false;
-        return;
+        final long start = TableMetrics.start();
+        if (colWidthsOutdated || colStats == null) {
+            doRebuildColStats();
+            colWidthsOutdated = false;
+            TableMetrics.recordFormatRecompute(table, true, table.cols, start);
+            return;
+        }
+        if (reprCache != null && isReprCacheUsable()) {
+            doQueueChangedNestedCells();
+        }
+        for (int i = 0; i < pendingCount; ++i) {
+            final int r = pendingRows[i];
+            final int c = pendingCols[i];
+            ColWidthStat stat = colStats[c];
+            assert stat != null;
+            if (!stat.dirty) {
+                stat.setCellWidth(r, doCalCellReprLen(r, c));
+                someColsDirty |= stat.dirty;
+            }
+        }
+        pendingCount = 0;
+        // removals may have narrowed a column without leaving anything pending, so copy every width
+        int rescanned = 0;
+        for (int c = 0; c < table.cols; ++c) {
+            ColWidthStat stat = colStats[c];
+            if (stat == null) {
+                stat = colStats[c] = new ColWidthStat(table.rowCapacity);
+            }
+            if (stat.dirty) {
+                doRescanCol(stat, c);
+                ++rescanned;
+            }
+            colWidths[c] = stat.width;
+        }
+        someColsDirty = false;
+        if (rescanned > 0) {
+            TableMetrics.recordFormatRecompute(table, false, rescanned, start);
+        }
+    }
+
+    // a nested table can change without this table hearing about it, so cells whose cached repr
+    // is missing or stale are queued like edited cells (cheap: no toString for unchanged cells)
+    private void doQueueChangedNestedCells() {
+        assert table != null && reprCache != null && colStats != null;
+        for (int r = 0; r < table.rows; ++r) {
+            for (int c = 0; c < table.cols; ++c) {
+                Object val = table.doGetElementAsObject(r, c);
+                if (val == null || !isReprCacheable(val)) {
+                    continue;
+                }
+                ColWidthStat stat = colStats[c];
+                if (stat != null && !stat.dirty && !reprCache.isFresh(r, c, val, calReprStamp(val))) {
+                    doAddPendingCell(r, c);
+                }
+            }
+        }
+    }
+
+    private void doRebuildColStats() {
+        assert table != null && colWidths != null;
+        colStats = new ColWidthStat[Math.max(table.colCapacity, table.cols)];
+        if (table.hasImplicitNulls()) {
+            doRebuildColStatsFromNonNull();
+            return;
+        }
+        for (int c = 0; c < table.cols; ++c) {
+            ColWidthStat stat = new ColWidthStat(table.rowCapacity);
+            doRescanCol(stat, c);
+            colStats[c] = stat;
+            colWidths[c] = stat.width;
+        }
+        pendingCount = 0;
+        someColsDirty = false;
+    }
+
+    // every cell starts with the null width, then only the stored cells are rendered
+    private void doRebuildColStatsFromNonNull() {
+        assert table != null && colWidths != null && colStats != null;
+        final int nullLen = nullRepr.length();
+        for (int c = 0; c < table.cols; ++c) {
+            ColWidthStat stat = new ColWidthStat(table.rowCapacity);
+            stat.reset(table.rows);
+            for (int r = 0; r < table.rows; ++r) {
+                stat.addCellWidth(r, nullLen);
+            }
+            stat.dirty = false;
+            colStats[c] = stat;
+        }
+        final ColWidthStat[] stats = colStats;
+        table.forEachNonNull((r, c, val) -> stats[c].setCellWidth(r, doCalCellReprLen(r, c)));
+        for (int c = 0; c < table.cols; ++c) {
+            if (colStats[c].dirty) {
+                doRescanCol(colStats[c], c);
+            }
+            colWidths[c] = colStats[c].width;
+        }
+        pendingCount = 0;
+        someColsDirty = false;
+    }
+
+    private void doRescanCol(ColWidthStat stat, final int c) {
+        assert table != null;
+        stat.reset(table.rows);
+        for (int r = 0; r < table.rows; ++r) {
+            stat.addCellWidth(r, doCalCellReprLen(r, c));
+        }
+        stat.dirty = false;
     }
 
     private String doGetTableRepr() {
@@ -148,8 +521,7 @@ public class TableFormatter<E> {
 
     private void doAppendDataCell(StringBuilder sb, final int [] colWidths, final int r, final int c) {
         assert table != null; // please ensure this at call site
-        E val = table.doGetElementCasted(r, c);
-        String s = (val == null) ? nullRepr : val.toString();
+        String s = doGetCellRepr(r, c);
         int len = s.length();
         // floor div + 1
         appendRepeatSpace(sb, (colWidths[c] - len) / 2 + 1);
@@ -158,6 +530,95 @@ public class TableFormatter<E> {
         appendRepeatSpace(sb, (colWidths[c] - len + 2 - 1) / 2 + 1);
     }
 
+    // same output as doAppendTableRepr, but the buffer is drained into the sink cell by cell
+    private void doStreamTableRepr(ChunkedSink sink) throws IOException {
+        assert table != null; // ensure this at call site
+        StringBuilder sb = sink.buf;
+        doAppendHeader(sb);
+        sb.append(" [\n");
+        if (table.rows == 0) {
+            sb.append("(empty)");
+        } else {
+            appendRepeatSpace(sb, dataMatIndentSize);
+            doStreamDataRow(sink, 0);
+            for (int r = 1; r < table.rows; ++r) {
+                sb.append(",\n");
+                appendRepeatSpace(sb, dataMatIndentSize);
+                doStreamDataRow(sink, r);
+            }
+        }
+        sb.append("\n]");
+    }
+    private void doStreamDataRow(ChunkedSink sink, final int r) throws IOException {
+        assert table != null; // please ensure this at call site
+        StringBuilder sb = sink.buf;
+        if (table.cols == 0) {
+            sb.append("[ (empty row) ]");
+            return;
+        }
+        sb.append("[");
+        doAppendDataCell(sb, colWidths, r, 0);
+        sink.flushIfFull();
+        for (int c = 1; c < table.cols; ++c) {
+            sb.append(',');
+            doAppendDataCell(sb, colWidths, r, c);
+            sink.flushIfFull();
+        }
+        sb.append("]");
+    }
+
+    private int doCalCellReprLen(final int r, final int c) {
+        assert table != null; // please ensure this at call site
+        if (!isReprCacheUsable()) {
+            return table.doCalElementReprLen(r, c, nullRepr);
+        }
+        return doGetCellRepr(r, c).length();
+    }
+
+    private String doGetCellRepr(final int r, final int c) {
+        assert table != null; // please ensure this at call site
+        if (!isReprCacheUsable()) {
+            return table.doGetElementRepr(r, c, nullRepr);
+        }
+        Object val = table.doGetElementAsObject(r, c);
+        if (val == null || !isReprCacheable(val)) {
+            return (val == null) ? nullRepr : val.toString();
+        }
+        if (reprCache == null) {
+            reprCache = CellReprCache.create();
+        }
+        final int stamp = calReprStamp(val);
+        String repr = reprCache.get(r, c, val, stamp);
+        if (repr == null) {
+            repr = val.toString();
+            reprCache.put(r, c, val, stamp, repr);
+        }
+        return repr;
+    }
+
+    private boolean isReprCacheUsable() {
+        assert table != null;
+        return reprCacheEnabled && (reprCacheAllValues || mayHoldTables(table.elementType));
+    }
+
+    private boolean isReprCacheable(final Object val) {
+        if (val instanceof ReadableTable<?> t) {
+            // a table holding tables can change through its cells without its modCount moving
+            return !mayHoldTables(t.elementType);
+        }
+        return reprCacheAllValues;
+    }
+
+    private static int calReprStamp(final Object val) {
+        return (val instanceof ReadableTable<?> t) ? t.calModStamp() : 0;
+    }
+
+    private static boolean mayHoldTables(@Nullable Class<?> elementType) {
+        return elementType == null
+                || elementType.isAssignableFrom(ReadableTable.class)
+                || ReadableTable.class.isAssignableFrom(elementType);
+    }
+
     private void doAppendHeader(StringBuilder sb) {
         assert table != null; // ensure this at call site
         sb.append("Table<").append((table.elementType == null ? "Unknown" : table.elementType.getSimpleName()))
@@ -178,8 +639,7 @@ public class TableFormatter<E> {
         // core logic
         for (int r = 0; r < table.rows; ++r) {
             for (int c = 0; c < table.cols; ++c) {
-                E val = table.doGetElementCasted(r, c);
-                int widthRequire = (val == null) ? nullRepr.length() : val.toString().length();
+                int widthRequire = doCalCellReprLen(r, c);
                 if (widthRequire > result[c]) {
                     result[c] = widthRequire;
                 }
@@ -206,10 +666,163 @@ public class TableFormatter<E> {
         }
     }
 
+    protected static void validateChunkSize(final int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "IllegalChunkSize: chunkSize(%d) has to be positive", chunkSize));
+        }
+    }
+
     protected void requireTableNonNull() throws IllegalStateException {
         if (table == null) {
             throw new IllegalStateException("Invalid state");
         }
     }
 
+    // bounded buffer in front of an Appendable, a Writer gets the chars through a reused char[]
+    // instead of Writer.append(CharSequence), which would copy every chunk into a new String
+    private static final class ChunkedSink {
+        final Appendable out;
+        final StringBuilder buf;
+        final int chunkSize;
+        char @Nullable [] chars = null;
+        long written = 0;
+
+        ChunkedSink(Appendable out, final int chunkSize) {
+            this.out = out;
+            // a cell may overshoot the chunk a bit before the next flush check
+            this.buf = new StringBuilder(chunkSize + chunkSize / 4);
+            this.chunkSize = chunkSize;
+        }
+
+        void flushIfFull() throws IOException {
+            if (buf.length() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            final int len = buf.length();
+            if (len == 0) {
+                return;
+            }
+            if (out instanceof Writer writer) {
+                if (chars == null || chars.length < len) {
+                    chars = new char [Math.max(len, chunkSize)];
+                }
+                buf.getChars(0, len, chars, 0);
+                writer.write(chars, 0, len);
+            } else {
+                out.append(buf);
+            }
+            written += len;
+            buf.setLength(0);
+        }
+    }
+
+    // widths of one column: the width of every cell (by row) plus a histogram of them,
+    // so a cell getting narrower only needs a walk down the histogram instead of a rescan
+    private static final class ColWidthStat {
+        int [] cellWidths; // -1: not counted yet
+        final int [] counts = new int [widthHistCap];
+        int overflowCount = 0;
+        int overflowMax = 0;
+        int width = 0;
+        boolean dirty = true;
+
+        ColWidthStat(final int rowCap) {
+            cellWidths = new int [Math.max(rowCap, 1)];
+        }
+
+        void reset(final int rows) {
+            if (cellWidths.length < rows) {
+                cellWidths = new int [rows * 3 / 2];
+            }
+            java.util.Arrays.fill(counts, 0);
+            overflowCount = 0;
+            overflowMax = 0;
+            width = 0;
+        }
+
+        void addCellWidth(final int r, final int w) {
+            cellWidths[r] = w;
+            doCount(w);
+        }
+
+        void setCellWidth(final int r, final int w) {
+            final int old = cellWidths[r];
+            cellWidths[r] = w;
+            if (old == w) {
+                return;
+            }
+            doCount(w);
+            if (old >= 0) {
+                doUncount(old);
+            }
+        }
+
+        void insertRows(final int begin, final int count, final int newRows) {
+            final int oldRows = newRows - count;
+            if (cellWidths.length < newRows) {
+                int [] grown = new int [newRows * 3 / 2];
+                System.arraycopy(cellWidths, 0, grown, 0, oldRows);
+                cellWidths = grown;
+            }
+            System.arraycopy(cellWidths, begin, cellWidths, begin + count, oldRows - begin);
+            java.util.Arrays.fill(cellWidths, begin, begin + count, -1);
+        }
+
+        void removeRows(final int begin, final int end) {
+            if (!dirty) {
+                for (int r = begin; r < end; ++r) {
+                    if (cellWidths[r] >= 0) {
+                        doUncount(cellWidths[r]);
+                    }
+                }
+            }
+            // rows beyond the old logical size hold stale values, they are never read
+            System.arraycopy(cellWidths, end, cellWidths, begin, cellWidths.length - end);
+        }
+
+        private void doCount(final int w) {
+            if (w < widthHistCap) {
+                counts[w] += 1;
+            } else {
+                overflowCount += 1;
+                overflowMax = Math.max(overflowMax, w);
+            }
+            width = Math.max(width, w);
+        }
+
+        private void doUncount(final int w) {
+            if (w < widthHistCap) {
+                counts[w] -= 1;
+                if (w == width && counts[w] == 0) {
+                    width = calHistMax();
+                }
+                return;
+            }
+            overflowCount -= 1;
+            if (w != overflowMax) {
+                return;
+            }
+            if (overflowCount == 0) {
+                overflowMax = 0;
+                width = calHistMax();
+            } else {
+                // the next widest overflow cell is unknown
+                dirty = true;
+            }
+        }
+
+        private int calHistMax() {
+            for (int w = widthHistCap - 1; w > 0; --w) {
+                if (counts[w] > 0) {
+                    return w;
+                }
+            }
+            return 0;
+        }
+    }
+
 }
@@ -0,0 +1,187 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Objects;
+
+// Hash index on one column of a table: cell value -> ascending row ids (a plain int[] per value).
+// The table keeps it up to date from its change notifications. Values are matched with equals/hashCode,
+// null is indexed like any other value.
+final class TableHashIndex {
+
+    int col;
+    private final HashMap<Object, RowIdSet> rowsByVal = new HashMap<>();
+    // the value each row is indexed under, so a changed cell can leave the set of its old value
+    private Object[] rowVals = new Object[0];
+    private int rows = 0;
+
+    TableHashIndex(final int col) {
+        this.col = col;
+    }
+
+    // lookups
+
+    int @NotNull [] getRows(final @Nullable Object val) {
+        final RowIdSet set = rowsByVal.get(val);
+        return (set == null) ? new int[0] : Arrays.copyOf(set.ids, set.size);
+    }
+
+    int countRows(final @Nullable Object val) {
+        final RowIdSet set = rowsByVal.get(val);
+        return (set == null) ? 0 : set.size;
+    }
+
+    // -1 if no row holds val
+    int getFirstRow(final @Nullable Object val) {
+        final RowIdSet set = rowsByVal.get(val);
+        return (set == null) ? -1 : set.ids[0];
+    }
+
+    int getNumDistinct() {
+        return rowsByVal.size();
+    }
+
+    // maintenance, called by the table after it changed
+
+    void doRebuild(final @NotNull ReadableTable<?> table) {
+        rowsByVal.clear();
+        rows = 0;
+        if (rowVals.length > table.rows * 2) {
+            rowVals = new Object[table.rows];
+        } else {
+            Arrays.fill(rowVals, null);
+        }
+        doInsertRows(table, 0, table.rows);
+    }
+
+    // cell (rowIndex, col) may have changed
+    void doUpdateRow(final @NotNull ReadableTable<?> table, final int rowIndex) {
+        final Object val = table.doGetElementAsObject(rowIndex, col);
+        final Object oldVal = rowVals[rowIndex];
+        rowVals[rowIndex] = val;
+        if (Objects.equals(oldVal, val)) {
+            return;
+        }
+        doRemoveId(oldVal, rowIndex);
+        doGetOrCreateSet(val).add(rowIndex);
+    }
+
+    // rows [beginRowIndex, beginRowIndex + count) are new, the table already holds them
+    void doInsertRows(final @NotNull ReadableTable<?> table, final int beginRowIndex, final int count) {
+        if (rows + count > rowVals.length) {
+            rowVals = Arrays.copyOf(rowVals, Math.max(rows + count, rows * 3 / 2));
+        }
+        if (beginRowIndex < rows) {
+            System.arraycopy(rowVals, beginRowIndex, rowVals, beginRowIndex + count, rows - beginRowIndex);
+            doShiftIds(beginRowIndex, count);
+        }
+        rows += count;
+        for (int r = beginRowIndex; r < beginRowIndex + count; ++r) {
+            final Object val = table.doGetElementAsObject(r, col);
+            rowVals[r] = val;
+            doGetOrCreateSet(val).add(r);
+        }
+    }
+
+    // rows [beginRowIndex, endRowIndex) are gone
+    void doRemoveRows(final int beginRowIndex, final int endRowIndex) {
+        for (int r = beginRowIndex; r < endRowIndex; ++r) {
+            // removed rows are one run of ids in each set, the first row of each value removes its whole run
+            final RowIdSet set = rowsByVal.get(rowVals[r]);
+            if (set != null) {
+                set.removeRange(beginRowIndex, endRowIndex);
+                if (set.size == 0) {
+                    rowsByVal.remove(rowVals[r]);
+                }
+            }
+        }
+        final int count = endRowIndex - beginRowIndex;
+        if (endRowIndex < rows) {
+            doShiftIds(endRowIndex, -count);
+        }
+        System.arraycopy(rowVals, endRowIndex, rowVals, beginRowIndex, rows - endRowIndex);
+        Arrays.fill(rowVals, rows - count, rows, null);
+        rows -= count;
+    }
+
+    // helpers
+
+    private RowIdSet doGetOrCreateSet(final Object val) {
+        RowIdSet set = rowsByVal.get(val);
+        if (set == null) {
+            set = new RowIdSet();
+            rowsByVal.put(val, set);
+        }
+        return set;
+    }
+
+    private void doRemoveId(final Object val, final int id) {
+        final RowIdSet set = rowsByVal.get(val);
+        set.remove(id);
+        if (set.size == 0) {
+            rowsByVal.remove(val);
+        }
+    }
+
+    // ids >= fromId move by delta (the order within each set stays)
+    private void doShiftIds(final int fromId, final int delta) {
+        for (RowIdSet set : rowsByVal.values()) {
+            for (int i = set.calLowerBound(fromId); i < set.size; ++i) {
+                set.ids[i] += delta;
+            }
+        }
+    }
+
+    // ascending ids without duplicates
+    private static final class RowIdSet {
+        int[] ids = new int[2];
+        int size = 0;
+
+        void add(final int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            if (size == 0 || ids[size - 1] < id) {
+                // appended rows come in ascending order
+                ids[size++] = id;
+                return;
+            }
+            final int pos = calLowerBound(id);
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            ++size;
+        }
+
+        void remove(final int id) {
+            final int pos = calLowerBound(id);
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            --size;
+        }
+
+        // ids in [beginId, endId)
+        void removeRange(final int beginId, final int endId) {
+            final int begin = calLowerBound(beginId);
+            final int end = calLowerBound(endId);
+            System.arraycopy(ids, end, ids, begin, size - end);
+            size -= end - begin;
+        }
+
+        // first position with ids[pos] >= id
+        int calLowerBound(final int id) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (ids[mid] < id) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Hash joins for ReadableTable.innerJoin/leftJoin/joinStream.
+// The smaller table is hashed on its key cells (build), the other one is probed row range by row range,
+// in parallel for large tables (see RowRangeTask). Every range emits (left row, right row) pairs, so the
+// number of result rows is known before the result is allocated. Results are ordered by left row, then
+// right row, whichever side was hashed. Null key cells never match (a left join keeps their rows).
+// Result cols: every col of the left table, then the non-key cols of the right table.
+final class TableJoin {
+
+    private static final int noRow = -1;
+
+    private TableJoin() {}
+
+    // key cells of one table: heads maps a key to its first row, next[row] is the next row with the same key
+    static final class Build {
+        final HashMap<Object, Integer> heads;
+        final int[] next;
+
+        Build(final HashMap<Object, Integer> heads, final int[] next) {
+            this.heads = heads;
+            this.next = next;
+        }
+
+        int getFirstRow(final Object key) {
+            if (key == null) {
+                return noRow;
+            }
+            final Integer head = heads.get(key);
+            return (head == null) ? noRow : head;
+        }
+    }
+
+    // materialized
+
+    static <E> @NotNull Table<E> doJoin(final @NotNull ReadableTable<E> left, final @NotNull ReadableTable<?> right, final int @NotNull [] leftKeyCols, final int @NotNull [] rightKeyCols, final boolean keepUnmatched) {
+        final boolean buildLeft = left.rows < right.rows;
+        final ReadableTable<?> build = buildLeft ? left : right;
+        final ReadableTable<?> probe = buildLeft ? right : left;
+        final int[] probeKeyCols = buildLeft ? rightKeyCols : leftKeyCols;
+        final Build hashed = doBuild(build, buildLeft ? leftKeyCols : rightKeyCols);
+        // only written with true, a race between ranges is harmless
+        final boolean[] leftMatched = (buildLeft && keepUnmatched) ? new boolean[left.rows] : null;
+
+        final ArrayList<PairList> parts = RowRangeTask.invoke(probe.rows, probe.cols, (rowBegin, rowEnd) -> {
+            PairList pairs = new PairList(rowEnd - rowBegin);
+            for (int p = rowBegin; p < rowEnd; ++p) {
+                int b = hashed.getFirstRow(calKey(probe, p, probeKeyCols));
+                if (b == noRow) {
+                    if (keepUnmatched && !buildLeft) {
+                        pairs.add(p, noRow);
+                    }
+                    continue;
+                }
+                for (; b != noRow; b = hashed.next[b]) {
+                    if (buildLeft) {
+                        pairs.add(b, p);
+                        if (leftMatched != null) {
+                            leftMatched[b] = true;
+                        }
+                    } else {
+                        pairs.add(p, b);
+                    }
+                }
+            }
+            ArrayList<PairList> result = new ArrayList<>(1);
+            result.add(pairs);
+            return result;
+        }, (front, back) -> {
+            front.addAll(back);
+            return front;
+        });
+        final long[] pairs = buildLeft ? calOrderedByLeft(parts, left.rows, leftMatched) : calConcat(parts);
+
+        final int[] rightOutCols = calOutCols(right.cols, rightKeyCols);
+        final int width = left.cols + rightOutCols.length;
+        final int resultRows = pairs.length;
+        final Table<E> result = Table.doCreateWithSizeCapacity(left.elementType, resultRows, width, resultRows, width, TableLayout.ROW_MAJOR);
+        final Object[] dst = result.data;
+        RowRangeTask.invoke(resultRows, width, (rowBegin, rowEnd) -> {
+            for (int i = rowBegin; i < rowEnd; ++i) {
+                final int l = calLeft(pairs[i]);
+                final int r = calRight(pairs[i]);
+                int pos = i * width;
+                for (int c = 0; c < left.cols; ++c) {
+                    dst[pos++] = left.doGetElementAsObject(l, c);
+                }
+                for (int c : rightOutCols) {
+                    dst[pos++] = (r == noRow) ? null : right.doGetElementAsObject(r, c);
+                }
+            }
+            return null;
+        });
+        return result;
+    }
+
+    // streamed
+
+    // the right table is hashed now, the left rows are probed as the stream is consumed (always left as
+    // probe, so the rows come out in left row order without a result to reorder)
+    @SuppressWarnings("unchecked")
+    static <E> @NotNull Stream<E[]> doStream(final @NotNull ReadableTable<E> left, final @NotNull ReadableTable<?> right, final int @NotNull [] leftKeyCols, final int @NotNull [] rightKeyCols, final boolean keepUnmatched) {
+        final Build hashed = doBuild(right, rightKeyCols);
+        final int[] rightOutCols = calOutCols(right.cols, rightKeyCols);
+        final int width = left.cols + rightOutCols.length;
+        return IntStream.range(0, left.rows).boxed().<E[]>mapMulti((l, sink) -> {
+            int r = hashed.getFirstRow(calKey(left, l, leftKeyCols));
+            if (r == noRow && !keepUnmatched) {
+                return;
+            }
+            do {
+                final E[] row = (E[]) Array.newInstance(left.elementType, width);
+                for (int c = 0; c < left.cols; ++c) {
+                    row[c] = (E) left.doGetElementAsObject(l, c);
+                }
+                if (r != noRow) {
+                    for (int k = 0; k < rightOutCols.length; ++k) {
+                        row[left.cols + k] = (E) right.doGetElementAsObject(r, rightOutCols[k]);
+                    }
+                    r = hashed.next[r];
+                }
+                sink.accept(row);
+            } while (r != noRow);
+        });
+    }
+
+    // helpers
+
+    static @NotNull Build doBuild(final @NotNull ReadableTable<?> table, final int @NotNull [] keyCols) {
+        final HashMap<Object, Integer> heads = new HashMap<>(Math.max(16, (int) (table.rows / 0.75f) + 1));
+        final int[] next = new int[table.rows];
+        // back to front, so every chain runs in ascending row order
+        for (int r = table.rows - 1; r >= 0; --r) {
+            final Object key = calKey(table, r, keyCols);
+            if (key == null) {
+                continue;
+            }
+            final Integer head = heads.put(key, r);
+            next[r] = (head == null) ? noRow : head;
+        }
+        return new Build(heads, next);
+    }
+
+    // the cell itself for one key col, a list for several, null if any key cell is null
+    static Object calKey(final ReadableTable<?> table, final int rowIndex, final int[] keyCols) {
+        if (keyCols.length == 1) {
+            return table.doGetElementAsObject(rowIndex, keyCols[0]);
+        }
+        final Object[] vals = new Object[keyCols.length];
+        for (int k = 0; k < keyCols.length; ++k) {
+            vals[k] = table.doGetElementAsObject(rowIndex, keyCols[k]);
+            if (vals[k] == null) {
+                return null;
+            }
+        }
+        return Arrays.asList(vals);
+    }
+
+    // the cols of [0, cols) that are not key cols, ascending
+    static int @NotNull [] calOutCols(final int cols, final int[] keyCols) {
+        final boolean[] isKey = new boolean[cols];
+        int numKeys = 0;
+        for (int c : keyCols) {
+            if (!isKey[c]) {
+                isKey[c] = true;
+                ++numKeys;
+            }
+        }
+        final int[] result = new int[cols - numKeys];
+        int size = 0;
+        for (int c = 0; c < cols; ++c) {
+            if (!isKey[c]) {
+                result[size++] = c;
+            }
+        }
+        return result;
+    }
+
+    private static long[] calConcat(final ArrayList<PairList> parts) {
+        int total = 0;
+        for (PairList part : parts) {
+            total += part.size;
+        }
+        final long[] result = new long[total];
+        int pos = 0;
+        for (PairList part : parts) {
+            System.arraycopy(part.pairs, 0, result, pos, part.size);
+            pos += part.size;
+        }
+        return result;
+    }
+
+    // stable counting sort by left row (the parts are in right row order), unmatched left rows
+    // (leftMatched[l] false) get a pair with no right row
+    private static long[] calOrderedByLeft(final ArrayList<PairList> parts, final int leftRows, final boolean[] leftMatched) {
+        final int[] offsets = new int[leftRows + 1];
+        for (PairList part : parts) {
+            for (int i = 0; i < part.size; ++i) {
+                ++offsets[calLeft(part.pairs[i]) + 1];
+            }
+        }
+        if (leftMatched != null) {
+            for (int l = 0; l < leftRows; ++l) {
+                if (!leftMatched[l]) {
+                    offsets[l + 1] = 1;
+                }
+            }
+        }
+        for (int l = 0; l < leftRows; ++l) {
+            offsets[l + 1] += offsets[l];
+        }
+        final long[] result = new long[offsets[leftRows]];
+        for (PairList part : parts) {
+            for (int i = 0; i < part.size; ++i) {
+                result[offsets[calLeft(part.pairs[i])]++] = part.pairs[i];
+            }
+        }
+        if (leftMatched != null) {
+            for (int l = 0; l < leftRows; ++l) {
+                if (!leftMatched[l]) {
+                    result[offsets[l]++] = calPair(l, noRow);
+                }
+            }
+        }
+        return result;
+    }
+
+    static long calPair(final int leftRow, final int rightRow) {
+        return ((long) leftRow << 32) | (rightRow & 0xffffffffL);
+    }
+    static int calLeft(final long pair) {
+        return (int) (pair >>> 32);
+    }
+    static int calRight(final long pair) {
+        return (int) pair;
+    }
+
+    // (left row, right row) pairs of one row range, in probe order
+    static final class PairList {
+        long[] pairs;
+        int size = 0;
+
+        PairList(final int initialCapacity) {
+            pairs = new long[Math.max(initialCapacity, 1)];
+        }
+
+        void add(final int leftRow, final int rightRow) {
+            if (size == pairs.length) {
+                pairs = Arrays.copyOf(pairs, size * 2);
+            }
+            pairs[size++] = calPair(leftRow, rightRow);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package WongAndyStarSB.Table;
+
+import java.util.Arrays;
+
+// How the cells of a table are laid out in its Object[] buffer.
+//  ROW_MAJOR: r * colCap + c, rows are contiguous (default, cheapest row append/remove)
+//  COL_MAJOR: c * rowCap + r, columns are contiguous (cheapest column append/remove)
+//  CHUNKED:   16 x 16 tiles stored tile row by tile row, each tile row-major inside,
+//             neighbours in both directions stay within a few cache lines
+public enum TableLayout {
+
+    ROW_MAJOR {
+        @Override
+        int toFlatIndex(final int r, final int c, final int rowCap, final int colCap) {
+            return r * colCap + c;
+        }
+    },
+    COL_MAJOR {
+        @Override
+        int toFlatIndex(final int r, final int c, final int rowCap, final int colCap) {
+            return c * rowCap + r;
+        }
+    },
+    CHUNKED {
+        @Override
+        int toFlatIndex(final int r, final int c, final int rowCap, final int colCap) {
+            final int tileIndex = (r >> chunkShift) * (colCap >> chunkShift) + (c >> chunkShift);
+            return (tileIndex << (2 * chunkShift)) | ((r & chunkMask) << chunkShift) | (c & chunkMask);
+        }
+        @Override
+        int roundCapacity(final int cap) {
+            return (cap + chunkMask) & ~chunkMask;
+        }
+    };
+
+    static final int chunkShift = 4;
+    static final int chunkSide = 1 << chunkShift;
+    static final int chunkMask = chunkSide - 1;
+
+    abstract int toFlatIndex(final int r, final int c, final int rowCap, final int colCap);
+
+    // capacities the layout can address, CHUNKED needs whole tiles
+    int roundCapacity(final int cap) {
+        return cap;
+    }
+
+    // number of leading buffer slots that hold rows [0, rows), only meaningful for ROW_MAJOR and CHUNKED
+    int calRowsPrefixLen(final int rows, final int colCap) {
+        return roundCapacity(rows) * colCap;
+    }
+
+    // helpers - bulk operations on buffers
+
+    // copies the logical rows x cols block between two buffers of any layout/capacity
+    static void copyCells(final Object[] src, final TableLayout srcLayout, final int srcRowCap, final int srcColCap,
+                          final Object[] dst, final TableLayout dstLayout, final int dstRowCap, final int dstColCap,
+                          final int rows, final int cols) {
+        if (srcLayout == ROW_MAJOR && dstLayout == ROW_MAJOR) {
+            for (int r = 0; r < rows; ++r) {
+                System.arraycopy(src, r * srcColCap, dst, r * dstColCap, cols);
+            }
+        } else if (srcLayout == COL_MAJOR && dstLayout == COL_MAJOR) {
+            for (int c = 0; c < cols; ++c) {
+                System.arraycopy(src, c * srcRowCap, dst, c * dstRowCap, rows);
+            }
+        } else if (srcLayout == CHUNKED && dstLayout == CHUNKED && srcColCap == dstColCap) {
+            // same tile grid width, the used tile rows are one prefix
+            System.arraycopy(src, 0, dst, 0, CHUNKED.calRowsPrefixLen(rows, srcColCap));
+        } else {
+            for (int r = 0; r < rows; ++r) {
+                for (int c = 0; c < cols; ++c) {
+                    dst[dstLayout.toFlatIndex(r, c, dstRowCap, dstColCap)] = src[srcLayout.toFlatIndex(r, c, srcRowCap, srcColCap)];
+                }
+            }
+        }
+    }
+
+    // copies the numRows x numCols block at (srcRow, srcCol) to (dstRow, dstCol) of another buffer in this layout
+    void copyBlock(final Object[] src, final int srcRowCap, final int srcColCap, final int srcRow, final int srcCol,
+                   final Object[] dst, final int dstRowCap, final int dstColCap, final int dstRow, final int dstCol,
+                   final int numRows, final int numCols) {
+        if (this == ROW_MAJOR) {
+            for (int r = 0; r < numRows; ++r) {
+                System.arraycopy(src, (srcRow + r) * srcColCap + srcCol, dst, (dstRow + r) * dstColCap + dstCol, numCols);
+            }
+        } else if (this == COL_MAJOR) {
+            for (int c = 0; c < numCols; ++c) {
+                System.arraycopy(src, (srcCol + c) * srcRowCap + srcRow, dst, (dstCol + c) * dstRowCap + dstRow, numRows);
+            }
+        } else {
+            for (int r = 0; r < numRows; ++r) {
+                for (int c = 0; c < numCols; ++c) {
+                    dst[toFlatIndex(dstRow + r, dstCol + c, dstRowCap, dstColCap)] = src[toFlatIndex(srcRow + r, srcCol + c, srcRowCap, srcColCap)];
+                }
+            }
+        }
+    }
+
+    // moves rows [srcRow, srcRow + numRows) to start at dstRow (ranges may overlap), for the first cols columns
+    void moveRows(final Object[] data, final int rowCap, final int colCap, final int srcRow, final int dstRow, final int numRows, final int cols) {
+        if (numRows <= 0) {
+            return;
+        }
+        if (this == ROW_MAJOR) {
+            System.arraycopy(data, srcRow * colCap, data, dstRow * colCap, numRows * colCap);
+        } else if (this == COL_MAJOR) {
+            for (int c = 0; c < cols; ++c) {
+                System.arraycopy(data, c * rowCap + srcRow, data, c * rowCap + dstRow, numRows);
+            }
+        } else if (dstRow < srcRow) {
+            for (int r = 0; r < numRows; ++r) {
+                for (int c = 0; c < cols; ++c) {
+                    data[toFlatIndex(dstRow + r, c, rowCap, colCap)] = data[toFlatIndex(srcRow + r, c, rowCap, colCap)];
+                }
+            }
+        } else {
+            for (int r = numRows - 1; r >= 0; --r) {
+                for (int c = 0; c < cols; ++c) {
+                    data[toFlatIndex(dstRow + r, c, rowCap, colCap)] = data[toFlatIndex(srcRow + r, c, rowCap, colCap)];
+                }
+            }
+        }
+    }
+
+    // moves cols [srcCol, srcCol + numCols) to start at dstCol (ranges may overlap), for the first rows rows
+    void moveCols(final Object[] data, final int rowCap, final int colCap, final int srcCol, final int dstCol, final int numCols, final int rows) {
+        if (numCols <= 0) {
+            return;
+        }
+        if (this == COL_MAJOR) {
+            System.arraycopy(data, srcCol * rowCap, data, dstCol * rowCap, numCols * rowCap);
+        } else if (this == ROW_MAJOR) {
+            for (int r = 0; r < rows; ++r) {
+                System.arraycopy(data, r * colCap + srcCol, data, r * colCap + dstCol, numCols);
+            }
+        } else if (dstCol < srcCol) {
+            for (int r = 0; r < rows; ++r) {
+                for (int c = 0; c < numCols; ++c) {
+                    data[toFlatIndex(r, dstCol + c, rowCap, colCap)] = data[toFlatIndex(r, srcCol + c, rowCap, colCap)];
+                }
+            }
+        } else {
+            for (int r = 0; r < rows; ++r) {
+                for (int c = numCols - 1; c >= 0; --c) {
+                    data[toFlatIndex(r, dstCol + c, rowCap, colCap)] = data[toFlatIndex(r, srcCol + c, rowCap, colCap)];
+                }
+            }
+        }
+    }
+
+    // nulls rows [beginRow, endRow) in the first cols columns
+    void clearRows(final Object[] data, final int rowCap, final int colCap, final int beginRow, final int endRow, final int cols) {
+        if (this == ROW_MAJOR) {
+            Arrays.fill(data, beginRow * colCap, endRow * colCap, null);
+            return;
+        }
+        for (int c = 0; c < cols; ++c) {
+            for (int r = beginRow; r < endRow; ++r) {
+                data[toFlatIndex(r, c, rowCap, colCap)] = null;
+            }
+        }
+    }
+
+    // nulls cols [beginCol, endCol) in the first rows rows
+    void clearCols(final Object[] data, final int rowCap, final int colCap, final int beginCol, final int endCol, final int rows) {
+        if (this == COL_MAJOR) {
+            Arrays.fill(data, beginCol * rowCap, endCol * rowCap, null);
+            return;
+        }
+        for (int r = 0; r < rows; ++r) {
+            for (int c = beginCol; c < endCol; ++c) {
+                data[toFlatIndex(r, c, rowCap, colCap)] = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package WongAndyStarSB.Table;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and JFR events for the costly Table operations, off by default (setEnabled(true), or start the
+// JVM with -DWongAndyStarSB.Table.metrics=true).
+// Recorded: reallocations (old/new capacity, bytes copied and allocated), structural edits (rows/cols
+// inserted or removed), copies, transposes, formatter col width recomputes and rendered reprs.
+// While disabled every hook is one volatile read. While enabled the counters are LongAdders, and the events
+// (category ClassPlanner/Table) cost nothing beyond their allocation while no JFR recording is running.
+// Like every custom JFR event they are enabled by default, so any recording (e.g. -XX:StartFlightRecording)
+// captures them; a setting like WongAndyStarSB.Table.Realloc#enabled=false turns one of them off.
+// Bytes are estimates: cells times the cell size (a reference is taken as 4 bytes below 32 GB heaps).
+public final class TableMetrics {
+
+    static final int referenceBytes = calReferenceBytes();
+
+    // kinds of structural edits and copies, as they appear in the events
+    static final String rowsInserted = "rowsInserted";
+    static final String rowsRemoved = "rowsRemoved";
+    static final String colsInserted = "colsInserted";
+    static final String colsRemoved = "colsRemoved";
+    static final String copy = "copy";
+    static final String copyAndTrim = "copyAndTrim";
+    static final String copyWithLayout = "copyWithLayout";
+
+    // value of start() while disabled
+    static final long notStarted = 0;
+
+    private static volatile boolean enabled = Boolean.getBoolean("WongAndyStarSB.Table.metrics");
+
+    private static final LongAdder reallocs = new LongAdder();
+    private static final LongAdder reallocBytesCopied = new LongAdder();
+    private static final LongAdder reallocBytesAllocated = new LongAdder();
+    private static final LongAdder structuralEdits = new LongAdder();
+    private static final LongAdder copies = new LongAdder();
+    private static final LongAdder copyBytes = new LongAdder();
+    private static final LongAdder transposes = new LongAdder();
+    private static final LongAdder formatRecomputes = new LongAdder();
+    private static final LongAdder formatCellsScanned = new LongAdder();
+    private static final LongAdder renders = new LongAdder();
+    private static final LongAdder renderChars = new LongAdder();
+    private static final LongAccumulator maxRenderChars = new LongAccumulator(Math::max, 0);
+    // time spent in the operations above, in ns
+    private static final LongAdder reallocNanos = new LongAdder();
+    private static final LongAdder copyNanos = new LongAdder();
+    private static final LongAdder transposeNanos = new LongAdder();
+    private static final LongAdder formatNanos = new LongAdder();
+    private static final LongAdder renderNanos = new LongAdder();
+
+    private TableMetrics() {}
+
+    // settings
+
+    public static void setEnabled(final boolean enabled) {
+        TableMetrics.enabled = enabled;
+    }
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    // statistics (recorded while enabled)
+
+    public static long getReallocs() {
+        return reallocs.sum();
+    }
+    public static long getReallocBytesCopied() {
+        return reallocBytesCopied.sum();
+    }
+    public static long getReallocBytesAllocated() {
+        return reallocBytesAllocated.sum();
+    }
+    public static long getReallocNanos() {
+        return reallocNanos.sum();
+    }
+    // rows/cols inserted or removed (counted per call, not per row)
+    public static long getStructuralEdits() {
+        return structuralEdits.sum();
+    }
+    public static long getCopies() {
+        return copies.sum();
+    }
+    public static long getCopyBytes() {
+        return copyBytes.sum();
+    }
+    public static long getCopyNanos() {
+        return copyNanos.sum();
+    }
+    public static long getTransposes() {
+        return transposes.sum();
+    }
+    public static long getTransposeNanos() {
+        return transposeNanos.sum();
+    }
+    // full col width rebuilds and col rescans (single-cell updates are not counted)
+    public static long getFormatRecomputes() {
+        return formatRecomputes.sum();
+    }
+    public static long getFormatCellsScanned() {
+        return formatCellsScanned.sum();
+    }
+    public static long getFormatNanos() {
+        return formatNanos.sum();
+    }
+    public static long getRenders() {
+        return renders.sum();
+    }
+    public static long getRenderChars() {
+        return renderChars.sum();
+    }
+    public static long getMaxRenderChars() {
+        return maxRenderChars.get();
+    }
+    public static long getRenderNanos() {
+        return renderNanos.sum();
+    }
+
+    public static void resetStats() {
+        reallocs.reset();
+        reallocBytesCopied.reset();
+        reallocBytesAllocated.reset();
+        structuralEdits.reset();
+        copies.reset();
+        copyBytes.reset();
+        transposes.reset();
+        formatRecomputes.reset();
+        formatCellsScanned.reset();
+        renders.reset();
+        renderChars.reset();
+        maxRenderChars.reset();
+        reallocNanos.reset();
+        copyNanos.reset();
+        transposeNanos.reset();
+        formatNanos.reset();
+        renderNanos.reset();
+    }
+
+    // one line, for logs
+    public static String getSummary() {
+        return String.format(
+                "reallocs=%d (copied %d B, allocated %d B, %d us), structuralEdits=%d, copies=%d (%d B, %d us), "
+                        + "transposes=%d (%d us), formatRecomputes=%d (%d cells, %d us), renders=%d (%d chars, max %d, %d us)",
+                getReallocs(), getReallocBytesCopied(), getReallocBytesAllocated(), getReallocNanos() / 1000,
+                getStructuralEdits(),
+                getCopies(), getCopyBytes(), getCopyNanos() / 1000,
+                getTransposes(), getTransposeNanos() / 1000,
+                getFormatRecomputes(), getFormatCellsScanned(), getFormatNanos() / 1000,
+                getRenders(), getRenderChars(), getMaxRenderChars(), getRenderNanos() / 1000);
+    }
+
+    // recording, used by the tables and TableFormatter
+    // An operation calls start() first and passes its result to the record method, which does nothing
+    // for notStarted (metrics were disabled when the operation began).
+
+    static long start() {
+        return enabled ? System.nanoTime() : notStarted;
+    }
+
+    // capacities before the realloc, the new ones are read from table
+    static void recordRealloc(final ReadableTable<?> table, final int oldRowCap, final int oldColCap, final long cellsCopied, final long start) {
+        if (start == notStarted) {
+            return;
+        }
+        final long elapsed = System.nanoTime() - start;
+        final int cellBytes = table.calCellBytes();
+        final long bytesCopied = cellsCopied * cellBytes;
+        final long bytesAllocated = (long) table.rowCapacity * table.colCapacity * cellBytes;
+        reallocs.increment();
+        reallocBytesCopied.add(bytesCopied);
+        reallocBytesAllocated.add(bytesAllocated);
+        reallocNanos.add(elapsed);
+        ReallocEvent event = new ReallocEvent();
+        if (event.isEnabled()) {
+            event.tableType = table.getClass().getSimpleName();
+            event.oldRowCapacity = oldRowCap;
+            event.oldColCapacity = oldColCap;
+            event.newRowCapacity = table.rowCapacity;
+            event.newColCapacity = table.colCapacity;
+            event.bytesCopied = bytesCopied;
+            event.bytesAllocated = bytesAllocated;
+            event.elapsed = elapsed;
+            event.commit();
+        }
+    }
+
+    // kind: rowsInserted, rowsRemoved, colsInserted or colsRemoved
+    static void recordStructuralEdit(final ReadableTable<?> table, final String kind, final int beginIndex, final int count) {
+        if (!enabled) {
+            return;
+        }
+        structuralEdits.increment();
+        StructuralEditEvent event = new StructuralEditEvent();
+        if (event.isEnabled()) {
+            event.tableType = table.getClass().getSimpleName();
+            event.kind = kind;
+            event.beginIndex = beginIndex;
+            event.count = count;
+            event.rows = table.rows;
+            event.cols = table.cols;
+            event.commit();
+        }
+    }
+
+    // table: the source, kind: copy, copyAndTrim or copyWithLayout
+    static void recordCopy(final ReadableTable<?> table, final String kind, final long start) {
+        if (start == notStarted) {
+            return;
+        }
+        final long elapsed = System.nanoTime() - start;
+        final long bytes = (long) table.rows * table.cols * table.calCellBytes();
+        copies.increment();
+        copyBytes.add(bytes);
+        copyNanos.add(elapsed);
+        CopyEvent event = new CopyEvent();
+        if (event.isEnabled()) {
+            event.tableType = table.getClass().getSimpleName();
+            event.kind = kind;
+            event.rows = table.rows;
+            event.cols = table.cols;
+            event.bytesCopied = bytes;
+            event.elapsed = elapsed;
+            event.commit();
+        }
+    }
+
+    // table: the source (or the table itself after beTransposed)
+    static void recordTranspose(final ReadableTable<?> table, final boolean inPlace, final long start) {
+        if (start == notStarted) {
+            return;
+        }
+        final long elapsed = System.nanoTime() - start;
+        transposes.increment();
+        transposeNanos.add(elapsed);
+        TransposeEvent event = new TransposeEvent();
+        if (event.isEnabled()) {
+            event.tableType = table.getClass().getSimpleName();
+            event.inPlace = inPlace;
+            event.rows = table.rows;
+            event.cols = table.cols;
+            event.bytesMoved = (long) table.rows * table.cols * table.calCellBytes();
+            event.elapsed = elapsed;
+            event.commit();
+        }
+    }
+
+    // full: every col rebuilt, otherwise colsScanned cols were rescanned
+    static void recordFormatRecompute(final ReadableTable<?> table, final boolean full, final int colsScanned, final long start) {
+        if (start == notStarted) {
+            return;
+        }
+        final long elapsed = System.nanoTime() - start;
+        final long cells = (long) colsScanned * table.rows;
+        formatRecomputes.increment();
+        formatCellsScanned.add(cells);
+        formatNanos.add(elapsed);
+        FormatRecomputeEvent event = new FormatRecomputeEvent();
+        if (event.isEnabled()) {
+            event.tableType = table.getClass().getSimpleName();
+            event.full = full;
+            event.colsScanned = colsScanned;
+            event.cellsScanned = cells;
+            event.elapsed = elapsed;
+            event.commit();
+        }
+    }
+
+    static void recordRender(final ReadableTable<?> table, final boolean streamed, final long chars, final long start) {
+        if (start == notStarted) {
+            return;
+        }
+        final long elapsed = System.nanoTime() - start;
+        renders.increment();
+        renderChars.add(chars);
+        maxRenderChars.accumulate(chars);
+        renderNanos.add(elapsed);
+        RenderEvent event = new RenderEvent();
+        if (event.isEnabled()) {
+            event.tableType = table.getClass().getSimpleName();
+            event.streamed = streamed;
+            event.rows = table.rows;
+            event.cols = table.cols;
+            event.chars = chars;
+            event.elapsed = elapsed;
+            event.commit();
+        }
+    }
+
+    // helpers
+
+    private static int calReferenceBytes() {
+        // compressed references unless the heap is too large for them
+        final boolean is64Bit = !"32".equals(System.getProperty("sun.arch.data.model"));
+        return (is64Bit && Runtime.getRuntime().maxMemory() >= (32L << 30)) ? 8 : 4;
+    }
+
+    // JFR events (instant events, the time taken is the elapsed field)
+
+    @Name("WongAndyStarSB.Table.Realloc")
+    @Label("Table Reallocation")
+    @Category({"ClassPlanner", "Table"})
+    @Description("A table moved its cells into a buffer of another capacity")
+    static final class ReallocEvent extends Event {
+        @Label("Table Type") String tableType;
+        @Label("Old Row Capacity") int oldRowCapacity;
+        @Label("Old Col Capacity") int oldColCapacity;
+        @Label("New Row Capacity") int newRowCapacity;
+        @Label("New Col Capacity") int newColCapacity;
+        @Label("Bytes Copied") @DataAmount long bytesCopied;
+        @Label("Bytes Allocated") @DataAmount long bytesAllocated;
+        @Label("Elapsed") @Timespan long elapsed;
+    }
+
+    @Name("WongAndyStarSB.Table.StructuralEdit")
+    @Label("Table Structural Edit")
+    @Category({"ClassPlanner", "Table"})
+    @Description("Rows or cols were inserted into or removed from a table")
+    static final class StructuralEditEvent extends Event {
+        @Label("Table Type") String tableType;
+        @Label("Kind") String kind;
+        @Label("Begin Index") int beginIndex;
+        @Label("Count") int count;
+        @Label("Rows After") int rows;
+        @Label("Cols After") int cols;
+    }
+
+    @Name("WongAndyStarSB.Table.Copy")
+    @Label("Table Copy")
+    @Category({"ClassPlanner", "Table"})
+    static final class CopyEvent extends Event {
+        @Label("Table Type") String tableType;
+        @Label("Kind") String kind;
+        @Label("Rows") int rows;
+        @Label("Cols") int cols;
+        @Label("Bytes Copied") @DataAmount long bytesCopied;
+        @Label("Elapsed") @Timespan long elapsed;
+    }
+
+    @Name("WongAndyStarSB.Table.Transpose")
+    @Label("Table Transpose")
+    @Category({"ClassPlanner", "Table"})
+    static final class TransposeEvent extends Event {
+        @Label("Table Type") String tableType;
+        @Label("In Place") boolean inPlace;
+        @Label("Rows") int rows;
+        @Label("Cols") int cols;
+        @Label("Bytes Moved") @DataAmount long bytesMoved;
+        @Label("Elapsed") @Timespan long elapsed;
+    }
+
+    @Name("WongAndyStarSB.Table.FormatRecompute")
+    @Label("Table Col Width Recompute")
+    @Category({"ClassPlanner", "Table"})
+    @Description("A formatter rebuilt or rescanned col widths")
+    static final class FormatRecomputeEvent extends Event {
+        @Label("Table Type") String tableType;
+        @Label("Full Rebuild") boolean full;
+        @Label("Cols Scanned") int colsScanned;
+        @Label("Cells Scanned") long cellsScanned;
+        @Label("Elapsed") @Timespan long elapsed;
+    }
+
+    @Name("WongAndyStarSB.Table.Render")
+    @Label("Table Render")
+    @Category({"ClassPlanner", "Table"})
+    static final class RenderEvent extends Event {
+        @Label("Table Type") String tableType;
+        @Label("Streamed") boolean streamed;
+        @Label("Rows") int rows;
+        @Label("Cols") int cols;
+        @Label("Chars") long chars;
+        @Label("Elapsed") @Timespan long elapsed;
+    }
+}
@@ -0,0 +1,99 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+// Ordered index on one column of a table: the rows with a non-null cell, sorted by (cell, row), as a
+// row-id array next to the sorted cells, so a range is two binary searches.
+// A change to the column (or to the rows) only marks it stale, the next range query sorts again, so a
+// burst of edits costs one sort. Lookups are synchronized: a query may rebuild while others read.
+final class TableOrderedIndex {
+
+    int col;
+    final Comparator<Object> comparator;
+    private Object[] vals = new Object[0];
+    private int[] rowIds = new int[0];
+    private volatile boolean stale = true;
+
+    @SuppressWarnings("unchecked")
+    TableOrderedIndex(final int col, final @NotNull Comparator<?> comparator) {
+        this.col = col;
+        this.comparator = (Comparator<Object>) comparator;
+    }
+
+    // lookups
+
+    // rows with from <= cell <= to, by cell then row
+    synchronized int @NotNull [] getRowsInRange(final @NotNull ReadableTable<?> table, final @NotNull Object from, final @NotNull Object to) {
+        doRebuildIfStale(table);
+        final int begin = calLowerBound(from);
+        final int end = Math.max(begin, calUpperBound(to));
+        return Arrays.copyOfRange(rowIds, begin, end);
+    }
+
+    synchronized int countRowsInRange(final @NotNull ReadableTable<?> table, final @NotNull Object from, final @NotNull Object to) {
+        doRebuildIfStale(table);
+        final int begin = calLowerBound(from);
+        return Math.max(0, calUpperBound(to) - begin);
+    }
+
+    // every row with a non-null cell, by cell then row
+    synchronized int @NotNull [] getRowsInOrder(final @NotNull ReadableTable<?> table) {
+        doRebuildIfStale(table);
+        return rowIds.clone();
+    }
+
+    // maintenance, called by the table after it changed
+
+    void doMarkStale() {
+        stale = true;
+    }
+
+    // helpers
+
+    private void doRebuildIfStale(final ReadableTable<?> table) {
+        if (!stale) {
+            return;
+        }
+        final TableSorter.Entry[] entries = TableSorter.calSortedNonNull(table, col, comparator);
+        vals = new Object[entries.length];
+        rowIds = new int[entries.length];
+        for (int i = 0; i < entries.length; ++i) {
+            vals[i] = entries[i].key;
+            rowIds[i] = entries[i].row;
+        }
+        stale = false;
+    }
+
+    // first position with vals[pos] >= key
+    private int calLowerBound(final Object key) {
+        int lo = 0;
+        int hi = vals.length;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (comparator.compare(vals[mid], key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // first position with vals[pos] > key
+    private int calUpperBound(final Object key) {
+        int lo = 0;
+        int hi = vals.length;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (comparator.compare(vals[mid], key) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,424 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+// A query over a table, built up lazily and run by execute():
+//  where:     keeps the rows passing every condition (cell conditions and row conditions)
+//  select:    keeps only the given cols, in the given order (all cols if never called)
+//  groupBy:   one result row per distinct combination of the key cols, in order of first appearance
+//  aggregate: folds a col over each group with a Collector (over all rows if there is no groupBy),
+//             the result has the key cols first, then one col per aggregate in call order
+//  limit:     at most n result rows (the first n in row order)
+// execute() gives a table of the element type, so every aggregate has to give an E as well.
+// execute(resultType) gives a table of any type the cells share, e.g. Object.class for a count next to
+// String keys, or Double.class for the mean of a Table<Integer> without keys.
+// execute() reads the table once: each row range tests its rows and copies (or folds) the cells of the
+// matching ones, the ranges run in parallel for large tables (see RowRangeTask) unless a limit lets the
+// scan stop early. The result is allocated once with its final size, no table is built in between.
+// The query can be executed again later, it then reads the table as it is by then.
+public class TableQuery<E> {
+
+    protected final ReadableTable<E> table;
+    protected final ArrayList<CellCondition<E>> cellConditions = new ArrayList<>();
+    protected final ArrayList<Predicate<? super Row<E>>> rowConditions = new ArrayList<>();
+    protected int @NotNull [] selectedCols = new int[0];
+    protected boolean selected = false;
+    protected int @NotNull [] keyCols = new int[0];
+    protected boolean grouped = false;
+    protected final ArrayList<Aggregate<E>> aggregates = new ArrayList<>();
+    protected int limit = Integer.MAX_VALUE;
+
+    protected TableQuery(final ReadableTable<E> table) {
+        this.table = table;
+    }
+
+    // read access to the row being tested by a row condition (only valid during the call)
+    public static final class Row<E> {
+        private final ReadableTable<E> table;
+        private int rowIndex;
+
+        Row(final ReadableTable<E> table) {
+            this.table = table;
+        }
+
+        public E get(final int colIndex) {
+            table.validateColIndex(colIndex);
+            return table.doGetElementCasted(rowIndex, colIndex);
+        }
+
+        public int getRowIndex() {
+            return rowIndex;
+        }
+    }
+
+    // plan
+
+    public TableQuery<E> where(final int colIndex, final @NotNull Predicate<? super E> condition) {
+        table.validateColIndex(colIndex);
+        cellConditions.add(new CellCondition<E>(colIndex, condition));
+        return this;
+    }
+
+    public TableQuery<E> where(final @NotNull Predicate<? super Row<E>> condition) {
+        rowConditions.add(condition);
+        return this;
+    }
+
+    public TableQuery<E> select(final int @NotNull ... colIndices) {
+        validateNotGrouped("select");
+        for (int colIndex : colIndices) {
+            table.validateColIndex(colIndex);
+        }
+        selectedCols = colIndices.clone();
+        selected = true;
+        return this;
+    }
+
+    public TableQuery<E> groupBy(final int @NotNull ... keyColIndices) {
+        validateNotSelected("groupBy");
+        for (int colIndex : keyColIndices) {
+            table.validateColIndex(colIndex);
+        }
+        keyCols = keyColIndices.clone();
+        grouped = true;
+        return this;
+    }
+
+    // e.g. aggregate(2, Collectors.summingInt(Integer::intValue)) on a Table<Integer>,
+    // or aggregate(1, Collectors.counting()) on any table, run by execute(Object.class)
+    public <R> TableQuery<E> aggregate(final int colIndex, final @NotNull Collector<? super E, ?, R> collector) {
+        validateNotSelected("aggregate");
+        table.validateColIndex(colIndex);
+        aggregates.add(new Aggregate<E>(colIndex, collector));
+        return this;
+    }
+
+    public TableQuery<E> limit(final int maxRows) {
+        table.validateNonNeg(maxRows);
+        limit = maxRows;
+        return this;
+    }
+
+    // execute
+
+    public @NotNull Table<E> execute() {
+        return execute(table.elementType);
+    }
+    // every result cell has to be an R (or null): the key and selected cells are E, so R is E or one of its
+    // supertypes then, the aggregate results are checked as they come
+    public <R> @NotNull Table<R> execute(final @NotNull Class<R> resultType) {
+        validateColsInRange();
+        if (grouped || !aggregates.isEmpty()) {
+            if (keyCols.length != 0) {
+                validateResultType(resultType);
+            }
+            return doExecuteGrouped(resultType);
+        }
+        validateResultType(resultType);
+        return doExecuteRows(resultType);
+    }
+
+    // helpers
+
+    protected <R> @NotNull Table<R> doExecuteRows(final Class<R> resultType) {
+        final int[] outCols = calOutCols();
+        final int width = outCols.length;
+        // all cols of a plain row-major table: each matching row is one slice of the buffer
+        final boolean direct = !selected && table.isRowMajorReadable();
+        final RowRangeTask.Leaf<ArrayList<Chunk>> leaf = (rowBegin, rowEnd) -> {
+            final Row<E> row = new Row<E>(table);
+            Chunk chunk = new Chunk(Math.min(rowEnd - rowBegin, 64) * width);
+            for (int r = rowBegin; r < rowEnd && chunk.rows < limit; ++r) {
+                if (!isMatch(row, r)) {
+                    continue;
+                }
+                if (direct) {
+                    chunk.add(table.data, r * table.colCapacity, width);
+                } else {
+                    chunk.add(table, r, outCols);
+                }
+            }
+            ArrayList<Chunk> chunks = new ArrayList<>(1);
+            chunks.add(chunk);
+            return chunks;
+        };
+        final ArrayList<Chunk> chunks = doRun(leaf, (front, back) -> {
+            front.addAll(back);
+            return front;
+        });
+
+        int resultRows = 0;
+        for (Chunk chunk : chunks) {
+            resultRows += chunk.rows;
+        }
+        resultRows = Math.min(resultRows, limit);
+        final Table<R> result = Table.doCreateWithSizeCapacity(resultType, resultRows, width, resultRows, width, TableLayout.ROW_MAJOR);
+        // row major with colCapacity == width: the chunks are copied back to back
+        int filled = 0;
+        for (Chunk chunk : chunks) {
+            final int numRows = Math.min(chunk.rows, resultRows - filled);
+            System.arraycopy(chunk.cells, 0, result.data, filled * width, numRows * width);
+            filled += numRows;
+        }
+        return result;
+    }
+
+    protected <R> @NotNull Table<R> doExecuteGrouped(final Class<R> resultType) {
+        final int numKeys = keyCols.length;
+        final int numAggs = aggregates.size();
+        final Aggregate<?>[] aggs = aggregates.toArray(new Aggregate<?>[0]);
+        final RowRangeTask.Leaf<LinkedHashMap<Object, Group>> leaf = (rowBegin, rowEnd) -> {
+            final Row<E> row = new Row<E>(table);
+            LinkedHashMap<Object, Group> groups = new LinkedHashMap<>();
+            for (int r = rowBegin; r < rowEnd; ++r) {
+                if (!isMatch(row, r)) {
+                    continue;
+                }
+                final Group group = doGetOrCreateGroup(groups, r);
+                for (int a = 0; a < numAggs; ++a) {
+                    aggs[a].doAccumulate(group.accs[a], table.doGetElementAsObject(r, aggs[a].col));
+                }
+            }
+            return groups;
+        };
+        // the back half's groups appear later, merged into the front they keep first-appearance order
+        final LinkedHashMap<Object, Group> groups = doRun(leaf, (front, back) -> {
+            for (Map.Entry<Object, Group> entry : back.entrySet()) {
+                final Group frontGroup = front.get(entry.getKey());
+                if (frontGroup == null) {
+                    front.put(entry.getKey(), entry.getValue());
+                } else {
+                    for (int a = 0; a < numAggs; ++a) {
+                        frontGroup.accs[a] = aggs[a].doCombine(frontGroup.accs[a], entry.getValue().accs[a]);
+                    }
+                }
+            }
+            return front;
+        });
+        if (!grouped && groups.isEmpty()) {
+            // aggregates over no rows still give one row (an empty sum, count, ...)
+            groups.put(Group.noKey, new Group(new Object[0], doCreateAccs()));
+        }
+
+        final int width = numKeys + numAggs;
+        final int resultRows = Math.min(groups.size(), limit);
+        final Table<R> result = Table.doCreateWithSizeCapacity(resultType, resultRows, width, resultRows, width, TableLayout.ROW_MAJOR);
+        int pos = 0;
+        for (Group group : groups.values()) {
+            if (pos == resultRows * width) {
+                break;
+            }
+            for (int k = 0; k < numKeys; ++k) {
+                result.data[pos++] = group.keyVals[k];
+            }
+            for (int a = 0; a < numAggs; ++a) {
+                final Object val = aggs[a].doFinish(group.accs[a]);
+                if (val != null && !resultType.isInstance(val)) {
+                    throw new IllegalArgumentException(String.format(
+                            "MismatchResultType: aggregate %d gives %s, not %s (execute(Object.class) takes any result)",
+                            a, val.getClass().getName(), resultType.getName()));
+                }
+                result.data[pos++] = val;
+            }
+        }
+        return result;
+    }
+
+    // parallel over row ranges, or one sequential scan that can stop at the limit
+    protected <T> T doRun(final RowRangeTask.Leaf<T> leaf, final BinaryOperator<T> combiner) {
+        if (limit != Integer.MAX_VALUE && !grouped && aggregates.isEmpty()) {
+            return leaf.compute(0, table.rows);
+        }
+        return RowRangeTask.invoke(table.rows, table.cols, leaf, combiner);
+    }
+
+    protected boolean isMatch(final Row<E> row, final int rowIndex) {
+        for (int i = 0; i < cellConditions.size(); ++i) {
+            final CellCondition<E> condition = cellConditions.get(i);
+            if (!condition.predicate.test(table.doGetElementCasted(rowIndex, condition.col))) {
+                return false;
+            }
+        }
+        if (!rowConditions.isEmpty()) {
+            row.rowIndex = rowIndex;
+            for (int i = 0; i < rowConditions.size(); ++i) {
+                if (!rowConditions.get(i).test(row)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    protected Group doGetOrCreateGroup(final LinkedHashMap<Object, Group> groups, final int rowIndex) {
+        // a single key col is its own map key (null included), several are compared as a list
+        if (keyCols.length == 1) {
+            final Object key = table.doGetElementAsObject(rowIndex, keyCols[0]);
+            Group group = groups.get(key);
+            if (group == null) {
+                group = new Group(new Object[] { key }, doCreateAccs());
+                groups.put(key, group);
+            }
+            return group;
+        }
+        final Object[] keyVals = new Object[keyCols.length];
+        for (int k = 0; k < keyCols.length; ++k) {
+            keyVals[k] = table.doGetElementAsObject(rowIndex, keyCols[k]);
+        }
+        final Object key = (keyCols.length == 0) ? Group.noKey : Arrays.asList(keyVals);
+        Group group = groups.get(key);
+        if (group == null) {
+            group = new Group(keyVals, doCreateAccs());
+            groups.put(key, group);
+        }
+        return group;
+    }
+
+    protected Object[] doCreateAccs() {
+        final Object[] accs = new Object[aggregates.size()];
+        for (int a = 0; a < accs.length; ++a) {
+            accs[a] = aggregates.get(a).supplier.get();
+        }
+        return accs;
+    }
+
+    protected int @NotNull [] calOutCols() {
+        if (selected) {
+            return selectedCols;
+        }
+        final int[] all = new int[table.cols];
+        for (int c = 0; c < all.length; ++c) {
+            all[c] = c;
+        }
+        return all;
+    }
+
+    protected static final class CellCondition<E> {
+        final int col;
+        final Predicate<? super E> predicate;
+
+        CellCondition(final int col, final Predicate<? super E> predicate) {
+            this.col = col;
+            this.predicate = predicate;
+        }
+    }
+
+    // a Collector with its container type erased
+    @SuppressWarnings("unchecked")
+    protected static final class Aggregate<E> {
+        final int col;
+        final Supplier<Object> supplier;
+        final BiConsumer<Object, Object> accumulator;
+        final BinaryOperator<Object> combiner;
+        final Function<Object, Object> finisher;
+
+        Aggregate(final int col, final Collector<? super E, ?, ?> collector) {
+            this.col = col;
+            final Collector<Object, Object, Object> erased = (Collector<Object, Object, Object>) collector;
+            this.supplier = erased.supplier();
+            this.accumulator = erased.accumulator();
+            this.combiner = erased.combiner();
+            this.finisher = erased.finisher();
+        }
+
+        void doAccumulate(final Object acc, final Object val) {
+            accumulator.accept(acc, val);
+        }
+        Object doCombine(final Object front, final Object back) {
+            return combiner.apply(front, back);
+        }
+        Object doFinish(final Object acc) {
+            return finisher.apply(acc);
+        }
+    }
+
+    protected static final class Group {
+        static final Object noKey = new Object();
+
+        final Object[] keyVals;
+        final Object[] accs;
+
+        Group(final Object[] keyVals, final Object[] accs) {
+            this.keyVals = keyVals;
+            this.accs = accs;
+        }
+    }
+
+    // the selected cells of the matching rows of one row range, row after row
+    protected static final class Chunk {
+        Object[] cells;
+        int size = 0;
+        int rows = 0;
+
+        Chunk(final int initialCapacity) {
+            cells = new Object[Math.max(initialCapacity, 1)];
+        }
+
+        void add(final ReadableTable<?> table, final int rowIndex, final int[] outCols) {
+            doEnsureCapacity(outCols.length);
+            for (int c : outCols) {
+                cells[size++] = table.doGetElementAsObject(rowIndex, c);
+            }
+            ++rows;
+        }
+        void add(final Object[] src, final int srcPos, final int width) {
+            doEnsureCapacity(width);
+            System.arraycopy(src, srcPos, cells, size, width);
+            size += width;
+            ++rows;
+        }
+        private void doEnsureCapacity(final int width) {
+            if (size + width > cells.length) {
+                cells = Arrays.copyOf(cells, Math.max(size + width, cells.length * 2));
+            }
+        }
+    }
+
+    // throw if condition methods
+
+    protected void validateNotGrouped(final String step) {
+        if (grouped || !aggregates.isEmpty()) {
+            throw new IllegalStateException(String.format(
+                    "SelectAfterGroupBy: %s cannot follow groupBy/aggregate, the result cols are the keys and the aggregates", step));
+        }
+    }
+    protected void validateNotSelected(final String step) {
+        if (selected) {
+            throw new IllegalStateException(String.format(
+                    "GroupByAfterSelect: %s cannot follow select, the result cols are the keys and the aggregates", step));
+        }
+    }
+    protected void validateResultType(final Class<?> resultType) {
+        if (!resultType.isAssignableFrom(table.elementType)) {
+            throw new IllegalArgumentException(String.format(
+                    "MismatchResultType: the result holds cells of the %s table, which are not %s",
+                    table.elementType.getName(), resultType.getName()));
+        }
+    }
+    // the table may have lost cols since the query was planned
+    protected void validateColsInRange() {
+        for (CellCondition<E> condition : cellConditions) {
+            table.validateColIndex(condition.col);
+        }
+        for (int colIndex : selectedCols) {
+            table.validateColIndex(colIndex);
+        }
+        for (int colIndex : keyCols) {
+            table.validateColIndex(colIndex);
+        }
+        for (Aggregate<E> aggregate : aggregates) {
+            table.validateColIndex(aggregate.col);
+        }
+    }
+}
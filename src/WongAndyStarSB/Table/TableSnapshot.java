@@ -0,0 +1,234 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// An immutable copy-on-write snapshot of a Table, taken in O(1) by Table.snapshot().
+// The snapshot shares the table's buffer. Before the table overwrites cells in place, it copies the
+// touched chunks (chunkSize flat slots) of the old buffer into the snapshots that still read them there.
+// Anything that moves cells within the buffer leaves the whole old buffer to the snapshots instead
+// (see Table.doUnshareData), and reallocation simply stops writing to it.
+// Reads are safe from other threads while the owning table keeps being written by one thread.
+public class TableSnapshot<E> extends ReadableTable<E> {
+
+    static final int chunkShift = 8;
+    static final int chunkSize = 1 << chunkShift;
+    static final int chunkMask = chunkSize - 1;
+
+    private static final VarHandle savedChunksField;
+    private static final VarHandle chunks = MethodHandles.arrayElementVarHandle(Object[][].class);
+    static {
+        try {
+            savedChunksField = MethodHandles.lookup().findVarHandle(TableSnapshot.class, "savedChunks", Object[][].class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    protected final Object[] base;
+    protected final int gen;
+    // old contents of the chunks the table has overwritten since, allocated on the first save
+    protected Object[][] savedChunks = null;
+
+    protected TableSnapshot(final Table<E> table, final Object[] base, final int gen) {
+        super(table.elementType, null, table.rows, table.cols, table.rowCapacity, table.colCapacity, null);
+        this.layout = table.layout;
+        this.rowGapStart = table.rowGapStart;
+        this.rowGapLen = table.rowGapLen;
+        this.colGapStart = table.colGapStart;
+        this.colGapLen = table.colGapLen;
+        this.base = base;
+        this.gen = gen;
+    }
+
+    // getters
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] getRowClone(final int rowIndex) {
+        validateRowIndex(rowIndex);
+        E[] result = (E[]) Array.newInstance(elementType, cols);
+        for (int c = 0; c < cols; ++c) {
+            result[c] = (E) doReadFlat(toFlatIndex(rowIndex, c));
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E[] getColClone(final int colIndex) {
+        validateColIndex(colIndex);
+        E[] result = (E[]) Array.newInstance(elementType, rows);
+        for (int r = 0; r < rows; ++r) {
+            result[r] = (E) doReadFlat(toFlatIndex(r, colIndex));
+        }
+        return result;
+    }
+
+    @Override
+    public Object[] getUnderlyingArrayClone() {
+        final Object[] cells = calPhysicalCells();
+        // a pooled buffer may be longer than the capacities
+        return (cells.length == rowCapacity * colCapacity) ? cells : Arrays.copyOf(cells, rowCapacity * colCapacity);
+    }
+
+    // helpers - getters
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected E doGetElementCasted(final int rowIndex, final int colIndex) {
+        return (E) doReadFlat(toFlatIndex(rowIndex, colIndex));
+    }
+
+    @Override
+    protected Object doGetElementAsObject(final int rowIndex, final int colIndex) {
+        return doReadFlat(toFlatIndex(rowIndex, colIndex));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected E doGetElementCasted(final int flatIndex) {
+        return (E) doReadFlat(flatIndex);
+    }
+
+    @Override
+    protected Object doGetElementAsObject(final int flatIndex) {
+        return doReadFlat(flatIndex);
+    }
+
+    // a saved chunk wins, otherwise the shared buffer, re-checked in case the table saved the chunk meanwhile
+    protected Object doReadFlat(final int flatIndex) {
+        Object[] chunk = doGetSavedChunk(flatIndex >>> chunkShift);
+        if (chunk == null) {
+            final Object val = base[flatIndex];
+            VarHandle.loadLoadFence();
+            chunk = doGetSavedChunk(flatIndex >>> chunkShift);
+            if (chunk == null) {
+                return val;
+            }
+        }
+        return chunk[flatIndex & chunkMask];
+    }
+
+    private Object[] doGetSavedChunk(final int chunkIndex) {
+        final Object[][] saved = (Object[][]) savedChunksField.getAcquire(this);
+        return (saved == null) ? null : (Object[]) chunks.getAcquire(saved, chunkIndex);
+    }
+
+    // the buffer as it was when the snapshot was taken: the shared one with the saved chunks laid over it
+    protected Object[] calPhysicalCells() {
+        Object[] result = base.clone();
+        VarHandle.loadLoadFence();
+        final Object[][] saved = (Object[][]) savedChunksField.getAcquire(this);
+        if (saved != null) {
+            for (int k = 0; k < saved.length; ++k) {
+                final Object[] chunk = (Object[]) chunks.getAcquire(saved, k);
+                if (chunk != null) {
+                    System.arraycopy(chunk, 0, result, k << chunkShift, chunk.length);
+                }
+            }
+        }
+        return result;
+    }
+
+    // helpers - layout
+
+    @Override
+    protected void doCopyCellsTo(final Object[] dst, final TableLayout dstLayout, final int dstRowCap, final int dstColCap) {
+        final Object[] cells = calPhysicalCells();
+        if (hasGaps()) {
+            for (int r = 0; r < rows; ++r) {
+                for (int c = 0; c < cols; ++c) {
+                    dst[dstLayout.toFlatIndex(r, c, dstRowCap, dstColCap)] = cells[toFlatIndex(r, c)];
+                }
+            }
+            return;
+        }
+        TableLayout.copyCells(cells, layout, rowCapacity, colCapacity, dst, dstLayout, dstRowCap, dstColCap, rows, cols);
+    }
+
+    @Override
+    protected void doTransposeInto(final Object[] dst, final int dstRowCap, final int dstColCap) {
+        final Object[] cells = calPhysicalCells();
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                dst[layout.toFlatIndex(c, r, dstRowCap, dstColCap)] = cells[toFlatIndex(r, c)];
+            }
+        }
+    }
+
+    // used by Sharing, on the table's thread
+    protected void publishChunk(final int chunkIndex, final Object[] chunk) {
+        Object[][] saved = savedChunks;
+        if (saved == null) {
+            saved = new Object[(base.length >>> chunkShift) + 1][];
+            savedChunksField.setRelease(this, saved);
+        }
+        chunks.setRelease(saved, chunkIndex, chunk);
+    }
+
+    // The snapshots sharing one buffer with a table, held by the table while it writes to that buffer.
+    protected static final class Sharing {
+        final Object[] base;
+        // chunkGens[k]: every snapshot up to this gen already has chunk k (allocated on the first save)
+        int[] chunkGens = null;
+        int gen = 0;
+        // oldest first, dropped snapshots are pruned while saving
+        final ArrayList<WeakReference<TableSnapshot<?>>> snapshots = new ArrayList<>();
+
+        Sharing(final Object[] base) {
+            this.base = base;
+        }
+
+        <T> @NotNull TableSnapshot<T> createSnapshot(final Table<T> table) {
+            gen += 1;
+            TableSnapshot<T> result = new TableSnapshot<T>(table, base, gen);
+            snapshots.add(new WeakReference<>(result));
+            return result;
+        }
+
+        // call before overwriting base[flatBegin, flatEnd), false once no snapshot is left to care
+        boolean saveChunks(final int flatBegin, final int flatEnd) {
+            if (flatBegin >= flatEnd) {
+                return true;
+            }
+            if (chunkGens == null) {
+                chunkGens = new int[(base.length >>> chunkShift) + 1];
+            }
+            boolean anySaved = false;
+            final int lastChunk = (flatEnd - 1) >>> chunkShift;
+            for (int k = flatBegin >>> chunkShift; k <= lastChunk; ++k) {
+                if (chunkGens[k] == gen) {
+                    continue;
+                }
+                final int chunkBegin = k << chunkShift;
+                // one copy, shared by every snapshot newer than the last save of this chunk
+                final Object[] copy = Arrays.copyOfRange(base, chunkBegin, Math.min(base.length, chunkBegin + chunkSize));
+                for (int i = snapshots.size() - 1; i >= 0; --i) {
+                    TableSnapshot<?> snapshot = snapshots.get(i).get();
+                    if (snapshot == null) {
+                        snapshots.remove(i);
+                        continue;
+                    }
+                    if (snapshot.gen <= chunkGens[k]) {
+                        break;
+                    }
+                    snapshot.publishChunk(k, copy);
+                }
+                chunkGens[k] = gen;
+                anySaved = true;
+            }
+            if (anySaved) {
+                // the saved chunks become visible before the overwrite
+                VarHandle.storeStoreFence();
+            }
+            return !snapshots.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Stable row orders for Table.sortRows and TableOrderedIndex: the key cells are read once into
+// (key, row) entries, which are sorted with Arrays.sort, or Arrays.parallelSort from parallelMinRows rows
+// (both are stable, entries start in row order, so equal keys keep their row order).
+final class TableSorter {
+
+    static final int parallelMinRows = 1 << 13;
+
+    private TableSorter() {}
+
+    static final class Entry {
+        final Object key;
+        final int row;
+
+        Entry(final Object key, final int row) {
+            this.key = key;
+            this.row = row;
+        }
+    }
+
+    // order[newRow] = oldRow, rows compared by the cells of colIndices in turn, each with its comparator
+    @SuppressWarnings("unchecked")
+    static int @NotNull [] calRowOrder(final @NotNull ReadableTable<?> table, final int @NotNull [] colIndices, final @NotNull List<? extends Comparator<?>> comparators) {
+        final int rows = table.rows;
+        Entry[] entries = new Entry[rows];
+        for (int r = 0; r < rows; ++r) {
+            entries[r] = new Entry(table.doGetElementAsObject(r, colIndices[0]), r);
+        }
+        final Comparator<Object> first = (Comparator<Object>) comparators.get(0);
+        Comparator<Entry> cmp = (a, b) -> first.compare(a.key, b.key);
+        for (int k = 1; k < colIndices.length; ++k) {
+            // later keys are only read on ties, from a column copy
+            final Object[] keys = new Object[rows];
+            for (int r = 0; r < rows; ++r) {
+                keys[r] = table.doGetElementAsObject(r, colIndices[k]);
+            }
+            final Comparator<Object> next = (Comparator<Object>) comparators.get(k);
+            cmp = cmp.thenComparing((a, b) -> next.compare(keys[a.row], keys[b.row]));
+        }
+        doSort(entries, cmp);
+        int[] result = new int[rows];
+        for (int r = 0; r < rows; ++r) {
+            result[r] = entries[r].row;
+        }
+        return result;
+    }
+
+    // the rows with a non-null cell in colIndex, by cell then row
+    static Entry @NotNull [] calSortedNonNull(final @NotNull ReadableTable<?> table, final int colIndex, final @NotNull Comparator<Object> comparator) {
+        Entry[] entries = new Entry[table.rows];
+        int size = 0;
+        for (int r = 0; r < table.rows; ++r) {
+            final Object key = table.doGetElementAsObject(r, colIndex);
+            if (key != null) {
+                entries[size++] = new Entry(key, r);
+            }
+        }
+        if (size < entries.length) {
+            entries = Arrays.copyOf(entries, size);
+        }
+        doSort(entries, (a, b) -> comparator.compare(a.key, b.key));
+        return entries;
+    }
+
+    static void doSort(final Entry @NotNull [] entries, final @NotNull Comparator<Entry> cmp) {
+        if (entries.length >= parallelMinRows) {
+            Arrays.parallelSort(entries, cmp);
+        } else {
+            Arrays.sort(entries, cmp);
+        }
+    }
+
+    static boolean isIdentity(final int @NotNull [] order) {
+        for (int i = 0; i < order.length; ++i) {
+            if (order[i] != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,165 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+// Spliterators over the rows [row, rowEnd) of a table, split in halves at row boundaries, so every
+// part of a parallel stream reads whole rows (contiguous in a row-major buffer).
+//  Cells: every cell, row by row
+//  Rows:  one row clone per row
+// Fail-fast like the java.util collections: a change to the table during traversal throws.
+public abstract class TableSpliterator<E, T> implements Spliterator<T> {
+
+    protected final ReadableTable<E> table;
+    protected int row;
+    protected int rowEnd;
+    protected final int expectedModCount;
+
+    protected TableSpliterator(final ReadableTable<E> table, final int rowBegin, final int rowEnd, final int expectedModCount) {
+        this.table = table;
+        this.row = rowBegin;
+        this.rowEnd = rowEnd;
+        this.expectedModCount = expectedModCount;
+    }
+
+    // first row the back half may start at
+    protected abstract int calSplitBegin();
+    // a spliterator over what is left of [row, mid), this one continues at mid
+    protected abstract TableSpliterator<E, T> splitFront(final int mid);
+
+    @Override
+    public @Nullable Spliterator<T> trySplit() {
+        final int lo = calSplitBegin();
+        final int mid = (lo + rowEnd) >>> 1;
+        if (mid <= lo) {
+            return null;
+        }
+        // an ORDERED spliterator hands out the prefix and keeps the rest
+        return splitFront(mid);
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED;
+    }
+
+    protected void validateUnchanged() {
+        if (table.modCount != expectedModCount) {
+            throw new ConcurrentModificationException("TableChanged: the table was modified during traversal");
+        }
+    }
+
+    public static final class Cells<E> extends TableSpliterator<E, E> {
+        private final int cols;
+        private int col = 0;
+
+        public Cells(final ReadableTable<E> table, final int rowBegin, final int rowEnd) {
+            this(table, rowBegin, rowEnd, table.modCount);
+        }
+
+        private Cells(final ReadableTable<E> table, final int rowBegin, final int rowEnd, final int expectedModCount) {
+            super(table, rowBegin, rowEnd, expectedModCount);
+            this.cols = table.cols;
+            if (cols == 0) {
+                row = rowEnd; // nothing to visit
+            }
+        }
+
+        @Override
+        protected int calSplitBegin() {
+            return (col == 0) ? row : row + 1;
+        }
+
+        @Override
+        protected TableSpliterator<E, E> splitFront(final int mid) {
+            Cells<E> result = new Cells<E>(table, row, mid, expectedModCount);
+            result.col = col;
+            row = mid;
+            col = 0;
+            return result;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super E> action) {
+            if (row >= rowEnd) {
+                return false;
+            }
+            final E val = table.doGetElementCasted(row, col);
+            if (++col == cols) {
+                col = 0;
+                row += 1;
+            }
+            action.accept(val);
+            validateUnchanged();
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(final Consumer<? super E> action) {
+            if (table.isRowMajorReadable()) {
+                final Object[] data = table.data;
+                final int colCap = table.colCapacity;
+                for (; row < rowEnd; ++row, col = 0) {
+                    final int base = row * colCap;
+                    for (; col < cols; ++col) {
+                        action.accept((E) data[base + col]);
+                    }
+                }
+            } else {
+                for (; row < rowEnd; ++row, col = 0) {
+                    for (; col < cols; ++col) {
+                        action.accept(table.doGetElementCasted(row, col));
+                    }
+                }
+            }
+            validateUnchanged();
+        }
+
+        @Override
+        public long estimateSize() {
+            return (long) (rowEnd - row) * cols - col;
+        }
+    }
+
+    public static final class Rows<E> extends TableSpliterator<E, E[]> {
+
+        public Rows(final ReadableTable<E> table, final int rowBegin, final int rowEnd) {
+            this(table, rowBegin, rowEnd, table.modCount);
+        }
+
+        private Rows(final ReadableTable<E> table, final int rowBegin, final int rowEnd, final int expectedModCount) {
+            super(table, rowBegin, rowEnd, expectedModCount);
+        }
+
+        @Override
+        protected int calSplitBegin() {
+            return row;
+        }
+
+        @Override
+        protected TableSpliterator<E, E[]> splitFront(final int mid) {
+            Rows<E> result = new Rows<E>(table, row, mid, expectedModCount);
+            row = mid;
+            return result;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super E[]> action) {
+            if (row >= rowEnd) {
+                return false;
+            }
+            action.accept(table.getRowClone(row++));
+            validateUnchanged();
+            return true;
+        }
+
+        @Override
+        public long estimateSize() {
+            return rowEnd - row;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package WongAndyStarSB.Table;
+
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Transpose kernels shared by the tables.
+// Out-of-place copies go tile by tile so both the reads and the writes stay within a few cache lines,
+// and big tables are split across the common ForkJoinPool.
+final class TableTransposer {
+
+    // 32 x 32 refs per tile (4 KiB to 8 KiB per side), fits in L1 together with the destination tile
+    static final int blockSize = 32;
+    // below this many cells, splitting costs more than it saves
+    static final int parallelThreshold = 1 << 16;
+
+    private TableTransposer() {}
+
+    // dst[c * dstColCap + r] = src[r * srcColCap + c] for r in [0, rows), c in [0, cols)
+    // src and dst must be arrays of the same component type (Object[], int[], long[], double[], short[] or byte[])
+    static void transpose(final Object src, final int srcColCap, final Object dst, final int dstColCap, final int rows, final int cols) {
+        if ((long) rows * cols >= parallelThreshold && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            ForkJoinPool.commonPool().invoke(new TransposeTask(src, srcColCap, dst, dstColCap, 0, rows, 0, cols));
+        } else {
+            doTransposeBlocked(src, srcColCap, dst, dstColCap, 0, rows, 0, cols);
+        }
+    }
+
+    // in-place transpose of the square [0, size) x [0, size) region of a buffer with stride colCap
+    static void transposeSquareInPlace(final Object[] data, final int colCap, final int size) {
+        for (int rb = 0; rb < size; rb += blockSize) {
+            final int rEnd = Math.min(rb + blockSize, size);
+            for (int cb = rb; cb < size; cb += blockSize) {
+                final int cEnd = Math.min(cb + blockSize, size);
+                for (int r = rb; r < rEnd; ++r) {
+                    // diagonal tile: only the part above the diagonal, so each pair is swapped once
+                    for (int c = Math.max(cb, r + 1); c < cEnd; ++c) {
+                        final int i = r * colCap + c;
+                        final int j = c * colCap + r;
+                        Object tmp = data[i];
+                        data[i] = data[j];
+                        data[j] = tmp;
+                    }
+                }
+            }
+        }
+    }
+
+    // in-place transpose of the whole rowCap x colCap buffer by following permutation cycles,
+    // afterward the buffer is laid out as colCap x rowCap (the caller swaps the capacities)
+    static void transposeBufferInPlace(final Object[] data, final int rowCap, final int colCap) {
+        final int n = rowCap * colCap;
+        if (n <= 2) {
+            return;
+        }
+        // index i = r * colCap + c moves to c * rowCap + r == (i * rowCap) mod (n - 1), first and last stay
+        final int mod = n - 1;
+        BitSet visited = new BitSet(n);
+        for (int start = 1; start < mod; ++start) {
+            if (visited.get(start)) {
+                continue;
+            }
+            int cur = start;
+            Object carried = data[start];
+            do {
+                final int next = (int) ((long) cur * rowCap % mod);
+                Object tmp = data[next];
+                data[next] = carried;
+                carried = tmp;
+                visited.set(cur);
+                cur = next;
+            } while (cur != start);
+        }
+    }
+
+    // helpers
+
+    static void doTransposeBlocked(final Object src, final int srcColCap, final Object dst, final int dstColCap,
+                                   final int rBegin, final int rEnd, final int cBegin, final int cEnd) {
+        if (src instanceof Object[] s && dst instanceof Object[] d) {
+            doTransposeBlocked(s, srcColCap, d, dstColCap, rBegin, rEnd, cBegin, cEnd);
+        } else if (src instanceof int[] s && dst instanceof int[] d) {
+            doTransposeBlocked(s, srcColCap, d, dstColCap, rBegin, rEnd, cBegin, cEnd);
+        } else if (src instanceof long[] s && dst instanceof long[] d) {
+            doTransposeBlocked(s, srcColCap, d, dstColCap, rBegin, rEnd, cBegin, cEnd);
+        } else if (src instanceof double[] s && dst instanceof double[] d) {
+            doTransposeBlocked(s, srcColCap, d, dstColCap, rBegin, rEnd, cBegin, cEnd);
+        } else if (src instanceof short[] s && dst instanceof short[] d) {
+            doTransposeBlocked(s, srcColCap, d, dstColCap, rBegin, rEnd, cBegin, cEnd);
+        } else if (src instanceof byte[] s && dst instanceof byte[] d) {
+            doTransposeBlocked(s, srcColCap, d, dstColCap, rBegin, rEnd, cBegin, cEnd);
+        } else {
+            throw new IllegalArgumentException("UnsupportedArrayType: src and dst must be Object[], int[], long[], double[], short[] or byte[] of the same type");
+        }
+    }
+
+    private static void doTransposeBlocked(final Object[] src, final int srcColCap, final Object[] dst, final int dstColCap,
+                                           final int rBegin, final int rEnd, final int cBegin, final int cEnd) {
+        for (int rb = rBegin; rb < rEnd; rb += blockSize) {
+            final int rbEnd = Math.min(rb + blockSize, rEnd);
+            for (int cb = cBegin; cb < cEnd; cb += blockSize) {
+                final int cbEnd = Math.min(cb + blockSize, cEnd);
+                for (int c = cb; c < cbEnd; ++c) {
+                    final int dstBase = c * dstColCap;
+                    for (int r = rb; r < rbEnd; ++r) {
+                        dst[dstBase + r] = src[r * srcColCap + c];
+                    }
+                }
+            }
+        }
+    }
+
+    private static void doTransposeBlocked(final int[] src, final int srcColCap, final int[] dst, final int dstColCap,
+                                           final int rBegin, final int rEnd, final int cBegin, final int cEnd) {
+        for (int rb = rBegin; rb < rEnd; rb += blockSize) {
+            final int rbEnd = Math.min(rb + blockSize, rEnd);
+            for (int cb = cBegin; cb < cEnd; cb += blockSize) {
+                final int cbEnd = Math.min(cb + blockSize, cEnd);
+                for (int c = cb; c < cbEnd; ++c) {
+                    final int dstBase = c * dstColCap;
+                    for (int r = rb; r < rbEnd; ++r) {
+                        dst[dstBase + r] = src[r * srcColCap + c];
+                    }
+                }
+            }
+        }
+    }
+
+    private static void doTransposeBlocked(final long[] src, final int srcColCap, final long[] dst, final int dstColCap,
+                                           final int rBegin, final int rEnd, final int cBegin, final int cEnd) {
+        for (int rb = rBegin; rb < rEnd; rb += blockSize) {
+            final int rbEnd = Math.min(rb + blockSize, rEnd);
+            for (int cb = cBegin; cb < cEnd; cb += blockSize) {
+                final int cbEnd = Math.min(cb + blockSize, cEnd);
+                for (int c = cb; c < cbEnd; ++c) {
+                    final int dstBase = c * dstColCap;
+                    for (int r = rb; r < rbEnd; ++r) {
+                        dst[dstBase + r] = src[r * srcColCap + c];
+                    }
+                }
+            }
+        }
+    }
+
+    private static void doTransposeBlocked(final double[] src, final int srcColCap, final double[] dst, final int dstColCap,
+                                           final int rBegin, final int rEnd, final int cBegin, final int cEnd) {
+        for (int rb = rBegin; rb < rEnd; rb += blockSize) {
+            final int rbEnd = Math.min(rb + blockSize, rEnd);
+            for (int cb = cBegin; cb < cEnd; cb += blockSize) {
+                final int cbEnd = Math.min(cb + blockSize, cEnd);
+                for (int c = cb; c < cbEnd; ++c) {
+                    final int dstBase = c * dstColCap;
+                    for (int r = rb; r < rbEnd; ++r) {
+                        dst[dstBase + r] = src[r * srcColCap + c];
+                    }
+                }
+            }
+        }
+    }
+
+    private static void doTransposeBlocked(final short[] src, final int srcColCap, final short[] dst, final int dstColCap,
+                                           final int rBegin, final int rEnd, final int cBegin, final int cEnd) {
+        for (int rb = rBegin; rb < rEnd; rb += blockSize) {
+            final int rbEnd = Math.min(rb + blockSize, rEnd);
+            for (int cb = cBegin; cb < cEnd; cb += blockSize) {
+                final int cbEnd = Math.min(cb + blockSize, cEnd);
+                for (int c = cb; c < cbEnd; ++c) {
+                    final int dstBase = c * dstColCap;
+                    for (int r = rb; r < rbEnd; ++r) {
+                        dst[dstBase + r] = src[r * srcColCap + c];
+                    }
+                }
+            }
+        }
+    }
+
+    private static void doTransposeBlocked(final byte[] src, final int srcColCap, final byte[] dst, final int dstColCap,
+                                           final int rBegin, final int rEnd, final int cBegin, final int cEnd) {
+        for (int rb = rBegin; rb < rEnd; rb += blockSize) {
+            final int rbEnd = Math.min(rb + blockSize, rEnd);
+            for (int cb = cBegin; cb < cEnd; cb += blockSize) {
+                final int cbEnd = Math.min(cb + blockSize, cEnd);
+                for (int c = cb; c < cbEnd; ++c) {
+                    final int dstBase = c * dstColCap;
+                    for (int r = rb; r < rbEnd; ++r) {
+                        dst[dstBase + r] = src[r * srcColCap + c];
+                    }
+                }
+            }
+        }
+    }
+
+    // splits the longer side in half until a piece is below parallelThreshold
+    private static final class TransposeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Object src;
+        private final int srcColCap;
+        private final Object dst;
+        private final int dstColCap;
+        private final int rBegin, rEnd, cBegin, cEnd;
+
+        TransposeTask(final Object src, final int srcColCap, final Object dst, final int dstColCap,
+                      final int rBegin, final int rEnd, final int cBegin, final int cEnd) {
+            this.src = src;
+            this.srcColCap = srcColCap;
+            this.dst = dst;
+            this.dstColCap = dstColCap;
+            this.rBegin = rBegin;
+            this.rEnd = rEnd;
+            this.cBegin = cBegin;
+            this.cEnd = cEnd;
+        }
+
+        @Override
+        protected void compute() {
+            final int numRows = rEnd - rBegin;
+            final int numCols = cEnd - cBegin;
+            if ((long) numRows * numCols < parallelThreshold || (numRows <= blockSize && numCols <= blockSize)) {
+                doTransposeBlocked(src, srcColCap, dst, dstColCap, rBegin, rEnd, cBegin, cEnd);
+                return;
+            }
+            if (numRows >= numCols) {
+                // split on a tile boundary so neighbouring tasks don't share tiles
+                final int mid = rBegin + alignToBlock(numRows / 2);
+                invokeAll(
+                        new TransposeTask(src, srcColCap, dst, dstColCap, rBegin, mid, cBegin, cEnd),
+                        new TransposeTask(src, srcColCap, dst, dstColCap, mid, rEnd, cBegin, cEnd));
+            } else {
+                final int mid = cBegin + alignToBlock(numCols / 2);
+                invokeAll(
+                        new TransposeTask(src, srcColCap, dst, dstColCap, rBegin, rEnd, cBegin, mid),
+                        new TransposeTask(src, srcColCap, dst, dstColCap, rBegin, rEnd, mid, cEnd));
+            }
+        }
+
+        private static int alignToBlock(final int half) {
+            return Math.max(blockSize, half / blockSize * blockSize);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package WongAndyStarSB.Table;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Array;
+import java.util.ConcurrentModificationException;
+
+// A read-only rectangular window [rowBegin, rowBegin + rows) x [colBegin, colBegin + cols) onto a parent table.
+// Nothing is copied: every read goes through the parent's current index mapping, so the view keeps working
+// across reallocation, layout changes and cell updates of the parent. Once rows/cols of the parent move or
+// go away (insert in the middle, remove, transpose, batched edit), any further use throws.
+public class TableView<E> extends ReadableTable<E> {
+
+    protected final ReadableTable<E> parent;
+    protected int rowBegin;
+    protected int colBegin;
+    protected final int expectedStructModCount;
+    protected int seenParentModCount;
+
+    protected TableView(final ReadableTable<E> parent, final int rowBegin, final int rowEnd, final int colBegin, final int colEnd) {
+        super(parent.elementType, null, rowEnd - rowBegin, colEnd - colBegin, rowEnd - rowBegin, colEnd - colBegin, null);
+        this.parent = parent;
+        this.rowBegin = rowBegin;
+        this.colBegin = colBegin;
+        this.expectedStructModCount = parent.structModCount;
+        this.seenParentModCount = parent.modCount;
+    }
+
+    // no check, the caller validates the range
+    protected static <T> @NotNull TableView<T> create(final ReadableTable<T> parent, final int rowBegin, final int rowEnd, final int colBegin, final int colEnd) {
+        if (parent instanceof TableView<T> view) {
+            // a view of a view reads the root directly
+            view.validateParentUnchanged();
+            return new TableView<T>(view.parent, view.rowBegin + rowBegin, view.rowBegin + rowEnd, view.colBegin + colBegin, view.colBegin + colEnd);
+        }
+        return new TableView<T>(parent, rowBegin, rowEnd, colBegin, colEnd);
+    }
+
+    // getters
+
+    public @NotNull ReadableTable<E> getParent() {
+        return parent;
+    }
+    public int getRowBegin() {
+        return rowBegin;
+    }
+    public int getColBegin() {
+        return colBegin;
+    }
+
+    // slides the window (same size) to another position of the parent, so one view can walk all rows/cols
+    public @NotNull TableView<E> moveTo(final int newRowBegin, final int newColBegin) {
+        validateParentUnchanged();
+        if (newRowBegin < 0 || newColBegin < 0 || newRowBegin + rows > parent.rows || newColBegin + cols > parent.cols) {
+            throw new IllegalArgumentException(String.format(
+                    "IllegalViewPosition: a %d x %d view at (%d, %d) does not fit in the %d x %d parent",
+                    rows, cols, newRowBegin, newColBegin, parent.rows, parent.cols));
+        }
+        rowBegin = newRowBegin;
+        colBegin = newColBegin;
+        onTableChange();
+        return this;
+    }
+
+    public boolean isValid() {
+        return parent.structModCount == expectedStructModCount;
+    }
+
+    @Override
+    public @NotNull TableFormatter<E> getFormatter() {
+        doSyncWithParent();
+        return super.getFormatter();
+    }
+
+    @Override
+    public E[] getRowClone(final int rowIndex) {
+        validateRowIndex(rowIndex);
+        @SuppressWarnings("unchecked")
+        E[] result = (E[]) Array.newInstance(elementType, cols);
+        for (int c = 0; c < cols; ++c) {
+            result[c] = doGetElementCasted(rowIndex, c);
+        }
+        return result;
+    }
+
+    @Override
+    public E[] getColClone(final int colIndex) {
+        validateColIndex(colIndex);
+        @SuppressWarnings("unchecked")
+        E[] result = (E[]) Array.newInstance(elementType, rows);
+        for (int r = 0; r < rows; ++r) {
+            result[r] = doGetElementCasted(r, colIndex);
+        }
+        return result;
+    }
+
+    // the cells of the window, row-major without slack
+    @Override
+    public Object[] getUnderlyingArrayClone() {
+        Object[] result = new Object[rows * cols];
+        doCopyCellsTo(result, TableLayout.ROW_MAJOR, rows, cols);
+        return result;
+    }
+
+    // common functions
+
+    @Override
+    public @NotNull String toString() {
+        doSyncWithParent();
+        return super.toString();
+    }
+
+    // helpers - getters
+
+    @Override
+    protected E doGetElementCasted(final int rowIndex, final int colIndex) {
+        validateParentUnchanged();
+        return parent.doGetElementCasted(rowBegin + rowIndex, colBegin + colIndex);
+    }
+
+    @Override
+    protected Object doGetElementAsObject(final int rowIndex, final int colIndex) {
+        validateParentUnchanged();
+        return parent.doGetElementAsObject(rowBegin + rowIndex, colBegin + colIndex);
+    }
+
+    // flat indices of a view are row-major over the window
+    @Override
+    protected E doGetElementCasted(final int flatIndex) {
+        return doGetElementCasted(flatIndex / cols, flatIndex % cols);
+    }
+
+    @Override
+    protected Object doGetElementAsObject(final int flatIndex) {
+        return doGetElementAsObject(flatIndex / cols, flatIndex % cols);
+    }
+
+    // helpers - repr
+
+    @Override
+    protected int doCalElementReprLen(final int rowIndex, final int colIndex, final String nullRepr) {
+        validateParentUnchanged();
+        return parent.doCalElementReprLen(rowBegin + rowIndex, colBegin + colIndex, nullRepr);
+    }
+
+    @Override
+    protected String doGetElementRepr(final int rowIndex, final int colIndex, final String nullRepr) {
+        validateParentUnchanged();
+        return parent.doGetElementRepr(rowBegin + rowIndex, colBegin + colIndex, nullRepr);
+    }
+
+    @Override
+    protected int calModStamp() {
+        return parent.calModStamp() + modCount;
+    }
+
+    // helpers - layout
+
+    @Override
+    protected void doCopyCellsTo(final Object[] dst, final TableLayout dstLayout, final int dstRowCap, final int dstColCap) {
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                dst[dstLayout.toFlatIndex(r, c, dstRowCap, dstColCap)] = doGetElementAsObject(r, c);
+            }
+        }
+    }
+
+    @Override
+    protected void doTransposeInto(final Object[] dst, final int dstRowCap, final int dstColCap) {
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                dst[layout.toFlatIndex(c, r, dstRowCap, dstColCap)] = doGetElementAsObject(r, c);
+            }
+        }
+    }
+
+    // helpers - parent tracking
+
+    // the parent doesn't notify its views, so the formatter catches up on the next render
+    protected void doSyncWithParent() {
+        validateParentUnchanged();
+        if (seenParentModCount != parent.modCount) {
+            seenParentModCount = parent.modCount;
+            onTableChange();
+        }
+    }
+
+    protected void validateParentUnchanged() {
+        if (parent.structModCount != expectedStructModCount) {
+            throw new ConcurrentModificationException(
+                    "StaleView: rows/cols of the parent table were inserted, removed or rearranged after the view was created");
+        }
+    }
+}